@@ -0,0 +1,144 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs disk writes on dedicated threads with a bounded queue, off the camera background thread.
+ *
+ * <p>A slow write therefore never delays capture callbacks. When all threads are busy and the
+ * queue is full, further writes are rejected right away rather than buffered, and the caller has to
+ * report the failure. The time writes wait in the queue and take to run is recorded.
+ */
+class BoundedIoExecutor {
+  private final ThreadPoolExecutor workers;
+  private final int queueCapacity;
+  private long submittedCount;
+  private long rejectedCount;
+  private long completedCount;
+  private int maxQueueDepth;
+  private long totalWaitNanos;
+  private long totalWriteNanos;
+  private long maxWriteNanos;
+
+  /**
+   * Creates a new instance of the {@link BoundedIoExecutor}.
+   *
+   * @param threadCount the number of threads that write concurrently.
+   * @param queueCapacity the number of writes that can wait for a thread.
+   */
+  BoundedIoExecutor(int threadCount, int queueCapacity) {
+    if (threadCount < 1 || queueCapacity < 1) {
+      throw new IllegalArgumentException("threadCount and queueCapacity must be at least 1.");
+    }
+    this.queueCapacity = queueCapacity;
+    this.workers =
+        new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new IoThreadFactory());
+  }
+
+  /**
+   * Queues a write.
+   *
+   * @param write the write.
+   * @return whether the write was queued. It is rejected when the queue is full or the executor
+   *     has been shut down, in which case it never runs.
+   */
+  boolean execute(@NonNull Runnable write) {
+    final long submitNanos = System.nanoTime();
+    try {
+      workers.execute(() -> run(write, submitNanos));
+    } catch (RejectedExecutionException e) {
+      synchronized (this) {
+        rejectedCount++;
+      }
+      return false;
+    }
+    final int queueDepth = workers.getQueue().size();
+    synchronized (this) {
+      submittedCount++;
+      maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+    }
+    return true;
+  }
+
+  /** Returns the number of threads that write concurrently. */
+  int getThreadCount() {
+    return workers.getCorePoolSize();
+  }
+
+  /** Returns the number of writes waiting for a thread. */
+  int getQueueDepth() {
+    return workers.getQueue().size();
+  }
+
+  /**
+   * Gets the counters of the executor.
+   *
+   * @return a map containing the current and maximum queue depth, the queue capacity, the number
+   *     of submitted, completed and rejected writes, and the average queue wait and average and
+   *     maximum write time in microseconds.
+   */
+  synchronized Map<String, Object> getStats() {
+    final Map<String, Object> stats = new HashMap<>();
+    stats.put("queueDepth", getQueueDepth());
+    stats.put("maxQueueDepth", maxQueueDepth);
+    stats.put("queueCapacity", queueCapacity);
+    stats.put("submittedWrites", submittedCount);
+    stats.put("completedWrites", completedCount);
+    stats.put("rejectedWrites", rejectedCount);
+    stats.put(
+        "averageQueueWaitMicros", completedCount == 0 ? 0L : totalWaitNanos / completedCount / 1000);
+    stats.put(
+        "averageWriteMicros", completedCount == 0 ? 0L : totalWriteNanos / completedCount / 1000);
+    stats.put("maxWriteMicros", maxWriteNanos / 1000);
+    return stats;
+  }
+
+  /** Stops accepting writes. Queued writes still run. */
+  void shutdown() {
+    workers.shutdown();
+  }
+
+  private void run(Runnable write, long submitNanos) {
+    final long startNanos = System.nanoTime();
+    try {
+      write.run();
+    } finally {
+      final long endNanos = System.nanoTime();
+      synchronized (this) {
+        completedCount++;
+        totalWaitNanos += startNanos - submitNanos;
+        totalWriteNanos += endNanos - startNanos;
+        maxWriteNanos = Math.max(maxWriteNanos, endNanos - startNanos);
+      }
+    }
+  }
+
+  private static final class IoThreadFactory implements ThreadFactory {
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      final Thread thread = new Thread(runnable, "CameraIo-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
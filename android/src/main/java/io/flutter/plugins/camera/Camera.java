@@ -15,19 +15,21 @@ import android.hardware.camera2.CameraCaptureSession;
 import android.hardware.camera2.CameraDevice;
 import android.hardware.camera2.CameraManager;
 import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.CaptureFailure;
 import android.hardware.camera2.CaptureRequest;
 import android.hardware.camera2.TotalCaptureResult;
 import android.hardware.camera2.params.OutputConfiguration;
 import android.hardware.camera2.params.SessionConfiguration;
+import android.hardware.camera2.params.StreamConfigurationMap;
 import android.media.CamcorderProfile;
 import android.media.Image;
 import android.media.ImageReader;
+import android.media.MediaCodec;
 import android.media.MediaRecorder;
 import android.os.Build;
 import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
 import android.os.Handler;
-import android.os.HandlerThread;
 import android.os.Looper;
 import android.util.Log;
 import android.util.Size;
@@ -35,12 +37,8 @@ import android.view.Display;
 import android.view.Surface;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.lifecycle.Lifecycle;
-import androidx.lifecycle.LifecycleObserver;
-import androidx.lifecycle.OnLifecycleEvent;
 import io.flutter.embedding.engine.systemchannels.PlatformChannel;
 import io.flutter.plugin.common.EventChannel;
-import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.MethodChannel.Result;
 import io.flutter.plugins.camera.features.CameraFeature;
 import io.flutter.plugins.camera.features.CameraFeatureFactory;
@@ -60,36 +58,90 @@ import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
 import io.flutter.plugins.camera.features.sensororientation.DeviceOrientationManager;
 import io.flutter.plugins.camera.features.sensororientation.SensorOrientationFeature;
 import io.flutter.plugins.camera.features.zoomlevel.ZoomLevelFeature;
+import io.flutter.plugins.camera.imagestream.FramePacer;
+import io.flutter.plugins.camera.imagestream.ImageStreamBufferPool;
+import io.flutter.plugins.camera.imagestream.ImageStreamOptions;
+import io.flutter.plugins.camera.imagestream.LatestFrameHolder;
+import io.flutter.plugins.camera.imagestream.OrderedFrameExecutor;
 import io.flutter.plugins.camera.media.MediaRecorderBuilder;
 import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import io.flutter.plugins.camera.types.CaptureResultRing;
 import io.flutter.plugins.camera.types.CaptureTimeoutsWrapper;
 import io.flutter.view.TextureRegistry.SurfaceTextureEntry;
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @FunctionalInterface
 interface ErrorCallback {
   void onError(String errorCode, String errorMessage);
 }
 
-class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageReader.OnImageAvailableListener,
-    LifecycleObserver {
+class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageReader.OnImageAvailableListener {
   private static final String TAG = "Camera";
 
+  /** Number of threads that analyze stream frames, one per processor core. */
+  private static final int FRAME_ANALYSIS_THREADS = OrderedFrameExecutor.getDefaultThreadCount();
+
+  /**
+   * Number of images the stream reader can hold: one per frame analysis thread, one pending frame
+   * plus the newest image.
+   */
+  private static final int IMAGE_STREAM_MAX_IMAGES = FRAME_ANALYSIS_THREADS + 2;
+
+  /**
+   * Time stream frames that are being analyzed get to finish when the camera is closed, before their
+   * reader is closed anyway, and when the camera threads are stopped.
+   */
+  private static final long FRAME_ANALYSIS_DRAIN_TIMEOUT_MS = 500;
+
+  /**
+   * Maximum number of pictures of a burst, which is also the number of images the picture reader
+   * can hold, so a burst never waits for pictures to be saved.
+   */
+  static final int MAX_BURST_SIZE = 10;
+
+  /** Number of threads that save pictures concurrently. */
+  private static final int IO_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+  /** Number of pictures that can wait to be saved, enough for a complete burst. */
+  private static final int IO_QUEUE_CAPACITY = MAX_BURST_SIZE;
+
+  /**
+   * Maximum age of the latest converged capture result for a still picture to skip the focus and
+   * precapture sequences.
+   */
+  private static final long CONVERGED_RESULT_MAX_AGE_NANOS = 250_000_000L;
+
+  /** Number of pictures that can wait while another picture is being taken. */
+  private static final int MAX_QUEUED_PICTURES = 4;
+
+  /** Number of recent full resolution frames kept for zero shutter lag pictures. */
+  private static final int ZSL_BUFFER_SIZE = 3;
+
+  /**
+   * Number of images the zero shutter lag reader can hold: the buffered frames plus the newest
+   * image, which is acquired before the oldest one is closed. A frame that is taken as a picture is
+   * copied out of its image right away, so saving pictures does not hold images of the reader.
+   */
+  private static final int ZSL_MAX_IMAGES = ZSL_BUFFER_SIZE + 1;
+
   private static final HashMap<String, Integer> supportedImageFormats;
 
   // Current supported outputs.
   static {
     supportedImageFormats = new HashMap<>();
     supportedImageFormats.put("yuv420", ImageFormat.YUV_420_888);
+    // Streams the Y plane of YUV_420_888 images only.
+    supportedImageFormats.put("yuv420_luma", ImageFormat.YUV_420_888);
     supportedImageFormats.put("jpeg", ImageFormat.JPEG);
   }
 
@@ -102,6 +154,10 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
   private final SurfaceTextureEntry flutterTexture;
   private final boolean enableAudio;
   private final boolean isSquare;
+  /** Whether pictures are forced to the storage device before their path is returned. */
+  private volatile boolean syncPicturesToDisk;
+  /** The JPEG quality of pictures, from 1 to 100. */
+  private volatile int jpegQuality = SquareCropper.DEFAULT_JPEG_QUALITY;
   private final Context applicationContext;
   private final DartMessenger dartMessenger;
   private final CameraProperties cameraProperties;
@@ -112,18 +168,76 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
    * JPEG capture.
    */
   private final CameraCaptureCallback cameraCaptureCallback;
-  /** A {@link Handler} for running tasks in the background. */
-  private Handler backgroundHandler;
-
-  /** An additional thread for running tasks that shouldn't block the UI. */
-  private HandlerThread backgroundHandlerThread;
+  /** The threads of the camera, which are shared by all of its sessions until it is disposed. */
+  private final CameraExecutors executors;
+  /** A {@link Handler} for running tasks on the camera control thread. */
+  private final Handler backgroundHandler;
+
+  /** A {@link Handler} for posting image stream frames to the main thread. */
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  /** Runs the native frame processors that Dart enabled on the frames of the image stream reader. */
+  private final FrameProcessorRunner frameProcessorRunner = new FrameProcessorRunner();
+  /**
+   * Runs frame processors and stream copies on worker threads, keeping the background thread free
+   * for capture callbacks, and delivers their results in capture order.
+   */
+  private final OrderedFrameExecutor frameAnalysisExecutor;
 
   private CameraDevice cameraDevice;
   private CameraCaptureSession captureSession;
   private ImageReader pictureImageReader;
+  /** Saves pictures off the background thread, so writes do not delay capture callbacks. */
+  private final BoundedIoExecutor ioExecutor;
   private ImageReader imageStreamReader;
+  /** Whether pictures are taken from recent preview frames instead of a new still capture. */
+  private boolean zeroShutterLagEnabled;
+  /** Receives full resolution frames of the preview, only set while zero shutter lag is enabled. */
+  private ImageReader zslImageReader;
+  /** The most recent frames of the zero shutter lag reader. */
+  private final ZeroShutterLagBuffer zslBuffer = new ZeroShutterLagBuffer(ZSL_BUFFER_SIZE);
+  /** Counters of the ways pictures have been taken, see {@link #getCaptureStats()}. */
+  private long zeroShutterLagCaptures;
+  private long fastPathCaptures;
+  private long precaptureCaptures;
+  /** Rolling percentiles of the phase timings of the most recent pictures. */
+  private final CaptureLatencyStats captureLatencyStats =
+      new CaptureLatencyStats(CaptureLatencyStats.DEFAULT_WINDOW_SIZE);
+  /** The sink of the image stream, only set while Dart is listening. */
+  private volatile EventChannel.EventSink imageStreamSink;
+  /** The options of the running image stream. */
+  private ImageStreamOptions imageStreamOptions = ImageStreamOptions.createDefault();
+  /** Reusable buffers for the frames of the image stream, one per frame in flight. */
+  private ImageStreamBufferPool imageStreamBufferPool;
+  /**
+   * The tasks that analyze stream images, one per slot of the frame analysis executor. Every task
+   * keeps its own writer, so their scratch buffers are not shared.
+   */
+  private final StreamFrameTask[] streamFrameTasks;
+  /** Whether the camera was opened with the {@code yuv420_luma} image format group. */
+  private boolean lumaOnlyImageStream;
+  /** Drops stream frames above the maximum frame rate, only set when the stream options ask for it. */
+  private FramePacer imageStreamPacer;
+  /** Holds the newest image that is waiting for a free frame of the image stream. */
+  private final LatestFrameHolder<Image> pendingStreamImage = new LatestFrameHolder<>();
+  /** Delivers the pending stream image once a frame has been received by Dart. */
+  private final Runnable drainPendingStreamImage = this::drainPendingStreamImage;
   /** {@link CaptureRequest.Builder} for the camera preview */
   private CaptureRequest.Builder previewRequestBuilder;
+  /**
+   * Whether the session is configured with the outputs of the preview, image stream and recording
+   * at once, so switching between them only replaces the repeating request.
+   */
+  private boolean persistentSession;
+  /** The outputs the persistent session was configured with, or null when there is none. */
+  private List<Surface> persistentSessionOutputs;
+  /** The surface the persistent session renders the preview to. */
+  private Surface persistentFlutterSurface;
+  /** The persistent input surface of the media recorder, which is an output of the persistent session. */
+  private Surface recorderSurface;
+  private long sessionConfigurations;
+  private long repeatingRequestSwitches;
+  /** The timings of the latest open of the camera, or null before it was opened. */
+  private volatile CameraOpenTimings openTimings;
 
   private MediaRecorder mediaRecorder;
   /** True when recording video. */
@@ -131,14 +245,19 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
   /** True when the preview is paused. */
   private boolean pausedPreview;
 
-  private File captureFile;
+  /** The file the video that is being recorded is written to. */
+  private File videoFile;
+  /** The pictures that wait to be taken, are being taken or wait for their image. */
+  private final PictureQueue pictureQueue = new PictureQueue(MAX_QUEUED_PICTURES);
 
   /** Holds the current capture timeouts */
   private CaptureTimeoutsWrapper captureTimeouts;
   /** Holds the last known capture properties */
   private CameraCaptureProperties captureProps;
-
-  private MethodChannel.Result flutterResult;
+  /** Holds the capture properties of the most recent results, to match stream images by timestamp. */
+  private final CaptureResultRing captureResults = new CaptureResultRing(CaptureResultRing.DEFAULT_CAPACITY);
+  /** Number of streamed images without a matching capture result, sent with the last known properties. */
+  private final AtomicLong unmatchedStreamFrames = new AtomicLong();
 
   public Camera(final Activity activity, final SurfaceTextureEntry flutterTexture,
       final CameraFeatureFactory cameraFeatureFactory, final DartMessenger dartMessenger,
@@ -162,18 +281,30 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
     // Create capture callback.
     captureTimeouts = new CaptureTimeoutsWrapper(3000, 3000);
     captureProps = new CameraCaptureProperties();
-    cameraCaptureCallback = CameraCaptureCallback.create(this, captureTimeouts, captureProps);
-
-    startBackgroundThread();
+    cameraCaptureCallback = CameraCaptureCallback.create(this, captureTimeouts, captureProps, captureResults);
+    cameraCaptureCallback.setFixedFocus(!cameraFeatures.getAutoFocus().checkIsSupported());
+
+    executors = new CameraExecutors(FRAME_ANALYSIS_THREADS, mainHandler::post, IO_THREADS, IO_QUEUE_CAPACITY);
+    backgroundHandler = executors.getControlHandler();
+    frameAnalysisExecutor = executors.getAnalysisExecutor();
+    ioExecutor = executors.getIoExecutor();
+    streamFrameTasks = new StreamFrameTask[frameAnalysisExecutor.getThreadCount()];
+    for (int i = 0; i < streamFrameTasks.length; i++) {
+      streamFrameTasks[i] = new StreamFrameTask(frameProcessorRunner, captureResults, unmatchedStreamFrames);
+    }
   }
 
   @Override
   public void onConverged() {
+    markActivePicture(cameraCaptureCallback.getCameraState() == CameraState.STATE_WAITING_FOCUS
+        ? CaptureTimings.AF_LOCK_DONE
+        : CaptureTimings.PRECAPTURE_DONE);
     takePictureAfterPrecapture();
   }
 
   @Override
   public void onPrecapture() {
+    markActivePicture(CaptureTimings.AF_LOCK_DONE);
     runPrecaptureSequence();
   }
 
@@ -189,7 +320,7 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
     }
   }
 
-  private void prepareMediaRecorder(String outputFilePath) throws IOException {
+  private void prepareMediaRecorder(String outputFilePath, @Nullable Surface inputSurface) throws IOException {
     Log.i(TAG, "prepareMediaRecorder");
 
     if (mediaRecorder != null) {
@@ -200,6 +331,7 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
         .getSensorOrientation()).getLockedCaptureOrientation();
 
     mediaRecorder = new MediaRecorderBuilder(getRecordingProfile(), outputFilePath).setEnableAudio(enableAudio)
+        .setInputSurface(inputSurface)
         .setMediaOrientation(lockedOrientation == null ? getDeviceOrientationManager().getVideoOrientation()
             : getDeviceOrientationManager().getVideoOrientation(lockedOrientation))
         .build();
@@ -219,38 +351,26 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
       return;
     }
 
-    // Always capture using JPEG format.
-    pictureImageReader = ImageReader.newInstance(resolutionFeature.getCaptureSize().getWidth(),
-        resolutionFeature.getCaptureSize().getHeight(), ImageFormat.JPEG, 1);
-
-    // For image streaming, use the provided image format or fall back to YUV420.
-    Integer imageFormat = supportedImageFormats.get(imageFormatGroup);
-    if (imageFormat == null) {
-      Log.w(TAG, "The selected imageFormatGroup is not supported by Android. Defaulting to yuv420");
-      imageFormat = ImageFormat.YUV_420_888;
-    }
-    imageStreamReader = ImageReader.newInstance(resolutionFeature.getPreviewSize().getWidth(),
-        resolutionFeature.getPreviewSize().getHeight(), imageFormat, 1);
-
-    // Open the camera.
-    CameraManager cameraManager = CameraUtils.getCameraManager(activity);
-    cameraManager.openCamera(cameraProperties.getCameraName(), new CameraDevice.StateCallback() {
+    final CameraOpenTimings timings = new CameraOpenTimings();
+    openTimings = timings;
+    final OpenBarrier openBarrier = new OpenBarrier(backgroundHandler::post);
+    final CameraManager cameraManager = CameraUtils.getCameraManager(activity);
+    final String cameraName = cameraProperties.getCameraName();
+    final CameraDevice.StateCallback stateCallback = new CameraDevice.StateCallback() {
       @Override
       public void onOpened(@NonNull CameraDevice device) {
-        cameraDevice = device;
-        try {
-          startPreview();
-          Log.w(TAG, "********" + resolutionFeature.getPreviewSize().getWidth() + "*********"
-              + resolutionFeature.getPreviewSize().getHeight());
-
-          dartMessenger.sendCameraInitializedEvent(resolutionFeature.getPreviewSize().getWidth(),
-              resolutionFeature.getPreviewSize().getHeight(), cameraFeatures.getExposureLock().getValue(),
-              cameraFeatures.getAutoFocus().getValue(), cameraFeatures.getExposurePoint().checkIsSupported(),
-              cameraFeatures.getFocusPoint().checkIsSupported());
-        } catch (CameraAccessException e) {
-          dartMessenger.sendCameraErrorEvent(e.getMessage());
+        timings.mark(CameraOpenTimings.DEVICE_OPENED);
+        openBarrier.onDeviceCallback(() -> {
+          final RuntimeException outputsError = openBarrier.getOutputsError();
+          if (outputsError == null) {
+            onDeviceOpened(device, timings);
+            return;
+          }
+          // The preview cannot start without its outputs.
+          device.close();
           close();
-        }
+          dartMessenger.sendCameraErrorEvent(outputsError.getMessage());
+        });
       }
 
       @Override
@@ -265,15 +385,16 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
       public void onDisconnected(@NonNull CameraDevice cameraDevice) {
         Log.i(TAG, "open | onDisconnected");
 
-        close();
-        dartMessenger.sendCameraErrorEvent("The camera was disconnected.");
+        openBarrier.onDeviceCallback(() -> {
+          close();
+          dartMessenger.sendCameraErrorEvent("The camera was disconnected.");
+        });
       }
 
       @Override
       public void onError(@NonNull CameraDevice cameraDevice, int errorCode) {
         Log.i(TAG, "open | onError");
 
-        close();
         String errorDescription;
         switch (errorCode) {
         case ERROR_CAMERA_IN_USE:
@@ -294,9 +415,83 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
         default:
           errorDescription = "Unknown camera error";
         }
-        dartMessenger.sendCameraErrorEvent(errorDescription);
+        openBarrier.onDeviceCallback(() -> {
+          close();
+          dartMessenger.sendCameraErrorEvent(errorDescription);
+        });
       }
-    }, backgroundHandler);
+    };
+
+    // Open the camera first. openCamera blocks its thread until the camera service has opened the
+    // device, so it runs on the camera control thread while this thread prepares the outputs. The
+    // device callbacks wait in the barrier until the outputs are ready, or have failed.
+    backgroundHandler.post(() -> {
+      try {
+        cameraManager.openCamera(cameraName, stateCallback, backgroundHandler);
+      } catch (CameraAccessException | SecurityException | IllegalArgumentException e) {
+        openBarrier.onDeviceCallback(() -> {
+          close();
+          dartMessenger.sendCameraErrorEvent(e.getMessage());
+        });
+      }
+    });
+
+    try {
+      prepareOutputs(imageFormatGroup);
+    } catch (RuntimeException e) {
+      openBarrier.onOutputsFailed(e);
+      throw e;
+    }
+    timings.mark(CameraOpenTimings.OUTPUTS_PREPARED);
+    openBarrier.onOutputsReady();
+  }
+
+  /** Allocates the image readers and surfaces the capture sessions of the camera render to. */
+  private void prepareOutputs(String imageFormatGroup) {
+    final ResolutionFeature resolutionFeature = cameraFeatures.getResolution();
+
+    // Always capture using JPEG format.
+    pictureImageReader = ImageReader.newInstance(resolutionFeature.getCaptureSize().getWidth(),
+        resolutionFeature.getCaptureSize().getHeight(), ImageFormat.JPEG, MAX_BURST_SIZE);
+
+    // For image streaming, use the provided image format or fall back to YUV420.
+    Integer imageFormat = supportedImageFormats.get(imageFormatGroup);
+    lumaOnlyImageStream = "yuv420_luma".equals(imageFormatGroup);
+    if (imageFormat == null) {
+      Log.w(TAG, "The selected imageFormatGroup is not supported by Android. Defaulting to yuv420");
+      imageFormat = ImageFormat.YUV_420_888;
+    }
+    imageStreamReader = ImageReader.newInstance(resolutionFeature.getPreviewSize().getWidth(),
+        resolutionFeature.getPreviewSize().getHeight(), imageFormat, IMAGE_STREAM_MAX_IMAGES);
+    frameProcessorRunner.open(cameraProperties.getCameraName(), resolutionFeature.getPreviewSize().getWidth(),
+        resolutionFeature.getPreviewSize().getHeight(), imageFormat);
+    if (zeroShutterLagEnabled) {
+      createZslImageReader();
+    }
+  }
+
+  /** Starts the preview once both the device and the outputs of the camera are ready. */
+  private void onDeviceOpened(CameraDevice device, CameraOpenTimings timings) {
+    final ResolutionFeature resolutionFeature = cameraFeatures.getResolution();
+    cameraDevice = device;
+    cameraCaptureCallback.runOnNextResult(() -> {
+      if (timings.mark(CameraOpenTimings.FIRST_FRAME)) {
+        Log.i(TAG, "Time to first frame: " + timings.getElapsedNanos(CameraOpenTimings.FIRST_FRAME) / 1000000 + " ms");
+      }
+    });
+    try {
+      startPreview();
+      Log.w(TAG, "********" + resolutionFeature.getPreviewSize().getWidth() + "*********"
+          + resolutionFeature.getPreviewSize().getHeight());
+
+      dartMessenger.sendCameraInitializedEvent(resolutionFeature.getPreviewSize().getWidth(),
+          resolutionFeature.getPreviewSize().getHeight(), cameraFeatures.getExposureLock().getValue(),
+          cameraFeatures.getAutoFocus().getValue(), cameraFeatures.getExposurePoint().checkIsSupported(),
+          cameraFeatures.getFocusPoint().checkIsSupported());
+    } catch (CameraAccessException e) {
+      dartMessenger.sendCameraErrorEvent(e.getMessage());
+      close();
+    }
   }
 
   private void createCaptureSession(int templateType, Surface... surfaces) throws CameraAccessException {
@@ -305,74 +500,249 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
 
   private void createCaptureSession(int templateType, Runnable onSuccessCallback, Surface... surfaces)
       throws CameraAccessException {
+    if (persistentSession) {
+      switchPersistentSession(templateType, onSuccessCallback, surfaces);
+      return;
+    }
+
     // Close any existing capture session.
     closeCaptureSession();
 
-    // Create a new capture builder.
-    previewRequestBuilder = cameraDevice.createCaptureRequest(templateType);
-
     // Build Flutter surface to render to.
+    Surface flutterSurface = createFlutterSurface();
+    List<Surface> remainingSurfaces = Arrays.asList(surfaces);
+    previewRequestBuilder = createRepeatingRequestBuilder(templateType, flutterSurface, remainingSurfaces);
+
+    // Prepare the callback.
+    CameraCaptureSession.StateCallback callback = new CameraCaptureSession.StateCallback() {
+      @Override
+      public void onConfigured(@NonNull CameraCaptureSession session) {
+        onSessionConfigured(session, onSuccessCallback);
+      }
+
+      @Override
+      public void onConfigureFailed(@NonNull CameraCaptureSession cameraCaptureSession) {
+        final ImageReader zslReader = zslImageReader;
+        if (zslReader == null || !remainingSurfaces.contains(zslReader.getSurface())) {
+          dartMessenger.sendCameraErrorEvent("Failed to configure camera session.");
+          return;
+        }
+        // The full-size YUV output of zero shutter lag is not a guaranteed stream combination, so
+        // configure the session without it. Pictures then always run the capture sequence.
+        Log.w(TAG, "Failed to configure the session with zero shutter lag, configuring it without");
+        mainHandler.post(() -> {
+          if (cameraDevice == null || zslImageReader != zslReader) {
+            return;
+          }
+          zslImageReader = null;
+          final List<Surface> withoutZsl = new ArrayList<>(remainingSurfaces);
+          withoutZsl.remove(zslReader.getSurface());
+          try {
+            createCaptureSession(templateType, onSuccessCallback, withoutZsl.toArray(new Surface[0]));
+          } catch (CameraAccessException | IllegalStateException e) {
+            dartMessenger.sendCameraErrorEvent(e.getMessage());
+          } finally {
+            closeZslImageReader(zslReader);
+          }
+        });
+      }
+    };
+
+    // Collect all surfaces to render to.
+    List<Surface> outputs = new ArrayList<>();
+    outputs.add(flutterSurface);
+    outputs.addAll(remainingSurfaces);
+    configureCaptureSession(outputs, callback);
+  }
+
+  /**
+   * Switches to a mode of the persistent session, which is configured with the outputs of all
+   * modes at once. Switching only replaces the repeating request, the session is only configured
+   * again when the outputs have changed, like when zero shutter lag is toggled.
+   *
+   * @param templateType the template of the repeating request.
+   * @param onSuccessCallback run once the repeating request has been set.
+   * @param surfaces the outputs of the mode, which are targeted like in {@link
+   *     #createCaptureSession(int, Runnable, Surface...)}.
+   */
+  private void switchPersistentSession(int templateType, @Nullable Runnable onSuccessCallback, Surface... surfaces)
+      throws CameraAccessException {
+    if (persistentFlutterSurface == null) {
+      persistentFlutterSurface = createFlutterSurface();
+    }
+    if (recorderSurface == null && VERSION.SDK_INT >= VERSION_CODES.M) {
+      createRecorderSurface();
+    }
+    final List<Surface> outputs = getPersistentSessionOutputs(surfaces);
+    final List<Surface> targets = Arrays.asList(surfaces);
+
+    if (captureSession != null && outputs.equals(persistentSessionOutputs)) {
+      Log.i(TAG, "switchPersistentSession");
+      repeatingRequestSwitches++;
+      previewRequestBuilder = createRepeatingRequestBuilder(templateType, persistentFlutterSurface, targets);
+      updateBuilderSettings(previewRequestBuilder);
+      refreshPreviewCaptureSession(onSuccessCallback, (code, message) -> dartMessenger.sendCameraErrorEvent(message));
+      return;
+    }
+
+    closeCaptureSession();
+    previewRequestBuilder = createRepeatingRequestBuilder(templateType, persistentFlutterSurface, targets);
+    configureCaptureSession(outputs, new CameraCaptureSession.StateCallback() {
+      @Override
+      public void onConfigured(@NonNull CameraCaptureSession session) {
+        if (onSessionConfigured(session, onSuccessCallback)) {
+          persistentSessionOutputs = outputs;
+        }
+      }
+
+      @Override
+      public void onConfigureFailed(@NonNull CameraCaptureSession cameraCaptureSession) {
+        // Not every camera supports this many outputs at once, use a session per mode instead.
+        Log.w(TAG, "Failed to configure the persistent session, falling back to a session per mode");
+        persistentSession = false;
+        persistentSessionOutputs = null;
+        mainHandler.post(() -> {
+          if (cameraDevice == null) {
+            return;
+          }
+          try {
+            createCaptureSession(templateType, onSuccessCallback, surfaces);
+          } catch (CameraAccessException | IllegalStateException e) {
+            dartMessenger.sendCameraErrorEvent(e.getMessage());
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Gets the outputs of the persistent session: the Flutter surface, the picture and image stream
+   * readers, the zero shutter lag reader and the recorder surface when they exist, and any other
+   * surface the current mode targets.
+   */
+  private List<Surface> getPersistentSessionOutputs(Surface... surfaces) {
+    final List<Surface> outputs = new ArrayList<>();
+    outputs.add(persistentFlutterSurface);
+    outputs.add(pictureImageReader.getSurface());
+    outputs.add(imageStreamReader.getSurface());
+    if (zslImageReader != null) {
+      outputs.add(zslImageReader.getSurface());
+    }
+    if (recorderSurface != null) {
+      outputs.add(recorderSurface);
+    }
+    for (Surface surface : surfaces) {
+      if (!outputs.contains(surface)) {
+        outputs.add(surface);
+      }
+    }
+    return outputs;
+  }
+
+  /**
+   * Creates the persistent input surface of the media recorder, so the persistent session does not
+   * have to be configured again for every recording.
+   */
+  @TargetApi(VERSION_CODES.M)
+  private void createRecorderSurface() {
+    final Surface surface = MediaCodec.createPersistentInputSurface();
+    File file = null;
+    MediaRecorder recorder = null;
+    try {
+      // Preparing a recorder with the surface allocates its buffers in the size of the recordings,
+      // which the session needs to configure it as output.
+      file = File.createTempFile("PREP", ".mp4", applicationContext.getCacheDir());
+      recorder = new MediaRecorderBuilder(getRecordingProfile(), file.getAbsolutePath())
+          .setInputSurface(surface).build();
+      recorderSurface = surface;
+    } catch (IOException | RuntimeException e) {
+      Log.w(TAG, "Failed preparing the recorder surface, recordings configure the session again", e);
+      surface.release();
+    } finally {
+      if (recorder != null) {
+        recorder.release();
+      }
+      if (file != null) {
+        file.delete();
+      }
+    }
+  }
+
+  private Surface createFlutterSurface() {
     ResolutionFeature resolutionFeature = cameraFeatures.getResolution();
     SurfaceTexture surfaceTexture = flutterTexture.surfaceTexture();
     surfaceTexture.setDefaultBufferSize(resolutionFeature.getPreviewSize().getWidth(),
         resolutionFeature.getPreviewSize().getHeight());
-    Surface flutterSurface = new Surface(surfaceTexture);
-    previewRequestBuilder.addTarget(flutterSurface);
     Log.w(TAG, "fffffffff" + resolutionFeature.getPreviewSize().getWidth() + "ffffffffff"
         + resolutionFeature.getPreviewSize().getHeight());
+    return new Surface(surfaceTexture);
+  }
+
+  /**
+   * Creates the builder of the repeating request of a mode. The preview only targets the Flutter
+   * surface and the zero shutter lag reader, other modes target all of the given surfaces.
+   */
+  private CaptureRequest.Builder createRepeatingRequestBuilder(int templateType, Surface flutterSurface,
+      List<Surface> surfaces) throws CameraAccessException {
+    // Create a new capture builder.
+    CaptureRequest.Builder builder = cameraDevice.createCaptureRequest(templateType);
+    builder.addTarget(flutterSurface);
 
-    List<Surface> remainingSurfaces = Arrays.asList(surfaces);
     if (templateType != CameraDevice.TEMPLATE_PREVIEW) {
       // If it is not preview mode, add all surfaces as targets.
-      for (Surface surface : remainingSurfaces) {
-        previewRequestBuilder.addTarget(surface);
+      for (Surface surface : surfaces) {
+        builder.addTarget(surface);
       }
+    } else if (zslImageReader != null && surfaces.contains(zslImageReader.getSurface())) {
+      // Zero shutter lag pictures are taken from the frames of the repeating request. The frames
+      // are not JPEG, which is a stall stream that would limit the frame rate of the preview.
+      builder.addTarget(zslImageReader.getSurface());
     }
 
     // Update camera regions.
-    Size cameraBoundaries = CameraRegionUtils.getCameraBoundaries(cameraProperties, previewRequestBuilder);
+    Size cameraBoundaries = CameraRegionUtils.getCameraBoundaries(cameraProperties, builder);
     cameraFeatures.getExposurePoint().setCameraBoundaries(cameraBoundaries);
     cameraFeatures.getFocusPoint().setCameraBoundaries(cameraBoundaries);
+    return builder;
+  }
 
-    // Prepare the callback.
-    CameraCaptureSession.StateCallback callback = new CameraCaptureSession.StateCallback() {
-      @Override
-      public void onConfigured(@NonNull CameraCaptureSession session) {
-        // Camera was already closed.
-        if (cameraDevice == null) {
-          dartMessenger.sendCameraErrorEvent("The camera was closed during configuration.");
-          return;
-        }
-        captureSession = session;
-
-        Log.i(TAG, "Updating builder settings");
-        updateBuilderSettings(previewRequestBuilder);
-        refreshPreviewCaptureSession(onSuccessCallback, (code, message) -> dartMessenger.sendCameraErrorEvent(message));
-      }
+  /**
+   * Starts the repeating request of a session that has been configured.
+   *
+   * @return whether the session is used, or {@code false} when the camera was already closed.
+   */
+  private boolean onSessionConfigured(CameraCaptureSession session, @Nullable Runnable onSuccessCallback) {
+    // Camera was already closed.
+    if (cameraDevice == null) {
+      dartMessenger.sendCameraErrorEvent("The camera was closed during configuration.");
+      return false;
+    }
+    captureSession = session;
+    final CameraOpenTimings timings = openTimings;
+    if (timings != null) {
+      timings.mark(CameraOpenTimings.SESSION_CONFIGURED);
+    }
 
-      @Override
-      public void onConfigureFailed(@NonNull CameraCaptureSession cameraCaptureSession) {
-        dartMessenger.sendCameraErrorEvent("Failed to configure camera session.");
-      }
-    };
+    Log.i(TAG, "Updating builder settings");
+    updateBuilderSettings(previewRequestBuilder);
+    refreshPreviewCaptureSession(onSuccessCallback, (code, message) -> dartMessenger.sendCameraErrorEvent(message));
+    return true;
+  }
 
+  private void configureCaptureSession(List<Surface> outputs, CameraCaptureSession.StateCallback callback)
+      throws CameraAccessException {
+    sessionConfigurations++;
     // Start the session.
     if (VERSION.SDK_INT >= VERSION_CODES.P) {
-      // Collect all surfaces to render to.
       List<OutputConfiguration> configs = new ArrayList<>();
-      configs.add(new OutputConfiguration(flutterSurface));
-      for (Surface surface : remainingSurfaces) {
+      for (Surface surface : outputs) {
         configs.add(new OutputConfiguration(surface));
       }
       Log.w(TAG, "createCaptureSessionWithSessionConfig");
       createCaptureSessionWithSessionConfig(configs, callback);
     } else {
-      // Collect all surfaces to render to.
-      List<Surface> surfaceList = new ArrayList<>();
-      surfaceList.add(flutterSurface);
-      surfaceList.addAll(remainingSurfaces);
       Log.w(TAG, "createCaptureSession");
-      createCaptureSession(surfaceList, callback);
+      createCaptureSession(outputs, callback);
     }
   }
 
@@ -380,7 +750,7 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
   private void createCaptureSessionWithSessionConfig(List<OutputConfiguration> outputConfigs,
       CameraCaptureSession.StateCallback callback) throws CameraAccessException {
     cameraDevice.createCaptureSession(new SessionConfiguration(SessionConfiguration.SESSION_REGULAR, outputConfigs,
-        Executors.newSingleThreadExecutor(), callback));
+        executors.getControlExecutor(), callback));
   }
 
   @TargetApi(VERSION_CODES.LOLLIPOP)
@@ -399,171 +769,757 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
       return;
     }
 
-    try {
-      if (!pausedPreview) {
-        captureSession.setRepeatingRequest(previewRequestBuilder.build(), cameraCaptureCallback, backgroundHandler);
-      }
-
-      if (onSuccessCallback != null) {
-        onSuccessCallback.run();
-      }
+    try {
+      if (!pausedPreview) {
+        captureSession.setRepeatingRequest(previewRequestBuilder.build(), cameraCaptureCallback, backgroundHandler);
+      }
+
+      if (onSuccessCallback != null) {
+        onSuccessCallback.run();
+      }
+
+    } catch (CameraAccessException e) {
+      onErrorCallback.onError("cameraAccess", e.getMessage());
+    }
+  }
+
+  public void takePicture(@NonNull final Result result) {
+    takePicture(result, null, false);
+  }
+
+  public void takePicture(@NonNull final Result result, @Nullable String path, boolean returnBytes) {
+    takePicture(result, path, returnBytes, 0, null, false, 0);
+  }
+
+  /**
+   * Takes a picture.
+   *
+   * <p>Pictures are queued while another picture is being taken. The next picture starts as soon
+   * as the sensor readout of the previous one is done, while the previous one is still being saved.
+   *
+   * @param result the result that receives the path of the picture, or its JPEG bytes.
+   * @param path the path to write the picture to, or {@code null} to write it to a new file in the
+   *     cache directory.
+   * @param returnBytes whether to return the JPEG bytes instead of a path. No file is written then,
+   *     and the path and thumbnail are ignored.
+   * @param thumbnailSize the maximum length of the longest edge of a thumbnail that is written to a
+   *     new file in the cache directory, or 0 for no thumbnail.
+   * @param thumbnailSink the sink that receives the path of the thumbnail, or an error when the
+   *     thumbnail could not be written. The thumbnail is written while the picture is saved and
+   *     usually arrives first, but the picture does not wait for it.
+   * @param thumbnailRequestId the id that is sent with the thumbnail, so Dart can match it with its
+   *     picture when several pictures are queued.
+   * @param includeTimings whether the result receives a map with the picture and the time from the
+   *     request to every phase of the capture, instead of only the picture.
+   * @param maxOutputDimension the maximum length of the longest edge of the picture, or 0 for the
+   *     full resolution. Larger pictures are scaled down on the I/O executor, the thumbnail is
+   *     still made from the full resolution picture.
+   */
+  public void takePicture(@NonNull final Result result, @Nullable String path, boolean returnBytes,
+      int thumbnailSize, @Nullable EventChannel.EventSink thumbnailSink, int thumbnailRequestId,
+      boolean includeTimings, int maxOutputDimension) {
+    // A burst captures without a picture request and has to finish first.
+    if (cameraCaptureCallback.getCameraState() != CameraState.STATE_PREVIEW && pictureQueue.isIdle()) {
+      result.error("captureAlreadyActive", "Picture is currently already being captured", null);
+      return;
+    }
+
+    File file = null;
+    File thumbnailFile = null;
+    if (!returnBytes) {
+      try {
+        file = path == null
+            // Create temporary file.
+            ? File.createTempFile("CAP", ".jpg", applicationContext.getCacheDir())
+            : createPictureFile(path);
+        thumbnailFile = thumbnailSize > 0 && thumbnailSink != null
+            ? File.createTempFile("THUMB", ".jpg", applicationContext.getCacheDir())
+            : null;
+      } catch (IOException | SecurityException e) {
+        result.error("cannotCreateFile", e.getMessage(), null);
+        return;
+      }
+    }
+
+    if (!pictureQueue.offer(new PictureRequest(result, file, thumbnailFile, thumbnailSize, thumbnailSink,
+        thumbnailRequestId, includeTimings, maxOutputDimension))) {
+      if (path == null && file != null) {
+        file.delete();
+      }
+      if (thumbnailFile != null) {
+        thumbnailFile.delete();
+      }
+      result.error("captureQueueFull", "Too many pictures are waiting to be taken", null);
+      return;
+    }
+    startNextPicture();
+  }
+
+  /**
+   * Starts taking the oldest queued picture, unless another picture is being taken. Zero shutter
+   * lag pictures do not use the camera, so the queue advances right away.
+   */
+  private void startNextPicture() {
+    PictureRequest request;
+    while ((request = pictureQueue.startNext()) != null) {
+      if (pictureImageReader == null) {
+        pictureQueue.finishActive();
+        dartMessenger.error(request.getResult(), "cameraClosed", "The camera was closed before the picture was taken",
+            null);
+        continue;
+      }
+      if (!takeZeroShutterLagPicture(request)) {
+        startCaptureSequence();
+        return;
+      }
+      zeroShutterLagCaptures++;
+      pictureQueue.finishActive();
+    }
+  }
+
+  /** Runs the focus, precapture and still capture sequence for the active picture. */
+  private void startCaptureSequence() {
+    captureTimeouts.reset();
+
+    // Listen for picture being taken.
+    pictureImageReader.setOnImageAvailableListener(this, backgroundHandler);
+
+    if (canSkipPrecapture()) {
+      Log.i(TAG, "Exposure and focus converged, skipping the precapture sequence");
+      fastPathCaptures++;
+      takePictureAfterPrecapture();
+      return;
+    }
+    precaptureCaptures++;
+
+    final AutoFocusFeature autoFocusFeature = cameraFeatures.getAutoFocus();
+    final boolean isAutoFocusSupported = autoFocusFeature.checkIsSupported();
+    if (isAutoFocusSupported && autoFocusFeature.getValue() == FocusMode.auto) {
+      runPictureAutoFocus();
+    } else {
+      runPrecaptureSequence();
+    }
+  }
+
+  /** Marks that the active picture reached a phase, if a picture is active. */
+  private void markActivePicture(int phase) {
+    final PictureRequest request = pictureQueue.getActive();
+    if (request != null) {
+      request.getTimings().mark(phase);
+    }
+  }
+
+  /**
+   * Fails the active picture, returns to the preview state and starts the next queued picture.
+   */
+  private void failActivePicture(String errorCode, String errorMessage) {
+    // The state changes first, so a picture requested meanwhile is queued instead of rejected.
+    cameraCaptureCallback.setCameraState(CameraState.STATE_PREVIEW);
+    final PictureRequest request = pictureQueue.finishActive();
+    if (request != null) {
+      pictureQueue.removeCaptured(request);
+      dartMessenger.error(request.getResult(), errorCode, errorMessage, null);
+    }
+    startNextPicture();
+  }
+
+  /**
+   * Gets whether the focus and precapture sequences can be skipped, because the preview reported
+   * converged exposure and focus a moment ago and the flash cannot fire.
+   */
+  private boolean canSkipPrecapture() {
+    final FlashMode flashMode = cameraFeatures.getFlash().getValue();
+    if (flashMode != FlashMode.off && flashMode != FlashMode.torch) {
+      // The flash can only fire through the precapture sequence.
+      return false;
+    }
+    return cameraCaptureCallback.isConvergedWithin(CONVERGED_RESULT_MAX_AGE_NANOS);
+  }
+
+  /**
+   * Run the precapture sequence for capturing a still image. This method should
+   * be called when a response is received in {@link #cameraCaptureCallback} from
+   * lockFocus().
+   */
+  private void runPrecaptureSequence() {
+    Log.i(TAG, "runPrecaptureSequence");
+    markActivePicture(CaptureTimings.PRECAPTURE_START);
+    try {
+      // First set precapture state to idle or else it can hang in
+      // STATE_WAITING_PRECAPTURE_START.
+      previewRequestBuilder.set(CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER,
+          CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER_IDLE);
+      captureSession.capture(previewRequestBuilder.build(), cameraCaptureCallback, backgroundHandler);
+
+      // Repeating request to refresh preview session.
+      refreshPreviewCaptureSession(null, (code, message) -> failActivePicture("cameraAccess", message));
+
+      // Start precapture.
+      cameraCaptureCallback.setCameraState(CameraState.STATE_WAITING_PRECAPTURE_START);
+
+      previewRequestBuilder.set(CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER,
+          CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER_START);
+
+      // Trigger one capture to start AE sequence.
+      captureSession.capture(previewRequestBuilder.build(), cameraCaptureCallback, backgroundHandler);
+
+    } catch (CameraAccessException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Capture a still picture. This method should be called when a response is
+   * received {@link #cameraCaptureCallback} from both lockFocus().
+   */
+  private void takePictureAfterPrecapture() {
+    Log.i(TAG, "captureStillPicture");
+    final PictureRequest request = pictureQueue.getActive();
+    if (request == null) {
+      // Leaves the precapture states, which would otherwise call this again on every result.
+      cameraCaptureCallback.setCameraState(CameraState.STATE_PREVIEW);
+      return;
+    }
+    if (cameraDevice == null) {
+      failActivePicture("cameraAccess", "The camera was closed before the picture was captured.");
+      return;
+    }
+    cameraCaptureCallback.setCameraState(CameraState.STATE_CAPTURING);
+    // This is the CaptureRequest.Builder that is used to take a picture.
+    CaptureRequest.Builder stillBuilder;
+    try {
+      stillBuilder = createStillCaptureRequestBuilder();
+    } catch (CameraAccessException e) {
+      failActivePicture("cameraAccess", e.getMessage());
+      return;
+    }
+    if (request.hasThumbnail() && !request.returnsBytes()) {
+      // A thumbnail embedded by the camera only has to be copied, instead of decoding the picture.
+      final Size thumbnailSize = PictureThumbnailer.chooseEmbeddedSize(
+          cameraProperties.getJpegAvailableThumbnailSizes(), cameraFeatures.getResolution().getCaptureSize(),
+          request.getThumbnailMaxSize());
+      if (thumbnailSize != null) {
+        stillBuilder.set(CaptureRequest.JPEG_THUMBNAIL_SIZE, thumbnailSize);
+      }
+    }
+
+    CameraCaptureSession.CaptureCallback captureCallback = new CameraCaptureSession.CaptureCallback() {
+      @Override
+      public void onCaptureCompleted(@NonNull CameraCaptureSession session, @NonNull CaptureRequest captureRequest,
+          @NonNull TotalCaptureResult result) {
+        request.getTimings().mark(CaptureTimings.CAPTURE_COMPLETED);
+        unlockAutoFocus();
+        // The sensor readout is done, the next picture can be taken while this one is saved.
+        cameraCaptureCallback.setCameraState(CameraState.STATE_PREVIEW);
+        pictureQueue.finishActive();
+        startNextPicture();
+      }
+
+      @Override
+      public void onCaptureFailed(@NonNull CameraCaptureSession session, @NonNull CaptureRequest captureRequest,
+          @NonNull CaptureFailure failure) {
+        unlockAutoFocus();
+        failActivePicture("captureFailed", "The camera failed to capture the picture");
+      }
+    };
+
+    try {
+      captureSession.stopRepeating();
+      captureSession.abortCaptures();
+      Log.i(TAG, "sending capture request");
+      // Images arrive in the order their requests are submitted.
+      pictureQueue.awaitImageOfActive();
+      request.getTimings().mark(CaptureTimings.STILL_CAPTURE_SUBMITTED);
+      captureSession.capture(stillBuilder.build(), captureCallback, backgroundHandler);
+    } catch (CameraAccessException e) {
+      failActivePicture("cameraAccess", e.getMessage());
+    }
+  }
+
+  private CaptureRequest.Builder createStillCaptureRequestBuilder() throws CameraAccessException {
+    CaptureRequest.Builder stillBuilder = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
+    stillBuilder.addTarget(pictureImageReader.getSurface());
+
+    // Zoom.
+    stillBuilder.set(CaptureRequest.SCALER_CROP_REGION, previewRequestBuilder.get(CaptureRequest.SCALER_CROP_REGION));
+
+    // Have all features update the builder.
+    updateBuilderSettings(stillBuilder);
+
+    // Orientation and quality.
+    stillBuilder.set(CaptureRequest.JPEG_ORIENTATION, getPictureOrientation());
+    stillBuilder.set(CaptureRequest.JPEG_QUALITY, (byte) jpegQuality);
+    return stillBuilder;
+  }
+
+  /**
+   * Takes a burst of pictures with the current exposure and focus, without interrupting the
+   * preview.
+   *
+   * <p>All requests are submitted at once through {@link CameraCaptureSession#captureBurst} when
+   * there is no interval, so the camera captures them back to back. With an interval, every
+   * picture is submitted as a burst of one at its scheduled time. Pictures are saved concurrently
+   * and the result receives their paths in request order once all of them have been saved.
+   *
+   * @param count the number of pictures, at most {@link #MAX_BURST_SIZE}.
+   * @param intervalMs the time between the submission of two pictures in milliseconds, or 0 to
+   *     capture them as fast as possible.
+   * @param result the result that receives the list of paths.
+   */
+  public void takePictureBurst(final int count, final long intervalMs, @NonNull final Result result) {
+    // The burst takes over the picture reader, so earlier pictures have to be captured first.
+    if (cameraCaptureCallback.getCameraState() != CameraState.STATE_PREVIEW || !pictureQueue.isIdle()) {
+      result.error("captureAlreadyActive", "Picture is currently already being captured", null);
+      return;
+    }
+    if (count < 1 || count > MAX_BURST_SIZE || intervalMs < 0) {
+      result.error("invalidBurst",
+          "A burst must have between 1 and " + MAX_BURST_SIZE + " pictures and a positive interval", null);
+      return;
+    }
+
+    final File outputDir = applicationContext.getCacheDir();
+    final File[] files = new File[count];
+    final List<CaptureRequest> requests = new ArrayList<>(count);
+    try {
+      for (int i = 0; i < count; i++) {
+        files[i] = File.createTempFile("CAP", ".jpg", outputDir);
+      }
+    } catch (IOException | SecurityException e) {
+      dartMessenger.error(result, "cannotCreateFile", e.getMessage(), null);
+      return;
+    }
+    try {
+      final CaptureRequest.Builder stillBuilder = createStillCaptureRequestBuilder();
+      for (int i = 0; i < count; i++) {
+        stillBuilder.setTag(i);
+        requests.add(stillBuilder.build());
+      }
+    } catch (CameraAccessException e) {
+      dartMessenger.error(result, "cameraAccess", e.getMessage(), null);
+      return;
+    }
+
+    final PictureBurst burst = new PictureBurst(files, new PictureBurst.Callback() {
+      @Override
+      public void onComplete(@NonNull List<String> paths) {
+        dartMessenger.finish(result, paths);
+      }
+
+      @Override
+      public void onError(@NonNull String errorCode, @NonNull String errorMessage) {
+        dartMessenger.error(result, errorCode, errorMessage, null);
+      }
+    });
+    final CameraCaptureSession.CaptureCallback burstCallback = new CameraCaptureSession.CaptureCallback() {
+      @Override
+      public void onCaptureStarted(@NonNull CameraCaptureSession session, @NonNull CaptureRequest request,
+          long timestamp, long frameNumber) {
+        burst.onCaptureStarted((Integer) request.getTag(), timestamp);
+      }
+
+      @Override
+      public void onCaptureFailed(@NonNull CameraCaptureSession session, @NonNull CaptureRequest request,
+          @NonNull CaptureFailure failure) {
+        burst.onCaptureFailed((Integer) request.getTag(), failure.getReason());
+        onBurstCaptureProgress(burst);
+      }
+    };
+
+    Log.i(TAG, "takePictureBurst");
+    cameraCaptureCallback.setCameraState(CameraState.STATE_CAPTURING);
+    pictureImageReader.setOnImageAvailableListener(reader -> onBurstImageAvailable(reader, burst), backgroundHandler);
+    if (intervalMs == 0) {
+      submitBurstRequests(burst, requests, burstCallback);
+      return;
+    }
+    for (int i = 0; i < count; i++) {
+      final List<CaptureRequest> request = Collections.singletonList(requests.get(i));
+      backgroundHandler.postDelayed(() -> submitBurstRequests(burst, request, burstCallback), i * intervalMs);
+    }
+  }
+
+  private void submitBurstRequests(PictureBurst burst, List<CaptureRequest> requests,
+      CameraCaptureSession.CaptureCallback burstCallback) {
+    // The session may have been closed or replaced between the submissions of a burst.
+    final CameraCaptureSession session = captureSession;
+    if (session != null) {
+      try {
+        session.captureBurst(requests, burstCallback, backgroundHandler);
+        return;
+      } catch (CameraAccessException | IllegalStateException e) {
+        Log.w(TAG, "Failed submitting burst requests", e);
+      }
+    }
+    for (CaptureRequest request : requests) {
+      burst.onCaptureFailed((Integer) request.getTag(), CaptureFailure.REASON_ERROR);
+    }
+    onBurstCaptureProgress(burst);
+  }
+
+  private void onBurstImageAvailable(ImageReader reader, PictureBurst burst) {
+    final Image image = reader.acquireNextImage();
+    if (image == null) {
+      return;
+    }
+    final int index = burst.onImageCaptured(image.getTimestamp());
+    if (index < 0) {
+      image.close();
+      return;
+    }
+    savePicture(image, burst.getFile(index), new ImageSaver.Callback() {
+      @Override
+      public void onComplete(String absolutePath) {
+        burst.onSaved(index);
+      }
+
+      @Override
+      public void onError(String errorCode, String errorMessage) {
+        burst.onError(errorCode, errorMessage);
+      }
+    });
+    onBurstCaptureProgress(burst);
+  }
+
+  /** Returns to the preview state once every picture of the burst has been captured. */
+  private void onBurstCaptureProgress(PictureBurst burst) {
+    if (burst.isCaptureDone() && cameraCaptureCallback.getCameraState() == CameraState.STATE_CAPTURING) {
+      cameraCaptureCallback.setCameraState(CameraState.STATE_PREVIEW);
+    }
+  }
+
+  private int getPictureOrientation() {
+    final PlatformChannel.DeviceOrientation lockedOrientation = ((SensorOrientationFeature) cameraFeatures
+        .getSensorOrientation()).getLockedCaptureOrientation();
+    return lockedOrientation == null ? getDeviceOrientationManager().getPhotoOrientation()
+        : getDeviceOrientationManager().getPhotoOrientation(lockedOrientation);
+  }
+
+  /**
+   * Sets the JPEG quality of pictures. Square pictures are cropped and encoded again with the same
+   * quality. Zero shutter lag pictures use the new quality once the preview restarts.
+   *
+   * @param quality the quality, from 1 to 100.
+   * @throws IllegalArgumentException when the quality is out of range.
+   */
+  public void setJpegQuality(int quality) {
+    if (quality < 1 || quality > 100) {
+      throw new IllegalArgumentException("The JPEG quality must be between 1 and 100, got " + quality);
+    }
+    jpegQuality = quality;
+  }
+
+  /**
+   * Sets whether pictures are forced to the storage device before their path is returned. This
+   * makes pictures survive a crash or power loss right after they were taken, at the cost of a
+   * longer time until the path is returned.
+   *
+   * @param enabled whether to sync pictures to disk.
+   */
+  public void setSyncPicturesToDisk(boolean enabled) {
+    syncPicturesToDisk = enabled;
+  }
+
+  /**
+   * Enables or disables zero shutter lag pictures. While enabled, the preview also captures full
+   * resolution frames, and {@link #takePicture} saves the most recent of them whose exposure and
+   * focus had converged instead of running the precapture and still capture sequence.
+   *
+   * <p>The frames are only captured during the regular preview, not while recording or streaming
+   * images. Pictures fall back to the regular sequence when no frame is available or the flash
+   * could fire. Cameras below the FULL hardware level, and cameras that cannot configure the extra
+   * output, always run the regular sequence.
+   *
+   * @param enabled whether to enable zero shutter lag.
+   */
+  public void setZeroShutterLagEnabled(boolean enabled) throws CameraAccessException {
+    if (zeroShutterLagEnabled == enabled) {
+      return;
+    }
+    zeroShutterLagEnabled = enabled;
+    if (pictureImageReader == null) {
+      // The reader is created when the camera is opened.
+      return;
+    }
+
+    final ImageReader previousReader = zslImageReader;
+    zslImageReader = null;
+    if (enabled) {
+      createZslImageReader();
+    }
+    if (cameraDevice != null && !recordingVideo && imageStreamSink == null && !frameProcessorRunner.isActive()) {
+      startPreview();
+    }
+    // Closed once the session that targets it has been replaced.
+    if (previousReader != null) {
+      closeZslImageReader(previousReader);
+    }
+  }
 
-    } catch (CameraAccessException e) {
-      onErrorCallback.onError("cameraAccess", e.getMessage());
+  /**
+   * Enables or disables the persistent session.
+   *
+   * <p>The persistent session is configured with the Flutter surface, the picture reader, the image
+   * stream reader and the recorder surface at once. Starting and stopping the image stream or a
+   * recording then only replaces the targets of the repeating request, instead of configuring a new
+   * session, which interrupts the preview. The session is only configured again when its outputs
+   * change. When the camera does not support this many outputs the plugin falls back to a session
+   * per mode.
+   *
+   * @param enabled whether to use the persistent session.
+   */
+  public void setPersistentSessionEnabled(boolean enabled) throws CameraAccessException {
+    if (persistentSession == enabled) {
+      return;
+    }
+    persistentSession = enabled;
+    persistentSessionOutputs = null;
+    // Otherwise the session is replaced when the mode changes.
+    if (cameraDevice != null && !recordingVideo && imageStreamSink == null && !frameProcessorRunner.isActive()) {
+      startPreview();
     }
   }
 
-  public void takePicture(@NonNull final Result result) {
-    // Only take one picture at a time.
-    if (cameraCaptureCallback.getCameraState() != CameraState.STATE_PREVIEW) {
-      result.error("captureAlreadyActive", "Picture is currently already being captured", null);
+  private void createZslImageReader() {
+    final Size captureSize = cameraFeatures.getResolution().getCaptureSize();
+    if (!supportsZslStreams(captureSize)) {
+      Log.w(TAG, "Zero shutter lag is not supported by this camera, pictures run the capture sequence");
       return;
     }
+    zslImageReader = ImageReader.newInstance(captureSize.getWidth(), captureSize.getHeight(),
+        ImageFormat.YUV_420_888, ZSL_MAX_IMAGES);
+    zslImageReader.setOnImageAvailableListener(this::onZslImageAvailable, backgroundHandler);
+  }
 
-    flutterResult = result;
+  /**
+   * Checks whether the camera can stream full-size YUV frames next to the preview, which is only
+   * guaranteed from the FULL hardware level on. The JPEG output on top of that is not guaranteed
+   * either, sessions that fail to configure with it are configured again without zero shutter lag.
+   */
+  private boolean supportsZslStreams(Size captureSize) {
+    final int hardwareLevel = cameraProperties.getHardwareLevel();
+    if (hardwareLevel != CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_FULL
+        && hardwareLevel != CameraMetadata.INFO_SUPPORTED_HARDWARE_LEVEL_3) {
+      return false;
+    }
+    final StreamConfigurationMap streamConfigurationMap = cameraProperties.getAvailableScalerStreamConfigurationMap();
+    final Size[] yuvSizes = streamConfigurationMap == null ? null
+        : streamConfigurationMap.getOutputSizes(ImageFormat.YUV_420_888);
+    return yuvSizes != null && Arrays.asList(yuvSizes).contains(captureSize);
+  }
 
-    // Create temporary file.
-    final File outputDir = applicationContext.getCacheDir();
+  private void closeZslImageReader(ImageReader reader) {
+    reader.setOnImageAvailableListener(null, null);
+    zslBuffer.clear();
+    reader.close();
+  }
+
+  private void onZslImageAvailable(ImageReader reader) {
+    final Image image;
     try {
-      captureFile = File.createTempFile("CAP", ".jpg", outputDir);
-      captureTimeouts.reset();
-    } catch (IOException | SecurityException e) {
-      dartMessenger.error(flutterResult, "cannotCreateFile", e.getMessage(), null);
+      image = reader.acquireNextImage();
+    } catch (IllegalStateException e) {
+      // All images are buffered or still being saved, skip this frame.
       return;
     }
-
-    // Listen for picture being taken.
-    pictureImageReader.setOnImageAvailableListener(this, backgroundHandler);
-
-    final AutoFocusFeature autoFocusFeature = cameraFeatures.getAutoFocus();
-    final boolean isAutoFocusSupported = autoFocusFeature.checkIsSupported();
-    if (isAutoFocusSupported && autoFocusFeature.getValue() == FocusMode.auto) {
-      runPictureAutoFocus();
-    } else {
-      runPrecaptureSequence();
+    if (image != null) {
+      zslBuffer.add(image);
     }
   }
 
   /**
-   * Run the precapture sequence for capturing a still image. This method should
-   * be called when a response is received in {@link #cameraCaptureCallback} from
-   * lockFocus().
+   * Saves the buffered frame that was captured closest to now and whose auto exposure and auto
+   * focus had converged.
+   *
+   * @param request the picture to save the frame for.
+   * @return whether a picture is being saved, or {@code false} when the regular capture sequence
+   *     has to run.
    */
-  private void runPrecaptureSequence() {
-    Log.i(TAG, "runPrecaptureSequence");
-    try {
-      // First set precapture state to idle or else it can hang in
-      // STATE_WAITING_PRECAPTURE_START.
-      previewRequestBuilder.set(CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER,
-          CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER_IDLE);
-      captureSession.capture(previewRequestBuilder.build(), cameraCaptureCallback, backgroundHandler);
+  private boolean takeZeroShutterLagPicture(PictureRequest request) {
+    if (zslImageReader == null) {
+      return false;
+    }
+    final FlashMode flashMode = cameraFeatures.getFlash().getValue();
+    if (flashMode != FlashMode.off && flashMode != FlashMode.torch) {
+      // The flash can only fire through the precapture sequence.
+      return false;
+    }
 
-      // Repeating request to refresh preview session.
-      refreshPreviewCaptureSession(null,
-          (code, message) -> dartMessenger.error(flutterResult, "cameraAccess", message, null));
+    final boolean fixedFocus = !cameraFeatures.getAutoFocus().checkIsSupported();
+    final CaptureResultRing.Record captureResult = new CaptureResultRing.Record();
+    final Image frame = zslBuffer.take(captureResults.getLatestTimestamp(),
+        timestamp -> captureResults.find(timestamp, captureResult) && CameraCaptureCallback.isConverged(
+            captureResult.getAeState(), captureResult.getAfMode(), captureResult.getAfState(), fixedFocus));
+    if (frame == null) {
+      Log.i(TAG, "No converged zero shutter lag frame, running the capture sequence");
+      return false;
+    }
 
-      // Start precapture.
-      cameraCaptureCallback.setCameraState(CameraState.STATE_WAITING_PRECAPTURE_START);
+    Log.i(TAG, "takeZeroShutterLagPicture");
+    request.getTimings().mark(CaptureTimings.IMAGE_AVAILABLE);
+    final int width = frame.getWidth();
+    final int height = frame.getHeight();
+    final int quality = jpegQuality;
+    final int orientation = getPictureOrientation();
+    final ErrorCallback onError = (errorCode, errorMessage) -> dartMessenger.error(request.getResult(), errorCode,
+        errorMessage, null);
+    // The frame is copied and encoded on the I/O executor like the other picture writes, so the
+    // platform thread never touches the full-resolution planes. It stays open until it is copied.
+    executeWrite(null, () -> {
+      final byte[] jpeg;
+      try {
+        final byte[] nv21;
+        try {
+          nv21 = ZeroShutterLagEncoder.copyToNv21(frame);
+        } finally {
+          frame.close();
+        }
+        jpeg = ZeroShutterLagEncoder.encode(nv21, width, height, quality, orientation);
+      } catch (IOException | IllegalStateException e) {
+        // IllegalStateException: the reader was closed, and the frame with it, before the copy.
+        onError.onError("IOError", "Failed encoding image");
+        return;
+      }
+      createPictureWrite(JpegPicture.of(jpeg, width, height), request).run();
+    }, (errorCode, errorMessage) -> {
+      frame.close();
+      onError.onError(errorCode, errorMessage);
+    });
+    return true;
+  }
 
-      previewRequestBuilder.set(CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER,
-          CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER_START);
+  /**
+   * Saves a picture on the I/O executor. When too many pictures are waiting to be saved the image
+   * is closed and the callback receives a "saveQueueFull" error, instead of queueing more writes.
+   */
+  private void savePicture(Image image, File file, ImageSaver.Callback callback) {
+    final JpegPicture picture = JpegPicture.of(image);
+    executeWrite(picture, new ImageSaver(picture, file, callback, createImageSaverOptions()), callback::onError);
+  }
 
-      // Trigger one capture to start AE sequence.
-      captureSession.capture(previewRequestBuilder.build(), cameraCaptureCallback, backgroundHandler);
+  /** Saves a picture of {@link #takePicture} and its thumbnail to their files, or returns its bytes. */
+  private void saveCapturedPicture(Image image, PictureRequest request) {
+    final JpegPicture picture = JpegPicture.of(image);
+    executeWrite(picture, createPictureWrite(picture, request),
+        (errorCode, errorMessage) -> dartMessenger.error(request.getResult(), errorCode, errorMessage, null));
+  }
 
-    } catch (CameraAccessException e) {
-      e.printStackTrace();
+  /** Creates the options of an {@link ImageSaver} from the current picture settings. */
+  private ImageSaver.Options createImageSaverOptions() {
+    return new ImageSaver.Options().setSquare(isSquare).setJpegQuality(jpegQuality)
+        .setSyncToDisk(syncPicturesToDisk);
+  }
+
+  /** Creates the write of a picture of {@link #takePicture}, to be run on the I/O executor. */
+  private Runnable createPictureWrite(JpegPicture picture, PictureRequest request) {
+    final File file = request.getFile();
+    if (file != null && request.hasThumbnail()) {
+      // A thumbnail that is rejected by the executor is written by the image saver, after the picture.
+      final PictureThumbnailer thumbnailer = new PictureThumbnailer(request.getThumbnailFile(),
+          request.getThumbnailMaxSize(), isSquare, jpegQuality, ioExecutor::execute,
+          createThumbnailCallback(request.getThumbnailSink(), request.getThumbnailRequestId()));
+      return new ImageSaver(picture, file, createPictureCallback(request),
+          createImageSaverOptions().setThumbnailer(thumbnailer).setMaxDimension(request.getMaxOutputDimension()));
     }
+    if (file != null) {
+      return new ImageSaver(picture, file, createPictureCallback(request),
+          createImageSaverOptions().setMaxDimension(request.getMaxOutputDimension()));
+    }
+    final PictureBytesReader.Callback callback = new PictureBytesReader.Callback() {
+      @Override
+      public void onComplete(@NonNull byte[] bytes) {
+        finishPicture(request, bytes);
+      }
+
+      @Override
+      public void onError(@NonNull String errorCode, @NonNull String errorMessage) {
+        dartMessenger.error(request.getResult(), errorCode, errorMessage, null);
+      }
+    };
+    return new PictureBytesReader(picture, callback, isSquare, jpegQuality, request.getMaxOutputDimension());
   }
 
   /**
-   * Capture a still picture. This method should be called when a response is
-   * received {@link #cameraCaptureCallback} from both lockFocus().
+   * Runs a write on the I/O executor. When it is rejected the picture, if any, is closed and {@code
+   * onRejected} receives the reason.
    */
-  private void takePictureAfterPrecapture() {
-    Log.i(TAG, "captureStillPicture");
-    cameraCaptureCallback.setCameraState(CameraState.STATE_CAPTURING);
-
-    if (cameraDevice == null) {
+  private void executeWrite(@Nullable JpegPicture picture, Runnable write, ErrorCallback onRejected) {
+    if (ioExecutor.execute(write)) {
       return;
     }
-    // This is the CaptureRequest.Builder that is used to take a picture.
-    CaptureRequest.Builder stillBuilder;
-    try {
-      stillBuilder = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
-    } catch (CameraAccessException e) {
-      dartMessenger.error(flutterResult, "cameraAccess", e.getMessage(), null);
-      return;
+    if (picture != null) {
+      picture.close();
     }
-    stillBuilder.addTarget(pictureImageReader.getSurface());
-
-    // Zoom.
-    Log.i("heyyyyyyyyyyyyyyyy", CaptureRequest.SCALER_CROP_REGION.toString());
-    stillBuilder.set(CaptureRequest.SCALER_CROP_REGION, previewRequestBuilder.get(CaptureRequest.SCALER_CROP_REGION));
+    if (executors.isShutDown()) {
+      onRejected.onError("cameraClosed", "The camera was closed before the picture could be saved");
+    } else {
+      onRejected.onError("saveQueueFull", "Too many pictures are waiting to be saved");
+    }
+  }
 
-    // Have all features update the builder.
-    updateBuilderSettings(stillBuilder);
+  private static File createPictureFile(String path) throws IOException {
+    final File file = new File(path);
+    final File directory = file.getAbsoluteFile().getParentFile();
+    if (directory == null || !directory.isDirectory()) {
+      throw new IOException("The directory of " + path + " does not exist");
+    }
+    return file;
+  }
 
-    // Orientation.
-    final PlatformChannel.DeviceOrientation lockedOrientation = ((SensorOrientationFeature) cameraFeatures
-        .getSensorOrientation()).getLockedCaptureOrientation();
-    stillBuilder.set(CaptureRequest.JPEG_ORIENTATION,
-        lockedOrientation == null ? getDeviceOrientationManager().getPhotoOrientation()
-            : getDeviceOrientationManager().getPhotoOrientation(lockedOrientation));
+  private ImageSaver.Callback createPictureCallback(final PictureRequest request) {
+    return new ImageSaver.Callback() {
+      @Override
+      public void onComplete(String absolutePath) {
+        finishPicture(request, absolutePath);
+      }
 
-    CameraCaptureSession.CaptureCallback captureCallback = new CameraCaptureSession.CaptureCallback() {
       @Override
-      public void onCaptureCompleted(@NonNull CameraCaptureSession session, @NonNull CaptureRequest request,
-          @NonNull TotalCaptureResult result) {
-        unlockAutoFocus();
+      public void onError(String errorCode, String errorMessage) {
+        dartMessenger.error(request.getResult(), errorCode, errorMessage, null);
       }
     };
-
-    try {
-      captureSession.stopRepeating();
-      captureSession.abortCaptures();
-      Log.i(TAG, "sending capture request");
-      captureSession.capture(stillBuilder.build(), captureCallback, backgroundHandler);
-    } catch (CameraAccessException e) {
-      dartMessenger.error(flutterResult, "cameraAccess", e.getMessage(), null);
-    }
   }
 
-  @SuppressWarnings("deprecation")
-  private Display getDefaultDisplay() {
-    return activity.getWindowManager().getDefaultDisplay();
+  /** Records the timings of a saved picture and sends the picture to its result. */
+  private void finishPicture(PictureRequest request, Object picture) {
+    request.getTimings().mark(CaptureTimings.FILE_WRITTEN);
+    captureLatencyStats.record(request.getTimings());
+    dartMessenger.finish(request.getResult(), request.createPayload(picture));
   }
 
-  /** Starts a background thread and its {@link Handler}. */
-  @OnLifecycleEvent(Lifecycle.Event.ON_RESUME)
-  public void startBackgroundThread() {
-    backgroundHandlerThread = new HandlerThread("CameraBackground");
-    try {
-      backgroundHandlerThread.start();
-    } catch (IllegalThreadStateException e) {
-      // Ignore exception in case the thread has already started.
-    }
-    backgroundHandler = new Handler(backgroundHandlerThread.getLooper());
-  }
+  /**
+   * Creates the callback of a thumbnail. Every event carries the id of its request, as "requestId"
+   * of the event or of the error details, since the thumbnails of all pictures share one sink.
+   */
+  private PictureThumbnailer.Callback createThumbnailCallback(final EventChannel.EventSink sink,
+      final int requestId) {
+    return new PictureThumbnailer.Callback() {
+      @Override
+      public void onComplete(@NonNull String absolutePath) {
+        final Map<String, Object> event = new HashMap<>();
+        event.put("requestId", requestId);
+        event.put("path", absolutePath);
+        mainHandler.post(() -> sink.success(event));
+      }
 
-  /** Stops the background thread and its {@link Handler}. */
-  @OnLifecycleEvent(Lifecycle.Event.ON_PAUSE)
-  public void stopBackgroundThread() {
-    if (backgroundHandlerThread != null) {
-      backgroundHandlerThread.quitSafely();
-      try {
-        backgroundHandlerThread.join();
-      } catch (InterruptedException e) {
-        dartMessenger.error(flutterResult, "cameraAccess", e.getMessage(), null);
+      @Override
+      public void onError(@NonNull String errorCode, @NonNull String errorMessage) {
+        final Map<String, Object> details = new HashMap<>();
+        details.put("requestId", requestId);
+        mainHandler.post(() -> sink.error(errorCode, errorMessage, details));
       }
-    }
-    backgroundHandlerThread = null;
-    backgroundHandler = null;
+    };
+  }
+
+  @SuppressWarnings("deprecation")
+  private Display getDefaultDisplay() {
+    return activity.getWindowManager().getDefaultDisplay();
   }
 
   /** Start capturing a picture, doing autofocus first. */
   private void runPictureAutoFocus() {
     Log.i(TAG, "runPictureAutoFocus");
+    markActivePicture(CaptureTimings.AF_LOCK_START);
 
     cameraCaptureCallback.setCameraState(CameraState.STATE_WAITING_FOCUS);
     lockAutoFocus();
@@ -607,23 +1563,24 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
       return;
     }
 
-    refreshPreviewCaptureSession(null,
-        (errorCode, errorMessage) -> dartMessenger.error(flutterResult, errorCode, errorMessage, null));
+    refreshPreviewCaptureSession(null, (errorCode, errorMessage) -> dartMessenger.sendCameraErrorEvent(errorMessage));
   }
 
   public void startVideoRecording(@NonNull Result result) {
     final File outputDir = applicationContext.getCacheDir();
     try {
-      captureFile = File.createTempFile("REC", ".mp4", outputDir);
+      videoFile = File.createTempFile("REC", ".mp4", outputDir);
     } catch (IOException | SecurityException e) {
       result.error("cannotCreateFile", e.getMessage(), null);
       return;
     }
+    // The persistent session already has the recorder surface as output.
+    final Surface inputSurface = persistentSession ? recorderSurface : null;
     try {
-      prepareMediaRecorder(captureFile.getAbsolutePath());
+      prepareMediaRecorder(videoFile.getAbsolutePath(), inputSurface);
     } catch (IOException e) {
       recordingVideo = false;
-      captureFile = null;
+      videoFile = null;
       result.error("videoRecordingFailed", e.getMessage(), null);
       return;
     }
@@ -631,11 +1588,12 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
     cameraFeatures.setAutoFocus(cameraFeatureFactory.createAutoFocusFeature(cameraProperties, true));
     recordingVideo = true;
     try {
-      createCaptureSession(CameraDevice.TEMPLATE_RECORD, () -> mediaRecorder.start(), mediaRecorder.getSurface());
+      createCaptureSession(CameraDevice.TEMPLATE_RECORD, () -> mediaRecorder.start(),
+          inputSurface != null ? inputSurface : mediaRecorder.getSurface());
       result.success(null);
     } catch (CameraAccessException e) {
       recordingVideo = false;
-      captureFile = null;
+      videoFile = null;
       result.error("videoRecordingFailed", e.getMessage(), null);
     }
   }
@@ -662,8 +1620,8 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
       result.error("videoRecordingFailed", e.getMessage(), null);
       return;
     }
-    result.success(captureFile.getAbsolutePath());
-    captureFile = null;
+    result.success(videoFile.getAbsolutePath());
+    videoFile = null;
   }
 
   public void pauseVideoRecording(@NonNull final Result result) {
@@ -923,14 +1881,49 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
   public void startPreview() throws CameraAccessException {
     if (pictureImageReader == null || pictureImageReader.getSurface() == null)
       return;
+    if (frameProcessorRunner.isActive()) {
+      // Frame processors keep receiving the frames of the image stream reader.
+      startPreviewWithFrameProcessing();
+      return;
+    }
     Log.i(TAG, "startPreview");
+    if (zslImageReader != null) {
+      createCaptureSession(CameraDevice.TEMPLATE_PREVIEW, pictureImageReader.getSurface(),
+          zslImageReader.getSurface());
+      return;
+    }
     createCaptureSession(CameraDevice.TEMPLATE_PREVIEW, pictureImageReader.getSurface());
   }
 
+  private void startPreviewWithFrameProcessing() throws CameraAccessException {
+    Log.i(TAG, "startPreviewWithFrameProcessing");
+    createCaptureSession(CameraDevice.TEMPLATE_RECORD, imageStreamReader.getSurface());
+  }
+
   public void startPreviewWithImageStream(EventChannel imageStreamChannel) throws CameraAccessException {
+    startPreviewWithImageStream(imageStreamChannel, ImageStreamOptions.createDefault());
+  }
+
+  public void startPreviewWithImageStream(EventChannel imageStreamChannel, ImageStreamOptions options)
+      throws CameraAccessException {
     createCaptureSession(CameraDevice.TEMPLATE_RECORD, imageStreamReader.getSurface());
     Log.i(TAG, "startPreviewWithImageStream");
 
+    // The plane buffers of every slot are sized from the first frame of the preview size, after
+    // which they are reused for the lifetime of the stream.
+    imageStreamOptions = options;
+    imageStreamPacer = options.getMaxStreamFps() > 0 ? new FramePacer(options.getMaxStreamFps()) : null;
+    imageStreamBufferPool = new ImageStreamBufferPool(options.getMaxFramesInFlight());
+    imageStreamBufferPool.setOnDeliveredListener(pendingStreamImage::markDelivered);
+    // Frames are also released without being delivered, e.g. when their analysis failed, which
+    // makes room for the pending image all the same.
+    imageStreamBufferPool.setOnReleaseListener(() -> {
+      final Handler handler = backgroundHandler;
+      if (handler != null) {
+        handler.post(drainPendingStreamImage);
+      }
+    });
+
     imageStreamChannel.setStreamHandler(new EventChannel.StreamHandler() {
       @Override
       public void onListen(Object o, EventChannel.EventSink imageStreamSink) {
@@ -939,74 +1932,233 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
 
       @Override
       public void onCancel(Object o) {
-        imageStreamReader.setOnImageAvailableListener(null, backgroundHandler);
+        Camera.this.imageStreamSink = null;
+        closePendingStreamImage();
+        if (!frameProcessorRunner.isActive()) {
+          imageStreamReader.setOnImageAvailableListener(null, backgroundHandler);
+        }
+      }
+    });
+  }
+
+  /**
+   * Starts running the given {@link FrameProcessor}s on every frame of the image stream reader. The
+   * results are sent to Dart over the supplied channel.
+   *
+   * @param resultChannel the channel to send the results of the processors on.
+   * @param processorNames the names the processors are registered with in the {@link
+   *     FrameProcessorRegistry}.
+   * @throws IllegalArgumentException when one of the processors is not registered.
+   */
+  public void startFrameProcessors(EventChannel resultChannel, List<String> processorNames)
+      throws CameraAccessException {
+    final boolean wasActive = frameProcessorRunner.isActive();
+    frameProcessorRunner.start(processorNames);
+    if (!wasActive && imageStreamSink == null) {
+      startPreviewWithFrameProcessing();
+    }
+
+    resultChannel.setStreamHandler(new EventChannel.StreamHandler() {
+      @Override
+      public void onListen(Object o, EventChannel.EventSink resultSink) {
+        frameProcessorRunner.setResultSink(resultSink);
+        setStreamImageAvailableListener();
+      }
+
+      @Override
+      public void onCancel(Object o) {
+        frameProcessorRunner.setResultSink(null);
       }
     });
   }
 
+  /** Stops running frame processors and returns to the regular preview when no image stream runs. */
+  public void stopFrameProcessors() throws CameraAccessException {
+    frameProcessorRunner.stop();
+    if (imageStreamSink == null) {
+      imageStreamReader.setOnImageAvailableListener(null, backgroundHandler);
+      startPreview();
+    }
+  }
+
+  /**
+   * Gets the counters of the running frame processors.
+   *
+   * @return a map from processor name to the counters of that processor.
+   */
+  public Map<String, Object> getFrameProcessorStats() {
+    return frameProcessorRunner.getStats();
+  }
+
+  /**
+   * Gets the counters of the ways pictures have been taken.
+   *
+   * @return a map containing the number of pictures taken from the zero shutter lag buffer, the
+   *     number taken directly because exposure and focus had already converged, the number taken
+   *     after the focus and precapture sequences, the queue and write time counters of the
+   *     executor that saves pictures under "io", the percentiles of the phase timings of the
+   *     most recent pictures under "latency", the session counters under "session" and the
+   *     timings of the latest open of the camera under "open".
+   */
+  public Map<String, Object> getCaptureStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("zeroShutterLagCaptures", zeroShutterLagCaptures);
+    stats.put("fastPathCaptures", fastPathCaptures);
+    stats.put("precaptureCaptures", precaptureCaptures);
+    stats.put("io", ioExecutor.getStats());
+    stats.put("latency", captureLatencyStats.getStats());
+    Map<String, Object> session = new HashMap<>();
+    session.put("persistent", persistentSession);
+    session.put("configurations", sessionConfigurations);
+    session.put("repeatingRequestSwitches", repeatingRequestSwitches);
+    stats.put("session", session);
+    final CameraOpenTimings timings = openTimings;
+    stats.put("open", timings == null ? new HashMap<String, Object>() : timings.toMap());
+    return stats;
+  }
+
+  /**
+   * Gets the delivery counters of the image stream.
+   *
+   * @return a map containing the delivered, dropped and skipped frame counts, the frames in flight,
+   *     the frames dropped because all frame analysis threads were busy and the frames sent without
+   *     their own capture result.
+   */
+  public Map<String, Object> getImageStreamStats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("deliveredFrames", pendingStreamImage.getDeliveredCount());
+    stats.put("droppedFrames", pendingStreamImage.getDroppedCount());
+    stats.put("skippedFrames", imageStreamPacer == null ? 0L : imageStreamPacer.getSkippedCount());
+    stats.put("framesInFlight", imageStreamBufferPool == null ? 0 : imageStreamBufferPool.getInFlightCount());
+    stats.put("busyDroppedFrames", frameAnalysisExecutor.getRejectedCount());
+    stats.put("unmatchedFrames", unmatchedStreamFrames.get());
+    return stats;
+  }
+
   /**
    * This a callback object for the {@link ImageReader}. "onImageAvailable" will
-   * be called when a still image is ready to be saved.
+   * be called when a still image is ready to be saved. The camera may already be
+   * taking the next picture.
    */
   @Override
   public void onImageAvailable(ImageReader reader) {
     Log.i(TAG, "onImageAvailable");
 
-    backgroundHandler.post(new ImageSaver(
-        // Use acquireNextImage since image reader is only for one image.
-        reader.acquireNextImage(), captureFile, new ImageSaver.Callback() {
-          @Override
-          public void onComplete(String absolutePath) {
-            dartMessenger.finish(flutterResult, absolutePath);
-          }
-
-          @Override
-          public void onError(String errorCode, String errorMessage) {
-            dartMessenger.error(flutterResult, errorCode, errorMessage, null);
-          }
-        }, isSquare));
-    cameraCaptureCallback.setCameraState(CameraState.STATE_PREVIEW);
+    final Image image = reader.acquireNextImage();
+    if (image == null) {
+      return;
+    }
+    final PictureRequest request = pictureQueue.pollCaptured();
+    if (request == null) {
+      // The picture already failed.
+      image.close();
+      return;
+    }
+    request.getTimings().mark(CaptureTimings.IMAGE_AVAILABLE);
+    saveCapturedPicture(image, request);
   }
 
   private void setImageStreamImageAvailableListener(final EventChannel.EventSink imageStreamSink) {
-    imageStreamReader.setOnImageAvailableListener(reader -> {
-      Image img = reader.acquireNextImage();
-      // Use acquireNextImage since image reader is only for one image.
-      if (img == null)
-        return;
+    this.imageStreamSink = imageStreamSink;
+    setStreamImageAvailableListener();
+  }
 
-      List<Map<String, Object>> planes = new ArrayList<>();
-      for (Image.Plane plane : img.getPlanes()) {
-        ByteBuffer buffer = plane.getBuffer();
+  private void setStreamImageAvailableListener() {
+    imageStreamReader.setOnImageAvailableListener(this::onStreamImageAvailable, backgroundHandler);
+  }
+
+  private void onStreamImageAvailable(ImageReader reader) {
+    Image img = reader.acquireNextImage();
+    if (img == null)
+      return;
 
-        byte[] bytes = new byte[buffer.remaining()];
-        buffer.get(bytes, 0, bytes.length);
+    // Frame processors see every frame, but frames above the frame rate budget are not streamed.
+    final boolean processFrame = frameProcessorRunner.isActive();
+    final FramePacer pacer = imageStreamPacer;
+    EventChannel.EventSink sink = imageStreamSink;
+    if (sink != null && pacer != null && !pacer.accept(img.getTimestamp())) {
+      sink = null;
+    }
+    if (!processFrame && sink == null) {
+      img.close();
+      return;
+    }
+    submitStreamImage(img, processFrame, sink);
+  }
 
-        Map<String, Object> planeBuffer = new HashMap<>();
-        planeBuffer.put("bytesPerRow", plane.getRowStride());
-        planeBuffer.put("bytesPerPixel", plane.getPixelStride());
-        planeBuffer.put("bytes", bytes);
+  /**
+   * Hands the image to the frame analysis threads, which run the frame processors and copy the
+   * image into a free stream frame. Runs on the background thread, in capture order.
+   *
+   * <p>When all stream frames are still in flight, a frame that is only streamed becomes the
+   * pending image and the previously pending one is dropped without being copied. A frame that is
+   * also processed is processed anyway and only dropped from the stream.
+   *
+   * @param img the image, which is closed once it has been analyzed.
+   * @param processFrame whether to run the frame processors on the image.
+   * @param sink the image stream sink to send the image to, or {@code null} to not stream it.
+   */
+  private void submitStreamImage(Image img, boolean processFrame, EventChannel.EventSink sink) {
+    final OrderedFrameExecutor executor = frameAnalysisExecutor;
+    final long sequence = executor.reserve();
+    if (sequence < 0) {
+      // All frame analysis threads are busy, the executor counts the dropped frame.
+      img.close();
+      return;
+    }
 
-        planes.add(planeBuffer);
+    ImageStreamBufferPool.Frame frame = null;
+    if (sink != null) {
+      frame = imageStreamBufferPool.acquire();
+      if (frame == null && !processFrame) {
+        executor.cancel(sequence);
+        Image dropped = pendingStreamImage.offer(img);
+        if (dropped != null) {
+          dropped.close();
+        }
+        return;
+      }
+      if (frame == null) {
+        pendingStreamImage.markDropped();
+      } else {
+        // A newer frame is on its way, so the pending one would arrive out of order.
+        closePendingStreamImage();
       }
+    }
 
-      Map<String, Object> imageBuffer = new HashMap<>();
-      imageBuffer.put("width", img.getWidth());
-      imageBuffer.put("height", img.getHeight());
-      imageBuffer.put("format", img.getFormat());
-      imageBuffer.put("planes", planes);
-      imageBuffer.put("lensAperture", this.captureProps.getLastLensAperture());
-      imageBuffer.put("sensorExposureTime", this.captureProps.getLastSensorExposureTime());
-      Integer sensorSensitivity = this.captureProps.getLastSensorSensitivity();
-      imageBuffer.put("sensorSensitivity", sensorSensitivity == null ? null : (double) sensorSensitivity);
-
-      final Handler handler = new Handler(Looper.getMainLooper());
-      handler.post(() -> imageStreamSink.success(imageBuffer));
-      img.close();
-    }, backgroundHandler);
+    // The last known capture properties are only sent when the capture result of the image is no
+    // longer, or not yet, known.
+    final StreamFrameTask task = streamFrameTasks[executor.getSlot(sequence)].prepare(img, processFrame, frame,
+        sink, imageStreamOptions, lumaOnlyImageStream, captureProps.getLastLensAperture(),
+        captureProps.getLastSensorExposureTime(), captureProps.getLastSensorSensitivity());
+    if (!executor.execute(sequence, task)) {
+      task.discard();
+    }
+  }
+
+  /** Sends the pending stream image, if any, now that a frame has been delivered. */
+  private void drainPendingStreamImage() {
+    Image pending = pendingStreamImage.poll();
+    if (pending == null) {
+      return;
+    }
+    final EventChannel.EventSink sink = imageStreamSink;
+    if (sink == null) {
+      pending.close();
+      return;
+    }
+    submitStreamImage(pending, false, sink);
+  }
+
+  private void closePendingStreamImage() {
+    Image pending = pendingStreamImage.clear();
+    if (pending != null) {
+      pending.close();
+    }
   }
 
   private void closeCaptureSession() {
+    persistentSessionOutputs = null;
     if (captureSession != null) {
       Log.i(TAG, "closeCaptureSession");
 
@@ -1018,6 +2170,10 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
   public void close() {
     Log.i(TAG, "close");
     closeCaptureSession();
+    for (PictureRequest request : pictureQueue.clear()) {
+      dartMessenger.error(request.getResult(), "cameraClosed", "The camera was closed before the picture was taken",
+          null);
+    }
 
     if (cameraDevice != null) {
       cameraDevice.close();
@@ -1027,23 +2183,65 @@ class Camera implements CameraCaptureCallback.CameraCaptureStateListener, ImageR
       pictureImageReader.close();
       pictureImageReader = null;
     }
+    frameProcessorRunner.close();
+    if (zslImageReader != null) {
+      closeZslImageReader(zslImageReader);
+      zslImageReader = null;
+    }
     if (imageStreamReader != null) {
-      imageStreamReader.close();
+      final ImageReader reader = imageStreamReader;
       imageStreamReader = null;
+      reader.setOnImageAvailableListener(null, backgroundHandler);
+      closePendingStreamImage();
+      // Frames that are being analyzed still use images of the stream reader, so it is closed once
+      // they are done, or after a timeout, without blocking the calling thread.
+      final AtomicBoolean readerClosed = new AtomicBoolean();
+      final Runnable closeReader = () -> {
+        if (readerClosed.compareAndSet(false, true)) {
+          reader.close();
+        }
+      };
+      frameAnalysisExecutor.runWhenIdle(closeReader);
+      mainHandler.postDelayed(closeReader, FRAME_ANALYSIS_DRAIN_TIMEOUT_MS);
     }
     if (mediaRecorder != null) {
       mediaRecorder.reset();
       mediaRecorder.release();
       mediaRecorder = null;
     }
+    if (recorderSurface != null) {
+      recorderSurface.release();
+      recorderSurface = null;
+    }
+    if (persistentFlutterSurface != null) {
+      persistentFlutterSurface.release();
+      persistentFlutterSurface = null;
+    }
+  }
+
+  /**
+   * Stops the threads of the camera, which are otherwise kept while it is closed so it can be
+   * opened again. Pictures that are being saved still finish.
+   */
+  public void shutdownExecutors() {
+    executors.shutdown(FRAME_ANALYSIS_DRAIN_TIMEOUT_MS);
+  }
 
-    stopBackgroundThread();
+  /**
+   * Gets the threads of the camera.
+   *
+   * @return a map containing the number of camera control, frame analysis and I/O threads, and
+   *     whether they have been shut down.
+   */
+  public Map<String, Object> getThreadStats() {
+    return executors.getStats();
   }
 
   public void dispose() {
     Log.i(TAG, "dispose");
 
     close();
+    shutdownExecutors();
     flutterTexture.release();
     getDeviceOrientationManager().stop();
   }
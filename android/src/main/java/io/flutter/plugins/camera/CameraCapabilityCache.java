@@ -0,0 +1,578 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.Range;
+import android.util.Size;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import io.flutter.plugins.camera.features.resolution.ResolutionChoice;
+import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A process wide cache of the characteristics of the cameras and the tables derived from them, by
+ * camera id.
+ *
+ * <p>Characteristics are fixed for the lifetime of a camera, so after the first use listing the
+ * cameras and creating a camera only read memory. The cache listens to the camera service for
+ * cameras that are added, and drops external cameras when they become unavailable, as they may
+ * have been unplugged. Built in cameras also become unavailable whenever they are opened, which
+ * does not change their characteristics, so they are kept.
+ *
+ * <p>Derived values are computed from characteristics the caller already has, so their getters
+ * never query the camera service.
+ *
+ * <p>Once a snapshot file is set, the derived tables are also kept on disk as a {@link
+ * CapabilitySnapshot}, so a cold start lists the cameras and resolves presets without the camera
+ * service or {@link android.media.CamcorderProfile}. The snapshot is read in the background as soon
+ * as its file is set, and until it has been read the camera service is queried as without one. It
+ * is only derived from the camera service again, in the background, when there is none for the
+ * running build, when it lists an external camera that may have been unplugged since, and whenever
+ * cameras are added or removed.
+ */
+public final class CameraCapabilityCache {
+  private static final String TAG = "CameraCapabilityCache";
+  /** The name of the snapshot file in the no backup directory of the app. */
+  public static final String SNAPSHOT_FILE_NAME = "camera_capabilities.bin";
+  // The formats whose output sizes are kept in the snapshot.
+  private static final int[] SNAPSHOT_FORMATS = {ImageFormat.JPEG, ImageFormat.YUV_420_888};
+
+  private static CameraCapabilityCache instance;
+
+  private final Map<String, Entry> entries = new HashMap<>();
+  @Nullable private String[] cameraIds;
+  @Nullable private CameraManager cameraManager;
+
+  @Nullable private File snapshotFile;
+  private String fingerprint;
+  @Nullable private Executor snapshotExecutor;
+  private boolean snapshotLoaded;
+  @Nullable private CapabilitySnapshot snapshot;
+  // Whether cameras were added or removed since the snapshot was refreshed.
+  private boolean snapshotCamerasStale;
+  private boolean refreshScheduled;
+
+  private final CameraManager.AvailabilityCallback availabilityCallback =
+      new CameraManager.AvailabilityCallback() {
+        @Override
+        public void onCameraAvailable(@NonNull String cameraId) {
+          synchronized (CameraCapabilityCache.this) {
+            if (cameraIds != null && !Arrays.asList(cameraIds).contains(cameraId)) {
+              invalidateCameraIds();
+            }
+          }
+        }
+
+        @Override
+        public void onCameraUnavailable(@NonNull String cameraId) {
+          synchronized (CameraCapabilityCache.this) {
+            final Entry entry = entries.get(cameraId);
+            if (entry != null && isExternal(entry.characteristics)) {
+              invalidate(cameraId);
+            }
+          }
+        }
+      };
+
+  /** Returns the cache shared by all cameras of the process. */
+  @NonNull
+  public static synchronized CameraCapabilityCache getInstance() {
+    if (instance == null) {
+      instance = new CameraCapabilityCache();
+    }
+    return instance;
+  }
+
+  @VisibleForTesting
+  CameraCapabilityCache() {}
+
+  /**
+   * Keeps the derived tables in a snapshot file, which is read in the background right away. Later
+   * calls are ignored, the file is set once per process.
+   *
+   * @param file the snapshot file, in the no backup directory of the app.
+   * @param fingerprint the build fingerprint of the running system.
+   */
+  public void setSnapshotFile(@NonNull File file, @NonNull String fingerprint) {
+    // The thread ends when it has been idle for a while.
+    final ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            0,
+            1,
+            10,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> new Thread(runnable, "CameraCapabilities"));
+    setSnapshotFile(file, fingerprint, executor);
+  }
+
+  @VisibleForTesting
+  synchronized void setSnapshotFile(
+      @NonNull File file, @NonNull String fingerprint, @NonNull Executor executor) {
+    if (snapshotFile != null) {
+      return;
+    }
+    this.snapshotFile = file;
+    this.fingerprint = fingerprint;
+    this.snapshotExecutor = executor;
+    executor.execute(() -> loadSnapshot(file, fingerprint));
+  }
+
+  /** Reads the snapshot file, unless a refresh already replaced it. Runs on the snapshot executor. */
+  private void loadSnapshot(File file, String fingerprint) {
+    final CapabilitySnapshot loaded = readSnapshot(file, fingerprint);
+    synchronized (this) {
+      if (snapshotLoaded) {
+        return;
+      }
+      snapshotLoaded = true;
+      snapshot = loaded;
+      if (loaded != null && hasExternalCamera(loaded)) {
+        // The camera may have been unplugged while the app was not running.
+        snapshotCamerasStale = true;
+      }
+      scheduleRefresh();
+    }
+  }
+
+  /**
+   * Gets the ids of the cameras, querying the camera service only the first time.
+   *
+   * @param cameraManager the camera manager to query on a miss.
+   * @return a copy of the ids.
+   * @throws CameraAccessException when the camera service cannot be reached.
+   */
+  @NonNull
+  public synchronized String[] getCameraIdList(@NonNull CameraManager cameraManager)
+      throws CameraAccessException {
+    registerAvailabilityCallback(cameraManager);
+    final CapabilitySnapshot snapshot = getSnapshot();
+    if (cameraIds == null) {
+      cameraIds =
+          snapshot != null && !snapshotCamerasStale
+              ? snapshot.getCameraIds()
+              : cameraManager.getCameraIdList();
+    }
+    return cameraIds.clone();
+  }
+
+  /**
+   * Gets the characteristics of a camera, querying the camera service only the first time.
+   *
+   * @param cameraManager the camera manager to query on a miss.
+   * @param cameraId the id of the camera.
+   * @throws CameraAccessException when the camera service cannot be reached.
+   */
+  @NonNull
+  public synchronized CameraCharacteristics getCharacteristics(
+      @NonNull CameraManager cameraManager, @NonNull String cameraId)
+      throws CameraAccessException {
+    registerAvailabilityCallback(cameraManager);
+    Entry entry = entries.get(cameraId);
+    if (entry == null) {
+      entry = new Entry(cameraManager.getCameraCharacteristics(cameraId));
+      entries.put(cameraId, entry);
+    }
+    return entry.characteristics;
+  }
+
+  /**
+   * Gets the direction a camera faces, from the snapshot when there is one.
+   *
+   * @param cameraManager the camera manager to query on a miss.
+   * @param cameraId the id of the camera.
+   * @return one of the LENS_FACING values of {@link CameraMetadata}.
+   * @throws CameraAccessException when the camera service cannot be reached.
+   */
+  public synchronized int getLensFacing(
+      @NonNull CameraManager cameraManager, @NonNull String cameraId)
+      throws CameraAccessException {
+    final CapabilitySnapshot.CameraEntry camera = getSnapshotCamera(cameraId);
+    if (camera != null) {
+      return camera.lensFacing;
+    }
+    return getCharacteristics(cameraManager, cameraId).get(CameraCharacteristics.LENS_FACING);
+  }
+
+  /**
+   * Gets the orientation of the sensor of a camera, from the snapshot when there is one.
+   *
+   * @param cameraManager the camera manager to query on a miss.
+   * @param cameraId the id of the camera.
+   * @throws CameraAccessException when the camera service cannot be reached.
+   */
+  public synchronized int getSensorOrientation(
+      @NonNull CameraManager cameraManager, @NonNull String cameraId)
+      throws CameraAccessException {
+    final CapabilitySnapshot.CameraEntry camera = getSnapshotCamera(cameraId);
+    if (camera != null) {
+      return camera.sensorOrientation;
+    }
+    return getCharacteristics(cameraManager, cameraId)
+        .get(CameraCharacteristics.SENSOR_ORIENTATION);
+  }
+
+  /**
+   * Gets the stream configuration map of a camera, which is otherwise rebuilt on every read of
+   * the characteristics.
+   *
+   * @param cameraId the id of the camera.
+   * @param characteristics the characteristics of the camera, read on a miss.
+   */
+  @Nullable
+  public synchronized StreamConfigurationMap getStreamConfigurationMap(
+      @NonNull String cameraId, @NonNull CameraCharacteristics characteristics) {
+    final Entry entry = getEntry(cameraId, characteristics);
+    if (!entry.streamConfigurationMapRead) {
+      entry.streamConfigurationMap =
+          characteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+      entry.streamConfigurationMapRead = true;
+    }
+    return entry.streamConfigurationMap;
+  }
+
+  /**
+   * Gets the output sizes of a camera for an image format, largest area first. They are cached
+   * while the characteristics of the camera are.
+   *
+   * @param cameraId the id of the camera.
+   * @param streamConfigurationMap the stream configuration map of the camera, read on a miss.
+   * @param format the {@link android.graphics.ImageFormat} of the outputs.
+   * @return a copy of the sizes, empty when the format is not supported.
+   */
+  @NonNull
+  public synchronized Size[] getOutputSizes(
+      @NonNull String cameraId, @Nullable StreamConfigurationMap streamConfigurationMap, int format) {
+    final Entry entry = entries.get(cameraId);
+    Size[] sizes = entry == null ? null : entry.outputSizes.get(format);
+    final CapabilitySnapshot.CameraEntry camera = getSnapshotCamera(cameraId);
+    if (sizes == null && camera != null) {
+      sizes = camera.outputSizes.get(format);
+    }
+    if (sizes == null) {
+      final Size[] outputSizes =
+          streamConfigurationMap == null ? null : streamConfigurationMap.getOutputSizes(format);
+      sizes = outputSizes == null ? new Size[0] : outputSizes.clone();
+      sortByAreaDescending(sizes);
+      if (entry != null) {
+        entry.outputSizes.put(format, sizes);
+      }
+    }
+    return sizes.clone();
+  }
+
+  /**
+   * Gets the frame rate ranges the auto exposure of a camera supports.
+   *
+   * @param cameraId the id of the camera.
+   * @param characteristics the characteristics of the camera, read on a miss.
+   */
+  @Nullable
+  public synchronized Range<Integer>[] getFpsRanges(
+      @NonNull String cameraId, @NonNull CameraCharacteristics characteristics) {
+    final Entry entry = getEntry(cameraId, characteristics);
+    if (!entry.fpsRangesRead) {
+      final CapabilitySnapshot.CameraEntry camera = getSnapshotCamera(cameraId);
+      entry.fpsRanges =
+          camera != null
+              ? toFpsRanges(camera.fpsRanges)
+              : characteristics.get(CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES);
+      entry.fpsRangesRead = true;
+    }
+    return entry.fpsRanges;
+  }
+
+  /**
+   * Gets the sizes and recording profile a preset has resolved to on a camera.
+   *
+   * @return the resolved preset, or {@code null} when it has not been resolved yet.
+   */
+  @Nullable
+  public synchronized ResolutionChoice getResolution(
+      @NonNull String cameraId, @NonNull ResolutionPreset preset) {
+    final Entry entry = entries.get(cameraId);
+    final ResolutionChoice choice = entry == null ? null : entry.resolutions.get(preset);
+    if (choice != null) {
+      return choice;
+    }
+    final CapabilitySnapshot.CameraEntry camera = getSnapshotCamera(cameraId);
+    return camera == null ? null : camera.resolutions.get(preset);
+  }
+
+  /**
+   * Stores the sizes and recording profile a preset resolved to on a camera. It is kept in memory
+   * while the characteristics of the camera are cached, and written to the snapshot.
+   */
+  public synchronized void putResolution(
+      @NonNull String cameraId, @NonNull ResolutionPreset preset, @NonNull ResolutionChoice choice) {
+    final Entry entry = entries.get(cameraId);
+    if (entry != null) {
+      entry.resolutions.put(preset, choice);
+    }
+    final CapabilitySnapshot.CameraEntry camera = getSnapshotCamera(cameraId);
+    if (camera != null && camera.resolutions.put(preset, choice) == null) {
+      snapshotExecutor.execute(this::writeSnapshot);
+    }
+  }
+
+  /** Drops everything cached for a camera, and the list of cameras. */
+  public synchronized void invalidate(@NonNull String cameraId) {
+    entries.remove(cameraId);
+    invalidateCameraIds();
+  }
+
+  /** Drops everything that is cached. */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    invalidateCameraIds();
+  }
+
+  private void invalidateCameraIds() {
+    cameraIds = null;
+    if (snapshot != null) {
+      snapshotCamerasStale = true;
+      refreshScheduled = false;
+      scheduleRefresh();
+    }
+  }
+
+  /** Returns the snapshot, or null when there is none or it has not been read yet. */
+  @Nullable
+  private CapabilitySnapshot getSnapshot() {
+    scheduleRefresh();
+    return snapshot;
+  }
+
+  @Nullable
+  private CapabilitySnapshot.CameraEntry getSnapshotCamera(String cameraId) {
+    final CapabilitySnapshot snapshot = getSnapshot();
+    return snapshot == null ? null : snapshot.getCamera(cameraId);
+  }
+
+  /**
+   * Derives the snapshot from the camera service again once it has been read, when there is none
+   * for the running build or the cameras it lists may have changed.
+   */
+  private void scheduleRefresh() {
+    if (refreshScheduled || cameraManager == null || snapshotExecutor == null || !snapshotLoaded) {
+      return;
+    }
+    if (snapshot != null && !snapshotCamerasStale) {
+      return;
+    }
+    refreshScheduled = true;
+    final CameraManager manager = cameraManager;
+    snapshotExecutor.execute(() -> refreshSnapshot(manager));
+  }
+
+  /**
+   * Derives the tables of every camera from the camera service again, keeps the presets that have
+   * been resolved, and writes the snapshot. Runs on the snapshot executor.
+   */
+  @VisibleForTesting
+  void refreshSnapshot(@NonNull CameraManager manager) {
+    final CapabilitySnapshot fresh = new CapabilitySnapshot(fingerprint);
+    try {
+      for (String cameraId : manager.getCameraIdList()) {
+        final CameraCharacteristics characteristics = manager.getCameraCharacteristics(cameraId);
+        final CapabilitySnapshot.CameraEntry camera =
+            new CapabilitySnapshot.CameraEntry(
+                cameraId,
+                characteristics.get(CameraCharacteristics.LENS_FACING),
+                characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION),
+                toFpsBounds(
+                    characteristics.get(
+                        CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES)));
+        final StreamConfigurationMap map =
+            characteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        for (int format : SNAPSHOT_FORMATS) {
+          final Size[] outputSizes = map == null ? null : map.getOutputSizes(format);
+          if (outputSizes != null) {
+            final Size[] sizes = outputSizes.clone();
+            sortByAreaDescending(sizes);
+            camera.outputSizes.put(format, sizes);
+          }
+        }
+        fresh.putCamera(camera);
+      }
+    } catch (CameraAccessException | RuntimeException e) {
+      Log.w(TAG, "Failed refreshing the camera capability snapshot", e);
+      return;
+    }
+
+    synchronized (this) {
+      for (CapabilitySnapshot.CameraEntry camera : fresh.getCameras()) {
+        final CapabilitySnapshot.CameraEntry previous =
+            snapshot == null ? null : snapshot.getCamera(camera.cameraId);
+        if (previous != null) {
+          camera.resolutions.putAll(previous.resolutions);
+        }
+        final Entry entry = entries.get(camera.cameraId);
+        if (entry != null) {
+          camera.resolutions.putAll(entry.resolutions);
+        }
+      }
+      snapshot = fresh;
+      snapshotLoaded = true;
+      snapshotCamerasStale = false;
+      refreshScheduled = false;
+      cameraIds = null;
+    }
+    writeSnapshot();
+  }
+
+  /** Writes the snapshot to its file. Runs on the snapshot executor. */
+  private void writeSnapshot() {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final File file;
+    synchronized (this) {
+      if (snapshot == null) {
+        return;
+      }
+      file = snapshotFile;
+      try {
+        snapshot.writeTo(bytes);
+      } catch (IOException e) {
+        // Writing to memory does not fail.
+        throw new IllegalStateException(e);
+      }
+    }
+    // Written next to the file and renamed, so a reader never sees half a snapshot.
+    final File tempFile = new File(file.getPath() + ".tmp");
+    try (OutputStream output = new FileOutputStream(tempFile)) {
+      bytes.writeTo(output);
+    } catch (IOException e) {
+      Log.w(TAG, "Failed writing the camera capability snapshot", e);
+      tempFile.delete();
+      return;
+    }
+    if (!tempFile.renameTo(file)) {
+      Log.w(TAG, "Failed replacing the camera capability snapshot");
+      tempFile.delete();
+    }
+  }
+
+  @Nullable
+  private static CapabilitySnapshot readSnapshot(File file, String fingerprint) {
+    try (InputStream input = new FileInputStream(file)) {
+      final CapabilitySnapshot snapshot = CapabilitySnapshot.readFrom(input, fingerprint);
+      if (snapshot == null) {
+        // Written by another format version or on another build.
+        file.delete();
+      }
+      return snapshot;
+    } catch (FileNotFoundException e) {
+      return null;
+    } catch (IOException e) {
+      Log.w(TAG, "Discarding the camera capability snapshot", e);
+      file.delete();
+      return null;
+    }
+  }
+
+  private static int[] toFpsBounds(@Nullable Range<Integer>[] ranges) {
+    if (ranges == null) {
+      return new int[0];
+    }
+    final int[] bounds = new int[ranges.length * 2];
+    for (int i = 0; i < ranges.length; i++) {
+      bounds[2 * i] = ranges[i].getLower();
+      bounds[2 * i + 1] = ranges[i].getUpper();
+    }
+    return bounds;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Range<Integer>[] toFpsRanges(int[] bounds) {
+    final Range<Integer>[] ranges = new Range[bounds.length / 2];
+    for (int i = 0; i < ranges.length; i++) {
+      ranges[i] = new Range<>(bounds[2 * i], bounds[2 * i + 1]);
+    }
+    return ranges;
+  }
+
+  private Entry getEntry(String cameraId, CameraCharacteristics characteristics) {
+    Entry entry = entries.get(cameraId);
+    if (entry == null || entry.characteristics != characteristics) {
+      // The camera was invalidated since the caller read its characteristics.
+      entry = new Entry(characteristics);
+      entries.put(cameraId, entry);
+    }
+    return entry;
+  }
+
+  private void registerAvailabilityCallback(CameraManager cameraManager) {
+    if (this.cameraManager != null) {
+      return;
+    }
+    cameraManager.registerAvailabilityCallback(
+        availabilityCallback, new Handler(Looper.getMainLooper()));
+    this.cameraManager = cameraManager;
+  }
+
+  private static boolean hasExternalCamera(CapabilitySnapshot snapshot) {
+    for (CapabilitySnapshot.CameraEntry camera : snapshot.getCameras()) {
+      if (camera.lensFacing == CameraMetadata.LENS_FACING_EXTERNAL) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isExternal(CameraCharacteristics characteristics) {
+    final Integer lensFacing = characteristics.get(CameraCharacteristics.LENS_FACING);
+    return lensFacing != null && lensFacing == CameraMetadata.LENS_FACING_EXTERNAL;
+  }
+
+  private static void sortByAreaDescending(Size[] sizes) {
+    Arrays.sort(
+        sizes,
+        (lhs, rhs) ->
+            // We cast here to ensure the multiplications won't overflow.
+            Long.signum(
+                (long) rhs.getWidth() * rhs.getHeight() - (long) lhs.getWidth() * lhs.getHeight()));
+  }
+
+  private static final class Entry {
+    final CameraCharacteristics characteristics;
+    @Nullable StreamConfigurationMap streamConfigurationMap;
+    boolean streamConfigurationMapRead;
+    final Map<Integer, Size[]> outputSizes = new HashMap<>();
+    @Nullable Range<Integer>[] fpsRanges;
+    boolean fpsRangesRead;
+    final Map<ResolutionPreset, ResolutionChoice> resolutions =
+        new EnumMap<>(ResolutionPreset.class);
+
+    Entry(CameraCharacteristics characteristics) {
+      this.characteristics = characteristics;
+    }
+  }
+}
@@ -11,8 +11,11 @@ import android.hardware.camera2.CaptureResult;
 import android.hardware.camera2.TotalCaptureResult;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import io.flutter.plugins.camera.types.CaptureResultRing;
 import io.flutter.plugins.camera.types.CaptureTimeoutsWrapper;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A callback object for tracking the progress of a {@link android.hardware.camera2.CaptureRequest}
@@ -20,19 +23,28 @@ import io.flutter.plugins.camera.types.CaptureTimeoutsWrapper;
  */
 class CameraCaptureCallback extends CaptureCallback {
   private static final String TAG = "CameraCaptureCallback";
+  private static final long NOT_CONVERGED = Long.MIN_VALUE;
   private final CameraCaptureStateListener cameraStateListener;
   private CameraState cameraState;
   private final CaptureTimeoutsWrapper captureTimeouts;
   private final CameraCaptureProperties captureProps;
+  private final CaptureResultRing captureResults;
+  // The System.nanoTime() of the latest total result, if exposure and focus had converged in it.
+  private volatile long lastConvergedNanos = NOT_CONVERGED;
+  private volatile boolean fixedFocus;
+  // Run once with the next total result.
+  private final AtomicReference<Runnable> nextResultListener = new AtomicReference<>();
 
   private CameraCaptureCallback(
       @NonNull CameraCaptureStateListener cameraStateListener,
       @NonNull CaptureTimeoutsWrapper captureTimeouts,
-      @NonNull CameraCaptureProperties captureProps) {
+      @NonNull CameraCaptureProperties captureProps,
+      @NonNull CaptureResultRing captureResults) {
     cameraState = CameraState.STATE_PREVIEW;
     this.cameraStateListener = cameraStateListener;
     this.captureTimeouts = captureTimeouts;
     this.captureProps = captureProps;
+    this.captureResults = captureResults;
   }
 
   /**
@@ -41,13 +53,18 @@ class CameraCaptureCallback extends CaptureCallback {
    * @param cameraStateListener instance which will be called when the camera state changes.
    * @param captureTimeouts specifying the different timeout counters that should be taken into
    *     account.
+   * @param captureProps the last known capture properties, updated from every total result.
+   * @param captureResults the ring the capture properties of every result are recorded in, by
+   *     sensor timestamp.
    * @return a configured instance of the {@link CameraCaptureCallback} class.
    */
   public static CameraCaptureCallback create(
       @NonNull CameraCaptureStateListener cameraStateListener,
       @NonNull CaptureTimeoutsWrapper captureTimeouts,
-      @NonNull CameraCaptureProperties captureProps) {
-    return new CameraCaptureCallback(cameraStateListener, captureTimeouts, captureProps);
+      @NonNull CameraCaptureProperties captureProps,
+      @NonNull CaptureResultRing captureResults) {
+    return new CameraCaptureCallback(
+        cameraStateListener, captureTimeouts, captureProps, captureResults);
   }
 
   /**
@@ -68,18 +85,104 @@ class CameraCaptureCallback extends CaptureCallback {
     cameraState = state;
   }
 
+  /**
+   * Sets a listener that is run once, after the next total result has been processed.
+   *
+   * @param listener the listener, or {@code null} to remove the pending one.
+   */
+  public void runOnNextResult(@Nullable Runnable listener) {
+    nextResultListener.set(listener);
+  }
+
+  /**
+   * Gets whether the latest total result reported converged exposure and focus, and arrived no
+   * longer than the given time ago.
+   *
+   * @param maxAgeNanos the maximum age of the result in nanoseconds.
+   * @return true when a still picture can be taken without the precapture sequence.
+   */
+  public boolean isConvergedWithin(long maxAgeNanos) {
+    final long convergedNanos = lastConvergedNanos;
+    return convergedNanos != NOT_CONVERGED && System.nanoTime() - convergedNanos <= maxAgeNanos;
+  }
+
+  /**
+   * Sets whether the camera has a fixed focus, whose focus state stays inactive.
+   *
+   * @param fixedFocus true when the camera does not support auto focus.
+   */
+  public void setFixedFocus(boolean fixedFocus) {
+    this.fixedFocus = fixedFocus;
+  }
+
+  /**
+   * Gets whether the given states report converged exposure and focus that is locked in focus, or
+   * passively focused by the continuous picture mode. A missing AE state counts as converged, a
+   * missing AF state only for cameras with a fixed focus.
+   *
+   * <p>This is the one rule for skipping the precapture sequence and for choosing a zero shutter
+   * lag frame, so both take pictures under the same conditions.
+   *
+   * @param aeState the CONTROL_AE_STATE of a result.
+   * @param afMode the CONTROL_AF_MODE of a result.
+   * @param afState the CONTROL_AF_STATE of a result.
+   * @param fixedFocus whether the camera has a fixed focus, whose inactive focus counts as focused.
+   * @return true when exposure and focus have converged.
+   */
+  static boolean isConverged(
+      @Nullable Integer aeState,
+      @Nullable Integer afMode,
+      @Nullable Integer afState,
+      boolean fixedFocus) {
+    final boolean aeConverged =
+        aeState == null
+            || aeState == CaptureResult.CONTROL_AE_STATE_CONVERGED
+            || aeState == CaptureResult.CONTROL_AE_STATE_LOCKED;
+    final boolean afConverged;
+    if (afState == null) {
+      afConverged = fixedFocus;
+    } else if (afState == CaptureResult.CONTROL_AF_STATE_PASSIVE_FOCUSED) {
+      // Only the continuous picture mode holds a passive focus steady enough for a still.
+      afConverged =
+          afMode != null && afMode == CaptureResult.CONTROL_AF_MODE_CONTINUOUS_PICTURE;
+    } else {
+      afConverged =
+          afState == CaptureResult.CONTROL_AF_STATE_FOCUSED_LOCKED
+              || (fixedFocus && afState == CaptureResult.CONTROL_AF_STATE_INACTIVE);
+    }
+    return aeConverged && afConverged;
+  }
+
   private void process(CaptureResult result) {
     Integer aeState = result.get(CaptureResult.CONTROL_AE_STATE);
     Integer afState = result.get(CaptureResult.CONTROL_AF_STATE);
+    Integer afMode = result.get(CaptureResult.CONTROL_AF_MODE);
 
     // Update capture properties
+    Float lensAperture = result.get(CaptureResult.LENS_APERTURE);
+    Long sensorExposureTime = result.get(CaptureResult.SENSOR_EXPOSURE_TIME);
+    Integer sensorSensitivity = result.get(CaptureResult.SENSOR_SENSITIVITY);
     if (result instanceof TotalCaptureResult) {
-      Float lensAperture = result.get(CaptureResult.LENS_APERTURE);
-      Long sensorExposureTime = result.get(CaptureResult.SENSOR_EXPOSURE_TIME);
-      Integer sensorSensitivity = result.get(CaptureResult.SENSOR_SENSITIVITY);
       this.captureProps.setLastLensAperture(lensAperture);
       this.captureProps.setLastSensorExposureTime(sensorExposureTime);
       this.captureProps.setLastSensorSensitivity(sensorSensitivity);
+      lastConvergedNanos =
+          isConverged(aeState, afMode, afState, fixedFocus)
+              ? System.nanoTime()
+              : NOT_CONVERGED;
+    }
+
+    // Partial results that carry the timestamp are merged into the record of their capture.
+    Long sensorTimestamp = result.get(CaptureResult.SENSOR_TIMESTAMP);
+    if (sensorTimestamp != null) {
+      captureResults.record(
+          sensorTimestamp,
+          lensAperture,
+          sensorExposureTime,
+          sensorSensitivity,
+          aeState,
+          afMode,
+          afState);
     }
 
     if (cameraState != CameraState.STATE_PREVIEW) {
@@ -167,6 +270,10 @@ class CameraCaptureCallback extends CaptureCallback {
       @NonNull CaptureRequest request,
       @NonNull TotalCaptureResult result) {
     process(result);
+    final Runnable listener = nextResultListener.getAndSet(null);
+    if (listener != null) {
+      listener.run();
+    }
   }
 
   /** An interface that describes the different state changes implementers can be informed about. */
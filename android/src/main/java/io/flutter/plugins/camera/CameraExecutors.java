@@ -0,0 +1,125 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import io.flutter.plugins.camera.imagestream.OrderedFrameExecutor;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * The threads of a {@link Camera}, created once with the camera and shared by all of its capture
+ * sessions until the camera is disposed.
+ *
+ * <ul>
+ *   <li>The camera control thread runs the callbacks of the camera device, its capture sessions,
+ *       capture requests and image readers.
+ *   <li>The analysis pool processes the frames of the image stream and frame processors.
+ *   <li>The I/O executor saves pictures.
+ * </ul>
+ */
+final class CameraExecutors {
+  private static final String TAG = "CameraExecutors";
+
+  private final HandlerThread controlThread;
+  private final Handler controlHandler;
+  private final Executor controlExecutor;
+  private final OrderedFrameExecutor analysisExecutor;
+  private final BoundedIoExecutor ioExecutor;
+  private boolean shutDown;
+
+  /**
+   * Creates and starts the threads.
+   *
+   * @param analysisThreads the number of threads that analyze frames.
+   * @param deliveryExecutor the executor the results of analyzed frames are delivered on.
+   * @param ioThreads the number of threads that save pictures.
+   * @param ioQueueCapacity the number of pictures that can wait for an I/O thread.
+   */
+  CameraExecutors(
+      int analysisThreads,
+      @NonNull Executor deliveryExecutor,
+      int ioThreads,
+      int ioQueueCapacity) {
+    controlThread = new HandlerThread("CameraBackground");
+    controlThread.start();
+    controlHandler = new Handler(controlThread.getLooper());
+    controlExecutor = controlHandler::post;
+    analysisExecutor = new OrderedFrameExecutor(analysisThreads, deliveryExecutor);
+    ioExecutor = new BoundedIoExecutor(ioThreads, ioQueueCapacity);
+  }
+
+  /** Returns the handler of the camera control thread. */
+  @NonNull
+  Handler getControlHandler() {
+    return controlHandler;
+  }
+
+  /** Returns the camera control thread as executor, for APIs that take one instead of a handler. */
+  @NonNull
+  Executor getControlExecutor() {
+    return controlExecutor;
+  }
+
+  @NonNull
+  OrderedFrameExecutor getAnalysisExecutor() {
+    return analysisExecutor;
+  }
+
+  @NonNull
+  BoundedIoExecutor getIoExecutor() {
+    return ioExecutor;
+  }
+
+  /** Returns whether the threads have been shut down. */
+  synchronized boolean isShutDown() {
+    return shutDown;
+  }
+
+  /**
+   * Gets the number of threads.
+   *
+   * @return a map containing the number of camera control, analysis and I/O threads, and whether
+   *     the threads have been shut down.
+   */
+  synchronized Map<String, Object> getStats() {
+    final Map<String, Object> stats = new HashMap<>();
+    stats.put("controlThreads", controlThread.isAlive() ? 1 : 0);
+    stats.put("analysisThreads", analysisExecutor.getThreadCount());
+    stats.put("ioThreads", ioExecutor.getThreadCount());
+    stats.put("shutDown", shutDown);
+    return stats;
+  }
+
+  /**
+   * Stops all threads. Callbacks that are already posted to the control thread, frames that are
+   * being analyzed and pictures that are being saved still finish, nothing new is accepted.
+   *
+   * @param analysisTimeoutMillis the maximum time to wait for frames that are being analyzed.
+   */
+  void shutdown(long analysisTimeoutMillis) {
+    synchronized (this) {
+      if (shutDown) {
+        return;
+      }
+      shutDown = true;
+    }
+    controlThread.quitSafely();
+    if (Thread.currentThread() != controlThread) {
+      try {
+        controlThread.join();
+      } catch (InterruptedException e) {
+        Log.w(TAG, "Interrupted while waiting for the camera control thread.");
+        Thread.currentThread().interrupt();
+      }
+    }
+    analysisExecutor.shutdown(analysisTimeoutMillis);
+    ioExecutor.shutdown();
+  }
+}
@@ -0,0 +1,97 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The monotonic timestamps of the phases of opening a camera, from the request to the first frame
+ * of the preview.
+ *
+ * <p>The device and the outputs of the camera are opened on different threads, so the phases are
+ * marked and read under the lock of the instance. Every phase keeps its first mark, so sessions that
+ * are configured after the camera has been opened do not change the timings.
+ */
+final class CameraOpenTimings {
+  static final int OPEN_REQUESTED = 0;
+  static final int DEVICE_OPENED = 1;
+  /** The image readers and surfaces of the camera have been allocated. */
+  static final int OUTPUTS_PREPARED = 2;
+  static final int SESSION_CONFIGURED = 3;
+  /** The first capture result of the preview arrived. */
+  static final int FIRST_FRAME = 4;
+  static final int PHASE_COUNT = 5;
+
+  /** The names of the phases, as sent to Dart. */
+  static final String[] PHASE_NAMES = {
+    "openRequested", "deviceOpened", "outputsPrepared", "sessionConfigured", "firstFrame"
+  };
+
+  private static final long NOT_MARKED = Long.MIN_VALUE;
+
+  private final long[] phaseNanos = new long[PHASE_COUNT];
+
+  /** Creates a new instance of the {@link CameraOpenTimings} with the open requested right now. */
+  CameraOpenTimings() {
+    this(System.nanoTime());
+  }
+
+  @VisibleForTesting
+  CameraOpenTimings(long requestNanos) {
+    Arrays.fill(phaseNanos, NOT_MARKED);
+    phaseNanos[OPEN_REQUESTED] = requestNanos;
+  }
+
+  /**
+   * Marks that opening the camera reached a phase right now, unless it already did.
+   *
+   * @return whether the phase was marked by this call.
+   */
+  boolean mark(int phase) {
+    return mark(phase, System.nanoTime());
+  }
+
+  @VisibleForTesting
+  synchronized boolean mark(int phase, long timeNanos) {
+    if (phaseNanos[phase] != NOT_MARKED) {
+      return false;
+    }
+    phaseNanos[phase] = timeNanos;
+    return true;
+  }
+
+  /**
+   * Gets the time from the request to a phase.
+   *
+   * @param phase the phase.
+   * @return the elapsed time in nanoseconds, or -1 when the phase has not been marked.
+   */
+  synchronized long getElapsedNanos(int phase) {
+    final long nanos = phaseNanos[phase];
+    return nanos == NOT_MARKED ? -1 : nanos - phaseNanos[OPEN_REQUESTED];
+  }
+
+  /**
+   * Converts the timings to the data sent to Dart.
+   *
+   * @return a map from phase name to the time from the request to that phase in microseconds,
+   *     containing only the marked phases.
+   */
+  @NonNull
+  synchronized Map<String, Object> toMap() {
+    final Map<String, Object> timings = new HashMap<>();
+    for (int phase = 0; phase < PHASE_COUNT; phase++) {
+      final long elapsedNanos = getElapsedNanos(phase);
+      if (elapsedNanos >= 0) {
+        timings.put(PHASE_NAMES[phase], elapsedNanos / 1000);
+      }
+    }
+    return timings;
+  }
+}
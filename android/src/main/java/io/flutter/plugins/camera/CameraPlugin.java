@@ -9,15 +9,14 @@ import android.os.Build;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.lifecycle.Lifecycle;
 
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
-import io.flutter.embedding.engine.plugins.lifecycle.FlutterLifecycleAdapter;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugins.camera.CameraPermissions.PermissionsRegistry;
 import io.flutter.view.TextureRegistry;
+import java.io.File;
 
 /**
  * Platform implementation of the camera_plugin.
@@ -55,8 +54,7 @@ public final class CameraPlugin implements FlutterPlugin, ActivityAware {
         registrar.activity(),
         registrar.messenger(),
         registrar::addRequestPermissionsResultListener,
-        registrar.view(),
-        null);
+        registrar.view());
   }
 
   @Override
@@ -75,8 +73,7 @@ public final class CameraPlugin implements FlutterPlugin, ActivityAware {
         binding.getActivity(),
         flutterPluginBinding.getBinaryMessenger(),
         binding::addRequestPermissionsResultListener,
-        flutterPluginBinding.getTextureRegistry(),
-        FlutterLifecycleAdapter.getActivityLifecycle(binding));
+        flutterPluginBinding.getTextureRegistry());
   }
 
   @Override
@@ -102,20 +99,21 @@ public final class CameraPlugin implements FlutterPlugin, ActivityAware {
       Activity activity,
       BinaryMessenger messenger,
       PermissionsRegistry permissionsRegistry,
-      TextureRegistry textureRegistry,
-      @Nullable Lifecycle lifecycle) {
+      TextureRegistry textureRegistry) {
     if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
       // If the sdk is less than 21 (min sdk for Camera2) we don't register the plugin.
       return;
     }
 
+    CameraCapabilityCache.getInstance().setSnapshotFile(
+        new File(activity.getNoBackupFilesDir(), CameraCapabilityCache.SNAPSHOT_FILE_NAME),
+        Build.FINGERPRINT);
     methodCallHandler =
         new MethodCallHandlerImpl(
             activity,
             messenger,
             new CameraPermissions(),
             permissionsRegistry,
-            textureRegistry,
-            lifecycle);
+            textureRegistry);
   }
 }
@@ -13,6 +13,7 @@ import android.os.Build.VERSION_CODES;
 import android.util.Range;
 import android.util.Rational;
 import android.util.Size;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 
 /**
@@ -288,6 +289,19 @@ public interface CameraProperties {
 
   StreamConfigurationMap getAvailableScalerStreamConfigurationMap();
 
+  /**
+   * Returns the list of thumbnail sizes that can be embedded in JPEG pictures.
+   *
+   * <p>
+   * By default maps to the @see
+   * android.hardware.camera2.CameraCharacteristics#JPEG_AVAILABLE_THUMBNAIL_SIZES
+   * key.
+   *
+   * @return Size[] List of thumbnail sizes, which always contains the (0, 0)
+   *         size that disables the thumbnail.
+   */
+  Size[] getJpegAvailableThumbnailSizes();
+
 }
 
 /**
@@ -298,10 +312,30 @@ public interface CameraProperties {
 class CameraPropertiesImpl implements CameraProperties {
   private final CameraCharacteristics cameraCharacteristics;
   private final String cameraName;
+  @Nullable
+  private final CameraCapabilityCache capabilityCache;
 
   public CameraPropertiesImpl(String cameraName, CameraManager cameraManager) throws CameraAccessException {
     this.cameraName = cameraName;
     this.cameraCharacteristics = cameraManager.getCameraCharacteristics(cameraName);
+    this.capabilityCache = null;
+  }
+
+  /**
+   * Creates a new instance of the {@link CameraPropertiesImpl} that reads the characteristics and the
+   * tables derived from them through a cache.
+   */
+  public CameraPropertiesImpl(String cameraName, CameraManager cameraManager, CameraCapabilityCache capabilityCache)
+      throws CameraAccessException {
+    this.cameraName = cameraName;
+    this.cameraCharacteristics = capabilityCache.getCharacteristics(cameraManager, cameraName);
+    this.capabilityCache = capabilityCache;
+  }
+
+  /** Returns the cache the characteristics are read through, or null when they are read directly. */
+  @Nullable
+  CameraCapabilityCache getCapabilityCache() {
+    return capabilityCache;
   }
 
   @Override
@@ -311,6 +345,9 @@ class CameraPropertiesImpl implements CameraProperties {
 
   @Override
   public Range<Integer>[] getControlAutoExposureAvailableTargetFpsRanges() {
+    if (capabilityCache != null) {
+      return capabilityCache.getFpsRanges(cameraName, cameraCharacteristics);
+    }
     return cameraCharacteristics.get(CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES);
   }
 
@@ -400,6 +437,14 @@ class CameraPropertiesImpl implements CameraProperties {
 
   @Override
   public StreamConfigurationMap getAvailableScalerStreamConfigurationMap() {
+    if (capabilityCache != null) {
+      return capabilityCache.getStreamConfigurationMap(cameraName, cameraCharacteristics);
+    }
     return cameraCharacteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
   }
+
+  @Override
+  public Size[] getJpegAvailableThumbnailSizes() {
+    return cameraCharacteristics.get(CameraCharacteristics.JPEG_AVAILABLE_THUMBNAIL_SIZES);
+  }
 }
@@ -7,7 +7,6 @@ package io.flutter.plugins.camera;
 import android.app.Activity;
 import android.content.Context;
 import android.hardware.camera2.CameraAccessException;
-import android.hardware.camera2.CameraCharacteristics;
 import android.hardware.camera2.CameraManager;
 import android.hardware.camera2.CameraMetadata;
 import io.flutter.embedding.engine.systemchannels.PlatformChannel;
@@ -85,7 +84,8 @@ public final class CameraUtils {
   }
 
   /**
-   * Gets all the available cameras for the device.
+   * Gets all the available cameras for the device. The camera service is only queried the first
+   * time, see {@link CameraCapabilityCache}.
    *
    * @param activity The current Android activity.
    * @return A map of all the available cameras, with their name as their key.
@@ -94,16 +94,16 @@ public final class CameraUtils {
   public static List<Map<String, Object>> getAvailableCameras(Activity activity)
       throws CameraAccessException {
     CameraManager cameraManager = (CameraManager) activity.getSystemService(Context.CAMERA_SERVICE);
-    String[] cameraNames = cameraManager.getCameraIdList();
+    CameraCapabilityCache capabilityCache = CameraCapabilityCache.getInstance();
+    String[] cameraNames = capabilityCache.getCameraIdList(cameraManager);
     List<Map<String, Object>> cameras = new ArrayList<>();
     for (String cameraName : cameraNames) {
       HashMap<String, Object> details = new HashMap<>();
-      CameraCharacteristics characteristics = cameraManager.getCameraCharacteristics(cameraName);
       details.put("name", cameraName);
-      int sensorOrientation = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
+      int sensorOrientation = capabilityCache.getSensorOrientation(cameraManager, cameraName);
       details.put("sensorOrientation", sensorOrientation);
 
-      int lensFacing = characteristics.get(CameraCharacteristics.LENS_FACING);
+      int lensFacing = capabilityCache.getLensFacing(cameraManager, cameraName);
       switch (lensFacing) {
         case CameraMetadata.LENS_FACING_FRONT:
           details.put("lensFacing", "front");
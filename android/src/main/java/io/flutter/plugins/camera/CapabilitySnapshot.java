@@ -0,0 +1,212 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.util.Size;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugins.camera.features.resolution.ResolutionChoice;
+import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The capability tables of all cameras of a device, in the compact binary form that is kept on disk
+ * between runs of the app.
+ *
+ * <p>The file starts with a magic number, the format version and the build fingerprint the tables
+ * were derived on. A file of another format version or another build, like after a system update
+ * that may have changed the camera HAL or the media profiles, is not read.
+ */
+final class CapabilitySnapshot {
+  private static final int MAGIC = 0x43415053;
+  // Larger counts can only come from a corrupt file.
+  private static final int MAX_COUNT = 4096;
+  /** Increased whenever the layout of the file changes. */
+  static final int FORMAT_VERSION = 1;
+
+  /** The tables of one camera. */
+  static final class CameraEntry {
+    final String cameraId;
+    final int lensFacing;
+    final int sensorOrientation;
+    /** The lower and upper bound of every AE target FPS range, in pairs. */
+    final int[] fpsRanges;
+    /** The output sizes per image format, largest area first. */
+    final Map<Integer, Size[]> outputSizes = new HashMap<>();
+    final Map<ResolutionPreset, ResolutionChoice> resolutions =
+        new EnumMap<>(ResolutionPreset.class);
+
+    CameraEntry(String cameraId, int lensFacing, int sensorOrientation, int[] fpsRanges) {
+      this.cameraId = cameraId;
+      this.lensFacing = lensFacing;
+      this.sensorOrientation = sensorOrientation;
+      this.fpsRanges = fpsRanges;
+    }
+  }
+
+  private final String fingerprint;
+  // By camera id, in the order of the camera service.
+  private final Map<String, CameraEntry> cameras = new LinkedHashMap<>();
+
+  CapabilitySnapshot(@NonNull String fingerprint) {
+    this.fingerprint = fingerprint;
+  }
+
+  @NonNull
+  String getFingerprint() {
+    return fingerprint;
+  }
+
+  void putCamera(@NonNull CameraEntry camera) {
+    cameras.put(camera.cameraId, camera);
+  }
+
+  @Nullable
+  CameraEntry getCamera(@NonNull String cameraId) {
+    return cameras.get(cameraId);
+  }
+
+  /** Returns the ids of the cameras, in the order of the camera service. */
+  @NonNull
+  String[] getCameraIds() {
+    return cameras.keySet().toArray(new String[0]);
+  }
+
+  @NonNull
+  List<CameraEntry> getCameras() {
+    return Collections.unmodifiableList(new ArrayList<>(cameras.values()));
+  }
+
+  /** Writes the snapshot in its binary form. */
+  void writeTo(@NonNull OutputStream output) throws IOException {
+    final DataOutputStream data = new DataOutputStream(output);
+    data.writeInt(MAGIC);
+    data.writeInt(FORMAT_VERSION);
+    data.writeUTF(fingerprint);
+    data.writeInt(cameras.size());
+    for (CameraEntry camera : cameras.values()) {
+      data.writeUTF(camera.cameraId);
+      data.writeInt(camera.lensFacing);
+      data.writeInt(camera.sensorOrientation);
+      data.writeInt(camera.fpsRanges.length);
+      for (int bound : camera.fpsRanges) {
+        data.writeInt(bound);
+      }
+      data.writeInt(camera.outputSizes.size());
+      for (Map.Entry<Integer, Size[]> formatSizes : camera.outputSizes.entrySet()) {
+        data.writeInt(formatSizes.getKey());
+        writeSizes(data, formatSizes.getValue());
+      }
+      data.writeInt(camera.resolutions.size());
+      for (Map.Entry<ResolutionPreset, ResolutionChoice> resolution :
+          camera.resolutions.entrySet()) {
+        final ResolutionChoice choice = resolution.getValue();
+        data.writeUTF(resolution.getKey().name());
+        data.writeInt(choice.getProfileQuality());
+        writeSize(data, choice.getPreviewSize());
+        writeSize(data, choice.getCaptureSize());
+      }
+    }
+    data.flush();
+  }
+
+  /**
+   * Reads a snapshot from its binary form.
+   *
+   * @param input the stream to read from.
+   * @param fingerprint the build fingerprint of the running system.
+   * @return the snapshot, or {@code null} when it was written by another format version or on
+   *     another build.
+   * @throws IOException when the stream cannot be read or is not a snapshot.
+   */
+  @Nullable
+  static CapabilitySnapshot readFrom(@NonNull InputStream input, @NonNull String fingerprint)
+      throws IOException {
+    final DataInputStream data = new DataInputStream(input);
+    if (data.readInt() != MAGIC) {
+      throw new IOException("Not a camera capability snapshot");
+    }
+    if (data.readInt() != FORMAT_VERSION || !fingerprint.equals(data.readUTF())) {
+      return null;
+    }
+    final CapabilitySnapshot snapshot = new CapabilitySnapshot(fingerprint);
+    final int cameraCount = readCount(data);
+    for (int i = 0; i < cameraCount; i++) {
+      final String cameraId = data.readUTF();
+      final int lensFacing = data.readInt();
+      final int sensorOrientation = data.readInt();
+      final int[] fpsRanges = new int[readCount(data)];
+      for (int j = 0; j < fpsRanges.length; j++) {
+        fpsRanges[j] = data.readInt();
+      }
+      final CameraEntry camera =
+          new CameraEntry(cameraId, lensFacing, sensorOrientation, fpsRanges);
+      final int formatCount = readCount(data);
+      for (int j = 0; j < formatCount; j++) {
+        final int format = data.readInt();
+        camera.outputSizes.put(format, readSizes(data));
+      }
+      final int resolutionCount = readCount(data);
+      for (int j = 0; j < resolutionCount; j++) {
+        final ResolutionPreset preset;
+        try {
+          preset = ResolutionPreset.valueOf(data.readUTF());
+        } catch (IllegalArgumentException e) {
+          throw new IOException("Unknown resolution preset", e);
+        }
+        final int profileQuality = data.readInt();
+        final Size previewSize = readSize(data);
+        final Size captureSize = readSize(data);
+        camera.resolutions.put(
+            preset, new ResolutionChoice(profileQuality, previewSize, captureSize));
+      }
+      snapshot.putCamera(camera);
+    }
+    return snapshot;
+  }
+
+  private static void writeSizes(DataOutputStream data, Size[] sizes) throws IOException {
+    data.writeInt(sizes.length);
+    for (Size size : sizes) {
+      writeSize(data, size);
+    }
+  }
+
+  private static void writeSize(DataOutputStream data, Size size) throws IOException {
+    data.writeInt(size.getWidth());
+    data.writeInt(size.getHeight());
+  }
+
+  private static Size[] readSizes(DataInputStream data) throws IOException {
+    final Size[] sizes = new Size[readCount(data)];
+    for (int i = 0; i < sizes.length; i++) {
+      sizes[i] = readSize(data);
+    }
+    return sizes;
+  }
+
+  private static int readCount(DataInputStream data) throws IOException {
+    final int count = data.readInt();
+    if (count < 0 || count > MAX_COUNT) {
+      throw new IOException("Corrupt camera capability snapshot");
+    }
+    return count;
+  }
+
+  private static Size readSize(DataInputStream data) throws IOException {
+    return new Size(data.readInt(), data.readInt());
+  }
+}
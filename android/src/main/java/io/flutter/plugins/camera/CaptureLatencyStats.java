@@ -0,0 +1,97 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rolling percentiles of the phase timings of the most recent pictures.
+ *
+ * <p>The timings of a fixed number of pictures are kept in preallocated arrays, the oldest being
+ * replaced by the newest, so recording a picture does not allocate.
+ */
+final class CaptureLatencyStats {
+  /** The number of pictures the percentiles are computed over by default. */
+  static final int DEFAULT_WINDOW_SIZE = 64;
+
+  private final int windowSize;
+  // The time from the request to every phase, per picture, or -1 when the picture skipped it.
+  private final long[][] elapsedNanos;
+  // Reused to sort the times of a phase.
+  private final long[] sortBuffer;
+  private int head;
+  private int size;
+  private long recordedCount;
+
+  /**
+   * Creates a new instance of the {@link CaptureLatencyStats}.
+   *
+   * @param windowSize the number of most recent pictures to compute the percentiles over.
+   */
+  CaptureLatencyStats(int windowSize) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("windowSize must be at least 1.");
+    }
+    this.windowSize = windowSize;
+    this.elapsedNanos = new long[CaptureTimings.PHASE_COUNT][windowSize];
+    this.sortBuffer = new long[windowSize];
+  }
+
+  /** Records the timings of a picture that has been saved. */
+  synchronized void record(@NonNull CaptureTimings timings) {
+    for (int phase = 0; phase < CaptureTimings.PHASE_COUNT; phase++) {
+      elapsedNanos[phase][head] = timings.getElapsedNanos(phase);
+    }
+    head = (head + 1) % windowSize;
+    size = Math.min(size + 1, windowSize);
+    recordedCount++;
+  }
+
+  /**
+   * Gets the percentiles of the recorded pictures.
+   *
+   * @return a map containing the number of recorded pictures, the number of pictures in the window
+   *     and per phase name the number of pictures that reached it and the 50th, 90th and 99th
+   *     percentile of the time from the request to it in microseconds.
+   */
+  synchronized Map<String, Object> getStats() {
+    final Map<String, Object> phases = new HashMap<>();
+    // The request itself is the start of every timing.
+    for (int phase = 1; phase < CaptureTimings.PHASE_COUNT; phase++) {
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        final long nanos = elapsedNanos[phase][i];
+        if (nanos >= 0) {
+          sortBuffer[count++] = nanos;
+        }
+      }
+      if (count == 0) {
+        continue;
+      }
+      Arrays.sort(sortBuffer, 0, count);
+      final Map<String, Object> percentiles = new HashMap<>();
+      percentiles.put("count", count);
+      percentiles.put("p50Micros", percentile(sortBuffer, count, 50) / 1000);
+      percentiles.put("p90Micros", percentile(sortBuffer, count, 90) / 1000);
+      percentiles.put("p99Micros", percentile(sortBuffer, count, 99) / 1000);
+      phases.put(CaptureTimings.PHASE_NAMES[phase], percentiles);
+    }
+
+    final Map<String, Object> stats = new HashMap<>();
+    stats.put("recordedCaptures", recordedCount);
+    stats.put("windowSize", size);
+    stats.put("phases", phases);
+    return stats;
+  }
+
+  /** Returns the nearest rank percentile of the first count values, which are sorted. */
+  private static long percentile(long[] sorted, int count, int percent) {
+    final int rank = (int) Math.ceil(percent / 100.0 * count);
+    return sorted[Math.max(0, rank - 1)];
+  }
+}
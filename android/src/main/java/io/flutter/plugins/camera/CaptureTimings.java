@@ -0,0 +1,101 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The monotonic timestamps of the phases of a single picture, from the request to the saved file.
+ *
+ * <p>The timestamps are stored in an array that is allocated with the request, so marking a phase
+ * does not allocate. Phases that a picture skips, like the focus lock of a picture taken with
+ * converged exposure and focus, stay unmarked. Every phase is marked by the thread that runs it, and
+ * the picture is handed between those threads through the picture queue, handlers and executors,
+ * which order the writes.
+ */
+final class CaptureTimings {
+  static final int REQUEST_RECEIVED = 0;
+  static final int AF_LOCK_START = 1;
+  static final int AF_LOCK_DONE = 2;
+  static final int PRECAPTURE_START = 3;
+  static final int PRECAPTURE_DONE = 4;
+  static final int STILL_CAPTURE_SUBMITTED = 5;
+  static final int CAPTURE_COMPLETED = 6;
+  static final int IMAGE_AVAILABLE = 7;
+  /** The picture was written to its file, or its bytes were read. */
+  static final int FILE_WRITTEN = 8;
+  static final int PHASE_COUNT = 9;
+
+  /** The names of the phases, as sent to Dart. */
+  static final String[] PHASE_NAMES = {
+    "requestReceived",
+    "afLockStart",
+    "afLockDone",
+    "precaptureStart",
+    "precaptureDone",
+    "stillCaptureSubmitted",
+    "captureCompleted",
+    "imageAvailable",
+    "fileWritten"
+  };
+
+  private static final long NOT_MARKED = Long.MIN_VALUE;
+
+  private final long[] phaseNanos = new long[PHASE_COUNT];
+
+  /** Creates a new instance of the {@link CaptureTimings} with the request received right now. */
+  CaptureTimings() {
+    this(System.nanoTime());
+  }
+
+  @VisibleForTesting
+  CaptureTimings(long requestNanos) {
+    Arrays.fill(phaseNanos, NOT_MARKED);
+    phaseNanos[REQUEST_RECEIVED] = requestNanos;
+  }
+
+  /** Marks that the picture reached a phase right now. */
+  void mark(int phase) {
+    mark(phase, System.nanoTime());
+  }
+
+  @VisibleForTesting
+  void mark(int phase, long timeNanos) {
+    phaseNanos[phase] = timeNanos;
+  }
+
+  /**
+   * Gets the time from the request to a phase.
+   *
+   * @param phase the phase.
+   * @return the elapsed time in nanoseconds, or -1 when the phase has not been marked.
+   */
+  long getElapsedNanos(int phase) {
+    final long nanos = phaseNanos[phase];
+    return nanos == NOT_MARKED ? -1 : nanos - phaseNanos[REQUEST_RECEIVED];
+  }
+
+  /**
+   * Converts the timings to the data sent to Dart.
+   *
+   * @return a map from phase name to the time from the request to that phase in microseconds,
+   *     containing only the marked phases.
+   */
+  @NonNull
+  Map<String, Object> toMap() {
+    final Map<String, Object> timings = new HashMap<>();
+    for (int phase = 0; phase < PHASE_COUNT; phase++) {
+      final long elapsedNanos = getElapsedNanos(phase);
+      if (elapsedNanos >= 0) {
+        timings.put(PHASE_NAMES[phase], elapsedNanos / 1000);
+      }
+    }
+    return timings;
+  }
+}
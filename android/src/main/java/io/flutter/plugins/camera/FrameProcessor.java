@@ -0,0 +1,48 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.media.Image;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Analyzes frames of the camera natively, so that only its results have to be sent to Dart.
+ *
+ * <p>Processors are registered by name with {@link FrameProcessorRegistry} and enabled from Dart.
+ * While enabled, a processor is invoked with every {@link Image} of the image stream reader on one
+ * of the frame analysis worker threads, before the image is copied for the image stream. Results
+ * reach Dart in capture order.
+ */
+public interface FrameProcessor {
+  /**
+   * Called when a camera is opened, before any frame is processed.
+   *
+   * @param cameraName the name of the camera.
+   * @param width the width of the frames that will be processed.
+   * @param height the height of the frames that will be processed.
+   * @param imageFormat the format of the frames, as defined in {@link
+   *     android.graphics.ImageFormat}.
+   */
+  default void onCameraOpened(@NonNull String cameraName, int width, int height, int imageFormat) {}
+
+  /**
+   * Processes a single frame on a frame analysis worker thread.
+   *
+   * <p>Consecutive frames are processed on different workers at the same time, so implementations
+   * must be thread-safe. The image must not be closed and must not be used after this method
+   * returns. Processing should finish within the time budget the processor was registered with,
+   * see {@link FrameProcessorRegistry#register(String, FrameProcessor, long)}.
+   *
+   * @param image the frame to process.
+   * @return the result to send to Dart, which must be supported by the {@code
+   *     StandardMessageCodec}, or {@code null} to send nothing for this frame.
+   */
+  @Nullable
+  Object process(@NonNull Image image);
+
+  /** Called when the camera is closed. No frames are processed afterwards. */
+  default void onCameraClosed() {}
+}
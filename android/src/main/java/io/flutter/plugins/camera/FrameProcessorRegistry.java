@@ -0,0 +1,95 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide registry of {@link FrameProcessor}s, by name.
+ *
+ * <p>Application code registers its processors, typically in {@code
+ * FlutterActivity#configureFlutterEngine}, after which Dart can enable them by name for a camera.
+ */
+public final class FrameProcessorRegistry {
+  /** The time budget per frame of a processor that is registered without one, in microseconds. */
+  public static final long DEFAULT_BUDGET_MICROS = 10_000;
+
+  private static final Map<String, Registration> registrations = new LinkedHashMap<>();
+
+  private FrameProcessorRegistry() {}
+
+  /**
+   * Registers a processor with the default time budget of {@link #DEFAULT_BUDGET_MICROS}.
+   *
+   * @param name the name Dart uses to enable the processor.
+   * @param processor the processor.
+   */
+  public static void register(@NonNull String name, @NonNull FrameProcessor processor) {
+    register(name, processor, DEFAULT_BUDGET_MICROS);
+  }
+
+  /**
+   * Registers a processor, replacing any processor that was registered with the same name.
+   *
+   * @param name the name Dart uses to enable the processor.
+   * @param processor the processor.
+   * @param budgetMicros the time the processor may spend on a single frame, in microseconds. A
+   *     processor that runs over its budget is skipped for as many following frames as it takes to
+   *     make up for the overrun.
+   */
+  public static void register(
+      @NonNull String name, @NonNull FrameProcessor processor, long budgetMicros) {
+    if (budgetMicros <= 0) {
+      throw new IllegalArgumentException("budgetMicros must be greater than 0.");
+    }
+    synchronized (registrations) {
+      registrations.put(name, new Registration(name, processor, budgetMicros * 1000));
+    }
+  }
+
+  /**
+   * Removes the processor with the given name. Cameras that already enabled it keep using it until
+   * they are closed.
+   *
+   * @param name the name of the processor.
+   */
+  public static void unregister(@NonNull String name) {
+    synchronized (registrations) {
+      registrations.remove(name);
+    }
+  }
+
+  @Nullable
+  static Registration get(@NonNull String name) {
+    synchronized (registrations) {
+      return registrations.get(name);
+    }
+  }
+
+  @NonNull
+  static List<Registration> getAll() {
+    synchronized (registrations) {
+      return new ArrayList<>(registrations.values());
+    }
+  }
+
+  /** A registered processor together with its name and time budget. */
+  static final class Registration {
+    final String name;
+    final FrameProcessor processor;
+    final long budgetNanos;
+
+    Registration(String name, FrameProcessor processor, long budgetNanos) {
+      this.name = name;
+      this.processor = processor;
+      this.budgetNanos = budgetNanos;
+    }
+  }
+}
@@ -0,0 +1,229 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.media.Image;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.EventChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the {@link FrameProcessor}s that Dart enabled for a camera and sends their results to Dart.
+ *
+ * <p>The lifecycle hooks of all registered processors are invoked when the camera is opened and
+ * closed. Frames are processed on the frame analysis workers, possibly several at the same time,
+ * and the results of a frame are returned as a single delivery that sends them to Dart together
+ * with the timestamp of the frame they belong to.
+ *
+ * <p>Every processor has a time budget per frame. When processing a frame takes longer than that,
+ * the overrun is kept as a debt and the processor is skipped for following frames, one budget per
+ * frame, until the debt is paid. A slow processor therefore cannot use more than its budget on
+ * average and cannot starve the processors after it.
+ */
+class FrameProcessorRunner {
+  private static final String TAG = "FrameProcessorRunner";
+
+  private static final FrameProcessorRegistry.Registration[] NO_REGISTRATIONS =
+      new FrameProcessorRegistry.Registration[0];
+
+  // Both are replaced as a whole, so other threads can iterate them without locking. Opening and
+  // closing is synchronized, since the outputs of a camera are prepared off the platform thread.
+  private volatile FrameProcessorRegistry.Registration[] openedProcessors = NO_REGISTRATIONS;
+  private volatile ActiveProcessor[] activeProcessors = new ActiveProcessor[0];
+  @Nullable private volatile EventChannel.EventSink resultSink;
+
+  /** Invokes {@link FrameProcessor#onCameraOpened} of all registered processors. */
+  synchronized void open(@NonNull String cameraName, int width, int height, int imageFormat) {
+    close();
+    final List<FrameProcessorRegistry.Registration> opened = new ArrayList<>();
+    for (FrameProcessorRegistry.Registration registration : FrameProcessorRegistry.getAll()) {
+      try {
+        registration.processor.onCameraOpened(cameraName, width, height, imageFormat);
+        opened.add(registration);
+      } catch (RuntimeException e) {
+        Log.e(TAG, "Frame processor " + registration.name + " failed to open.", e);
+      }
+    }
+    openedProcessors = opened.toArray(NO_REGISTRATIONS);
+  }
+
+  /**
+   * Stops processing and invokes {@link FrameProcessor#onCameraClosed} of all processors that have
+   * been opened.
+   */
+  synchronized void close() {
+    stop();
+    final FrameProcessorRegistry.Registration[] opened = openedProcessors;
+    openedProcessors = NO_REGISTRATIONS;
+    for (FrameProcessorRegistry.Registration registration : opened) {
+      try {
+        registration.processor.onCameraClosed();
+      } catch (RuntimeException e) {
+        Log.e(TAG, "Frame processor " + registration.name + " failed to close.", e);
+      }
+    }
+  }
+
+  /**
+   * Starts running the processors with the given names. Results are sent once a sink has been set
+   * with {@link #setResultSink}.
+   *
+   * @param names the names of the processors, in the order they run for every frame.
+   * @throws IllegalArgumentException when no processor is registered for one of the names.
+   */
+  void start(@NonNull List<String> names) {
+    final ActiveProcessor[] processors = new ActiveProcessor[names.size()];
+    for (int i = 0; i < processors.length; i++) {
+      final FrameProcessorRegistry.Registration registration =
+          FrameProcessorRegistry.get(names.get(i));
+      if (registration == null) {
+        throw new IllegalArgumentException("No frame processor registered as " + names.get(i));
+      }
+      processors[i] = new ActiveProcessor(registration);
+    }
+    activeProcessors = processors;
+  }
+
+  /**
+   * Sets the sink the results are sent to.
+   *
+   * @param sink the sink, or {@code null} to stop sending results.
+   */
+  void setResultSink(@Nullable EventChannel.EventSink sink) {
+    resultSink = sink;
+  }
+
+  /** Stops running processors. Frames that are being processed still complete. */
+  void stop() {
+    activeProcessors = new ActiveProcessor[0];
+    resultSink = null;
+  }
+
+  /** Returns whether any processor is running. */
+  boolean isActive() {
+    return activeProcessors.length > 0;
+  }
+
+  /**
+   * Runs the active processors on a frame. Can be called for several frames at the same time.
+   *
+   * @param image the frame, which stays open and owned by the caller.
+   * @return the delivery of the results to Dart, which must be run on the main thread, or {@code
+   *     null} when no processor produced a result.
+   */
+  @Nullable
+  Runnable process(@NonNull Image image) {
+    final ActiveProcessor[] processors = activeProcessors;
+    final EventChannel.EventSink sink = resultSink;
+    if (processors.length == 0 || sink == null) {
+      return null;
+    }
+
+    final long timestamp = image.getTimestamp();
+    List<Map<String, Object>> events = null;
+    for (ActiveProcessor active : processors) {
+      if (active.shouldSkip()) {
+        continue;
+      }
+
+      final long start = System.nanoTime();
+      Object result = null;
+      try {
+        result = active.registration.processor.process(image);
+      } catch (RuntimeException e) {
+        Log.e(TAG, "Frame processor " + active.registration.name + " failed.", e);
+      }
+      final long elapsed = System.nanoTime() - start;
+      active.recordProcessed(elapsed);
+
+      if (result != null) {
+        final Map<String, Object> event = new HashMap<>();
+        event.put("processor", active.registration.name);
+        event.put("timestamp", timestamp);
+        event.put("processingTimeMicros", elapsed / 1000);
+        event.put("result", result);
+        if (events == null) {
+          events = new ArrayList<>(processors.length);
+        }
+        events.add(event);
+      }
+    }
+
+    if (events == null) {
+      return null;
+    }
+    final List<Map<String, Object>> results = events;
+    return () -> {
+      // Do not deliver results to a sink that has been replaced or cancelled.
+      if (resultSink == sink) {
+        for (Map<String, Object> event : results) {
+          sink.success(event);
+        }
+      }
+    };
+  }
+
+  /**
+   * Gets the counters of the running processors.
+   *
+   * @return a map from processor name to its processed, skipped and over budget frame counts and
+   *     the average processing time in microseconds.
+   */
+  Map<String, Object> getStats() {
+    final Map<String, Object> stats = new HashMap<>();
+    for (ActiveProcessor active : activeProcessors) {
+      stats.put(active.registration.name, active.getStats());
+    }
+    return stats;
+  }
+
+  /** The state of a running processor. */
+  private static final class ActiveProcessor {
+    final FrameProcessorRegistry.Registration registration;
+    private long debtNanos;
+    private long processedFrames;
+    private long skippedFrames;
+    private long overBudgetFrames;
+    private long totalNanos;
+
+    ActiveProcessor(FrameProcessorRegistry.Registration registration) {
+      this.registration = registration;
+    }
+
+    synchronized boolean shouldSkip() {
+      if (debtNanos <= 0) {
+        return false;
+      }
+      debtNanos -= registration.budgetNanos;
+      skippedFrames++;
+      return true;
+    }
+
+    synchronized void recordProcessed(long elapsedNanos) {
+      processedFrames++;
+      totalNanos += elapsedNanos;
+      if (elapsedNanos > registration.budgetNanos) {
+        overBudgetFrames++;
+        debtNanos += elapsedNanos - registration.budgetNanos;
+      }
+    }
+
+    synchronized Map<String, Object> getStats() {
+      final Map<String, Object> stats = new HashMap<>();
+      stats.put("processedFrames", processedFrames);
+      stats.put("skippedFrames", skippedFrames);
+      stats.put("overBudgetFrames", overBudgetFrames);
+      stats.put(
+          "averageProcessingTimeMicros",
+          processedFrames == 0 ? 0L : totalNanos / processedFrames / 1000);
+      return stats;
+    }
+  }
+}
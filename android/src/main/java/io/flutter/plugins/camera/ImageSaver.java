@@ -4,29 +4,28 @@
 
 package io.flutter.plugins.camera;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Matrix;
 import android.media.Image;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
-import android.graphics.Rect;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** Saves a JPEG {@link Image} into the specified {@link File}. */
 public class ImageSaver implements Runnable {
 
-  /** The JPEG image */
-  private final Image image;
+  /** The JPEG picture */
+  private final JpegPicture picture;
 
   /** The file we save the image into. */
   private final File file;
@@ -36,6 +35,22 @@ public class ImageSaver implements Runnable {
 
   private final boolean isSquare;
 
+  /** The JPEG quality of square images, which are encoded again after cropping. */
+  private final int jpegQuality;
+
+  /** Whether the file is forced to the storage device before completion is reported. */
+  private final boolean syncToDisk;
+
+  /** Writes a thumbnail of the image while it is saved, if a thumbnail was requested. */
+  @Nullable
+  private final PictureThumbnailer thumbnailer;
+
+  /** The maximum length of the longest edge of the saved image, or 0 for the full resolution. */
+  private final int maxDimension;
+
+  /** The saver and the thumbnailer that still read the picture, it is closed by the last one. */
+  private final AtomicInteger pictureReaders = new AtomicInteger(1);
+
   /**
    * Creates an instance of the ImageSaver runnable
    *
@@ -45,51 +60,109 @@ public class ImageSaver implements Runnable {
    *                 encountered.
    */
   ImageSaver(@NonNull Image image, @NonNull File file, @NonNull Callback callback, @NonNull boolean isSquare) {
-    this.image = image;
+    this(JpegPicture.of(image), file, callback, new Options().setSquare(isSquare));
+  }
+
+  /**
+   * Creates an instance of the ImageSaver runnable
+   *
+   * @param picture  - The picture to save, which is closed once it was saved
+   * @param file     - The file to save the picture to
+   * @param callback - The callback that is run on completion, or when an error is
+   *                 encountered.
+   * @param options  - How the picture is saved.
+   */
+  ImageSaver(@NonNull JpegPicture picture, @NonNull File file, @NonNull Callback callback,
+      @NonNull Options options) {
+    this.picture = picture;
     this.file = file;
     this.callback = callback;
-    this.isSquare = isSquare;
+    this.isSquare = options.isSquare;
+    this.jpegQuality = options.jpegQuality;
+    this.syncToDisk = options.syncToDisk;
+    this.thumbnailer = options.thumbnailer;
+    this.maxDimension = options.maxDimension;
+  }
+
+  /** How an {@link ImageSaver} saves a picture. The defaults save it as it was taken. */
+  static final class Options {
+    private boolean isSquare;
+    private int jpegQuality = SquareCropper.DEFAULT_JPEG_QUALITY;
+    private boolean syncToDisk;
+    @Nullable
+    private PictureThumbnailer thumbnailer;
+    private int maxDimension;
+
+    /** Sets whether the picture is cropped to a centered square. */
+    Options setSquare(boolean isSquare) {
+      this.isSquare = isSquare;
+      return this;
+    }
+
+    /** Sets the JPEG quality a cropped or scaled picture is encoded with. */
+    Options setJpegQuality(int jpegQuality) {
+      this.jpegQuality = jpegQuality;
+      return this;
+    }
+
+    /**
+     * Sets whether the file content is forced to the storage device before completion is reported,
+     * so that the picture survives a crash or power loss right after it was taken.
+     */
+    Options setSyncToDisk(boolean syncToDisk) {
+      this.syncToDisk = syncToDisk;
+      return this;
+    }
+
+    /**
+     * Sets the thumbnailer that is started before the picture is written, or null to write no
+     * thumbnail. The picture does not wait for the thumbnail.
+     */
+    Options setThumbnailer(@Nullable PictureThumbnailer thumbnailer) {
+      this.thumbnailer = thumbnailer;
+      return this;
+    }
+
+    /**
+     * Sets the maximum length of the longest edge of the saved picture. Larger pictures are decoded
+     * at a reduced size and encoded again, 0 saves the full resolution.
+     */
+    Options setMaxDimension(int maxDimension) {
+      this.maxDimension = maxDimension;
+      return this;
+    }
   }
 
   @Override
   public void run() {
-    ByteBuffer buffer = image.getPlanes()[0].getBuffer();
-    byte[] bytes = new byte[buffer.remaining()];
-
-    buffer.get(bytes);
-    FileOutputStream output = null;
+    ByteBuffer buffer = picture.getBuffer();
+    FileChannel output = null;
     try {
+      if (thumbnailer != null) {
+        // The thumbnail is written on another thread while the image is written here. It may still
+        // read the picture after the image has been saved, so the last reader closes the picture.
+        pictureReaders.incrementAndGet();
+        thumbnailer.start(buffer, this::releasePicture);
+      }
+
+      output = FileOutputStreamFactory.createChannel(file);
 
-      output = FileOutputStreamFactory.create(file);
-      Bitmap bitmap = null;
-      Matrix matrix = new Matrix();
-      BitmapFactory.Options options = new BitmapFactory.Options();
-      options.inPreferredConfig = Bitmap.Config.ARGB_8888;
-
-      if (isSquare) {
-        bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
-        Bitmap resizedBitmap = null;
-
-        if (image.getHeight() > image.getWidth()) {
-          float scaleWidth = 1.0f;
-          float scaleHeight = ((float) bitmap.getWidth()) / bitmap.getHeight();
-          matrix.postScale(scaleWidth, scaleHeight);
-          resizedBitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, false);
+      try {
+        if (PictureResizer.needsResize(picture.getWidth(), picture.getHeight(), isSquare, maxDimension)) {
+          PictureResizer.resize(buffer, isSquare, maxDimension, jpegQuality, Channels.newOutputStream(output));
+        } else if (isSquare) {
+          SquareCropper.crop(buffer, jpegQuality, Channels.newOutputStream(output));
         } else {
-          float scaleWidth = ((float) bitmap.getHeight()) / bitmap.getWidth();
-          float scaleHeight = 1.0f;
-          matrix.postScale(scaleWidth, scaleHeight);
-          matrix.postRotate(90);
-          resizedBitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, false);
+          // Write the plane directly, without copying the JPEG through the heap.
+          write(output, buffer);
         }
-
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        resizedBitmap.compress(Bitmap.CompressFormat.PNG, 80, stream);
-        byte[] byteArray = stream.toByteArray();
-
-        output.write(byteArray);
-      } else {
-        output.write(bytes);
+      } catch (RuntimeException | OutOfMemoryError e) {
+        // The decoder rejects some pictures with an IllegalArgumentException, and large ones may
+        // not fit the heap. The picture still has to be reported, or the request never finishes.
+        throw new IOException("Failed resizing the picture", e);
+      }
+      if (syncToDisk) {
+        output.force(false);
       }
 
       callback.onComplete(file.getAbsolutePath());
@@ -98,7 +171,11 @@ public class ImageSaver implements Runnable {
       callback.onError("IOError", "Failed saving image");
     } finally {
 
-      image.close();
+      if (thumbnailer != null) {
+        // Writes the thumbnail here when the executor did not start it, after the image was reported.
+        thumbnailer.run();
+      }
+      releasePicture();
       if (null != output) {
         try {
           output.close();
@@ -109,6 +186,19 @@ public class ImageSaver implements Runnable {
     }
   }
 
+  /** Closes the picture once neither this saver nor the thumbnailer reads it anymore. */
+  private void releasePicture() {
+    if (pictureReaders.decrementAndGet() == 0) {
+      picture.close();
+    }
+  }
+
+  private static void write(FileChannel output, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      output.write(buffer);
+    }
+  }
+
   /**
    * The interface for the callback that is passed to ImageSaver, for detecting
    * completion or failure of the image saving task.
@@ -151,5 +241,22 @@ public class ImageSaver implements Runnable {
     public static FileOutputStream create(File file) throws FileNotFoundException {
       return new FileOutputStream(file);
     }
+
+    /**
+     * Creates a {@link FileChannel} that writes to the file, closing the underlying
+     * stream when it is closed.
+     *
+     * <p>
+     * This method is visible for testing purposes only and should never be used
+     * outside this class.
+     *
+     * @param file - The file to create the channel for
+     * @return the channel of a new {@link FileOutputStream} of the file.
+     * @throws FileNotFoundException when the supplied file could not be found.
+     */
+    @VisibleForTesting
+    public static FileChannel createChannel(File file) throws FileNotFoundException {
+      return create(file).getChannel();
+    }
   }
 }
\ No newline at end of file
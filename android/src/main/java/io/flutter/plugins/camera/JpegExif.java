@@ -0,0 +1,257 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Reads and writes the EXIF orientation tag of JPEG pictures, and finds their embedded thumbnail.
+ *
+ * <p>Only the orientation can be written, which is all that is needed to keep the orientation of a
+ * picture that is encoded again without rotating its pixels.
+ */
+final class JpegExif {
+  /** The orientation of a picture without orientation tag. */
+  static final int ORIENTATION_UNDEFINED = 0;
+  /** The orientation of a picture that is displayed as stored. */
+  static final int ORIENTATION_NORMAL = 1;
+
+  private static final int MARKER_SOI = 0xD8;
+  private static final int MARKER_EOI = 0xD9;
+  private static final int MARKER_SOS = 0xDA;
+  private static final int MARKER_APP1 = 0xE1;
+  private static final int TAG_ORIENTATION = 0x0112;
+  private static final int TAG_THUMBNAIL_OFFSET = 0x0201;
+  private static final int TAG_THUMBNAIL_LENGTH = 0x0202;
+  private static final int TYPE_SHORT = 3;
+  private static final int TYPE_LONG = 4;
+  private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+
+  // An APP1 segment with a big endian TIFF header and a single IFD that only holds the orientation.
+  private static final byte[] ORIENTATION_SEGMENT = {
+    (byte) 0xFF, (byte) MARKER_APP1, 0, 34,
+    'E', 'x', 'i', 'f', 0, 0,
+    'M', 'M', 0, 42, 0, 0, 0, 8,
+    0, 1,
+    0x01, 0x12, 0, TYPE_SHORT, 0, 0, 0, 1, 0, 0, 0, 0,
+    0, 0, 0, 0
+  };
+  private static final int ORIENTATION_VALUE_OFFSET = 28;
+
+  private JpegExif() {}
+
+  /**
+   * Reads the EXIF orientation of a JPEG picture.
+   *
+   * @param jpeg the array holding the picture.
+   * @param offset the offset of the picture in the array.
+   * @param length the length of the picture.
+   * @return the orientation, or {@link #ORIENTATION_UNDEFINED} when the picture has no orientation
+   *     tag or is not a valid JPEG.
+   */
+  static int readOrientation(@NonNull byte[] jpeg, int offset, int length) {
+    final Tiff tiff = findTiff(jpeg, offset, length);
+    if (tiff == null) {
+      return ORIENTATION_UNDEFINED;
+    }
+    final int ifd0 = tiff.getFirstIfd();
+    final int entry = ifd0 < 0 ? -1 : tiff.findEntry(ifd0, TAG_ORIENTATION, TYPE_SHORT);
+    return entry < 0 ? ORIENTATION_UNDEFINED : tiff.readShort(entry + 8);
+  }
+
+  /**
+   * Finds the thumbnail that is embedded in the EXIF data of a JPEG picture.
+   *
+   * @param jpeg the array holding the picture, or at least its metadata segments.
+   * @param offset the offset of the picture in the array.
+   * @param length the length of the picture.
+   * @return the offset of the thumbnail in the array and its length, or {@code null} when the
+   *     picture has no JPEG thumbnail or it is not completely contained in the array.
+   */
+  @Nullable
+  static int[] findThumbnail(@NonNull byte[] jpeg, int offset, int length) {
+    final Tiff tiff = findTiff(jpeg, offset, length);
+    if (tiff == null) {
+      return null;
+    }
+    final int ifd0 = tiff.getFirstIfd();
+    final int ifd1 = ifd0 < 0 ? -1 : tiff.getNextIfd(ifd0);
+    if (ifd1 < 0) {
+      return null;
+    }
+    final int offsetEntry = tiff.findEntry(ifd1, TAG_THUMBNAIL_OFFSET, TYPE_LONG);
+    final int lengthEntry = tiff.findEntry(ifd1, TAG_THUMBNAIL_LENGTH, TYPE_LONG);
+    if (offsetEntry < 0 || lengthEntry < 0) {
+      return null;
+    }
+    final long thumbnailStart = tiff.start + tiff.readInt(offsetEntry + 8);
+    final long thumbnailLength = tiff.readInt(lengthEntry + 8);
+    if (thumbnailLength < 2 || thumbnailStart + thumbnailLength > tiff.end) {
+      return null;
+    }
+    return new int[] {(int) thumbnailStart, (int) thumbnailLength};
+  }
+
+  /**
+   * Writes a JPEG picture, adding an EXIF segment with the given orientation right after its start
+   * of image marker.
+   *
+   * @param jpeg a JPEG picture without EXIF segment, as encoded by {@link
+   *     android.graphics.Bitmap#compress}.
+   * @param orientation the orientation. Nothing is added for {@link #ORIENTATION_UNDEFINED} and
+   *     {@link #ORIENTATION_NORMAL}.
+   * @param output the stream to write the picture to.
+   * @throws IOException when writing fails or the picture does not start with a start of image
+   *     marker.
+   */
+  static void writeWithOrientation(
+      @NonNull byte[] jpeg, int orientation, @NonNull OutputStream output) throws IOException {
+    if (orientation == ORIENTATION_UNDEFINED || orientation == ORIENTATION_NORMAL) {
+      output.write(jpeg);
+      return;
+    }
+    if (jpeg.length < 2 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != MARKER_SOI) {
+      throw new IOException("Not a JPEG picture");
+    }
+    final byte[] segment = ORIENTATION_SEGMENT.clone();
+    segment[ORIENTATION_VALUE_OFFSET] = (byte) (orientation >> 8);
+    segment[ORIENTATION_VALUE_OFFSET + 1] = (byte) orientation;
+    output.write(jpeg, 0, 2);
+    output.write(segment);
+    output.write(jpeg, 2, jpeg.length - 2);
+  }
+
+  /** Finds the TIFF structure of the EXIF segment, which holds the EXIF tags. */
+  @Nullable
+  private static Tiff findTiff(byte[] jpeg, int offset, int length) {
+    final int end = offset + length;
+    if (length < 4 || (jpeg[offset] & 0xFF) != 0xFF || (jpeg[offset + 1] & 0xFF) != MARKER_SOI) {
+      return null;
+    }
+    int position = offset + 2;
+    while (position + 4 <= end) {
+      if ((jpeg[position] & 0xFF) != 0xFF) {
+        return null;
+      }
+      final int marker = jpeg[position + 1] & 0xFF;
+      if (marker == 0xFF) {
+        // Fill byte.
+        position++;
+        continue;
+      }
+      if (marker == MARKER_SOS || marker == MARKER_EOI) {
+        // The metadata segments all come before the image data.
+        return null;
+      }
+      final int segmentLength = readUnsignedShort(jpeg, position + 2, false);
+      final int segmentEnd = position + 2 + segmentLength;
+      if (segmentLength < 2 || segmentEnd > end) {
+        return null;
+      }
+      if (marker == MARKER_APP1 && startsWith(jpeg, position + 4, segmentEnd, EXIF_HEADER)) {
+        final int tiffStart = position + 4 + EXIF_HEADER.length;
+        if (tiffStart + 8 > segmentEnd) {
+          return null;
+        }
+        final boolean littleEndian;
+        if (jpeg[tiffStart] == 'I' && jpeg[tiffStart + 1] == 'I') {
+          littleEndian = true;
+        } else if (jpeg[tiffStart] == 'M' && jpeg[tiffStart + 1] == 'M') {
+          littleEndian = false;
+        } else {
+          return null;
+        }
+        final Tiff tiff = new Tiff(jpeg, tiffStart, segmentEnd, littleEndian);
+        return tiff.readShort(tiffStart + 2) == 42 ? tiff : null;
+      }
+      position = segmentEnd;
+    }
+    return null;
+  }
+
+  private static boolean startsWith(byte[] data, int start, int end, byte[] prefix) {
+    if (start + prefix.length > end) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (data[start + i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int readUnsignedShort(byte[] data, int position, boolean littleEndian) {
+    final int first = data[position] & 0xFF;
+    final int second = data[position + 1] & 0xFF;
+    return littleEndian ? (second << 8) | first : (first << 8) | second;
+  }
+
+  private static long readUnsignedInt(byte[] data, int position, boolean littleEndian) {
+    final long high = readUnsignedShort(data, littleEndian ? position + 2 : position, littleEndian);
+    final long low = readUnsignedShort(data, littleEndian ? position : position + 2, littleEndian);
+    return (high << 16) | low;
+  }
+
+  /** The TIFF structure of an EXIF segment, with positions relative to the array. */
+  private static final class Tiff {
+    final byte[] data;
+    final int start;
+    final int end;
+    final boolean littleEndian;
+
+    Tiff(byte[] data, int start, int end, boolean littleEndian) {
+      this.data = data;
+      this.start = start;
+      this.end = end;
+      this.littleEndian = littleEndian;
+    }
+
+    /** Returns the position of the first IFD, or -1 when it is out of bounds. */
+    int getFirstIfd() {
+      return toIfdPosition(readInt(start + 4));
+    }
+
+    /** Returns the position of the IFD following the given one, or -1 when there is none. */
+    int getNextIfd(int ifd) {
+      final int nextOffsetPosition = ifd + 2 + readShort(ifd) * 12;
+      if (nextOffsetPosition + 4 > end) {
+        return -1;
+      }
+      final long nextOffset = readInt(nextOffsetPosition);
+      return nextOffset == 0 ? -1 : toIfdPosition(nextOffset);
+    }
+
+    /** Returns the position of the entry with the given tag and type, or -1 when there is none. */
+    int findEntry(int ifd, int tag, int type) {
+      final int entryCount = readShort(ifd);
+      for (int i = 0; i < entryCount; i++) {
+        final int entry = ifd + 2 + i * 12;
+        if (entry + 12 > end) {
+          break;
+        }
+        if (readShort(entry) == tag && readShort(entry + 2) == type) {
+          return entry;
+        }
+      }
+      return -1;
+    }
+
+    int readShort(int position) {
+      return readUnsignedShort(data, position, littleEndian);
+    }
+
+    long readInt(int position) {
+      return readUnsignedInt(data, position, littleEndian);
+    }
+
+    private int toIfdPosition(long offset) {
+      return offset < 8 || start + offset + 2 > end ? -1 : start + (int) offset;
+    }
+  }
+}
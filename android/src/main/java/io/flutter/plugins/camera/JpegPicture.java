@@ -0,0 +1,86 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.media.Image;
+import androidx.annotation.NonNull;
+import java.nio.ByteBuffer;
+
+/**
+ * The JPEG data of a picture that waits to be saved: either a JPEG {@link Image} of the picture
+ * reader, or a frame of the zero shutter lag buffer that was encoded by {@link
+ * ZeroShutterLagEncoder}.
+ */
+abstract class JpegPicture {
+  /**
+   * Wraps a JPEG image. Its plane is only accessed once the picture is saved.
+   *
+   * @param image the image, which is closed by {@link #close()}.
+   */
+  static JpegPicture of(@NonNull Image image) {
+    return new JpegPicture() {
+      @Override
+      ByteBuffer getBuffer() {
+        return image.getPlanes()[0].getBuffer();
+      }
+
+      @Override
+      int getWidth() {
+        return image.getWidth();
+      }
+
+      @Override
+      int getHeight() {
+        return image.getHeight();
+      }
+
+      @Override
+      void close() {
+        image.close();
+      }
+    };
+  }
+
+  /**
+   * Wraps an encoded picture.
+   *
+   * @param jpeg the JPEG bytes.
+   * @param width the width of the picture in pixels.
+   * @param height the height of the picture in pixels.
+   */
+  static JpegPicture of(@NonNull byte[] jpeg, int width, int height) {
+    return new JpegPicture() {
+      @Override
+      ByteBuffer getBuffer() {
+        return ByteBuffer.wrap(jpeg);
+      }
+
+      @Override
+      int getWidth() {
+        return width;
+      }
+
+      @Override
+      int getHeight() {
+        return height;
+      }
+
+      @Override
+      void close() {}
+    };
+  }
+
+  /** Gets the JPEG data, from its position to its limit. */
+  abstract ByteBuffer getBuffer();
+
+  /** Gets the width of the picture in pixels. */
+  abstract int getWidth();
+
+  /** Gets the height of the picture in pixels. */
+  abstract int getHeight();
+
+  /** Releases the data once the picture has been saved. */
+  abstract void close();
+}
@@ -10,8 +10,6 @@ import android.os.Handler;
 import android.os.Looper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.lifecycle.Lifecycle;
-import androidx.lifecycle.LifecycleObserver;
 import io.flutter.embedding.engine.systemchannels.PlatformChannel;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.EventChannel;
@@ -25,11 +23,13 @@ import io.flutter.plugins.camera.features.autofocus.FocusMode;
 import io.flutter.plugins.camera.features.exposurelock.ExposureMode;
 import io.flutter.plugins.camera.features.flash.FlashMode;
 import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
+import io.flutter.plugins.camera.imagestream.ImageStreamOptions;
 import io.flutter.view.TextureRegistry;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler, LifecycleObserver {
+final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler {
   private final Activity activity;
   private final BinaryMessenger messenger;
   private final CameraPermissions cameraPermissions;
@@ -37,21 +37,36 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler, Li
   private final TextureRegistry textureRegistry;
   private final MethodChannel methodChannel;
   private final EventChannel imageStreamChannel;
-  private final Lifecycle lifecycle;
+  private final EventChannel frameProcessorResultChannel;
+  private final EventChannel pictureThumbnailChannel;
+  /** The sink of the picture thumbnails, only set while Dart is listening. */
+  private @Nullable EventChannel.EventSink pictureThumbnailSink;
   private @Nullable Camera camera;
 
   MethodCallHandlerImpl(Activity activity, BinaryMessenger messenger, CameraPermissions cameraPermissions,
-      PermissionsRegistry permissionsAdder, TextureRegistry textureRegistry, @Nullable Lifecycle lifecycle) {
+      PermissionsRegistry permissionsAdder, TextureRegistry textureRegistry) {
     this.activity = activity;
     this.messenger = messenger;
     this.cameraPermissions = cameraPermissions;
     this.permissionsRegistry = permissionsAdder;
     this.textureRegistry = textureRegistry;
-    this.lifecycle = lifecycle;
 
     methodChannel = new MethodChannel(messenger, "plugins.flutter.io/camera");
     imageStreamChannel = new EventChannel(messenger, "plugins.flutter.io/camera/imageStream");
+    frameProcessorResultChannel = new EventChannel(messenger, "plugins.flutter.io/camera/frameProcessorResults");
+    pictureThumbnailChannel = new EventChannel(messenger, "plugins.flutter.io/camera/pictureThumbnails");
     methodChannel.setMethodCallHandler(this);
+    pictureThumbnailChannel.setStreamHandler(new EventChannel.StreamHandler() {
+      @Override
+      public void onListen(Object arguments, EventChannel.EventSink sink) {
+        pictureThumbnailSink = sink;
+      }
+
+      @Override
+      public void onCancel(Object arguments) {
+        pictureThumbnailSink = null;
+      }
+    });
   }
 
   @Override
@@ -66,7 +81,9 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler, Li
       break;
     case "create": {
       if (camera != null) {
+        // The previous camera cannot be used anymore, so its threads are stopped as well.
         camera.close();
+        camera.shutdownExecutors();
       }
 
       cameraPermissions.requestPermissions(activity, permissionsRegistry, call.argument("enableAudio"),
@@ -98,7 +115,85 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler, Li
       break;
     }
     case "takePicture": {
-      camera.takePicture(result);
+      Integer thumbnailSize = call.argument("thumbnailSize");
+      Integer thumbnailRequestId = call.argument("thumbnailRequestId");
+      Integer maxOutputDimension = call.argument("maxOutputDimension");
+      camera.takePicture(result, call.argument("path"), Boolean.TRUE.equals(call.argument("returnBytes")),
+          thumbnailSize == null ? 0 : thumbnailSize, pictureThumbnailSink,
+          thumbnailRequestId == null ? 0 : thumbnailRequestId,
+          Boolean.TRUE.equals(call.argument("includeTimings")),
+          maxOutputDimension == null ? 0 : maxOutputDimension);
+      break;
+    }
+    case "takePictureBurst": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      try {
+        Integer count = call.argument("count");
+        Number intervalMs = call.argument("intervalMs");
+        camera.takePictureBurst(count == null ? 1 : count, intervalMs == null ? 0 : intervalMs.longValue(), result);
+      } catch (Exception e) {
+        handleException(e, result);
+      }
+      break;
+    }
+    case "getCaptureStats": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      result.success(camera.getCaptureStats());
+      break;
+    }
+    case "setJpegQuality": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      Integer quality = call.argument("quality");
+      try {
+        camera.setJpegQuality(quality == null ? 0 : quality);
+        result.success(null);
+      } catch (IllegalArgumentException e) {
+        result.error("setJpegQualityFailed", e.getMessage(), null);
+      }
+      break;
+    }
+    case "setSyncPicturesToDisk": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      camera.setSyncPicturesToDisk(Boolean.TRUE.equals(call.argument("enabled")));
+      result.success(null);
+      break;
+    }
+    case "setZeroShutterLag": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      try {
+        camera.setZeroShutterLagEnabled(Boolean.TRUE.equals(call.argument("enabled")));
+        result.success(null);
+      } catch (Exception e) {
+        handleException(e, result);
+      }
+      break;
+    }
+    case "setPersistentSession": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      try {
+        camera.setPersistentSessionEnabled(Boolean.TRUE.equals(call.argument("enabled")));
+        result.success(null);
+      } catch (Exception e) {
+        handleException(e, result);
+      }
       break;
     }
     case "prepareForVideoRecording": {
@@ -227,14 +322,74 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler, Li
       break;
     }
     case "startImageStream": {
+      final ImageStreamOptions options;
       try {
-        camera.startPreviewWithImageStream(imageStreamChannel);
+        options = ImageStreamOptions.fromMap(call.arguments());
+      } catch (IllegalArgumentException e) {
+        result.error("startImageStreamFailed", e.getMessage(), null);
+        return;
+      }
+      try {
+        camera.startPreviewWithImageStream(imageStreamChannel, options);
         result.success(null);
       } catch (Exception e) {
         handleException(e, result);
       }
       break;
     }
+    case "getImageStreamStats": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      result.success(camera.getImageStreamStats());
+      break;
+    }
+    case "startFrameProcessors": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      List<String> processors = call.argument("processors");
+      try {
+        camera.startFrameProcessors(frameProcessorResultChannel, processors);
+        result.success(null);
+      } catch (IllegalArgumentException e) {
+        result.error("startFrameProcessorsFailed", e.getMessage(), null);
+      } catch (Exception e) {
+        handleException(e, result);
+      }
+      break;
+    }
+    case "stopFrameProcessors": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      try {
+        camera.stopFrameProcessors();
+        result.success(null);
+      } catch (Exception e) {
+        handleException(e, result);
+      }
+      break;
+    }
+    case "getThreadStats": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      result.success(camera.getThreadStats());
+      break;
+    }
+    case "getFrameProcessorStats": {
+      if (camera == null) {
+        result.error("cameraNotFound", "Camera not found. Please call the 'create' method first.", null);
+        return;
+      }
+      result.success(camera.getFrameProcessorStats());
+      break;
+    }
     case "stopImageStream": {
       try {
         camera.startPreview();
@@ -333,6 +488,8 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler, Li
 
   void stopListening() {
     methodChannel.setMethodCallHandler(null);
+    frameProcessorResultChannel.setStreamHandler(null);
+    pictureThumbnailChannel.setStreamHandler(null);
   }
 
   private void instantiateCamera(MethodCall call, Result result) throws CameraAccessException {
@@ -344,20 +501,13 @@ final class MethodCallHandlerImpl implements MethodChannel.MethodCallHandler, Li
     TextureRegistry.SurfaceTextureEntry flutterSurfaceTexture = textureRegistry.createSurfaceTexture();
     DartMessenger dartMessenger = new DartMessenger(messenger, flutterSurfaceTexture.id(),
         new Handler(Looper.getMainLooper()));
-    CameraProperties cameraProperties = new CameraPropertiesImpl(cameraName, CameraUtils.getCameraManager(activity));
+    CameraProperties cameraProperties = new CameraPropertiesImpl(cameraName, CameraUtils.getCameraManager(activity),
+        CameraCapabilityCache.getInstance());
     ResolutionPreset resolutionPreset = ResolutionPreset.valueOf(preset);
 
-    if (camera != null && lifecycle != null) {
-      lifecycle.removeObserver(camera);
-    }
-
     camera = new Camera(activity, flutterSurfaceTexture, new CameraFeatureFactoryImpl(), dartMessenger,
         cameraProperties, resolutionPreset, enableAudio, isSquare);
 
-    if (lifecycle != null) {
-      lifecycle.addObserver(camera);
-    }
-
     Map<String, Object> reply = new HashMap<>();
     reply.put("cameraId", flutterSurfaceTexture.id());
     result.success(reply);
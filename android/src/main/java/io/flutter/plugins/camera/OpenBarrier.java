@@ -0,0 +1,89 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Joins the two sides of opening a camera, the camera device that is opened by the camera service
+ * and the outputs that are prepared in the meantime.
+ *
+ * <p>The callbacks of the device, like opened, disconnected or error, are held back until the
+ * outputs are ready, so they never see half prepared outputs. Whichever side finishes last runs
+ * them, in the order they arrived, on the executor of the device callbacks.
+ *
+ * <p>When the outputs cannot be prepared, the callbacks of the device still run, so a device that
+ * was opened in the meantime can be closed, and find the failure in {@link #getOutputsError()}.
+ */
+final class OpenBarrier {
+  private final Executor deviceExecutor;
+  private final List<Runnable> pendingDeviceCallbacks = new ArrayList<>();
+  private boolean outputsReady;
+  @Nullable private RuntimeException outputsError;
+
+  /**
+   * Creates a new instance of the {@link OpenBarrier}.
+   *
+   * @param deviceExecutor the executor that runs the callbacks of the device.
+   */
+  OpenBarrier(@NonNull Executor deviceExecutor) {
+    this.deviceExecutor = deviceExecutor;
+  }
+
+  /**
+   * Runs a callback of the device once the outputs are ready. It is posted to the executor even
+   * when the outputs already are, behind the callbacks that were held back.
+   */
+  void onDeviceCallback(@NonNull Runnable callback) {
+    synchronized (this) {
+      if (!outputsReady) {
+        pendingDeviceCallbacks.add(callback);
+        return;
+      }
+    }
+    deviceExecutor.execute(callback);
+  }
+
+  /** Marks the outputs as ready and runs the callbacks of the device that arrived before. */
+  synchronized void onOutputsReady() {
+    if (outputsReady) {
+      return;
+    }
+    outputsReady = true;
+    // Posted under the lock, so callbacks that arrive from now on are posted behind them.
+    for (Runnable callback : pendingDeviceCallbacks) {
+      deviceExecutor.execute(callback);
+    }
+    pendingDeviceCallbacks.clear();
+  }
+
+  /**
+   * Marks the outputs as failed and runs the callbacks of the device that arrived before.
+   *
+   * @param error the reason the outputs could not be prepared.
+   */
+  synchronized void onOutputsFailed(@NonNull RuntimeException error) {
+    if (outputsReady) {
+      return;
+    }
+    outputsError = error;
+    onOutputsReady();
+  }
+
+  /** Returns why the outputs could not be prepared, or {@code null} when they were. */
+  @Nullable
+  synchronized RuntimeException getOutputsError() {
+    return outputsError;
+  }
+
+  /** Returns whether the outputs are ready. */
+  synchronized boolean isOutputsReady() {
+    return outputsReady && outputsError == null;
+  }
+}
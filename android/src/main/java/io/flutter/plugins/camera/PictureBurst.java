@@ -0,0 +1,196 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks the pictures of a single burst from capture request to saved file.
+ *
+ * <p>Images are matched with the request they belong to through the sensor timestamp reported
+ * when the capture started, so pictures end up in request order even though they are saved
+ * concurrently. The burst completes once every picture has been saved, or fails on the first
+ * picture that could not be captured or saved. The files of a failed burst are deleted, since
+ * their paths are never reported.
+ */
+class PictureBurst {
+  /** Receives the outcome of the burst, exactly once. */
+  interface Callback {
+    /**
+     * Called when all pictures have been saved.
+     *
+     * @param paths the absolute paths of the pictures, in request order.
+     */
+    void onComplete(@NonNull List<String> paths);
+
+    /**
+     * Called when a picture could not be captured or saved.
+     *
+     * @param errorCode the error code.
+     * @param errorMessage the human readable error message.
+     */
+    void onError(@NonNull String errorCode, @NonNull String errorMessage);
+  }
+
+  private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+  private final File[] files;
+  private final long[] sensorTimestamps;
+  private final boolean[] captureDone;
+  private final boolean[] saved;
+  private final Callback callback;
+  private int capturedCount;
+  private int savedCount;
+  private boolean finished;
+  private boolean failed;
+
+  /**
+   * Creates a new instance of the {@link PictureBurst}.
+   *
+   * @param files the files to save the pictures to, one per request.
+   * @param callback the callback that receives the outcome of the burst.
+   */
+  PictureBurst(@NonNull File[] files, @NonNull Callback callback) {
+    this.files = files;
+    this.sensorTimestamps = new long[files.length];
+    this.captureDone = new boolean[files.length];
+    this.saved = new boolean[files.length];
+    this.callback = callback;
+    for (int i = 0; i < files.length; i++) {
+      sensorTimestamps[i] = NO_TIMESTAMP;
+    }
+  }
+
+  /** Returns the number of pictures in the burst. */
+  int size() {
+    return files.length;
+  }
+
+  /** Returns the file the picture of the given request is saved to. */
+  @NonNull
+  File getFile(int index) {
+    return files[index];
+  }
+
+  /**
+   * Records the sensor timestamp of a request when its capture starts.
+   *
+   * @param index the index of the request.
+   * @param sensorTimestamp the sensor timestamp of the capture.
+   */
+  synchronized void onCaptureStarted(int index, long sensorTimestamp) {
+    sensorTimestamps[index] = sensorTimestamp;
+  }
+
+  /**
+   * Matches a captured image with its request.
+   *
+   * @param sensorTimestamp the timestamp of the image.
+   * @return the index of the request, or -1 when the image does not belong to this burst.
+   */
+  synchronized int onImageCaptured(long sensorTimestamp) {
+    int index = -1;
+    for (int i = 0; i < files.length; i++) {
+      if (!captureDone[i] && sensorTimestamps[i] == sensorTimestamp) {
+        index = i;
+        break;
+      }
+    }
+    if (index < 0) {
+      // The start of the capture was not reported, images arrive in request order.
+      for (int i = 0; i < files.length; i++) {
+        if (!captureDone[i] && sensorTimestamps[i] == NO_TIMESTAMP) {
+          index = i;
+          break;
+        }
+      }
+    }
+    if (index >= 0) {
+      captureDone[index] = true;
+      capturedCount++;
+    }
+    return index;
+  }
+
+  /**
+   * Records that the capture of a request failed, which fails the burst and deletes the file of
+   * the request, since no picture is ever written to it.
+   *
+   * @param index the index of the request.
+   * @param reason the failure reason reported by the camera.
+   */
+  void onCaptureFailed(int index, int reason) {
+    synchronized (this) {
+      if (captureDone[index]) {
+        return;
+      }
+      captureDone[index] = true;
+      capturedCount++;
+    }
+    files[index].delete();
+    onError("burstCaptureFailed", "Picture " + index + " of the burst failed with reason " + reason);
+  }
+
+  /** Returns whether every request has either produced an image or failed. */
+  synchronized boolean isCaptureDone() {
+    return capturedCount == files.length;
+  }
+
+  /**
+   * Records that a picture has been saved, completing the burst when it was the last one. The
+   * picture is deleted again when the burst already failed.
+   *
+   * @param index the index of the request.
+   */
+  void onSaved(int index) {
+    final List<String> paths;
+    synchronized (this) {
+      if (failed) {
+        files[index].delete();
+        return;
+      }
+      saved[index] = true;
+      savedCount++;
+      if (finished || savedCount < files.length) {
+        return;
+      }
+      finished = true;
+      paths = new ArrayList<>(files.length);
+      for (File file : files) {
+        paths.add(file.getAbsolutePath());
+      }
+    }
+    callback.onComplete(paths);
+  }
+
+  /**
+   * Fails the burst, unless it already completed or failed, and deletes the pictures saved so far.
+   *
+   * @param errorCode the error code.
+   * @param errorMessage the human readable error message.
+   */
+  void onError(@NonNull String errorCode, @NonNull String errorMessage) {
+    final List<File> savedFiles = new ArrayList<>();
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      failed = true;
+      for (int i = 0; i < files.length; i++) {
+        if (saved[i]) {
+          savedFiles.add(files[i]);
+        }
+      }
+    }
+    for (File file : savedFiles) {
+      file.delete();
+    }
+    callback.onError(errorCode, errorMessage);
+  }
+}
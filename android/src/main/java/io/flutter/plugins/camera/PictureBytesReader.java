@@ -0,0 +1,126 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.media.Image;
+import androidx.annotation.NonNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the encoded bytes of a JPEG {@link Image} or {@link JpegPicture}, so they can be returned
+ * to Dart without writing a file.
+ */
+class PictureBytesReader implements Runnable {
+  /** Receives the bytes of the picture, or the reason they could not be read. */
+  interface Callback {
+    /**
+     * Called with the JPEG bytes of the picture.
+     *
+     * @param bytes the encoded picture.
+     */
+    void onComplete(@NonNull byte[] bytes);
+
+    /**
+     * Called when the picture could not be read.
+     *
+     * @param errorCode the error code.
+     * @param errorMessage the human readable error message.
+     */
+    void onError(@NonNull String errorCode, @NonNull String errorMessage);
+  }
+
+  private final JpegPicture picture;
+  private final Callback callback;
+  private final boolean isSquare;
+  private final int jpegQuality;
+  private final int maxDimension;
+
+  /**
+   * Creates a new instance of the {@link PictureBytesReader}.
+   *
+   * @param image the JPEG image, which is closed once it has been read.
+   * @param callback the callback that receives the bytes.
+   * @param isSquare whether the picture is cropped to a centered square.
+   * @param jpegQuality the JPEG quality a cropped picture is encoded with.
+   */
+  PictureBytesReader(
+      @NonNull Image image, @NonNull Callback callback, boolean isSquare, int jpegQuality) {
+    this(image, callback, isSquare, jpegQuality, 0);
+  }
+
+  /**
+   * Creates a new instance of the {@link PictureBytesReader} that scales the picture down.
+   *
+   * @param image the JPEG image, which is closed once it has been read.
+   * @param callback the callback that receives the bytes.
+   * @param isSquare whether the picture is cropped to a centered square.
+   * @param jpegQuality the JPEG quality a cropped or scaled picture is encoded with.
+   * @param maxDimension the maximum length of the longest edge of the picture, or 0 for the full
+   *     resolution.
+   */
+  PictureBytesReader(
+      @NonNull Image image,
+      @NonNull Callback callback,
+      boolean isSquare,
+      int jpegQuality,
+      int maxDimension) {
+    this(JpegPicture.of(image), callback, isSquare, jpegQuality, maxDimension);
+  }
+
+  /**
+   * Creates a new instance of the {@link PictureBytesReader} for a picture that is not a JPEG
+   * {@link Image}, e.g. an encoded zero shutter lag frame.
+   *
+   * @param picture the JPEG picture, which is closed once it has been read.
+   * @param callback the callback that receives the bytes.
+   * @param isSquare whether the picture is cropped to a centered square.
+   * @param jpegQuality the JPEG quality a cropped or scaled picture is encoded with.
+   * @param maxDimension the maximum length of the longest edge of the picture, or 0 for the full
+   *     resolution.
+   */
+  PictureBytesReader(
+      @NonNull JpegPicture picture,
+      @NonNull Callback callback,
+      boolean isSquare,
+      int jpegQuality,
+      int maxDimension) {
+    this.picture = picture;
+    this.callback = callback;
+    this.isSquare = isSquare;
+    this.jpegQuality = jpegQuality;
+    this.maxDimension = maxDimension;
+  }
+
+  @Override
+  public void run() {
+    final byte[] bytes;
+    try {
+      final ByteBuffer buffer = picture.getBuffer();
+      if (PictureResizer.needsResize(picture.getWidth(), picture.getHeight(), isSquare, maxDimension)) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(buffer.remaining() / 4);
+        PictureResizer.resize(buffer, isSquare, maxDimension, jpegQuality, output);
+        bytes = output.toByteArray();
+      } else if (isSquare) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(buffer.remaining() / 2);
+        SquareCropper.crop(buffer, jpegQuality, output);
+        bytes = output.toByteArray();
+      } else {
+        // The message codec needs an array of the exact size, this is the only copy.
+        bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+      }
+    } catch (IOException | RuntimeException | OutOfMemoryError e) {
+      // The decoder rejects some pictures with an IllegalArgumentException, and large ones may
+      // not fit the heap. The picture still has to be reported, or the request never finishes.
+      callback.onError("IOError", "Failed reading image");
+      return;
+    } finally {
+      picture.close();
+    }
+    callback.onComplete(bytes);
+  }
+}
@@ -0,0 +1,145 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks the pictures of {@code takePicture} from request to captured image.
+ *
+ * <p>Requests wait in a bounded FIFO until the camera is free. Only one request at a time is
+ * active, running the focus, precapture and still capture sequence. Once its sensor readout is done
+ * the camera is free for the next request, while earlier images are still being encoded or saved.
+ * Images of the picture reader arrive in the order their still captures were submitted, so they are
+ * matched with the oldest request that waits for one.
+ *
+ * <p>The queue is accessed from the main thread and the camera background thread.
+ */
+final class PictureQueue {
+  private final int capacity;
+  private final ArrayDeque<PictureRequest> queued;
+  private final ArrayDeque<PictureRequest> awaitingImage = new ArrayDeque<>();
+  @Nullable private PictureRequest active;
+
+  /**
+   * Creates a new instance of the {@link PictureQueue}.
+   *
+   * @param capacity the maximum number of requests that wait for the camera.
+   */
+  PictureQueue(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1.");
+    }
+    this.capacity = capacity;
+    this.queued = new ArrayDeque<>(capacity);
+  }
+
+  /**
+   * Appends a request to the queue.
+   *
+   * @return whether the request was queued, or {@code false} when the queue is full.
+   */
+  synchronized boolean offer(@NonNull PictureRequest request) {
+    if (queued.size() >= capacity) {
+      return false;
+    }
+    queued.add(request);
+    return true;
+  }
+
+  /**
+   * Makes the oldest queued request the active one, unless a request is already active.
+   *
+   * @return the request that became active, or {@code null} when there is none.
+   */
+  @Nullable
+  synchronized PictureRequest startNext() {
+    if (active != null) {
+      return null;
+    }
+    active = queued.poll();
+    return active;
+  }
+
+  /** Returns the request that runs the capture sequence, or {@code null} when there is none. */
+  @Nullable
+  synchronized PictureRequest getActive() {
+    return active;
+  }
+
+  /**
+   * Makes the active request wait for its image, once its still capture has been submitted. The
+   * request stays active until {@link #finishActive} is called after its sensor readout.
+   *
+   * @return the request that now waits for its image, or {@code null} when none was active.
+   */
+  @Nullable
+  synchronized PictureRequest awaitImageOfActive() {
+    if (active != null) {
+      awaitingImage.add(active);
+    }
+    return active;
+  }
+
+  /**
+   * Frees the camera for the next request, because the sensor readout of the active request is
+   * done or it failed.
+   *
+   * @return the request that was active, or {@code null} when there was none.
+   */
+  @Nullable
+  synchronized PictureRequest finishActive() {
+    final PictureRequest request = active;
+    active = null;
+    return request;
+  }
+
+  /** Returns the oldest request that waits for its image, or {@code null} when there is none. */
+  @Nullable
+  synchronized PictureRequest pollCaptured() {
+    return awaitingImage.poll();
+  }
+
+  /**
+   * Removes a request that waits for its image, because its capture failed.
+   *
+   * @return whether the request was waiting for its image.
+   */
+  synchronized boolean removeCaptured(@NonNull PictureRequest request) {
+    return awaitingImage.remove(request);
+  }
+
+  /** Returns whether no request is queued, active or waiting for its image. */
+  synchronized boolean isIdle() {
+    return active == null && awaitingImage.isEmpty() && queued.isEmpty();
+  }
+
+  /** Returns the number of requests that wait for the camera. */
+  synchronized int getQueuedCount() {
+    return queued.size();
+  }
+
+  /**
+   * Removes all requests.
+   *
+   * @return the removed requests, in the order they were made.
+   */
+  @NonNull
+  synchronized List<PictureRequest> clear() {
+    final List<PictureRequest> requests = new ArrayList<>(awaitingImage);
+    if (active != null && !awaitingImage.contains(active)) {
+      requests.add(active);
+    }
+    requests.addAll(queued);
+    awaitingImage.clear();
+    queued.clear();
+    active = null;
+    return requests;
+  }
+}
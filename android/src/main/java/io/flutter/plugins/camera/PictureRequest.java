@@ -0,0 +1,127 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugin.common.MethodChannel.Result;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/** A picture that was requested through {@code takePicture}, with its own result and files. */
+final class PictureRequest {
+  private final Result result;
+  @Nullable private final File file;
+  @Nullable private final File thumbnailFile;
+  private final int thumbnailMaxSize;
+  @Nullable private final EventChannel.EventSink thumbnailSink;
+  private final int thumbnailRequestId;
+  private final boolean includeTimings;
+  private final int maxOutputDimension;
+  private final CaptureTimings timings = new CaptureTimings();
+
+  /**
+   * Creates a new instance of the {@link PictureRequest}.
+   *
+   * @param result the result that receives the path of the picture, or its JPEG bytes.
+   * @param file the file to write the picture to, or {@code null} to return its JPEG bytes.
+   * @param thumbnailFile the file to write the thumbnail to, or {@code null} for no thumbnail.
+   * @param thumbnailMaxSize the maximum length of the longest edge of the thumbnail.
+   * @param thumbnailSink the sink that receives the path of the thumbnail, or an error.
+   * @param thumbnailRequestId the id Dart gave the request, sent with the thumbnail so it can be
+   *     matched with its picture.
+   * @param includeTimings whether the result also receives the timings of the picture.
+   * @param maxOutputDimension the maximum length of the longest edge of the picture, or 0 for the
+   *     full resolution.
+   */
+  PictureRequest(
+      @NonNull Result result,
+      @Nullable File file,
+      @Nullable File thumbnailFile,
+      int thumbnailMaxSize,
+      @Nullable EventChannel.EventSink thumbnailSink,
+      int thumbnailRequestId,
+      boolean includeTimings,
+      int maxOutputDimension) {
+    this.result = result;
+    this.file = file;
+    this.thumbnailFile = thumbnailFile;
+    this.thumbnailMaxSize = thumbnailMaxSize;
+    this.thumbnailSink = thumbnailSink;
+    this.thumbnailRequestId = thumbnailRequestId;
+    this.includeTimings = includeTimings;
+    this.maxOutputDimension = maxOutputDimension;
+  }
+
+  @NonNull
+  Result getResult() {
+    return result;
+  }
+
+  /** Returns the file to write the picture to, or {@code null} when its bytes are returned. */
+  @Nullable
+  File getFile() {
+    return file;
+  }
+
+  /** Returns whether the JPEG bytes of the picture are returned instead of a path. */
+  boolean returnsBytes() {
+    return file == null;
+  }
+
+  /** Returns whether a thumbnail is written alongside the picture. */
+  boolean hasThumbnail() {
+    return thumbnailFile != null && thumbnailSink != null;
+  }
+
+  @Nullable
+  File getThumbnailFile() {
+    return thumbnailFile;
+  }
+
+  int getThumbnailMaxSize() {
+    return thumbnailMaxSize;
+  }
+
+  @Nullable
+  EventChannel.EventSink getThumbnailSink() {
+    return thumbnailSink;
+  }
+
+  int getThumbnailRequestId() {
+    return thumbnailRequestId;
+  }
+
+  /** Returns the maximum length of the longest edge of the picture, or 0 for the full resolution. */
+  int getMaxOutputDimension() {
+    return maxOutputDimension;
+  }
+
+  /** Returns the timings of the phases of the picture, which start when the request was made. */
+  @NonNull
+  CaptureTimings getTimings() {
+    return timings;
+  }
+
+  /**
+   * Creates the payload of the result.
+   *
+   * @param picture the path of the picture, or its JPEG bytes.
+   * @return the picture, or a map containing the picture under "path" or "bytes" and the timings
+   *     of the picture under "timings" when they were requested.
+   */
+  @NonNull
+  Object createPayload(@NonNull Object picture) {
+    if (!includeTimings) {
+      return picture;
+    }
+    final Map<String, Object> payload = new HashMap<>();
+    payload.put(returnsBytes() ? "bytes" : "path", picture);
+    payload.put("timings", timings.toMap());
+    return payload;
+  }
+}
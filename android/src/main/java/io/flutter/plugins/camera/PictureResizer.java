@@ -0,0 +1,149 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import androidx.annotation.NonNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Scales JPEG pictures down so their longest edge does not exceed a maximum dimension, and crops
+ * them to a centered square, see {@link SquareCropper}.
+ *
+ * <p>The picture, or only its centered square for square pictures, is decoded with a power of two
+ * {@code inSampleSize}, so only a fraction of the full resolution pixels is allocated, and then
+ * scaled once to the exact size. The orientation of the source picture is kept as EXIF
+ * orientation tag, so the pixels never have to be rotated.
+ */
+final class PictureResizer {
+  private PictureResizer() {}
+
+  /**
+   * Returns whether a picture has to be scaled down to fit a maximum dimension.
+   *
+   * @param width the width of the picture.
+   * @param height the height of the picture.
+   * @param isSquare whether the picture is cropped to a centered square.
+   * @param maxDimension the maximum length of the longest edge, or 0 for no maximum.
+   */
+  static boolean needsResize(int width, int height, boolean isSquare, int maxDimension) {
+    final int edge = isSquare ? Math.min(width, height) : Math.max(width, height);
+    return maxDimension > 0 && edge > maxDimension;
+  }
+
+  /**
+   * Scales a JPEG picture down, cropping it to a centered square if needed, and writes it as JPEG.
+   *
+   * @param jpeg the picture, from its position to its limit.
+   * @param isSquare whether the picture is cropped to the largest centered square.
+   * @param maxDimension the maximum length of the longest edge of the written picture, or 0 to
+   *     only crop it.
+   * @param quality the JPEG quality of the written picture, from 1 to 100.
+   * @param output the stream to write the picture to.
+   * @throws IOException when the picture cannot be decoded or written.
+   */
+  static void resize(
+      @NonNull ByteBuffer jpeg,
+      boolean isSquare,
+      int maxDimension,
+      int quality,
+      @NonNull OutputStream output)
+      throws IOException {
+    final byte[] bytes;
+    final int offset;
+    final int length = jpeg.remaining();
+    if (jpeg.hasArray()) {
+      bytes = jpeg.array();
+      offset = jpeg.arrayOffset() + jpeg.position();
+    } else {
+      // The decoder needs an array, the planes of camera images are direct buffers.
+      bytes = new byte[length];
+      offset = 0;
+      jpeg.duplicate().get(bytes);
+    }
+
+    final int orientation = JpegExif.readOrientation(bytes, offset, length);
+    Bitmap bitmap = decode(bytes, offset, length, isSquare, maxDimension);
+    final ByteArrayOutputStream encoded =
+        new ByteArrayOutputStream(maxDimension > 0 ? length / 4 : length / 2);
+    try {
+      final int[] size = computeScaledSize(bitmap.getWidth(), bitmap.getHeight(), maxDimension);
+      if (size[0] != bitmap.getWidth() || size[1] != bitmap.getHeight()) {
+        final Bitmap scaled = Bitmap.createScaledBitmap(bitmap, size[0], size[1], true);
+        if (scaled != bitmap) {
+          bitmap.recycle();
+          bitmap = scaled;
+        }
+      }
+      if (!bitmap.compress(Bitmap.CompressFormat.JPEG, quality, encoded)) {
+        throw new IOException("Failed encoding the resized picture");
+      }
+    } finally {
+      bitmap.recycle();
+    }
+    JpegExif.writeWithOrientation(encoded.toByteArray(), orientation, output);
+  }
+
+  /**
+   * Computes the size of a picture scaled down so its longest edge fits a maximum dimension,
+   * keeping its aspect ratio.
+   *
+   * @param width the width of the picture.
+   * @param height the height of the picture.
+   * @param maxDimension the maximum length of the longest edge, or 0 for no maximum.
+   * @return the width and height, which are the original ones when the picture already fits.
+   */
+  static int[] computeScaledSize(int width, int height, int maxDimension) {
+    final int longestEdge = Math.max(width, height);
+    if (maxDimension <= 0 || longestEdge <= maxDimension) {
+      return new int[] {width, height};
+    }
+    final float scale = (float) maxDimension / longestEdge;
+    return new int[] {
+      Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale))
+    };
+  }
+
+  private static Bitmap decode(
+      byte[] bytes, int offset, int length, boolean isSquare, int maxDimension)
+      throws IOException {
+    final BitmapRegionDecoder decoder =
+        BitmapRegionDecoder.newInstance(bytes, offset, length, false);
+    try {
+      final int width = decoder.getWidth();
+      final int height = decoder.getHeight();
+      final Rect region;
+      if (isSquare) {
+        final int size = Math.min(width, height);
+        final int left = (width - size) / 2;
+        final int top = (height - size) / 2;
+        region = new Rect(left, top, left + size, top + size);
+      } else {
+        region = new Rect(0, 0, width, height);
+      }
+
+      final BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+      if (maxDimension > 0) {
+        options.inSampleSize =
+            PictureThumbnailer.computeSampleSize(
+                Math.max(region.width(), region.height()), maxDimension);
+      }
+      final Bitmap bitmap = decoder.decodeRegion(region, options);
+      if (bitmap == null) {
+        throw new IOException("Failed decoding the picture");
+      }
+      return bitmap;
+    } finally {
+      decoder.recycle();
+    }
+  }
+}
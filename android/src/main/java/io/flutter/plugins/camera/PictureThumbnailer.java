@@ -0,0 +1,311 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Size;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes a small thumbnail of a JPEG picture while the picture itself is being saved.
+ *
+ * <p>The thumbnail the camera embedded in the EXIF data of the picture is used when there is one,
+ * which only has to be copied. Otherwise the picture is decoded with a power of two {@code
+ * inSampleSize}, so that only a fraction of its pixels is allocated. The orientation of the picture
+ * is kept as EXIF orientation tag.
+ *
+ * <p>The picture is decoded in place, without copying it to the heap, so it has to stay valid until
+ * the thumbnailer releases it. Writing the thumbnail does not delay saving the picture, and the
+ * picture does not wait for the thumbnail either.
+ */
+final class PictureThumbnailer implements Runnable {
+  /** The length of the longest edge of thumbnails when none has been requested. */
+  static final int DEFAULT_MAX_SIZE = 320;
+
+  // A JPEG starts with the start of image marker and an EXIF segment of at most 64 KiB.
+  private static final int MAX_EXIF_LENGTH = 2 + 2 + 0xFFFF;
+
+  /** Receives the outcome of the thumbnail. */
+  interface Callback {
+    void onComplete(@NonNull String absolutePath);
+
+    void onError(@NonNull String errorCode, @NonNull String errorMessage);
+  }
+
+  private final File file;
+  private final int maxSize;
+  private final boolean isSquare;
+  private final int quality;
+  private final Executor executor;
+  private final Callback callback;
+  private final AtomicBoolean claimed = new AtomicBoolean();
+  @Nullable private byte[] embeddedThumbnail;
+  @Nullable private ByteBuffer picture;
+  @Nullable private Runnable onPictureReleased;
+  private int orientation;
+
+  /**
+   * Creates a new instance of the {@link PictureThumbnailer}.
+   *
+   * @param file the file to write the thumbnail to.
+   * @param maxSize the maximum length of the longest edge of the thumbnail.
+   * @param isSquare whether the thumbnail is cropped to a centered square, like the picture.
+   * @param quality the JPEG quality of thumbnails that are encoded again.
+   * @param executor the executor the thumbnail is written on.
+   * @param callback the callback that receives the path of the thumbnail, or an error.
+   */
+  PictureThumbnailer(
+      @NonNull File file,
+      int maxSize,
+      boolean isSquare,
+      int quality,
+      @NonNull Executor executor,
+      @NonNull Callback callback) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be at least 1.");
+    }
+    this.file = file;
+    this.maxSize = maxSize;
+    this.isSquare = isSquare;
+    this.quality = quality;
+    this.executor = executor;
+    this.callback = callback;
+  }
+
+  /**
+   * Starts writing the thumbnail of a picture on the executor.
+   *
+   * <p>An embedded thumbnail is copied right away and the picture is released before this method
+   * returns. Otherwise the thumbnail is decoded from the picture itself, which is released once it
+   * has been decoded.
+   *
+   * @param jpeg the picture, from its position to its limit. Its position is not changed.
+   * @param onPictureReleased run once the thumbnailer no longer reads the picture, on the thread
+   *     that released it.
+   */
+  void start(@NonNull ByteBuffer jpeg, @NonNull Runnable onPictureReleased) {
+    final ByteBuffer source = jpeg.duplicate();
+    final byte[] header = new byte[Math.min(source.remaining(), MAX_EXIF_LENGTH)];
+    source.get(header);
+    orientation = JpegExif.readOrientation(header, 0, header.length);
+
+    final int[] embedded = JpegExif.findThumbnail(header, 0, header.length);
+    if (embedded != null) {
+      embeddedThumbnail = new byte[embedded[1]];
+      System.arraycopy(header, embedded[0], embeddedThumbnail, 0, embedded[1]);
+      onPictureReleased.run();
+    } else {
+      picture = jpeg.duplicate();
+      this.onPictureReleased = onPictureReleased;
+    }
+    executor.execute(this);
+  }
+
+  /**
+   * Writes the thumbnail, unless it is already being written or has been written. Only the first
+   * call has an effect, so this can be both submitted to an executor and called directly, e.g.
+   * when the executor rejected it.
+   */
+  @Override
+  public void run() {
+    if (!claimed.compareAndSet(false, true)) {
+      return;
+    }
+    final byte[] embedded = embeddedThumbnail;
+    final ByteBuffer source = picture;
+    embeddedThumbnail = null;
+    picture = null;
+    if (embedded == null && source == null) {
+      callback.onError("thumbnailFailed", "The picture was not available for a thumbnail");
+      return;
+    }
+    try (OutputStream output = new FileOutputStream(file)) {
+      if (embedded != null && !isSquare) {
+        JpegExif.writeWithOrientation(embedded, orientation, output);
+      } else {
+        final ByteBuffer jpeg = embedded != null ? ByteBuffer.wrap(embedded) : source;
+        JpegExif.writeWithOrientation(downsample(jpeg), orientation, output);
+      }
+    } catch (IOException | RuntimeException e) {
+      callback.onError("thumbnailFailed", "Failed writing the thumbnail: " + e.getMessage());
+      return;
+    } finally {
+      releasePicture();
+    }
+    callback.onComplete(file.getAbsolutePath());
+  }
+
+  private void releasePicture() {
+    final Runnable listener = onPictureReleased;
+    onPictureReleased = null;
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
+  /**
+   * Decodes a JPEG picture at a reduced size, crops it if needed and encodes it again. The picture
+   * is released as soon as it has been decoded.
+   */
+  private byte[] downsample(ByteBuffer jpeg) throws IOException {
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeStream(new ByteBufferInputStream(jpeg.duplicate()), null, options);
+    // The edge that becomes the longest edge of the thumbnail, after cropping.
+    final int longestEdge =
+        isSquare
+            ? Math.min(options.outWidth, options.outHeight)
+            : Math.max(options.outWidth, options.outHeight);
+    if (longestEdge <= 0) {
+      throw new IOException("The picture is not a valid JPEG");
+    }
+
+    options.inJustDecodeBounds = false;
+    options.inSampleSize = computeSampleSize(longestEdge, maxSize);
+    Bitmap bitmap =
+        BitmapFactory.decodeStream(new ByteBufferInputStream(jpeg.duplicate()), null, options);
+    releasePicture();
+    if (bitmap == null) {
+      throw new IOException("Failed decoding the picture");
+    }
+    try {
+      if (isSquare) {
+        bitmap = replace(bitmap, cropCenteredSquare(bitmap));
+      }
+      final int width = bitmap.getWidth();
+      final int height = bitmap.getHeight();
+      final float scale = (float) maxSize / Math.max(width, height);
+      if (scale < 1f) {
+        bitmap =
+            replace(
+                bitmap,
+                Bitmap.createScaledBitmap(
+                    bitmap,
+                    Math.max(1, Math.round(width * scale)),
+                    Math.max(1, Math.round(height * scale)),
+                    true));
+      }
+      final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+      if (!bitmap.compress(Bitmap.CompressFormat.JPEG, quality, encoded)) {
+        throw new IOException("Failed encoding the thumbnail");
+      }
+      return encoded.toByteArray();
+    } finally {
+      bitmap.recycle();
+    }
+  }
+
+  private static Bitmap cropCenteredSquare(Bitmap bitmap) {
+    final int size = Math.min(bitmap.getWidth(), bitmap.getHeight());
+    return Bitmap.createBitmap(
+        bitmap, (bitmap.getWidth() - size) / 2, (bitmap.getHeight() - size) / 2, size, size);
+  }
+
+  /** Recycles a bitmap that has been replaced by a transformed one. */
+  private static Bitmap replace(Bitmap bitmap, Bitmap replacement) {
+    if (replacement != bitmap) {
+      bitmap.recycle();
+    }
+    return replacement;
+  }
+
+  /**
+   * Computes the largest power of two sample size that decodes an edge to at least the maximum
+   * size, so the decoded picture only has to be scaled down a little.
+   *
+   * @param edge the length of the edge in the picture.
+   * @param maxSize the length the edge should have in the thumbnail.
+   * @return the sample size, at least 1.
+   */
+  static int computeSampleSize(int edge, int maxSize) {
+    int sampleSize = 1;
+    while (edge / (sampleSize * 2) >= maxSize) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  /**
+   * Chooses the thumbnail size the camera embeds in pictures.
+   *
+   * @param available the thumbnail sizes supported by the camera.
+   * @param pictureSize the size of the pictures.
+   * @param maxSize the maximum length of the longest edge of the thumbnail.
+   * @return the largest size with the aspect ratio of the pictures that fits the maximum size, or
+   *     {@code null} when there is none and the thumbnail has to be decoded from the picture.
+   */
+  @Nullable
+  static Size chooseEmbeddedSize(
+      @Nullable Size[] available, @NonNull Size pictureSize, int maxSize) {
+    if (available == null) {
+      return null;
+    }
+    Size best = null;
+    for (Size size : available) {
+      final int width = size.getWidth();
+      final int height = size.getHeight();
+      if (width == 0
+          || height == 0
+          || Math.max(width, height) > maxSize
+          || (long) width * pictureSize.getHeight() != (long) height * pictureSize.getWidth()) {
+        continue;
+      }
+      if (best == null || width > best.getWidth()) {
+        best = size;
+      }
+    }
+    return best;
+  }
+
+  /** Reads a buffer in place, so a direct buffer can be decoded without copying it to the heap. */
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(@NonNull byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      final int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+      return count;
+    }
+
+    @Override
+    public long skip(long count) {
+      final int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+      buffer.position(buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
@@ -0,0 +1,37 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Crops JPEG pictures to a centered square.
+ *
+ * <p>This is {@link PictureResizer} without a maximum dimension: only the square region is decoded
+ * and it is encoded as JPEG again, keeping the orientation of the source picture as EXIF
+ * orientation tag.
+ */
+final class SquareCropper {
+  /** The JPEG quality used when none has been configured. */
+  static final int DEFAULT_JPEG_QUALITY = 95;
+
+  private SquareCropper() {}
+
+  /**
+   * Crops a JPEG picture to the largest centered square and writes it as JPEG.
+   *
+   * @param jpeg the picture, from its position to its limit.
+   * @param quality the JPEG quality of the cropped picture, from 1 to 100.
+   * @param output the stream to write the cropped picture to.
+   * @throws IOException when the picture cannot be decoded or written.
+   */
+  static void crop(@NonNull ByteBuffer jpeg, int quality, @NonNull OutputStream output)
+      throws IOException {
+    PictureResizer.resize(jpeg, true, 0, quality, output);
+  }
+}
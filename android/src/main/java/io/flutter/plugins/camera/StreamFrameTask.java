@@ -0,0 +1,190 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.media.Image;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugins.camera.imagestream.ImageStreamBufferPool;
+import io.flutter.plugins.camera.imagestream.ImageStreamOptions;
+import io.flutter.plugins.camera.imagestream.OrderedFrameExecutor;
+import io.flutter.plugins.camera.imagestream.StreamFrameWriter;
+import io.flutter.plugins.camera.types.CaptureResultRing;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Analyzes an image of the image stream reader on a frame analysis thread: runs the frame
+ * processors on it and copies it into a frame of the image stream.
+ *
+ * <p>There is one task per frame analysis thread, which is prepared again for every image, so a
+ * running stream does not allocate a task, a capture result record or a writer per frame. A task is
+ * only prepared again once the frame it analyzed has been completed, see {@link
+ * OrderedFrameExecutor#reserve()}.
+ *
+ * <p>A prepared task owns its image and stream frame. The image is closed once the task has run,
+ * and the stream frame is either handed over for delivery or returned to its pool, also when
+ * analyzing the image throws, so a failing image cannot keep a frame in flight.
+ */
+class StreamFrameTask implements OrderedFrameExecutor.FrameTask {
+  private final FrameProcessorRunner frameProcessorRunner;
+  private final CaptureResultRing captureResults;
+  private final AtomicLong unmatchedFrames;
+  private final CaptureResultRing.Record captureResult = new CaptureResultRing.Record();
+  @Nullable private StreamFrameWriter writer;
+  @Nullable private ImageStreamOptions writerOptions;
+  private boolean writerLumaOnly;
+
+  @Nullable private Image image;
+  private boolean processFrame;
+  @Nullable private ImageStreamBufferPool.Frame frame;
+  @Nullable private EventChannel.EventSink sink;
+  private ImageStreamOptions options;
+  private boolean lumaOnlyFormat;
+  @Nullable private Float fallbackAperture;
+  @Nullable private Long fallbackExposureTime;
+  @Nullable private Integer fallbackSensitivity;
+
+  /**
+   * Creates a new instance of the {@link StreamFrameTask}.
+   *
+   * @param frameProcessorRunner the runner of the frame processors.
+   * @param captureResults the capture results to match the images with.
+   * @param unmatchedFrames counts the frames sent without their own capture result.
+   */
+  StreamFrameTask(
+      @NonNull FrameProcessorRunner frameProcessorRunner,
+      @NonNull CaptureResultRing captureResults,
+      @NonNull AtomicLong unmatchedFrames) {
+    this.frameProcessorRunner = frameProcessorRunner;
+    this.captureResults = captureResults;
+    this.unmatchedFrames = unmatchedFrames;
+  }
+
+  /**
+   * Prepares the task for the next image. Must be called on the submitting thread, before the task
+   * is handed to the executor.
+   *
+   * @param image the image to analyze.
+   * @param processFrame whether to run the frame processors on the image.
+   * @param frame the stream frame to copy the image into, or {@code null} to not stream it.
+   * @param sink the image stream sink to deliver the frame to, only used when {@code frame} is set.
+   * @param options the options of the image stream.
+   * @param lumaOnlyFormat whether the camera was opened with the {@code yuv420_luma} image format
+   *     group.
+   * @param fallbackAperture the lens aperture sent when the capture result is not known.
+   * @param fallbackExposureTime the exposure time sent when the capture result is not known.
+   * @param fallbackSensitivity the sensitivity sent when the capture result is not known.
+   * @return this task.
+   */
+  StreamFrameTask prepare(
+      @NonNull Image image,
+      boolean processFrame,
+      @Nullable ImageStreamBufferPool.Frame frame,
+      @Nullable EventChannel.EventSink sink,
+      @NonNull ImageStreamOptions options,
+      boolean lumaOnlyFormat,
+      @Nullable Float fallbackAperture,
+      @Nullable Long fallbackExposureTime,
+      @Nullable Integer fallbackSensitivity) {
+    this.image = image;
+    this.processFrame = processFrame;
+    this.frame = frame;
+    this.sink = sink;
+    this.options = options;
+    this.lumaOnlyFormat = lumaOnlyFormat;
+    this.fallbackAperture = fallbackAperture;
+    this.fallbackExposureTime = fallbackExposureTime;
+    this.fallbackSensitivity = fallbackSensitivity;
+    return this;
+  }
+
+  @Nullable
+  @Override
+  public Runnable process() {
+    final Image image = this.image;
+    final ImageStreamBufferPool.Frame frame = this.frame;
+    final EventChannel.EventSink sink = this.sink;
+    // The task is kept for the next image, so it must not keep this one reachable.
+    this.image = null;
+    this.frame = null;
+    this.sink = null;
+    Runnable delivery = null;
+    try {
+      final Runnable results = processFrame ? frameProcessorRunner.process(image) : null;
+      if (frame == null || sink == null) {
+        return results;
+      }
+      writeFrame(image, frame);
+      // The frame is returned to the pool once the sink has encoded it on the main thread.
+      delivery = frame.deliverTo(sink, results);
+      return delivery;
+    } finally {
+      image.close();
+      if (frame != null && delivery == null) {
+        // The analysis failed, or there was no sink to deliver to. The executor logs the failure.
+        frame.release();
+      }
+    }
+  }
+
+  /**
+   * Gives up the prepared image without running the task, e.g. when the executor was shut down.
+   * Closes the image and releases the stream frame.
+   */
+  void discard() {
+    final Image image = this.image;
+    final ImageStreamBufferPool.Frame frame = this.frame;
+    this.image = null;
+    this.frame = null;
+    this.sink = null;
+    if (image != null) {
+      image.close();
+    }
+    if (frame != null) {
+      frame.release();
+    }
+  }
+
+  private void writeFrame(Image image, ImageStreamBufferPool.Frame frame) {
+    if (writer == null || writerOptions != options || writerLumaOnly != lumaOnlyFormat) {
+      // Only happens for the first frame of a stream, its scratch buffers are reused after.
+      writer = new StreamFrameWriter(options, lumaOnlyFormat);
+      writerOptions = options;
+      writerLumaOnly = lumaOnlyFormat;
+    }
+    if (captureResults.find(image.getTimestamp(), captureResult)) {
+      write(
+          image,
+          frame,
+          captureResult.getLensAperture(),
+          captureResult.getSensorExposureTime(),
+          captureResult.getSensorSensitivity());
+    } else {
+      unmatchedFrames.incrementAndGet();
+      write(image, frame, fallbackAperture, fallbackExposureTime, fallbackSensitivity);
+    }
+  }
+
+  private void write(
+      Image image,
+      ImageStreamBufferPool.Frame frame,
+      @Nullable Float aperture,
+      @Nullable Long exposureTime,
+      @Nullable Integer sensitivity) {
+    frame.reset();
+    final Image.Plane[] planes = image.getPlanes();
+    writer.setImage(image.getWidth(), image.getHeight(), image.getFormat(), planes.length);
+    for (int i = 0; i < planes.length; i++) {
+      writer.setPlane(
+          i, planes[i].getBuffer(), planes[i].getRowStride(), planes[i].getPixelStride());
+    }
+    if (options.isPacked()) {
+      writer.writePacket(frame, aperture, exposureTime, sensitivity);
+    } else {
+      writer.writePlanes(frame, aperture, exposureTime, sensitivity);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.media.Image;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Keeps the most recent full resolution frames of the preview, so a picture can be taken from a
+ * frame that was already captured instead of running a new still capture.
+ *
+ * <p>Frames are added in capture order on the camera background thread. When the buffer is full,
+ * the oldest frame is closed to make room for the new one.
+ */
+class ZeroShutterLagBuffer {
+  /** Decides whether a buffered frame is good enough to be used as the picture. */
+  interface FrameFilter {
+    /**
+     * @param timestamp the sensor timestamp of the frame.
+     * @return whether the frame can be used.
+     */
+    boolean accept(long timestamp);
+  }
+
+  private final Image[] frames;
+  private int count;
+
+  /**
+   * Creates a new instance of the {@link ZeroShutterLagBuffer}.
+   *
+   * @param capacity the number of frames to keep.
+   */
+  ZeroShutterLagBuffer(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1.");
+    }
+    frames = new Image[capacity];
+  }
+
+  /**
+   * Adds the newest frame, closing the oldest one when the buffer is full.
+   *
+   * @param frame the frame, which is owned by the buffer from now on.
+   */
+  synchronized void add(@NonNull Image frame) {
+    if (count == frames.length) {
+      frames[0].close();
+      System.arraycopy(frames, 1, frames, 0, count - 1);
+      count--;
+    }
+    frames[count++] = frame;
+  }
+
+  /**
+   * Takes the accepted frame that was captured closest to the given time out of the buffer.
+   *
+   * @param targetTimestamp the sensor timestamp of the moment the picture was requested.
+   * @param filter decides which frames can be used.
+   * @return the frame, which is now owned by the caller, or {@code null} when no frame was accepted.
+   */
+  @Nullable
+  synchronized Image take(long targetTimestamp, @NonNull FrameFilter filter) {
+    int best = -1;
+    long bestDistance = Long.MAX_VALUE;
+    // Newest first, so the newer frame wins when two are equally close.
+    for (int i = count - 1; i >= 0; i--) {
+      final long timestamp = frames[i].getTimestamp();
+      final long distance = Math.abs(timestamp - targetTimestamp);
+      if (distance < bestDistance && filter.accept(timestamp)) {
+        best = i;
+        bestDistance = distance;
+      }
+    }
+    if (best < 0) {
+      return null;
+    }
+
+    final Image frame = frames[best];
+    System.arraycopy(frames, best + 1, frames, best, count - best - 1);
+    frames[--count] = null;
+    return frame;
+  }
+
+  /** Returns the number of buffered frames. */
+  synchronized int size() {
+    return count;
+  }
+
+  /** Closes all buffered frames. */
+  synchronized void clear() {
+    for (int i = 0; i < count; i++) {
+      frames[i].close();
+      frames[i] = null;
+    }
+    count = 0;
+  }
+}
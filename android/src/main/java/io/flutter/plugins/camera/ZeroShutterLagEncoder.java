@@ -0,0 +1,116 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.media.Image;
+import androidx.annotation.NonNull;
+import io.flutter.plugins.camera.imagestream.PlaneCopier;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes the YUV_420_888 frames of the zero shutter lag buffer as JPEG pictures.
+ *
+ * <p>The buffer keeps uncompressed frames, so the preview is not slowed down to the rate of a JPEG
+ * stream. Only the frame that is taken as a picture is encoded, on the I/O executor: it is copied
+ * out of its {@link Image} first, so the image goes back to its reader before the slow encode.
+ */
+final class ZeroShutterLagEncoder {
+  private ZeroShutterLagEncoder() {}
+
+  /**
+   * Copies a YUV_420_888 image into the NV21 layout that {@link YuvImage} encodes: the luma plane
+   * without row padding, followed by interleaved V and U samples.
+   *
+   * @param image the image, which stays open and owned by the caller.
+   * @return the NV21 data of the image.
+   */
+  static byte[] copyToNv21(@NonNull Image image) {
+    final int width = image.getWidth();
+    final int height = image.getHeight();
+    final Image.Plane[] planes = image.getPlanes();
+    final byte[] nv21 = new byte[width * height + 2 * (width / 2) * (height / 2)];
+
+    final ByteBuffer luma = planes[0].getBuffer().duplicate();
+    int offset =
+        PlaneCopier.copyWithoutRowPadding(luma, planes[0].getRowStride(), width, height, nv21, 0);
+
+    // U and V share their strides. Each chroma row is read with one bulk get per plane, which
+    // for planar chroma (pixel stride 1) is exactly the row, and then interleaved as V, U.
+    final ByteBuffer u = planes[1].getBuffer().duplicate();
+    final ByteBuffer v = planes[2].getBuffer().duplicate();
+    final int uBase = u.position();
+    final int vBase = v.position();
+    final int rowStride = planes[1].getRowStride();
+    final int pixelStride = planes[1].getPixelStride();
+    final int chromaWidth = width / 2;
+    final int rowLength = chromaWidth == 0 ? 0 : (chromaWidth - 1) * pixelStride + 1;
+    final byte[] uRow = new byte[rowLength];
+    final byte[] vRow = new byte[rowLength];
+    for (int y = 0; y < height / 2; y++) {
+      u.position(uBase + y * rowStride);
+      u.get(uRow, 0, rowLength);
+      v.position(vBase + y * rowStride);
+      v.get(vRow, 0, rowLength);
+      for (int x = 0; x < rowLength; x += pixelStride) {
+        nv21[offset++] = vRow[x];
+        nv21[offset++] = uRow[x];
+      }
+    }
+    return nv21;
+  }
+
+  /**
+   * Encodes an NV21 frame as JPEG.
+   *
+   * @param nv21 the frame, see {@link #copyToNv21}.
+   * @param width the width of the frame in pixels.
+   * @param height the height of the frame in pixels.
+   * @param quality the JPEG quality, from 1 to 100.
+   * @param orientationDegrees the clockwise rotation of the picture, which is stored as EXIF
+   *     orientation like the camera does for JPEG captures.
+   * @return the JPEG bytes.
+   * @throws IOException when the frame cannot be encoded.
+   */
+  static byte[] encode(
+      @NonNull byte[] nv21, int width, int height, int quality, int orientationDegrees)
+      throws IOException {
+    final YuvImage yuv = new YuvImage(nv21, ImageFormat.NV21, width, height, null);
+    final ByteArrayOutputStream encoded = new ByteArrayOutputStream(width * height / 4);
+    if (!yuv.compressToJpeg(new Rect(0, 0, width, height), quality, encoded)) {
+      throw new IOException("Failed encoding the zero shutter lag frame");
+    }
+    final int orientation = toExifOrientation(orientationDegrees);
+    if (orientation == JpegExif.ORIENTATION_NORMAL) {
+      return encoded.toByteArray();
+    }
+    final ByteArrayOutputStream output = new ByteArrayOutputStream(encoded.size() + 64);
+    JpegExif.writeWithOrientation(encoded.toByteArray(), orientation, output);
+    return output.toByteArray();
+  }
+
+  /**
+   * Converts a clockwise rotation to the EXIF orientation that displays the picture upright.
+   *
+   * @param degrees the rotation, a multiple of 90.
+   * @return the EXIF orientation.
+   */
+  static int toExifOrientation(int degrees) {
+    switch (((degrees % 360) + 360) % 360) {
+      case 90:
+        return 6;
+      case 180:
+        return 3;
+      case 270:
+        return 8;
+      default:
+        return JpegExif.ORIENTATION_NORMAL;
+    }
+  }
+}
@@ -6,6 +6,7 @@ package io.flutter.plugins.camera.features;
 
 import android.app.Activity;
 import androidx.annotation.NonNull;
+import io.flutter.plugins.camera.CameraCapabilityCache;
 import io.flutter.plugins.camera.CameraProperties;
 import io.flutter.plugins.camera.DartMessenger;
 import io.flutter.plugins.camera.features.autofocus.AutoFocusFeature;
@@ -51,7 +52,7 @@ public class CameraFeatureFactoryImpl implements CameraFeatureFactory {
   @Override
   public ResolutionFeature createResolutionFeature(@NonNull CameraProperties cameraProperties,
       ResolutionPreset initialSetting, String cameraName) {
-    return new ResolutionFeature(cameraProperties, initialSetting, cameraName);
+    return new ResolutionFeature(cameraProperties, initialSetting, cameraName, CameraCapabilityCache.getInstance());
   }
 
   @Override
@@ -0,0 +1,46 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.features.resolution;
+
+import android.util.Size;
+import androidx.annotation.NonNull;
+
+/**
+ * The sizes and {@link android.media.CamcorderProfile} quality a {@link ResolutionPreset} resolves
+ * to on one camera.
+ */
+public final class ResolutionChoice {
+  private final int profileQuality;
+  private final Size previewSize;
+  private final Size captureSize;
+
+  /**
+   * Creates a new instance of the {@link ResolutionChoice}.
+   *
+   * @param profileQuality the {@link android.media.CamcorderProfile} quality level of recordings.
+   * @param previewSize the size of the preview and image stream.
+   * @param captureSize the size of still pictures.
+   */
+  public ResolutionChoice(int profileQuality, @NonNull Size previewSize, @NonNull Size captureSize) {
+    this.profileQuality = profileQuality;
+    this.previewSize = previewSize;
+    this.captureSize = captureSize;
+  }
+
+  /** Returns the {@link android.media.CamcorderProfile} quality level of recordings. */
+  public int getProfileQuality() {
+    return profileQuality;
+  }
+
+  @NonNull
+  public Size getPreviewSize() {
+    return previewSize;
+  }
+
+  @NonNull
+  public Size getCaptureSize() {
+    return captureSize;
+  }
+}
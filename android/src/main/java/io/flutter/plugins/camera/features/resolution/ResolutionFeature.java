@@ -11,7 +11,9 @@ import android.util.Size;
 import android.util.Log;
 import android.graphics.ImageFormat;
 import android.hardware.camera2.CameraCharacteristics;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import io.flutter.plugins.camera.CameraCapabilityCache;
 import io.flutter.plugins.camera.CameraProperties;
 import io.flutter.plugins.camera.features.CameraFeature;
 import java.util.Comparator;
@@ -37,8 +39,13 @@ public class ResolutionFeature extends CameraFeature<ResolutionPreset> {
   private Size captureSize;
   private Size previewSize;
   private CamcorderProfile recordingProfile;
+  // The quality of the recording profile, which is only read once it is used.
+  private int recordingProfileQuality;
   private ResolutionPreset currentSetting;
   private int cameraId;
+  private final String cameraName;
+  @Nullable
+  private final CameraCapabilityCache capabilityCache;
 
   /**
    * Creates a new instance of the {@link ResolutionFeature}.
@@ -51,8 +58,28 @@ public class ResolutionFeature extends CameraFeature<ResolutionPreset> {
    *                         configure the resolution.
    */
   public ResolutionFeature(CameraProperties cameraProperties, ResolutionPreset resolutionPreset, String cameraName) {
+    this(cameraProperties, resolutionPreset, cameraName, null);
+  }
+
+  /**
+   * Creates a new instance of the {@link ResolutionFeature} that resolves every
+   * preset only once per camera and process.
+   *
+   * @param cameraProperties Collection of characteristics for the current camera
+   *                         device.
+   * @param resolutionPreset Platform agnostic enum containing resolution
+   *                         information.
+   * @param cameraName       Camera identifier of the camera for which to
+   *                         configure the resolution.
+   * @param capabilityCache  The cache resolved presets are kept in, or null to
+   *                         resolve them every time.
+   */
+  public ResolutionFeature(CameraProperties cameraProperties, ResolutionPreset resolutionPreset, String cameraName,
+      @Nullable CameraCapabilityCache capabilityCache) {
     super(cameraProperties);
     this.currentSetting = resolutionPreset;
+    this.cameraName = cameraName;
+    this.capabilityCache = capabilityCache;
     try {
       this.cameraId = Integer.parseInt(cameraName, 10);
     } catch (NumberFormatException e) {
@@ -70,6 +97,9 @@ public class ResolutionFeature extends CameraFeature<ResolutionPreset> {
    *         {@link android.hardware.camera2} API.
    */
   public CamcorderProfile getRecordingProfile() {
+    if (recordingProfile == null && capabilityCache != null && checkIsSupported()) {
+      recordingProfile = CamcorderProfile.get(cameraId, recordingProfileQuality);
+    }
     return this.recordingProfile;
   }
 
@@ -136,9 +166,11 @@ public class ResolutionFeature extends CameraFeature<ResolutionPreset> {
 
   static Size computeBestCaptureSize(StreamConfigurationMap streamConfigurationMap) {
     // For still image captures, we use the largest available size.
-    Size newCaptureSize = Collections.max(Arrays.asList(streamConfigurationMap.getOutputSizes(ImageFormat.JPEG)),
-        new CompareSizesByArea());
+    return computeBestCaptureSize(Collections
+        .max(Arrays.asList(streamConfigurationMap.getOutputSizes(ImageFormat.JPEG)), new CompareSizesByArea()));
+  }
 
+  private static Size computeBestCaptureSize(Size newCaptureSize) {
     if (newCaptureSize.getHeight() / newCaptureSize.getWidth() != 0.75) {
       return new Size(newCaptureSize.getWidth(), newCaptureSize.getWidth() * 3 / 4);
     } else {
@@ -159,6 +191,22 @@ public class ResolutionFeature extends CameraFeature<ResolutionPreset> {
    */
   public static CamcorderProfile getBestAvailableCamcorderProfileForResolutionPreset(int cameraId,
       ResolutionPreset preset) {
+    return CamcorderProfile.get(cameraId, getBestAvailableCamcorderProfileQuality(cameraId, preset));
+  }
+
+  /**
+   * Gets the quality level of the best possible
+   * {@link android.media.CamcorderProfile} for the supplied
+   * {@link ResolutionPreset}.
+   *
+   * @param cameraId Camera identifier which indicates the device's camera for
+   *                 which to select a {@link android.media.CamcorderProfile}.
+   * @param preset   The {@link ResolutionPreset} for which is to be translated to
+   *                 a {@link android.media.CamcorderProfile}.
+   * @return The {@link android.media.CamcorderProfile} quality level that best
+   *         matches the supplied {@link ResolutionPreset}.
+   */
+  static int getBestAvailableCamcorderProfileQuality(int cameraId, ResolutionPreset preset) {
     if (cameraId < 0) {
       throw new AssertionError(
           "getBestAvailableCamcorderProfileForResolutionPreset can only be used with valid (>=0) camera identifiers.");
@@ -169,31 +217,31 @@ public class ResolutionFeature extends CameraFeature<ResolutionPreset> {
     // profile.
     case max:
       if (CamcorderProfile.hasProfile(cameraId, CamcorderProfile.QUALITY_HIGH)) {
-        return CamcorderProfile.get(cameraId, CamcorderProfile.QUALITY_HIGH);
+        return CamcorderProfile.QUALITY_HIGH;
       }
     case ultraHigh:
       if (CamcorderProfile.hasProfile(cameraId, CamcorderProfile.QUALITY_2160P)) {
-        return CamcorderProfile.get(cameraId, CamcorderProfile.QUALITY_2160P);
+        return CamcorderProfile.QUALITY_2160P;
       }
     case veryHigh:
       if (CamcorderProfile.hasProfile(cameraId, CamcorderProfile.QUALITY_1080P)) {
-        return CamcorderProfile.get(cameraId, CamcorderProfile.QUALITY_1080P);
+        return CamcorderProfile.QUALITY_1080P;
       }
     case high:
       if (CamcorderProfile.hasProfile(cameraId, CamcorderProfile.QUALITY_720P)) {
-        return CamcorderProfile.get(cameraId, CamcorderProfile.QUALITY_720P);
+        return CamcorderProfile.QUALITY_720P;
       }
     case medium:
       if (CamcorderProfile.hasProfile(cameraId, CamcorderProfile.QUALITY_480P)) {
-        return CamcorderProfile.get(cameraId, CamcorderProfile.QUALITY_480P);
+        return CamcorderProfile.QUALITY_480P;
       }
     case low:
       if (CamcorderProfile.hasProfile(cameraId, CamcorderProfile.QUALITY_QVGA)) {
-        return CamcorderProfile.get(cameraId, CamcorderProfile.QUALITY_QVGA);
+        return CamcorderProfile.QUALITY_QVGA;
       }
     default:
       if (CamcorderProfile.hasProfile(cameraId, CamcorderProfile.QUALITY_LOW)) {
-        return CamcorderProfile.get(cameraId, CamcorderProfile.QUALITY_LOW);
+        return CamcorderProfile.QUALITY_LOW;
       } else {
         throw new IllegalArgumentException("No capture session available for current capture session.");
       }
@@ -214,8 +262,24 @@ public class ResolutionFeature extends CameraFeature<ResolutionPreset> {
       return;
     }
 
-    recordingProfile = getBestAvailableCamcorderProfileForResolutionPreset(cameraId, resolutionPreset);
-    captureSize = computeBestCaptureSize(cameraProperties.getAvailableScalerStreamConfigurationMap());
-    previewSize = computeBestPreviewSize(cameraId, resolutionPreset);
+    if (capabilityCache == null) {
+      recordingProfile = getBestAvailableCamcorderProfileForResolutionPreset(cameraId, resolutionPreset);
+      captureSize = computeBestCaptureSize(cameraProperties.getAvailableScalerStreamConfigurationMap());
+      previewSize = computeBestPreviewSize(cameraId, resolutionPreset);
+      return;
+    }
+
+    ResolutionChoice choice = capabilityCache.getResolution(cameraName, resolutionPreset);
+    if (choice == null) {
+      Size[] jpegSizes = capabilityCache.getOutputSizes(cameraName,
+          cameraProperties.getAvailableScalerStreamConfigurationMap(), ImageFormat.JPEG);
+      choice = new ResolutionChoice(getBestAvailableCamcorderProfileQuality(cameraId, resolutionPreset),
+          computeBestPreviewSize(cameraId, resolutionPreset), computeBestCaptureSize(jpegSizes[0]));
+      capabilityCache.putResolution(cameraName, resolutionPreset, choice);
+    }
+    recordingProfile = null;
+    recordingProfileQuality = choice.getProfileQuality();
+    captureSize = choice.getCaptureSize();
+    previewSize = choice.getPreviewSize();
   }
 }
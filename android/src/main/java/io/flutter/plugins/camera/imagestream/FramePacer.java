@@ -0,0 +1,66 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+/**
+ * Decides which frames of the image stream are kept to stay within a maximum frame rate.
+ *
+ * <p>Frames are paced by their sensor timestamps rather than by arrival time, so the kept frames
+ * are evenly spaced even when the camera delivers them in bursts. Every kept frame moves the next
+ * deadline forward by exactly one frame interval. A quarter interval of tolerance absorbs the jitter
+ * of the sensor timestamps, so for example a 30 fps camera limited to 10 fps keeps every third
+ * frame instead of alternating between every third and fourth frame.
+ */
+public class FramePacer {
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final long intervalNanos;
+  private final long toleranceNanos;
+  private boolean started;
+  private long nextDeadlineNanos;
+  private long skippedCount;
+
+  /**
+   * Creates a new instance of the {@link FramePacer}.
+   *
+   * @param maxFps the maximum number of frames per second to keep, must be greater than 0.
+   */
+  public FramePacer(double maxFps) {
+    if (!(maxFps > 0)) {
+      throw new IllegalArgumentException("maxFps must be greater than 0.");
+    }
+    intervalNanos = (long) (NANOS_PER_SECOND / maxFps);
+    toleranceNanos = intervalNanos / 4;
+  }
+
+  /**
+   * Decides whether the frame with the given timestamp is kept.
+   *
+   * @param timestampNanos the sensor timestamp of the frame in nanoseconds, as returned by {@link
+   *     android.media.Image#getTimestamp()}.
+   * @return {@code true} when the frame should be delivered, {@code false} when it should be
+   *     dropped.
+   */
+  public synchronized boolean accept(long timestampNanos) {
+    if (started && timestampNanos < nextDeadlineNanos - toleranceNanos) {
+      skippedCount++;
+      return false;
+    }
+
+    if (!started || timestampNanos - nextDeadlineNanos >= intervalNanos) {
+      // First frame, or the stream stalled for more than a frame: restart pacing from this frame.
+      nextDeadlineNanos = timestampNanos + intervalNanos;
+      started = true;
+    } else {
+      nextDeadlineNanos += intervalNanos;
+    }
+    return true;
+  }
+
+  /** Returns the number of frames that have been dropped to stay within the frame rate. */
+  public synchronized long getSkippedCount() {
+    return skippedCount;
+  }
+}
@@ -0,0 +1,132 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Restores the capture order of frames that are processed concurrently.
+ *
+ * <p>Every frame reserves a sequence number in capture order before it is processed. Frames can
+ * complete in any order, but their results are handed to the delivery executor strictly in
+ * sequence order: a result is held back until the results of all earlier frames have been
+ * delivered. At most {@code capacity} frames can be reserved and not yet delivered, which keeps
+ * the buffer a fixed size ring.
+ */
+class FrameReorderBuffer {
+  private final Runnable[] results;
+  private final boolean[] completed;
+  @NonNull private final Executor deliveryExecutor;
+  private final List<Runnable> emptyListeners = new ArrayList<>();
+  private long nextReserved;
+  private long nextDelivered;
+
+  /**
+   * Creates a new instance of the {@link FrameReorderBuffer}.
+   *
+   * @param capacity the maximum number of frames that can be waiting for delivery.
+   * @param deliveryExecutor the executor results are handed to, in sequence order.
+   */
+  FrameReorderBuffer(int capacity, @NonNull Executor deliveryExecutor) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1.");
+    }
+    this.results = new Runnable[capacity];
+    this.completed = new boolean[capacity];
+    this.deliveryExecutor = deliveryExecutor;
+  }
+
+  /**
+   * Reserves the next sequence number.
+   *
+   * @return the sequence number, or -1 when {@code capacity} frames are already waiting.
+   */
+  synchronized long reserve() {
+    if (nextReserved - nextDelivered >= results.length) {
+      return -1;
+    }
+    return nextReserved++;
+  }
+
+  /**
+   * Completes a reserved frame and delivers all results that are no longer waiting for an earlier
+   * frame.
+   *
+   * @param sequence the sequence number returned by {@link #reserve()}.
+   * @param result the result of the frame, or {@code null} when the frame produced nothing, in
+   *     which case it only stops holding back later frames.
+   */
+  synchronized void complete(long sequence, @Nullable Runnable result) {
+    if (sequence < nextDelivered || sequence >= nextReserved) {
+      throw new IllegalArgumentException("Sequence " + sequence + " is not waiting for delivery.");
+    }
+    final int slot = (int) (sequence % results.length);
+    results[slot] = result;
+    completed[slot] = true;
+
+    int next = (int) (nextDelivered % results.length);
+    while (completed[next]) {
+      final Runnable delivery = results[next];
+      results[next] = null;
+      completed[next] = false;
+      nextDelivered++;
+      if (delivery != null) {
+        // Handed over while holding the lock, so deliveries cannot overtake each other.
+        deliveryExecutor.execute(delivery);
+      }
+      next = (int) (nextDelivered % results.length);
+    }
+    if (nextDelivered == nextReserved) {
+      notifyAll();
+      // After the last delivery, so the listeners run once the results have been handed over.
+      for (Runnable listener : emptyListeners) {
+        deliveryExecutor.execute(listener);
+      }
+      emptyListeners.clear();
+    }
+  }
+
+  /**
+   * Runs a listener on the delivery executor once all frames that are reserved now, and any that
+   * are reserved before they complete, have been completed. Without pending frames it is handed to
+   * the delivery executor right away.
+   *
+   * @param listener the listener, run once.
+   */
+  synchronized void runWhenEmpty(@NonNull Runnable listener) {
+    if (nextDelivered == nextReserved) {
+      deliveryExecutor.execute(listener);
+    } else {
+      emptyListeners.add(listener);
+    }
+  }
+
+  /**
+   * Waits until all reserved frames have been completed.
+   *
+   * @param timeoutMillis the maximum time to wait.
+   * @return whether no frame is pending anymore.
+   */
+  synchronized boolean awaitEmpty(long timeoutMillis) throws InterruptedException {
+    final long deadlineNanos = System.nanoTime() + timeoutMillis * 1_000_000L;
+    while (nextDelivered != nextReserved) {
+      final long remainingMillis = (deadlineNanos - System.nanoTime()) / 1_000_000L;
+      if (remainingMillis <= 0) {
+        return false;
+      }
+      wait(remainingMillis);
+    }
+    return true;
+  }
+
+  /** Returns the number of frames that have been reserved and not yet delivered. */
+  synchronized int getPendingCount() {
+    return (int) (nextReserved - nextDelivered);
+  }
+}
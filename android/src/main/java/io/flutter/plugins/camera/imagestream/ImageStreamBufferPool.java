@@ -0,0 +1,355 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.EventChannel;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fixed-size pool of reusable frame buffers for the image stream.
+ *
+ * <p>Every {@link Frame} owns one {@code byte[]} per image plane together with the plane and image
+ * maps that are handed to the image stream {@link EventChannel.EventSink}, or a single packet
+ * buffer when frames are sent in the {@link ImageStreamPacket} format. Frames are acquired on the
+ * camera background thread, filled on a frame analysis thread and are recycled on the main thread
+ * as soon as the sink has encoded the message. Once every slot has seen a frame of the current
+ * stream size, a steady-state stream allocates nothing on the Java heap, except for boxing a
+ * capture property once when its value changes.
+ */
+public class ImageStreamBufferPool {
+  /** Maximum number of planes of the supported image formats (YUV_420_888). */
+  static final int MAX_PLANES = 3;
+
+  private final Frame[] frames;
+  private final boolean[] inUse;
+  private int allocationCount;
+  @Nullable private Runnable onReleaseListener;
+  @Nullable private Runnable onDeliveredListener;
+
+  /**
+   * Creates a new instance of the {@link ImageStreamBufferPool}.
+   *
+   * @param slotCount the number of frames that can be in flight at the same time.
+   */
+  public ImageStreamBufferPool(int slotCount) {
+    if (slotCount < 1) {
+      throw new IllegalArgumentException("slotCount must be at least 1.");
+    }
+    frames = new Frame[slotCount];
+    inUse = new boolean[slotCount];
+    for (int i = 0; i < slotCount; i++) {
+      frames[i] = new Frame(this, i);
+    }
+  }
+
+  /**
+   * Acquires a free frame from the pool.
+   *
+   * @return a free frame, or {@code null} when all frames are currently in flight.
+   */
+  @Nullable
+  public synchronized Frame acquire() {
+    for (int i = 0; i < frames.length; i++) {
+      if (!inUse[i]) {
+        inUse[i] = true;
+        return frames[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns a frame to the pool so it can be reused for a future image.
+   *
+   * @param frame the frame to release.
+   */
+  public void release(@NonNull Frame frame) {
+    if (frame.pool != this) {
+      throw new IllegalArgumentException("Frame does not belong to this pool.");
+    }
+    final Runnable listener;
+    synchronized (this) {
+      frame.sink = null;
+      frame.precedingResults = null;
+      inUse[frame.slot] = false;
+      listener = onReleaseListener;
+    }
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
+  /**
+   * Sets a listener that is run every time a frame has been returned to the pool, on the thread
+   * that released it.
+   *
+   * @param listener the listener, or {@code null} to remove it.
+   */
+  public synchronized void setOnReleaseListener(@Nullable Runnable listener) {
+    onReleaseListener = listener;
+  }
+
+  /**
+   * Sets a listener that is run every time a frame has been sent to Dart, on the main thread. Unlike
+   * the release listener it is not run for frames that are released without being delivered.
+   *
+   * @param listener the listener, or {@code null} to remove it.
+   */
+  public synchronized void setOnDeliveredListener(@Nullable Runnable listener) {
+    onDeliveredListener = listener;
+  }
+
+  private void onDelivered() {
+    final Runnable listener;
+    synchronized (this) {
+      listener = onDeliveredListener;
+    }
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
+  /** Returns the number of frames that are currently acquired. */
+  public synchronized int getInFlightCount() {
+    int count = 0;
+    for (boolean used : inUse) {
+      if (used) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Returns the total number of plane buffers this pool has allocated. */
+  public synchronized int getAllocationCount() {
+    return allocationCount;
+  }
+
+  private synchronized void onAllocation() {
+    allocationCount++;
+  }
+
+  /**
+   * A reusable container for a single streamed image.
+   *
+   * <p>A frame is also the {@link Runnable} that delivers it to the main thread, so posting it
+   * does not allocate a new closure for every image.
+   */
+  public static class Frame implements Runnable {
+    private final ImageStreamBufferPool pool;
+    private final int slot;
+    private final byte[][] planeBytes = new byte[MAX_PLANES][];
+    private final List<Map<String, Object>> planeMaps = new ArrayList<>(MAX_PLANES);
+    private final List<Map<String, Object>> planes = new ArrayList<>(MAX_PLANES);
+    private final Map<String, Object> imageMap = new HashMap<>();
+    @Nullable private byte[] packet;
+    @Nullable private ByteBuffer packetBuffer;
+    private Object payload = imageMap;
+    @Nullable private EventChannel.EventSink sink;
+    @Nullable private Runnable precedingResults;
+
+    private Frame(ImageStreamBufferPool pool, int slot) {
+      this.pool = pool;
+      this.slot = slot;
+      for (int i = 0; i < MAX_PLANES; i++) {
+        planeMaps.add(new HashMap<>());
+      }
+      imageMap.put("planes", planes);
+    }
+
+    /** Clears the planes of the previous image. Must be called before adding planes. */
+    public void reset() {
+      planes.clear();
+      payload = imageMap;
+    }
+
+    /**
+     * Prepares this frame to be sent as a single binary packet, see {@link ImageStreamPacket}.
+     *
+     * <p>The packet is only (re)allocated when its size changes.
+     *
+     * @param size the total size of the packet in bytes.
+     * @return a little endian buffer over the packet, positioned at its start.
+     */
+    public ByteBuffer preparePacket(int size) {
+      if (packet == null || packet.length != size) {
+        packet = new byte[size];
+        packetBuffer = ByteBuffer.wrap(packet).order(ByteOrder.LITTLE_ENDIAN);
+        pool.onAllocation();
+      }
+      packetBuffer.clear();
+      payload = packet;
+      return packetBuffer;
+    }
+
+    /**
+     * Copies the remaining bytes of the supplied buffer into the next plane of this frame.
+     *
+     * <p>The backing {@code byte[]} is only (re)allocated when the plane size changes, which for a
+     * running stream only happens for the first image of every slot.
+     *
+     * @param buffer the plane data.
+     * @param bytesPerRow the row stride of the plane.
+     * @param bytesPerPixel the pixel stride of the plane.
+     */
+    public void addPlane(@NonNull ByteBuffer buffer, int bytesPerRow, int bytesPerPixel) {
+      final byte[] bytes = addWritablePlane(buffer.remaining(), bytesPerRow, bytesPerPixel);
+      buffer.get(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Adds a plane of the given size to this frame and returns its buffer, to be filled by the
+     * caller, e.g. with a resampled plane.
+     *
+     * @param size the number of bytes of the plane.
+     * @param bytesPerRow the row stride of the plane.
+     * @param bytesPerPixel the pixel stride of the plane.
+     * @return the reusable plane buffer of exactly {@code size} bytes.
+     */
+    public byte[] addWritablePlane(int size, int bytesPerRow, int bytesPerPixel) {
+      final int index = planes.size();
+      final byte[] bytes = getPlaneBuffer(index, size);
+
+      final Map<String, Object> planeMap = planeMaps.get(index);
+      putInt(planeMap, "bytesPerRow", bytesPerRow);
+      putInt(planeMap, "bytesPerPixel", bytesPerPixel);
+      planeMap.put("bytes", bytes);
+      planes.add(planeMap);
+      return bytes;
+    }
+
+    /**
+     * Gets the reusable {@code byte[]} for the given plane, making sure it has exactly the
+     * requested size.
+     *
+     * @param index the plane index.
+     * @param size the number of bytes the plane holds.
+     * @return the plane buffer.
+     */
+    byte[] getPlaneBuffer(int index, int size) {
+      byte[] bytes = planeBytes[index];
+      if (bytes == null || bytes.length != size) {
+        bytes = new byte[size];
+        planeBytes[index] = bytes;
+        pool.onAllocation();
+      }
+      return bytes;
+    }
+
+    /**
+     * Sets the image level properties of this frame.
+     *
+     * @param width image width in pixels.
+     * @param height image height in pixels.
+     * @param format image format, as defined in {@link android.graphics.ImageFormat}.
+     */
+    public void setImageInfo(int width, int height, int format) {
+      putInt(imageMap, "width", width);
+      putInt(imageMap, "height", height);
+      putInt(imageMap, "format", format);
+    }
+
+    /**
+     * Sets the capture properties of this frame.
+     *
+     * @param lensAperture the lens aperture as f-stop value.
+     * @param sensorExposureTime the sensor exposure time in nanoseconds.
+     * @param sensorSensitivity the sensor sensitivity in ISO arithmetic units.
+     */
+    public void setCaptureProperties(
+        @Nullable Float lensAperture,
+        @Nullable Long sensorExposureTime,
+        @Nullable Integer sensorSensitivity) {
+      // Callers reuse the boxed values of unchanged properties, see CaptureResultRing.Record.
+      imageMap.put("lensAperture", lensAperture);
+      imageMap.put("sensorExposureTime", sensorExposureTime);
+      if (sensorSensitivity == null) {
+        imageMap.put("sensorSensitivity", null);
+      } else {
+        putDouble(imageMap, "sensorSensitivity", sensorSensitivity);
+      }
+    }
+
+    /** Gets the image map that is sent to Dart when this frame is not sent as a packet. */
+    public Map<String, Object> getImageMap() {
+      return imageMap;
+    }
+
+    /** Gets the message that is sent to Dart for this frame. */
+    public Object getPayload() {
+      return payload;
+    }
+
+    /**
+     * Prepares this frame to be delivered to the supplied sink when run.
+     *
+     * @param sink the image stream sink.
+     * @return this frame, to be posted to the main thread.
+     */
+    public Runnable deliverTo(@NonNull EventChannel.EventSink sink) {
+      return deliverTo(sink, null);
+    }
+
+    /**
+     * Prepares this frame to be delivered to the supplied sink when run, right after the results of
+     * the frame processors of the same image, without allocating a closure for both.
+     *
+     * @param sink the image stream sink.
+     * @param precedingResults the delivery of the frame processor results, or {@code null}.
+     * @return this frame, to be posted to the main thread.
+     */
+    public Runnable deliverTo(
+        @NonNull EventChannel.EventSink sink, @Nullable Runnable precedingResults) {
+      this.sink = sink;
+      this.precedingResults = precedingResults;
+      return this;
+    }
+
+    /** Returns this frame to its pool without delivering it. */
+    public void release() {
+      pool.release(this);
+    }
+
+    @Override
+    public void run() {
+      final EventChannel.EventSink target = sink;
+      final Runnable results = precedingResults;
+      try {
+        if (results != null) {
+          results.run();
+        }
+        if (target != null) {
+          // The message is encoded synchronously, so the frame can be reused right after.
+          target.success(payload);
+          pool.onDelivered();
+        }
+      } finally {
+        pool.release(this);
+      }
+    }
+
+    // Only box values that actually changed, so a running stream does not allocate.
+    private static void putInt(Map<String, Object> map, String key, int value) {
+      final Object current = map.get(key);
+      if (!(current instanceof Integer) || (Integer) current != value) {
+        map.put(key, value);
+      }
+    }
+
+    private static void putDouble(Map<String, Object> map, String key, double value) {
+      final Object current = map.get(key);
+      if (!(current instanceof Double) || (Double) current != value) {
+        map.put(key, value);
+      }
+    }
+  }
+}
@@ -0,0 +1,184 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.Map;
+
+/** Options that control how frames of the image stream are delivered to Dart. */
+public class ImageStreamOptions {
+  /** The number of frames that can be in flight when no limit has been specified. */
+  public static final int DEFAULT_MAX_FRAMES_IN_FLIGHT = 3;
+
+  private int maxFramesInFlight = DEFAULT_MAX_FRAMES_IN_FLIGHT;
+  private boolean packed;
+  private int targetWidth;
+  private int targetHeight;
+  private float cropLeft = 0f;
+  private float cropTop = 0f;
+  private float cropRight = 1f;
+  private float cropBottom = 1f;
+  private double maxStreamFps;
+  private boolean lumaOnly;
+  private boolean removeRowPadding;
+
+  private ImageStreamOptions() {}
+
+  /** Creates the options used when Dart did not specify any. */
+  @NonNull
+  public static ImageStreamOptions createDefault() {
+    return new ImageStreamOptions();
+  }
+
+  /**
+   * Creates the options from the arguments of the {@code startImageStream} method call.
+   *
+   * @param arguments the method call arguments, may be {@code null}.
+   * @return the parsed options.
+   * @throws IllegalArgumentException when an option has an invalid value.
+   */
+  @NonNull
+  public static ImageStreamOptions fromMap(@Nullable Map<String, Object> arguments) {
+    final ImageStreamOptions options = new ImageStreamOptions();
+    if (arguments == null) {
+      return options;
+    }
+
+    options.maxFramesInFlight =
+        getInt(arguments, "maxFramesInFlight", DEFAULT_MAX_FRAMES_IN_FLIGHT);
+    if (options.maxFramesInFlight < 1) {
+      throw new IllegalArgumentException("maxFramesInFlight must be at least 1.");
+    }
+
+    options.packed = getBoolean(arguments, "packed", false);
+
+    options.targetWidth = getInt(arguments, "targetWidth", 0);
+    options.targetHeight = getInt(arguments, "targetHeight", 0);
+    if (options.targetWidth < 0 || options.targetHeight < 0) {
+      throw new IllegalArgumentException("targetWidth and targetHeight must not be negative.");
+    }
+
+    options.cropLeft = getFloat(arguments, "cropLeft", 0f);
+    options.cropTop = getFloat(arguments, "cropTop", 0f);
+    options.cropRight = getFloat(arguments, "cropRight", 1f);
+    options.cropBottom = getFloat(arguments, "cropBottom", 1f);
+    if (options.cropLeft < 0f
+        || options.cropTop < 0f
+        || options.cropRight > 1f
+        || options.cropBottom > 1f
+        || options.cropLeft >= options.cropRight
+        || options.cropTop >= options.cropBottom) {
+      throw new IllegalArgumentException(
+          "The crop rectangle must be a non-empty rectangle within (0, 0, 1, 1).");
+    }
+
+    options.maxStreamFps = getDouble(arguments, "maxStreamFps", 0);
+    if (options.maxStreamFps < 0) {
+      throw new IllegalArgumentException("maxStreamFps must not be negative.");
+    }
+
+    options.lumaOnly = getBoolean(arguments, "lumaOnly", false);
+    options.removeRowPadding = getBoolean(arguments, "removeRowPadding", false);
+
+    return options;
+  }
+
+  private static boolean getBoolean(Map<String, Object> arguments, String key, boolean defaultValue) {
+    final Object value = arguments.get(key);
+    return value instanceof Boolean ? (Boolean) value : defaultValue;
+  }
+
+  private static int getInt(Map<String, Object> arguments, String key, int defaultValue) {
+    final Object value = arguments.get(key);
+    return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+  }
+
+  private static float getFloat(Map<String, Object> arguments, String key, float defaultValue) {
+    final Object value = arguments.get(key);
+    return value instanceof Number ? ((Number) value).floatValue() : defaultValue;
+  }
+
+  private static double getDouble(Map<String, Object> arguments, String key, double defaultValue) {
+    final Object value = arguments.get(key);
+    return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+  }
+
+  /** Returns the maximum number of frames that can be on their way to Dart at the same time. */
+  public int getMaxFramesInFlight() {
+    return maxFramesInFlight;
+  }
+
+  /**
+   * Returns whether frames are sent as a single binary packet, see {@link ImageStreamPacket},
+   * instead of a map of planes.
+   */
+  public boolean isPacked() {
+    return packed;
+  }
+
+  /** Returns the width frames are scaled to, or 0 to keep the width of the crop rectangle. */
+  public int getTargetWidth() {
+    return targetWidth;
+  }
+
+  /** Returns the height frames are scaled to, or 0 to keep the height of the crop rectangle. */
+  public int getTargetHeight() {
+    return targetHeight;
+  }
+
+  /** Returns the left edge of the crop rectangle, normalized to the frame width. */
+  public float getCropLeft() {
+    return cropLeft;
+  }
+
+  /** Returns the top edge of the crop rectangle, normalized to the frame height. */
+  public float getCropTop() {
+    return cropTop;
+  }
+
+  /** Returns the right edge of the crop rectangle, normalized to the frame width. */
+  public float getCropRight() {
+    return cropRight;
+  }
+
+  /** Returns the bottom edge of the crop rectangle, normalized to the frame height. */
+  public float getCropBottom() {
+    return cropBottom;
+  }
+
+  /**
+   * Returns whether frames are cropped or scaled before they are sent, see {@link YuvResampler}.
+   */
+  public boolean isResampling() {
+    return targetWidth > 0
+        || targetHeight > 0
+        || cropLeft > 0f
+        || cropTop > 0f
+        || cropRight < 1f
+        || cropBottom < 1f;
+  }
+
+  /**
+   * Returns the maximum number of frames per second that are sent, or 0 to send every frame, see
+   * {@link FramePacer}.
+   */
+  public double getMaxStreamFps() {
+    return maxStreamFps;
+  }
+
+  /** Returns whether only the luma (Y) plane of YUV frames is sent. */
+  public boolean isLumaOnly() {
+    return lumaOnly;
+  }
+
+  /**
+   * Returns whether the padding at the end of every row of the luma plane is left out, so its row
+   * stride equals the frame width. Only applies when {@link #isLumaOnly()} is set.
+   */
+  public boolean shouldRemoveRowPadding() {
+    return removeRowPadding;
+  }
+}
@@ -0,0 +1,130 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes an image stream frame as a single contiguous binary packet.
+ *
+ * <p>All values are little endian. The packet starts with a fixed size header, followed by the
+ * data of all planes:
+ *
+ * <pre>
+ *   offset  size  field
+ *   0       4     version ({@link #VERSION})
+ *   4       4     width
+ *   8       4     height
+ *   12      4     format
+ *   16      4     plane count
+ *   20      4     reserved
+ *   24      8     lens aperture (float64, NaN when unknown)
+ *   32      8     sensor exposure time in nanoseconds (int64, -1 when unknown)
+ *   40      8     sensor sensitivity (float64, NaN when unknown)
+ *   48      48    3 plane descriptors of 16 bytes each:
+ *                 bytes per row, bytes per pixel, data offset and data length (int32 each)
+ *   96            plane data
+ * </pre>
+ *
+ * <p>This layout must be kept in sync with {@code CameraImage.fromPlatformData} on the Dart side.
+ */
+public final class ImageStreamPacket {
+  /** Version of the packet layout. */
+  public static final int VERSION = 1;
+
+  /** Size of the fixed packet header in bytes. */
+  public static final int HEADER_SIZE = 96;
+
+  static final int PLANE_DESCRIPTORS_OFFSET = 48;
+  static final int PLANE_DESCRIPTOR_SIZE = 16;
+
+  private ImageStreamPacket() {}
+
+  /**
+   * Writes the packet header and moves the position of the packet to the start of the plane data.
+   *
+   * @param packet the little endian packet buffer, starting at index 0.
+   * @param width image width in pixels.
+   * @param height image height in pixels.
+   * @param format image format, as defined in {@link android.graphics.ImageFormat}.
+   * @param planeCount number of planes that will be written.
+   * @param lensAperture the lens aperture as f-stop value.
+   * @param sensorExposureTime the sensor exposure time in nanoseconds.
+   * @param sensorSensitivity the sensor sensitivity in ISO arithmetic units.
+   */
+  public static void writeHeader(
+      @NonNull ByteBuffer packet,
+      int width,
+      int height,
+      int format,
+      int planeCount,
+      @Nullable Float lensAperture,
+      @Nullable Long sensorExposureTime,
+      @Nullable Integer sensorSensitivity) {
+    if (planeCount > ImageStreamBufferPool.MAX_PLANES) {
+      throw new IllegalArgumentException("Too many planes: " + planeCount);
+    }
+    packet.putInt(0, VERSION);
+    packet.putInt(4, width);
+    packet.putInt(8, height);
+    packet.putInt(12, format);
+    packet.putInt(16, planeCount);
+    packet.putInt(20, 0);
+    packet.putDouble(24, lensAperture == null ? Double.NaN : lensAperture);
+    packet.putLong(32, sensorExposureTime == null ? -1L : sensorExposureTime);
+    packet.putDouble(40, sensorSensitivity == null ? Double.NaN : sensorSensitivity);
+    for (int i = 0; i < ImageStreamBufferPool.MAX_PLANES; i++) {
+      writePlaneDescriptor(packet, i, 0, 0, 0, 0);
+    }
+    packet.position(HEADER_SIZE);
+  }
+
+  /**
+   * Appends the remaining bytes of a plane to the packet and fills in its descriptor.
+   *
+   * @param packet the packet buffer, positioned where the plane data should be written.
+   * @param index the index of the plane.
+   * @param bytesPerRow the row stride of the plane.
+   * @param bytesPerPixel the pixel stride of the plane.
+   * @param plane the plane data.
+   */
+  public static void writePlane(
+      @NonNull ByteBuffer packet,
+      int index,
+      int bytesPerRow,
+      int bytesPerPixel,
+      @NonNull ByteBuffer plane) {
+    final int length = plane.remaining();
+    final int offset = packet.position();
+    writePlaneDescriptor(packet, index, bytesPerRow, bytesPerPixel, offset, length);
+    packet.put(plane);
+  }
+
+  /**
+   * Fills in the descriptor of a plane whose data has been written by the caller.
+   *
+   * @param packet the packet buffer.
+   * @param index the index of the plane.
+   * @param bytesPerRow the row stride of the plane.
+   * @param bytesPerPixel the pixel stride of the plane.
+   * @param offset the offset of the plane data from the start of the packet.
+   * @param length the length of the plane data.
+   */
+  public static void writePlaneDescriptor(
+      @NonNull ByteBuffer packet,
+      int index,
+      int bytesPerRow,
+      int bytesPerPixel,
+      int offset,
+      int length) {
+    final int descriptor = PLANE_DESCRIPTORS_OFFSET + index * PLANE_DESCRIPTOR_SIZE;
+    packet.putInt(descriptor, bytesPerRow);
+    packet.putInt(descriptor + 4, bytesPerPixel);
+    packet.putInt(descriptor + 8, offset);
+    packet.putInt(descriptor + 12, length);
+  }
+}
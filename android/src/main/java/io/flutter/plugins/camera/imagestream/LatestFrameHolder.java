@@ -0,0 +1,88 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Holds at most one frame that is waiting to be delivered to Dart while the image stream is at its
+ * in-flight limit.
+ *
+ * <p>When a newer frame arrives the pending one is handed back to the caller to be dropped, so
+ * only the latest frame is ever copied once delivery capacity becomes available again. The holder
+ * also keeps track of how many frames were delivered and dropped.
+ *
+ * @param <T> the type of frame that is held, typically an {@link android.media.Image}.
+ */
+public class LatestFrameHolder<T> {
+  @Nullable private T pending;
+  private long deliveredCount;
+  private long droppedCount;
+
+  /**
+   * Stores the supplied frame as the pending frame.
+   *
+   * @param frame the newest frame that could not be delivered yet.
+   * @return the previously pending frame which is now dropped and must be closed by the caller, or
+   *     {@code null} when there was none.
+   */
+  @Nullable
+  public synchronized T offer(T frame) {
+    final T dropped = pending;
+    pending = frame;
+    if (dropped != null) {
+      droppedCount++;
+    }
+    return dropped;
+  }
+
+  /**
+   * Takes the pending frame out of the holder.
+   *
+   * @return the pending frame, or {@code null} when there is none.
+   */
+  @Nullable
+  public synchronized T poll() {
+    final T frame = pending;
+    pending = null;
+    return frame;
+  }
+
+  /**
+   * Drops the pending frame, e.g. when the stream is cancelled.
+   *
+   * @return the pending frame which must be closed by the caller, or {@code null} when there was
+   *     none.
+   */
+  @Nullable
+  public synchronized T clear() {
+    final T dropped = pending;
+    pending = null;
+    if (dropped != null) {
+      droppedCount++;
+    }
+    return dropped;
+  }
+
+  /** Records that a frame has been dropped without being held, e.g. while frames are analyzed. */
+  public synchronized void markDropped() {
+    droppedCount++;
+  }
+
+  /** Records that a frame has been received by Dart. */
+  public synchronized void markDelivered() {
+    deliveredCount++;
+  }
+
+  /** Returns the number of frames that have been delivered to Dart. */
+  public synchronized long getDeliveredCount() {
+    return deliveredCount;
+  }
+
+  /** Returns the number of frames that have been dropped before being copied. */
+  public synchronized long getDroppedCount() {
+    return droppedCount;
+  }
+}
@@ -0,0 +1,242 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes camera frames on a bounded pool of worker threads and delivers their results in
+ * capture order.
+ *
+ * <p>Frames must be submitted in capture order from a single thread, typically the camera
+ * background thread, which then only has to hand frames over and stays free for capture callbacks.
+ * Every frame takes a sequence number of a {@link FrameReorderBuffer}, so results that finish out
+ * of order are held back until all earlier frames are done. At most one frame per worker thread is
+ * in flight; frames beyond that are rejected and have to be dropped by the caller.
+ */
+public class OrderedFrameExecutor {
+  private static final String TAG = "OrderedFrameExecutor";
+
+  /** Processes a single frame off the submitting thread. */
+  public interface FrameTask {
+    /**
+     * Processes the frame on a worker thread.
+     *
+     * @return the delivery of the frame's results, run on the delivery executor in capture order,
+     *     or {@code null} when there is nothing to deliver.
+     */
+    @Nullable
+    Runnable process();
+  }
+
+  private final int threadCount;
+  private final ExecutorService workers;
+  private final FrameReorderBuffer reorderBuffer;
+  private final Slot[] slots;
+  private long rejectedCount;
+
+  /**
+   * Creates a new instance of the {@link OrderedFrameExecutor}.
+   *
+   * @param threadCount the number of worker threads, which is also the number of frames that can
+   *     be in flight.
+   * @param deliveryExecutor the executor results are delivered on, typically the main thread.
+   */
+  public OrderedFrameExecutor(int threadCount, @NonNull Executor deliveryExecutor) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("threadCount must be at least 1.");
+    }
+    this.threadCount = threadCount;
+    this.reorderBuffer = new FrameReorderBuffer(threadCount, deliveryExecutor);
+    this.slots = new Slot[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      slots[i] = new Slot();
+    }
+    // The queue never holds more than threadCount tasks, since the reorder buffer bounds the
+    // frames in flight, so a fixed array queue does not allocate a node per frame.
+    this.workers =
+        new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threadCount),
+            new WorkerThreadFactory());
+  }
+
+  /** Returns one worker thread per available processor core. */
+  public static int getDefaultThreadCount() {
+    return Math.max(1, Runtime.getRuntime().availableProcessors());
+  }
+
+  /** Returns the number of worker threads. */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * Reserves the place of the next frame in capture order. Must be called from the submitting
+   * thread, in capture order.
+   *
+   * @return the sequence number to {@link #execute} or {@link #cancel} the frame with, or -1 when
+   *     all workers are busy and the frame has to be dropped.
+   */
+  public long reserve() {
+    final long sequence = workers.isShutdown() ? -1 : reorderBuffer.reserve();
+    if (sequence < 0) {
+      onRejected();
+    }
+    return sequence;
+  }
+
+  /**
+   * Processes a frame that has been reserved with {@link #reserve()}.
+   *
+   * @param sequence the sequence number of the frame.
+   * @param task the processing of the frame.
+   * @return whether the frame is processed. When the executor has been shut down the task is not
+   *     run and the caller still owns the frame.
+   */
+  public boolean execute(long sequence, @NonNull FrameTask task) {
+    // The slot of a sequence is only reserved again once its previous frame has completed.
+    final Slot slot = slots[getSlot(sequence)];
+    slot.sequence = sequence;
+    slot.task = task;
+    try {
+      workers.execute(slot);
+      return true;
+    } catch (RejectedExecutionException e) {
+      slot.task = null;
+      cancel(sequence);
+      return false;
+    }
+  }
+
+  /**
+   * Returns the slot of a reserved frame, from 0 to {@link #getThreadCount()} - 1. No two frames in
+   * flight share a slot, so callers can keep one reusable task per slot.
+   *
+   * @param sequence the sequence number returned by {@link #reserve()}.
+   */
+  public int getSlot(long sequence) {
+    return (int) (sequence % threadCount);
+  }
+
+  /**
+   * Gives up a reserved frame without processing it, so later frames are not held back by it.
+   *
+   * @param sequence the sequence number returned by {@link #reserve()}.
+   */
+  public void cancel(long sequence) {
+    reorderBuffer.complete(sequence, null);
+  }
+
+  /** Returns the number of frames that were rejected because all workers were busy. */
+  public synchronized long getRejectedCount() {
+    return rejectedCount;
+  }
+
+  /** Returns the number of frames that are being processed or waiting for an earlier frame. */
+  public int getInFlightCount() {
+    return reorderBuffer.getPendingCount();
+  }
+
+  /**
+   * Waits for the frames in flight to finish, so the images they use can be closed afterwards,
+   * while the executor keeps accepting frames.
+   *
+   * @param timeoutMillis the maximum time to wait.
+   * @return whether no frame is in flight anymore.
+   */
+  public boolean awaitIdle(long timeoutMillis) {
+    try {
+      if (reorderBuffer.awaitEmpty(timeoutMillis)) {
+        return true;
+      }
+      Log.w(TAG, "Frames were still being processed after " + timeoutMillis + " ms.");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  /**
+   * Runs a callback once no frame is in flight anymore, so the images they use can be closed then,
+   * without blocking the calling thread. The executor keeps accepting frames.
+   *
+   * @param callback run once on the delivery executor, after the results of the frames in flight
+   *     have been delivered.
+   */
+  public void runWhenIdle(@NonNull Runnable callback) {
+    reorderBuffer.runWhenEmpty(callback);
+  }
+
+  /**
+   * Stops accepting frames and waits for the frames in flight to finish, so the images they use
+   * can be closed afterwards.
+   *
+   * @param timeoutMillis the maximum time to wait.
+   */
+  public void shutdown(long timeoutMillis) {
+    workers.shutdown();
+    try {
+      if (!workers.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        Log.w(TAG, "Frames were still being processed after " + timeoutMillis + " ms.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run(long sequence, FrameTask task) {
+    Runnable result = null;
+    try {
+      result = task.process();
+    } catch (RuntimeException e) {
+      Log.e(TAG, "Processing frame " + sequence + " failed.", e);
+    } finally {
+      reorderBuffer.complete(sequence, result);
+    }
+  }
+
+  private synchronized void onRejected() {
+    rejectedCount++;
+  }
+
+  /** Runs the frame of one slot, reused for every frame of the slot so none allocates a closure. */
+  private final class Slot implements Runnable {
+    private long sequence;
+    @Nullable private FrameTask task;
+
+    @Override
+    public void run() {
+      final FrameTask frameTask = task;
+      task = null;
+      OrderedFrameExecutor.this.run(sequence, frameTask);
+    }
+  }
+
+  private static final class WorkerThreadFactory implements ThreadFactory {
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      final Thread thread =
+          new Thread(runnable, "CameraFrameAnalysis-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
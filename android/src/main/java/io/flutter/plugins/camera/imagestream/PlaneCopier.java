@@ -0,0 +1,61 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import androidx.annotation.NonNull;
+import java.nio.ByteBuffer;
+
+/** Copies image planes into byte arrays. */
+public final class PlaneCopier {
+  private PlaneCopier() {}
+
+  /**
+   * Copies the remaining bytes of a plane, including any row padding, into {@code destination}.
+   *
+   * @param source the plane data, starting at its current position.
+   * @param destination the array to copy to.
+   * @param offset the offset in {@code destination} to start writing at.
+   * @return the number of bytes copied.
+   */
+  public static int copy(@NonNull ByteBuffer source, @NonNull byte[] destination, int offset) {
+    final int length = source.remaining();
+    source.get(destination, offset, length);
+    return length;
+  }
+
+  /**
+   * Copies a plane with a pixel stride of 1 into {@code destination}, leaving out the padding at
+   * the end of every row. The result has a row stride equal to {@code width}.
+   *
+   * <p>The position of {@code source} is changed.
+   *
+   * @param source the plane data, starting at its current position.
+   * @param rowStride the row stride of the source plane.
+   * @param width the number of bytes per row to copy.
+   * @param height the number of rows to copy.
+   * @param destination the array to copy to.
+   * @param offset the offset in {@code destination} to start writing at.
+   * @return the number of bytes copied.
+   */
+  public static int copyWithoutRowPadding(
+      @NonNull ByteBuffer source,
+      int rowStride,
+      int width,
+      int height,
+      @NonNull byte[] destination,
+      int offset) {
+    if (rowStride == width) {
+      source.get(destination, offset, width * height);
+      return width * height;
+    }
+
+    final int base = source.position();
+    for (int y = 0; y < height; y++) {
+      source.position(base + y * rowStride);
+      source.get(destination, offset + y * width, width);
+    }
+    return width * height;
+  }
+}
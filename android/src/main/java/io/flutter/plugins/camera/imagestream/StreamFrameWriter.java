@@ -0,0 +1,225 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import android.graphics.ImageFormat;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.ByteBuffer;
+
+/**
+ * Copies the planes of a stream image into an {@link ImageStreamBufferPool.Frame}, applying the
+ * {@link ImageStreamOptions} of the stream.
+ *
+ * <p>For YUV_420_888 images the planes can be cropped and scaled by a {@link YuvResampler}, and
+ * luma-only streams send plane 0 alone, reported as {@link ImageFormat#Y8}, optionally without its
+ * row padding. Other formats are copied unchanged.
+ *
+ * <p>Usage for every image is {@link #setImage}, {@link #setPlane} for each plane and then one of
+ * the {@code write} methods. An instance is not thread safe; every frame analysis thread uses its
+ * own.
+ */
+public class StreamFrameWriter {
+  private final ImageStreamOptions options;
+  private final boolean lumaOnlyFormat;
+  @Nullable private final YuvResampler resampler;
+
+  private final ByteBuffer[] planeBuffers = new ByteBuffer[ImageStreamBufferPool.MAX_PLANES];
+  private final int[] planeRowStrides = new int[ImageStreamBufferPool.MAX_PLANES];
+  private final int[] planePixelStrides = new int[ImageStreamBufferPool.MAX_PLANES];
+
+  private int width;
+  private int height;
+  private int format;
+  private int planeCount;
+  private boolean resampling;
+  private boolean unpadded;
+
+  /**
+   * Creates a new instance of the {@link StreamFrameWriter}.
+   *
+   * @param options the options of the image stream.
+   * @param lumaOnlyFormat whether the camera was opened with the {@code yuv420_luma} image format
+   *     group, which sends the luma plane only regardless of the stream options.
+   */
+  public StreamFrameWriter(@NonNull ImageStreamOptions options, boolean lumaOnlyFormat) {
+    this.options = options;
+    this.lumaOnlyFormat = lumaOnlyFormat;
+    this.resampler = options.isResampling() ? new YuvResampler(options) : null;
+  }
+
+  /**
+   * Sets the properties of the next image to write.
+   *
+   * @param width image width in pixels.
+   * @param height image height in pixels.
+   * @param format image format, as defined in {@link ImageFormat}.
+   * @param planeCount the number of planes of the image.
+   */
+  public void setImage(int width, int height, int format, int planeCount) {
+    final boolean isYuv = format == ImageFormat.YUV_420_888;
+    final boolean lumaOnly = isYuv && (lumaOnlyFormat || options.isLumaOnly());
+    resampling = isYuv && resampler != null;
+    unpadded = !resampling && lumaOnly && options.shouldRemoveRowPadding();
+    this.planeCount = Math.min(lumaOnly ? 1 : planeCount, ImageStreamBufferPool.MAX_PLANES);
+    this.format = lumaOnly ? ImageFormat.Y8 : format;
+
+    if (resampling) {
+      resampler.setSourceSize(width, height);
+      this.width = resampler.getOutputWidth();
+      this.height = resampler.getOutputHeight();
+    } else {
+      this.width = width;
+      this.height = height;
+    }
+  }
+
+  /**
+   * Sets the data of a plane of the next image to write. Planes that are not sent are ignored.
+   *
+   * @param index the index of the plane.
+   * @param buffer the plane data.
+   * @param rowStride the row stride of the plane.
+   * @param pixelStride the pixel stride of the plane.
+   */
+  public void setPlane(int index, @NonNull ByteBuffer buffer, int rowStride, int pixelStride) {
+    if (index >= planeCount) {
+      return;
+    }
+    planeBuffers[index] = buffer;
+    planeRowStrides[index] = rowStride;
+    planePixelStrides[index] = pixelStride;
+  }
+
+  /** Returns the number of planes that are sent. */
+  public int getPlaneCount() {
+    return planeCount;
+  }
+
+  /** Returns the width of the image that is sent. */
+  public int getWidth() {
+    return width;
+  }
+
+  /** Returns the height of the image that is sent. */
+  public int getHeight() {
+    return height;
+  }
+
+  /** Returns the format of the image that is sent. */
+  public int getFormat() {
+    return format;
+  }
+
+  /**
+   * Writes the image as a map of planes.
+   *
+   * @param frame the frame to write to, after {@link ImageStreamBufferPool.Frame#reset()}.
+   * @param lensAperture the lens aperture as f-stop value.
+   * @param sensorExposureTime the sensor exposure time in nanoseconds.
+   * @param sensorSensitivity the sensor sensitivity in ISO arithmetic units.
+   */
+  public void writePlanes(
+      @NonNull ImageStreamBufferPool.Frame frame,
+      @Nullable Float lensAperture,
+      @Nullable Long sensorExposureTime,
+      @Nullable Integer sensorSensitivity) {
+    for (int i = 0; i < planeCount; i++) {
+      final byte[] bytes =
+          frame.addWritablePlane(getPlaneSize(i), getPlaneRowStride(i), getPlanePixelStride(i));
+      copyPlane(i, bytes, 0);
+    }
+    frame.setImageInfo(width, height, format);
+    frame.setCaptureProperties(lensAperture, sensorExposureTime, sensorSensitivity);
+    clearPlanes();
+  }
+
+  /**
+   * Writes the image as a single {@link ImageStreamPacket}.
+   *
+   * @param frame the frame to write to, after {@link ImageStreamBufferPool.Frame#reset()}.
+   * @param lensAperture the lens aperture as f-stop value.
+   * @param sensorExposureTime the sensor exposure time in nanoseconds.
+   * @param sensorSensitivity the sensor sensitivity in ISO arithmetic units.
+   */
+  public void writePacket(
+      @NonNull ImageStreamBufferPool.Frame frame,
+      @Nullable Float lensAperture,
+      @Nullable Long sensorExposureTime,
+      @Nullable Integer sensorSensitivity) {
+    int size = ImageStreamPacket.HEADER_SIZE;
+    for (int i = 0; i < planeCount; i++) {
+      size += getPlaneSize(i);
+    }
+
+    final ByteBuffer packet = frame.preparePacket(size);
+    ImageStreamPacket.writeHeader(
+        packet,
+        width,
+        height,
+        format,
+        planeCount,
+        lensAperture,
+        sensorExposureTime,
+        sensorSensitivity);
+    int offset = ImageStreamPacket.HEADER_SIZE;
+    for (int i = 0; i < planeCount; i++) {
+      final int length = copyPlane(i, packet.array(), offset);
+      ImageStreamPacket.writePlaneDescriptor(
+          packet, i, getPlaneRowStride(i), getPlanePixelStride(i), offset, length);
+      offset += length;
+    }
+    clearPlanes();
+  }
+
+  private int getPlaneSize(int index) {
+    if (resampling) {
+      return resampler.getPlaneSize(index);
+    }
+    if (unpadded) {
+      return width * height;
+    }
+    return planeBuffers[index].remaining();
+  }
+
+  private int getPlaneRowStride(int index) {
+    if (resampling) {
+      return resampler.getPlaneWidth(index);
+    }
+    if (unpadded) {
+      return width;
+    }
+    return planeRowStrides[index];
+  }
+
+  private int getPlanePixelStride(int index) {
+    return resampling ? 1 : planePixelStrides[index];
+  }
+
+  private int copyPlane(int index, byte[] destination, int offset) {
+    final ByteBuffer buffer = planeBuffers[index];
+    if (resampling) {
+      return resampler.resamplePlane(
+          index,
+          buffer,
+          planeRowStrides[index],
+          planePixelStrides[index],
+          destination,
+          offset);
+    }
+    if (unpadded) {
+      return PlaneCopier.copyWithoutRowPadding(
+          buffer, planeRowStrides[index], width, height, destination, offset);
+    }
+    return PlaneCopier.copy(buffer, destination, offset);
+  }
+
+  // Do not keep the buffers of a closed image reachable.
+  private void clearPlanes() {
+    for (int i = 0; i < planeBuffers.length; i++) {
+      planeBuffers[i] = null;
+    }
+  }
+}
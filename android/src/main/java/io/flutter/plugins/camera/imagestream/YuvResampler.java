@@ -0,0 +1,209 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import androidx.annotation.NonNull;
+import java.nio.ByteBuffer;
+
+/**
+ * Crops and downscales the planes of a YUV_420_888 image with nearest neighbour sampling.
+ *
+ * <p>The source planes may have any row and pixel stride. Every output plane is tightly packed
+ * (pixel stride 1, row stride equal to the plane width), so the result is I420 data of the
+ * configured output size. Only the source rows and columns that are actually sampled are read.
+ *
+ * <p>The crop rectangle and output size are aligned to even values, so the chroma planes, which
+ * are subsampled by two in both directions, stay aligned with the luma plane.
+ *
+ * <p>An instance keeps its sampling tables and row scratch buffer between images and only
+ * recomputes them when the source size changes, so resampling a running stream does not allocate.
+ * It is not thread safe and is meant to be used by a single frame analysis thread at a time.
+ */
+public class YuvResampler {
+  private final float cropLeft;
+  private final float cropTop;
+  private final float cropRight;
+  private final float cropBottom;
+  private final int targetWidth;
+  private final int targetHeight;
+
+  private int sourceWidth = -1;
+  private int sourceHeight = -1;
+  private int cropX;
+  private int cropY;
+  private int outputWidth;
+  private int outputHeight;
+
+  // Source column and row of every output pixel, relative to the crop origin, for the luma plane
+  // (index 0) and the chroma planes (index 1).
+  private final int[][] columns = new int[2][];
+  private final int[][] rows = new int[2][];
+  private byte[] rowScratch = new byte[0];
+
+  /**
+   * Creates a resampler for the crop and target size of the supplied options.
+   *
+   * @param options the image stream options.
+   */
+  public YuvResampler(@NonNull ImageStreamOptions options) {
+    this(
+        options.getCropLeft(),
+        options.getCropTop(),
+        options.getCropRight(),
+        options.getCropBottom(),
+        options.getTargetWidth(),
+        options.getTargetHeight());
+  }
+
+  /**
+   * Creates a resampler.
+   *
+   * @param cropLeft left edge of the crop rectangle, normalized to the source width.
+   * @param cropTop top edge of the crop rectangle, normalized to the source height.
+   * @param cropRight right edge of the crop rectangle, normalized to the source width.
+   * @param cropBottom bottom edge of the crop rectangle, normalized to the source height.
+   * @param targetWidth the output width, or 0 to keep the width of the crop rectangle.
+   * @param targetHeight the output height, or 0 to keep the height of the crop rectangle.
+   */
+  YuvResampler(
+      float cropLeft,
+      float cropTop,
+      float cropRight,
+      float cropBottom,
+      int targetWidth,
+      int targetHeight) {
+    this.cropLeft = cropLeft;
+    this.cropTop = cropTop;
+    this.cropRight = cropRight;
+    this.cropBottom = cropBottom;
+    this.targetWidth = targetWidth;
+    this.targetHeight = targetHeight;
+  }
+
+  /**
+   * Sets the size of the images that will be resampled. Does nothing when the size did not change.
+   *
+   * @param width the source image width in pixels.
+   * @param height the source image height in pixels.
+   */
+  public void setSourceSize(int width, int height) {
+    if (width == sourceWidth && height == sourceHeight) {
+      return;
+    }
+    sourceWidth = width;
+    sourceHeight = height;
+
+    cropX = alignDown(Math.round(cropLeft * width));
+    cropY = alignDown(Math.round(cropTop * height));
+    final int cropWidth = Math.max(2, alignDown(Math.round(cropRight * width)) - cropX);
+    final int cropHeight = Math.max(2, alignDown(Math.round(cropBottom * height)) - cropY);
+    outputWidth = targetWidth > 0 ? Math.max(2, alignDown(targetWidth)) : cropWidth;
+    outputHeight = targetHeight > 0 ? Math.max(2, alignDown(targetHeight)) : cropHeight;
+
+    columns[0] = createSamplingTable(cropWidth, outputWidth);
+    rows[0] = createSamplingTable(cropHeight, outputHeight);
+    columns[1] = createSamplingTable(cropWidth / 2, outputWidth / 2);
+    rows[1] = createSamplingTable(cropHeight / 2, outputHeight / 2);
+  }
+
+  /** Returns the width of the resampled image. */
+  public int getOutputWidth() {
+    return outputWidth;
+  }
+
+  /** Returns the height of the resampled image. */
+  public int getOutputHeight() {
+    return outputHeight;
+  }
+
+  /** Returns the width of the given output plane, which is also its row stride. */
+  public int getPlaneWidth(int planeIndex) {
+    return planeIndex == 0 ? outputWidth : outputWidth / 2;
+  }
+
+  /** Returns the height of the given output plane. */
+  public int getPlaneHeight(int planeIndex) {
+    return planeIndex == 0 ? outputHeight : outputHeight / 2;
+  }
+
+  /** Returns the number of bytes of the given output plane. */
+  public int getPlaneSize(int planeIndex) {
+    return getPlaneWidth(planeIndex) * getPlaneHeight(planeIndex);
+  }
+
+  /**
+   * Crops and downscales one plane of the source image into {@code destination}.
+   *
+   * <p>{@link #setSourceSize(int, int)} must have been called for the source image first. The
+   * position of {@code source} is changed.
+   *
+   * @param planeIndex the index of the plane, 0 for luma and 1 or 2 for chroma.
+   * @param source the plane data, starting at its current position.
+   * @param rowStride the row stride of the source plane.
+   * @param pixelStride the pixel stride of the source plane.
+   * @param destination the array to write the tightly packed output plane to.
+   * @param offset the offset in {@code destination} to start writing at.
+   * @return the number of bytes written.
+   */
+  public int resamplePlane(
+      int planeIndex,
+      @NonNull ByteBuffer source,
+      int rowStride,
+      int pixelStride,
+      @NonNull byte[] destination,
+      int offset) {
+    final int table = planeIndex == 0 ? 0 : 1;
+    final int[] planeColumns = columns[table];
+    final int[] planeRows = rows[table];
+    final int planeCropX = table == 0 ? cropX : cropX / 2;
+    final int planeCropY = table == 0 ? cropY : cropY / 2;
+
+    // Only the span between the first and last sampled column is read from every row.
+    final int firstColumn = planeCropX + planeColumns[0];
+    final int lastColumn = planeCropX + planeColumns[planeColumns.length - 1];
+    final int spanLength = (lastColumn - firstColumn) * pixelStride + 1;
+    if (rowScratch.length < spanLength) {
+      rowScratch = new byte[spanLength];
+    }
+    final byte[] scratch = rowScratch;
+
+    final int columnBase = planeCropX - firstColumn;
+    final int base = source.position();
+    int out = offset;
+    int previousRow = -1;
+    for (int y = 0; y < planeRows.length; y++) {
+      final int sourceRow = planeCropY + planeRows[y];
+      if (sourceRow != previousRow) {
+        source.position(base + sourceRow * rowStride + firstColumn * pixelStride);
+        source.get(scratch, 0, spanLength);
+        previousRow = sourceRow;
+      }
+      if (pixelStride == 1) {
+        for (int x = 0; x < planeColumns.length; x++) {
+          destination[out++] = scratch[columnBase + planeColumns[x]];
+        }
+      } else {
+        for (int x = 0; x < planeColumns.length; x++) {
+          destination[out++] = scratch[(columnBase + planeColumns[x]) * pixelStride];
+        }
+      }
+    }
+    return out - offset;
+  }
+
+  /** Maps every output index to the nearest source index, sampling at pixel centers. */
+  private static int[] createSamplingTable(int sourceLength, int outputLength) {
+    final int[] table = new int[outputLength];
+    for (int i = 0; i < outputLength; i++) {
+      table[i] =
+          Math.min(sourceLength - 1, (int) ((2L * i + 1) * sourceLength / (2L * outputLength)));
+    }
+    return table;
+  }
+
+  private static int alignDown(int value) {
+    return value & ~1;
+  }
+}
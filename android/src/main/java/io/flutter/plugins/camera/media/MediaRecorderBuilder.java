@@ -4,9 +4,13 @@
 
 package io.flutter.plugins.camera.media;
 
+import android.annotation.TargetApi;
 import android.media.CamcorderProfile;
 import android.media.MediaRecorder;
+import android.os.Build;
+import android.view.Surface;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import java.io.IOException;
 
 public class MediaRecorderBuilder {
@@ -22,6 +26,7 @@ public class MediaRecorderBuilder {
 
   private boolean enableAudio;
   private int mediaOrientation;
+  @Nullable private Surface inputSurface;
 
   public MediaRecorderBuilder(
       @NonNull CamcorderProfile recordingProfile, @NonNull String outputFilePath) {
@@ -47,6 +52,19 @@ public class MediaRecorderBuilder {
     return this;
   }
 
+  /**
+   * Sets a persistent input surface, created with {@link
+   * android.media.MediaCodec#createPersistentInputSurface}, that the recorder reads its frames from
+   * instead of its own surface.
+   *
+   * @param inputSurface the persistent surface, or {@code null} to use the surface of the recorder.
+   */
+  @TargetApi(Build.VERSION_CODES.M)
+  public MediaRecorderBuilder setInputSurface(@Nullable Surface inputSurface) {
+    this.inputSurface = inputSurface;
+    return this;
+  }
+
   public MediaRecorder build() throws IOException {
     MediaRecorder mediaRecorder = recorderFactory.makeMediaRecorder();
 
@@ -66,6 +84,9 @@ public class MediaRecorderBuilder {
     mediaRecorder.setVideoSize(recordingProfile.videoFrameWidth, recordingProfile.videoFrameHeight);
     mediaRecorder.setOutputFile(outputFilePath);
     mediaRecorder.setOrientationHint(this.mediaOrientation);
+    if (inputSurface != null) {
+      mediaRecorder.setInputSurface(inputSurface);
+    }
 
     mediaRecorder.prepare();
 
@@ -0,0 +1,320 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.types;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size ring of the capture properties, AE/AF states and AF mode of the most recent capture
+ * results, keyed by their sensor timestamp, so an {@link android.media.Image} can be matched with
+ * the exact result it was captured with through {@link android.media.Image#getTimestamp()}.
+ *
+ * <p>Records are written by a single thread, the thread capture callbacks run on, and can be read
+ * from any thread without locking. Every slot is guarded by a version counter that is odd while the
+ * slot is being written, and readers retry a slot that changed while they read it. Records are
+ * stored as primitives in preallocated arrays, so recording a result does not allocate.
+ */
+public class CaptureResultRing {
+  /** The number of records kept by default, enough to cover the frames in flight of a stream. */
+  public static final int DEFAULT_CAPACITY = 32;
+
+  private static final int FIELD_TIMESTAMP = 0;
+  private static final int FIELD_EXPOSURE_TIME = 1;
+  private static final int FIELD_APERTURE = 2;
+  private static final int FIELD_SENSITIVITY = 3;
+  private static final int FIELD_AE_STATE = 4;
+  private static final int FIELD_AF_STATE = 5;
+  private static final int FIELD_AF_MODE = 6;
+  private static final int FIELD_COUNT = 7;
+
+  private static final long NONE = Long.MIN_VALUE;
+  private static final int MAX_READ_ATTEMPTS = 4;
+
+  private final int capacity;
+  private final AtomicLongArray fields;
+  private final AtomicLongArray versions;
+  // Only accessed by the writing thread.
+  private final long[] writerTimestamps;
+  private int head;
+  private int size;
+  private volatile long latestTimestamp = NONE;
+
+  /**
+   * Creates a new instance of the {@link CaptureResultRing}.
+   *
+   * @param capacity the number of records to keep.
+   */
+  public CaptureResultRing(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1.");
+    }
+    this.capacity = capacity;
+    this.fields = new AtomicLongArray(capacity * FIELD_COUNT);
+    this.versions = new AtomicLongArray(capacity);
+    this.writerTimestamps = new long[capacity];
+    for (int i = 0; i < capacity; i++) {
+      fields.set(i * FIELD_COUNT + FIELD_TIMESTAMP, NONE);
+      writerTimestamps[i] = NONE;
+    }
+  }
+
+  /**
+   * Records the capture properties of a (partial) capture result. Must always be called from the
+   * same thread.
+   *
+   * <p>Properties of a timestamp that is already in the ring are merged into its record, so partial
+   * results and the total result of a capture end up in one record. Properties that are {@code
+   * null} keep their recorded value.
+   *
+   * @param sensorTimestamp the sensor timestamp of the result in nanoseconds.
+   * @param lensAperture the lens aperture as f-stop value.
+   * @param sensorExposureTime the sensor exposure time in nanoseconds.
+   * @param sensorSensitivity the sensor sensitivity in ISO arithmetic units.
+   * @param aeState the auto exposure state, as defined in {@link
+   *     android.hardware.camera2.CaptureResult#CONTROL_AE_STATE}.
+   * @param afMode the auto focus mode, as defined in {@link
+   *     android.hardware.camera2.CaptureResult#CONTROL_AF_MODE}.
+   * @param afState the auto focus state, as defined in {@link
+   *     android.hardware.camera2.CaptureResult#CONTROL_AF_STATE}.
+   */
+  public void record(
+      long sensorTimestamp,
+      @Nullable Float lensAperture,
+      @Nullable Long sensorExposureTime,
+      @Nullable Integer sensorSensitivity,
+      @Nullable Integer aeState,
+      @Nullable Integer afMode,
+      @Nullable Integer afState) {
+    int slot = findWriterSlot(sensorTimestamp);
+    final boolean merge = slot >= 0;
+    if (!merge) {
+      slot = head;
+      head = (head + 1) % capacity;
+      size = Math.min(size + 1, capacity);
+      writerTimestamps[slot] = sensorTimestamp;
+    }
+
+    final int base = slot * FIELD_COUNT;
+    final long version = versions.get(slot);
+    versions.set(slot, version + 1);
+    fields.set(base + FIELD_TIMESTAMP, sensorTimestamp);
+    if (sensorExposureTime != null || !merge) {
+      fields.set(base + FIELD_EXPOSURE_TIME, sensorExposureTime == null ? NONE : sensorExposureTime);
+    }
+    if (lensAperture != null || !merge) {
+      fields.set(
+          base + FIELD_APERTURE, lensAperture == null ? NONE : Float.floatToRawIntBits(lensAperture));
+    }
+    if (sensorSensitivity != null || !merge) {
+      fields.set(base + FIELD_SENSITIVITY, sensorSensitivity == null ? NONE : sensorSensitivity);
+    }
+    if (aeState != null || !merge) {
+      fields.set(base + FIELD_AE_STATE, aeState == null ? NONE : aeState);
+    }
+    if (afMode != null || !merge) {
+      fields.set(base + FIELD_AF_MODE, afMode == null ? NONE : afMode);
+    }
+    if (afState != null || !merge) {
+      fields.set(base + FIELD_AF_STATE, afState == null ? NONE : afState);
+    }
+    versions.set(slot, version + 2);
+    if (sensorTimestamp > latestTimestamp) {
+      latestTimestamp = sensorTimestamp;
+    }
+  }
+
+  /**
+   * Gets the sensor timestamp of the newest capture result, which is the closest thing to "now" in
+   * the timebase of the sensor.
+   *
+   * @return the timestamp in nanoseconds, or {@link Long#MIN_VALUE} when nothing was recorded yet.
+   */
+  public long getLatestTimestamp() {
+    return latestTimestamp;
+  }
+
+  /**
+   * Looks up the record of a sensor timestamp.
+   *
+   * @param sensorTimestamp the timestamp to look up, e.g. from {@link
+   *     android.media.Image#getTimestamp()}.
+   * @param out the record to copy the properties into.
+   * @return whether a record was found. When {@code false}, {@code out} is unchanged.
+   */
+  public boolean find(long sensorTimestamp, @NonNull Record out) {
+    for (int slot = 0; slot < capacity; slot++) {
+      final int base = slot * FIELD_COUNT;
+      for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+        final long version = versions.get(slot);
+        if ((version & 1) != 0) {
+          continue;
+        }
+        if (fields.get(base + FIELD_TIMESTAMP) != sensorTimestamp) {
+          // Re-read when the slot was being rewritten, it may just have received the timestamp.
+          if (versions.get(slot) == version) {
+            break;
+          }
+          continue;
+        }
+        final long exposureTime = fields.get(base + FIELD_EXPOSURE_TIME);
+        final long aperture = fields.get(base + FIELD_APERTURE);
+        final long sensitivity = fields.get(base + FIELD_SENSITIVITY);
+        final long aeState = fields.get(base + FIELD_AE_STATE);
+        final long afMode = fields.get(base + FIELD_AF_MODE);
+        final long afState = fields.get(base + FIELD_AF_STATE);
+        if (versions.get(slot) == version) {
+          out.set(sensorTimestamp, exposureTime, aperture, sensitivity, aeState, afMode, afState);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private int findWriterSlot(long sensorTimestamp) {
+    // Results of a capture arrive close together, so search from the newest record backwards.
+    for (int i = 1; i <= size; i++) {
+      final int slot = (head - i + capacity) % capacity;
+      if (writerTimestamps[slot] == sensorTimestamp) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * A reusable copy of the capture properties of a single capture result.
+   *
+   * <p>The boxed value of a property is kept until a record with another value is copied in, so a
+   * record that is reused for every frame of a stream only boxes when the exposure changes. The AE
+   * and AF states and modes are small enough for the {@link Integer} cache.
+   */
+  public static final class Record {
+    private long sensorTimestamp = NONE;
+    private long sensorExposureTime = NONE;
+    private long lensApertureBits = NONE;
+    private long sensorSensitivity = NONE;
+    private long aeState = NONE;
+    private long afMode = NONE;
+    private long afState = NONE;
+    @Nullable private Float lensApertureBox;
+    @Nullable private Long sensorExposureTimeBox;
+    @Nullable private Integer sensorSensitivityBox;
+
+    private void set(
+        long timestamp,
+        long exposureTime,
+        long apertureBits,
+        long sensitivity,
+        long aeState,
+        long afMode,
+        long afState) {
+      this.sensorTimestamp = timestamp;
+      if (exposureTime != sensorExposureTime) {
+        this.sensorExposureTime = exposureTime;
+        sensorExposureTimeBox = null;
+      }
+      if (apertureBits != lensApertureBits) {
+        this.lensApertureBits = apertureBits;
+        lensApertureBox = null;
+      }
+      if (sensitivity != sensorSensitivity) {
+        this.sensorSensitivity = sensitivity;
+        sensorSensitivityBox = null;
+      }
+      this.aeState = aeState;
+      this.afMode = afMode;
+      this.afState = afState;
+    }
+
+    /** Gets the sensor timestamp of the capture result in nanoseconds. */
+    public long getSensorTimestamp() {
+      return sensorTimestamp;
+    }
+
+    /**
+     * Gets the lens aperture. (As f-stop value)
+     *
+     * @return the lens aperture, or {@code null} when the result did not contain it.
+     */
+    @Nullable
+    public Float getLensAperture() {
+      if (lensApertureBits == NONE) {
+        return null;
+      }
+      if (lensApertureBox == null) {
+        lensApertureBox = Float.intBitsToFloat((int) lensApertureBits);
+      }
+      return lensApertureBox;
+    }
+
+    /**
+     * Gets the sensor exposure time in nanoseconds.
+     *
+     * @return the exposure time, or {@code null} when the result did not contain it.
+     */
+    @Nullable
+    public Long getSensorExposureTime() {
+      if (sensorExposureTime == NONE) {
+        return null;
+      }
+      if (sensorExposureTimeBox == null) {
+        sensorExposureTimeBox = sensorExposureTime;
+      }
+      return sensorExposureTimeBox;
+    }
+
+    /**
+     * Gets the sensor sensitivity in ISO arithmetic units.
+     *
+     * @return the sensitivity, or {@code null} when the result did not contain it.
+     */
+    @Nullable
+    public Integer getSensorSensitivity() {
+      if (sensorSensitivity == NONE) {
+        return null;
+      }
+      if (sensorSensitivityBox == null) {
+        sensorSensitivityBox = (int) sensorSensitivity;
+      }
+      return sensorSensitivityBox;
+    }
+
+    /**
+     * Gets the auto exposure state.
+     *
+     * @return the {@link android.hardware.camera2.CaptureResult#CONTROL_AE_STATE}, or {@code null}
+     *     when the result did not contain it.
+     */
+    @Nullable
+    public Integer getAeState() {
+      return aeState == NONE ? null : (int) aeState;
+    }
+
+    /**
+     * Gets the auto focus mode.
+     *
+     * @return the {@link android.hardware.camera2.CaptureResult#CONTROL_AF_MODE}, or {@code null}
+     *     when the result did not contain it.
+     */
+    @Nullable
+    public Integer getAfMode() {
+      return afMode == NONE ? null : (int) afMode;
+    }
+
+    /**
+     * Gets the auto focus state.
+     *
+     * @return the {@link android.hardware.camera2.CaptureResult#CONTROL_AF_STATE}, or {@code null}
+     *     when the result did not contain it.
+     */
+    @Nullable
+    public Integer getAfState() {
+      return afState == NONE ? null : (int) afState;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoundedIoExecutorTest {
+  private BoundedIoExecutor executor;
+  private CountDownLatch release;
+  private CountDownLatch started;
+
+  @Before
+  public void setUp() {
+    executor = new BoundedIoExecutor(1, 2);
+    release = new CountDownLatch(1);
+    started = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    executor.shutdown();
+  }
+
+  @Test
+  public void execute_rejectsWritesWhenQueueIsFull() throws InterruptedException {
+    assertTrue(executor.execute(this::blockingWrite));
+    assertTrue(started.await(1, TimeUnit.SECONDS));
+    assertTrue(executor.execute(() -> {}));
+    assertTrue(executor.execute(() -> {}));
+
+    assertFalse(executor.execute(() -> {}));
+
+    Map<String, Object> stats = executor.getStats();
+    assertEquals(2, executor.getQueueDepth());
+    assertEquals(2, stats.get("maxQueueDepth"));
+    assertEquals(3L, stats.get("submittedWrites"));
+    assertEquals(1L, stats.get("rejectedWrites"));
+  }
+
+  @Test
+  public void execute_recordsCompletedWrites() throws InterruptedException {
+    executor.execute(() -> {});
+    executor.execute(() -> {});
+    // The single thread only starts the blocking write once the earlier ones have been recorded.
+    executor.execute(this::blockingWrite);
+    assertTrue(started.await(1, TimeUnit.SECONDS));
+
+    Map<String, Object> stats = executor.getStats();
+    assertEquals(2L, stats.get("completedWrites"));
+    assertEquals(0, stats.get("queueDepth"));
+  }
+
+  @Test
+  public void execute_rejectsWritesAfterShutdown() {
+    executor.shutdown();
+
+    assertFalse(executor.execute(() -> {}));
+  }
+
+  private void blockingWrite() {
+    started.countDown();
+    try {
+      release.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,181 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CameraMetadata;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.os.Handler;
+import android.util.Size;
+import io.flutter.plugins.camera.features.resolution.ResolutionChoice;
+import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
+import java.io.File;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class CameraCapabilityCacheTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private CameraManager mockCameraManager;
+  private CameraCharacteristics mockCharacteristics;
+  private CameraCapabilityCache cache;
+
+  @Before
+  public void setUp() throws CameraAccessException {
+    mockCameraManager = mock(CameraManager.class);
+    mockCharacteristics = mock(CameraCharacteristics.class);
+    when(mockCameraManager.getCameraIdList()).thenReturn(new String[] {"0", "1"});
+    when(mockCameraManager.getCameraCharacteristics("0")).thenReturn(mockCharacteristics);
+    cache = new CameraCapabilityCache();
+  }
+
+  @Test
+  public void getCharacteristics_queriesCameraServiceOnce() throws CameraAccessException {
+    assertSame(mockCharacteristics, cache.getCharacteristics(mockCameraManager, "0"));
+    assertSame(mockCharacteristics, cache.getCharacteristics(mockCameraManager, "0"));
+    assertArrayEquals(new String[] {"0", "1"}, cache.getCameraIdList(mockCameraManager));
+    assertArrayEquals(new String[] {"0", "1"}, cache.getCameraIdList(mockCameraManager));
+
+    verify(mockCameraManager, times(1)).getCameraCharacteristics("0");
+    verify(mockCameraManager, times(1)).getCameraIdList();
+    verify(mockCameraManager, times(1))
+        .registerAvailabilityCallback(any(CameraManager.AvailabilityCallback.class), any(Handler.class));
+  }
+
+  @Test
+  public void getOutputSizes_sortsByAreaDescendingAndCaches() throws CameraAccessException {
+    StreamConfigurationMap mockMap = mock(StreamConfigurationMap.class);
+    when(mockMap.getOutputSizes(ImageFormat.JPEG))
+        .thenReturn(new Size[] {new Size(640, 480), new Size(4000, 3000), new Size(1920, 1080)});
+    cache.getCharacteristics(mockCameraManager, "0");
+
+    Size[] sizes = cache.getOutputSizes("0", mockMap, ImageFormat.JPEG);
+    cache.getOutputSizes("0", mockMap, ImageFormat.JPEG);
+
+    assertArrayEquals(
+        new Size[] {new Size(4000, 3000), new Size(1920, 1080), new Size(640, 480)}, sizes);
+    verify(mockMap, times(1)).getOutputSizes(ImageFormat.JPEG);
+  }
+
+  @Test
+  public void putResolution_isDroppedWithItsCamera() throws CameraAccessException {
+    ResolutionChoice choice = new ResolutionChoice(1, new Size(1280, 720), new Size(4000, 3000));
+    cache.getCharacteristics(mockCameraManager, "0");
+    cache.putResolution("0", ResolutionPreset.high, choice);
+    assertSame(choice, cache.getResolution("0", ResolutionPreset.high));
+
+    cache.invalidate("0");
+
+    assertNull(cache.getResolution("0", ResolutionPreset.high));
+    cache.getCharacteristics(mockCameraManager, "0");
+    verify(mockCameraManager, times(2)).getCameraCharacteristics("0");
+  }
+
+  @Test
+  public void availabilityCallback_invalidatesAddedAndUnpluggedCameras()
+      throws CameraAccessException {
+    when(mockCharacteristics.get(CameraCharacteristics.LENS_FACING))
+        .thenReturn(CameraMetadata.LENS_FACING_EXTERNAL);
+    cache.getCameraIdList(mockCameraManager);
+    cache.getCharacteristics(mockCameraManager, "0");
+    ArgumentCaptor<CameraManager.AvailabilityCallback> callback =
+        ArgumentCaptor.forClass(CameraManager.AvailabilityCallback.class);
+    verify(mockCameraManager)
+        .registerAvailabilityCallback(callback.capture(), any(Handler.class));
+
+    // Known cameras becoming available again, like after being closed, keep the cache.
+    callback.getValue().onCameraAvailable("1");
+    cache.getCameraIdList(mockCameraManager);
+    verify(mockCameraManager, times(1)).getCameraIdList();
+
+    callback.getValue().onCameraAvailable("2");
+    cache.getCameraIdList(mockCameraManager);
+    verify(mockCameraManager, times(2)).getCameraIdList();
+
+    callback.getValue().onCameraUnavailable("0");
+    cache.getCharacteristics(mockCameraManager, "0");
+    verify(mockCameraManager, times(2)).getCameraCharacteristics("0");
+  }
+
+  @Test
+  public void setSnapshotFile_servesColdStartFromSnapshot() throws Exception {
+    when(mockCameraManager.getCameraIdList()).thenReturn(new String[] {"0"});
+    when(mockCharacteristics.get(CameraCharacteristics.LENS_FACING))
+        .thenReturn(CameraMetadata.LENS_FACING_BACK);
+    when(mockCharacteristics.get(CameraCharacteristics.SENSOR_ORIENTATION)).thenReturn(90);
+    File file = new File(temporaryFolder.getRoot(), CameraCapabilityCache.SNAPSHOT_FILE_NAME);
+    ResolutionChoice choice = new ResolutionChoice(5, new Size(1280, 720), new Size(4000, 3000));
+    cache.setSnapshotFile(file, "fingerprint", Runnable::run);
+    cache.getCameraIdList(mockCameraManager);
+    cache.getCharacteristics(mockCameraManager, "0");
+    cache.putResolution("0", ResolutionPreset.high, choice);
+
+    // A new process. The snapshot matches the build, so it is not derived again.
+    CameraManager coldCameraManager = mock(CameraManager.class);
+    CameraCapabilityCache coldCache = new CameraCapabilityCache();
+    coldCache.setSnapshotFile(file, "fingerprint", Runnable::run);
+
+    assertArrayEquals(new String[] {"0"}, coldCache.getCameraIdList(coldCameraManager));
+    assertEquals(CameraMetadata.LENS_FACING_BACK, coldCache.getLensFacing(coldCameraManager, "0"));
+    assertEquals(90, coldCache.getSensorOrientation(coldCameraManager, "0"));
+    ResolutionChoice coldChoice = coldCache.getResolution("0", ResolutionPreset.high);
+    assertEquals(choice.getPreviewSize(), coldChoice.getPreviewSize());
+    verify(coldCameraManager, never()).getCameraIdList();
+    verify(coldCameraManager, never()).getCameraCharacteristics(any());
+  }
+
+  @Test
+  public void setSnapshotFile_refreshesSnapshotOfOtherBuild() throws Exception {
+    when(mockCameraManager.getCameraIdList()).thenReturn(new String[] {"0"});
+    when(mockCharacteristics.get(CameraCharacteristics.LENS_FACING))
+        .thenReturn(CameraMetadata.LENS_FACING_BACK);
+    when(mockCharacteristics.get(CameraCharacteristics.SENSOR_ORIENTATION)).thenReturn(90);
+    File file = new File(temporaryFolder.getRoot(), CameraCapabilityCache.SNAPSHOT_FILE_NAME);
+    cache.setSnapshotFile(file, "fingerprint", Runnable::run);
+    cache.getCameraIdList(mockCameraManager);
+
+    // A new process after a system update.
+    CameraManager coldCameraManager = mock(CameraManager.class);
+    when(coldCameraManager.getCameraIdList()).thenReturn(new String[] {"0"});
+    when(coldCameraManager.getCameraCharacteristics("0")).thenReturn(mockCharacteristics);
+    CameraCapabilityCache coldCache = new CameraCapabilityCache();
+    coldCache.setSnapshotFile(file, "updated", Runnable::run);
+
+    assertArrayEquals(new String[] {"0"}, coldCache.getCameraIdList(coldCameraManager));
+    verify(coldCameraManager, times(1)).getCameraIdList();
+    assertEquals(90, coldCache.getSensorOrientation(coldCameraManager, "0"));
+    verify(coldCameraManager, times(1)).getCameraCharacteristics("0");
+  }
+
+  @Test
+  public void setSnapshotFile_doesNotBlockOnReadingTheSnapshot() throws Exception {
+    File file = new File(temporaryFolder.getRoot(), CameraCapabilityCache.SNAPSHOT_FILE_NAME);
+    cache.setSnapshotFile(file, "fingerprint", runnable -> {});
+
+    // Until the snapshot has been read the camera service is queried.
+    assertArrayEquals(new String[] {"0", "1"}, cache.getCameraIdList(mockCameraManager));
+    verify(mockCameraManager, times(1)).getCameraIdList();
+  }
+}
@@ -18,6 +18,7 @@ import android.hardware.camera2.CaptureResult.Key;
 import android.hardware.camera2.TotalCaptureResult;
 import io.flutter.plugins.camera.CameraCaptureCallback.CameraCaptureStateListener;
 import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import io.flutter.plugins.camera.types.CaptureResultRing;
 import io.flutter.plugins.camera.types.CaptureTimeoutsWrapper;
 import io.flutter.plugins.camera.types.Timeout;
 import io.flutter.plugins.camera.utils.TestUtils;
@@ -99,7 +100,10 @@ public class CameraCaptureCallbackStatesTest extends TestCase {
 
     cameraCaptureCallback =
         CameraCaptureCallback.create(
-            mockCaptureStateListener, mockCaptureTimeouts, mockCaptureProps);
+            mockCaptureStateListener,
+            mockCaptureTimeouts,
+            mockCaptureProps,
+            mock(CaptureResultRing.class));
   }
 
   @Override
@@ -4,6 +4,9 @@
 
 package io.flutter.plugins.camera;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyFloat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -18,6 +21,7 @@ import android.hardware.camera2.CaptureRequest;
 import android.hardware.camera2.CaptureResult;
 import android.hardware.camera2.TotalCaptureResult;
 import io.flutter.plugins.camera.types.CameraCaptureProperties;
+import io.flutter.plugins.camera.types.CaptureResultRing;
 import io.flutter.plugins.camera.types.CaptureTimeoutsWrapper;
 import org.junit.Before;
 import org.junit.Test;
@@ -29,6 +33,7 @@ public class CameraCaptureCallbackTest {
 
   private CameraCaptureCallback cameraCaptureCallback;
   private CameraCaptureProperties mockCaptureProps;
+  private CaptureResultRing mockCaptureResults;
 
   @Before
   public void setUp() {
@@ -36,9 +41,10 @@ public class CameraCaptureCallbackTest {
         mock(CameraCaptureCallback.CameraCaptureStateListener.class);
     CaptureTimeoutsWrapper mockCaptureTimeouts = mock(CaptureTimeoutsWrapper.class);
     mockCaptureProps = mock(CameraCaptureProperties.class);
+    mockCaptureResults = mock(CaptureResultRing.class);
     cameraCaptureCallback =
         CameraCaptureCallback.create(
-            mockCaptureStateListener, mockCaptureTimeouts, mockCaptureProps);
+            mockCaptureStateListener, mockCaptureTimeouts, mockCaptureProps, mockCaptureResults);
   }
 
   @Test
@@ -69,4 +75,142 @@ public class CameraCaptureCallbackTest {
     verify(mockCaptureProps, times(1)).setLastSensorExposureTime(2L);
     verify(mockCaptureProps, times(1)).setLastSensorSensitivity(3);
   }
+
+  @Test
+  public void onCaptureCompleted_recordsCapturePropertiesBySensorTimestamp() {
+    CameraCaptureSession mockSession = mock(CameraCaptureSession.class);
+    CaptureRequest mockRequest = mock(CaptureRequest.class);
+    TotalCaptureResult mockResult = mock(TotalCaptureResult.class);
+    when(mockResult.get(CaptureResult.SENSOR_TIMESTAMP)).thenReturn(42L);
+    when(mockResult.get(CaptureResult.LENS_APERTURE)).thenReturn(1.0f);
+    when(mockResult.get(CaptureResult.SENSOR_EXPOSURE_TIME)).thenReturn(2L);
+    when(mockResult.get(CaptureResult.SENSOR_SENSITIVITY)).thenReturn(3);
+
+    cameraCaptureCallback.onCaptureCompleted(mockSession, mockRequest, mockResult);
+
+    verify(mockCaptureResults, times(1)).record(42L, 1.0f, 2L, 3, null, null, null);
+  }
+
+  @Test
+  public void onCaptureProgressed_doesNotRecordResultWithoutTimestamp() {
+    CameraCaptureSession mockSession = mock(CameraCaptureSession.class);
+    CaptureRequest mockRequest = mock(CaptureRequest.class);
+    CaptureResult mockResult = mock(CaptureResult.class);
+
+    cameraCaptureCallback.onCaptureProgressed(mockSession, mockRequest, mockResult);
+
+    verify(mockCaptureResults, never()).record(anyLong(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  public void onCaptureCompleted_tracksConvergedExposureAndFocus() {
+    CameraCaptureSession mockSession = mock(CameraCaptureSession.class);
+    CaptureRequest mockRequest = mock(CaptureRequest.class);
+    TotalCaptureResult mockResult = mock(TotalCaptureResult.class);
+    when(mockResult.get(CaptureResult.CONTROL_AE_STATE))
+        .thenReturn(CaptureResult.CONTROL_AE_STATE_CONVERGED);
+    when(mockResult.get(CaptureResult.CONTROL_AF_STATE))
+        .thenReturn(CaptureResult.CONTROL_AF_STATE_FOCUSED_LOCKED);
+    assertFalse(cameraCaptureCallback.isConvergedWithin(Long.MAX_VALUE));
+
+    cameraCaptureCallback.onCaptureCompleted(mockSession, mockRequest, mockResult);
+
+    assertTrue(cameraCaptureCallback.isConvergedWithin(Long.MAX_VALUE));
+    assertFalse(cameraCaptureCallback.isConvergedWithin(-1));
+
+    when(mockResult.get(CaptureResult.CONTROL_AE_STATE))
+        .thenReturn(CaptureResult.CONTROL_AE_STATE_SEARCHING);
+    cameraCaptureCallback.onCaptureCompleted(mockSession, mockRequest, mockResult);
+
+    assertFalse(cameraCaptureCallback.isConvergedWithin(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void onCaptureCompleted_runsNextResultListenerOnce() {
+    CameraCaptureSession mockSession = mock(CameraCaptureSession.class);
+    CaptureRequest mockRequest = mock(CaptureRequest.class);
+    TotalCaptureResult mockResult = mock(TotalCaptureResult.class);
+    Runnable mockListener = mock(Runnable.class);
+    cameraCaptureCallback.runOnNextResult(mockListener);
+
+    cameraCaptureCallback.onCaptureCompleted(mockSession, mockRequest, mockResult);
+    cameraCaptureCallback.onCaptureCompleted(mockSession, mockRequest, mockResult);
+
+    verify(mockListener, times(1)).run();
+  }
+
+  @Test
+  public void isConverged_acceptsFixedFocusAndMissingAeState() {
+    assertTrue(CameraCaptureCallback.isConverged(null, null, null, true));
+    assertTrue(
+        CameraCaptureCallback.isConverged(
+            null, null, CaptureResult.CONTROL_AF_STATE_FOCUSED_LOCKED, false));
+    assertTrue(
+        CameraCaptureCallback.isConverged(
+            CaptureResult.CONTROL_AE_STATE_CONVERGED,
+            CaptureResult.CONTROL_AF_MODE_OFF,
+            CaptureResult.CONTROL_AF_STATE_INACTIVE,
+            true));
+    assertFalse(
+        CameraCaptureCallback.isConverged(
+            CaptureResult.CONTROL_AE_STATE_CONVERGED,
+            CaptureResult.CONTROL_AF_MODE_AUTO,
+            CaptureResult.CONTROL_AF_STATE_INACTIVE,
+            false));
+    assertFalse(
+        CameraCaptureCallback.isConverged(
+            CaptureResult.CONTROL_AE_STATE_FLASH_REQUIRED,
+            CaptureResult.CONTROL_AF_MODE_AUTO,
+            CaptureResult.CONTROL_AF_STATE_FOCUSED_LOCKED,
+            false));
+  }
+
+  @Test
+  public void isConverged_rejectsMissingAfStateWithAutoFocus() {
+    assertFalse(CameraCaptureCallback.isConverged(null, null, null, false));
+    assertFalse(
+        CameraCaptureCallback.isConverged(
+            CaptureResult.CONTROL_AE_STATE_CONVERGED,
+            CaptureResult.CONTROL_AF_MODE_CONTINUOUS_PICTURE,
+            null,
+            false));
+  }
+
+  @Test
+  public void isConverged_acceptsPassiveFocusOnlyInContinuousPictureMode() {
+    assertTrue(
+        CameraCaptureCallback.isConverged(
+            CaptureResult.CONTROL_AE_STATE_CONVERGED,
+            CaptureResult.CONTROL_AF_MODE_CONTINUOUS_PICTURE,
+            CaptureResult.CONTROL_AF_STATE_PASSIVE_FOCUSED,
+            false));
+    assertFalse(
+        CameraCaptureCallback.isConverged(
+            CaptureResult.CONTROL_AE_STATE_CONVERGED,
+            CaptureResult.CONTROL_AF_MODE_CONTINUOUS_VIDEO,
+            CaptureResult.CONTROL_AF_STATE_PASSIVE_FOCUSED,
+            false));
+    assertFalse(
+        CameraCaptureCallback.isConverged(
+            CaptureResult.CONTROL_AE_STATE_CONVERGED,
+            null,
+            CaptureResult.CONTROL_AF_STATE_PASSIVE_FOCUSED,
+            false));
+    assertFalse(
+        CameraCaptureCallback.isConverged(
+            CaptureResult.CONTROL_AE_STATE_CONVERGED,
+            CaptureResult.CONTROL_AF_MODE_CONTINUOUS_PICTURE,
+            CaptureResult.CONTROL_AF_STATE_PASSIVE_SCAN,
+            false));
+  }
+
+  @Test
+  public void isConverged_rejectsFocusThatLockedOutOfFocus() {
+    assertFalse(
+        CameraCaptureCallback.isConverged(
+            CaptureResult.CONTROL_AE_STATE_CONVERGED,
+            CaptureResult.CONTROL_AF_MODE_AUTO,
+            CaptureResult.CONTROL_AF_STATE_NOT_FOCUSED_LOCKED,
+            false));
+  }
 }
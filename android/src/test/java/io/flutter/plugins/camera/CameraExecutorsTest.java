@@ -0,0 +1,59 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class CameraExecutorsTest {
+  private CameraExecutors executors;
+
+  @Before
+  public void setUp() {
+    executors = new CameraExecutors(2, Runnable::run, 3, 4);
+  }
+
+  @After
+  public void tearDown() {
+    executors.shutdown(1000);
+  }
+
+  @Test
+  public void getStats_reportsThreadCounts() {
+    Map<String, Object> stats = executors.getStats();
+
+    assertEquals(1, stats.get("controlThreads"));
+    assertEquals(2, stats.get("analysisThreads"));
+    assertEquals(3, stats.get("ioThreads"));
+    assertEquals(false, stats.get("shutDown"));
+  }
+
+  @Test
+  public void shutdown_stopsAllThreads() {
+    executors.shutdown(1000);
+
+    assertTrue(executors.isShutDown());
+    assertEquals(0, executors.getStats().get("controlThreads"));
+    assertFalse(executors.getIoExecutor().execute(() -> {}));
+    assertEquals(-1, executors.getAnalysisExecutor().reserve());
+  }
+
+  @Test
+  public void shutdown_canBeCalledTwice() {
+    executors.shutdown(1000);
+    executors.shutdown(1000);
+
+    assertTrue(executors.isShutDown());
+  }
+}
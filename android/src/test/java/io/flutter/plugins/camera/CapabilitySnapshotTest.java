@@ -0,0 +1,82 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraMetadata;
+import android.util.Size;
+import io.flutter.plugins.camera.features.resolution.ResolutionChoice;
+import io.flutter.plugins.camera.features.resolution.ResolutionPreset;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class CapabilitySnapshotTest {
+  @Test
+  public void readFrom_restoresWrittenTables() throws IOException {
+    CapabilitySnapshot snapshot = new CapabilitySnapshot("fingerprint");
+    CapabilitySnapshot.CameraEntry camera =
+        new CapabilitySnapshot.CameraEntry(
+            "0", CameraMetadata.LENS_FACING_BACK, 90, new int[] {15, 30, 30, 30});
+    camera.outputSizes.put(
+        ImageFormat.JPEG, new Size[] {new Size(4000, 3000), new Size(640, 480)});
+    camera.resolutions.put(
+        ResolutionPreset.high, new ResolutionChoice(5, new Size(1280, 720), new Size(4000, 3000)));
+    snapshot.putCamera(camera);
+
+    CapabilitySnapshot read =
+        CapabilitySnapshot.readFrom(new ByteArrayInputStream(write(snapshot)), "fingerprint");
+
+    assertNotNull(read);
+    assertArrayEquals(new String[] {"0"}, read.getCameraIds());
+    CapabilitySnapshot.CameraEntry readCamera = read.getCamera("0");
+    assertEquals(CameraMetadata.LENS_FACING_BACK, readCamera.lensFacing);
+    assertEquals(90, readCamera.sensorOrientation);
+    assertArrayEquals(new int[] {15, 30, 30, 30}, readCamera.fpsRanges);
+    assertArrayEquals(
+        new Size[] {new Size(4000, 3000), new Size(640, 480)},
+        readCamera.outputSizes.get(ImageFormat.JPEG));
+    ResolutionChoice choice = readCamera.resolutions.get(ResolutionPreset.high);
+    assertEquals(5, choice.getProfileQuality());
+    assertEquals(new Size(1280, 720), choice.getPreviewSize());
+    assertEquals(new Size(4000, 3000), choice.getCaptureSize());
+  }
+
+  @Test
+  public void readFrom_ignoresSnapshotOfAnotherBuild() throws IOException {
+    byte[] bytes = write(new CapabilitySnapshot("old-fingerprint"));
+
+    assertNull(CapabilitySnapshot.readFrom(new ByteArrayInputStream(bytes), "new-fingerprint"));
+  }
+
+  @Test
+  public void readFrom_ignoresSnapshotOfAnotherFormatVersion() throws IOException {
+    byte[] bytes = write(new CapabilitySnapshot("fingerprint"));
+    // The format version follows the magic number.
+    bytes[7] = (byte) (CapabilitySnapshot.FORMAT_VERSION + 1);
+
+    assertNull(CapabilitySnapshot.readFrom(new ByteArrayInputStream(bytes), "fingerprint"));
+  }
+
+  @Test(expected = IOException.class)
+  public void readFrom_rejectsOtherFiles() throws IOException {
+    CapabilitySnapshot.readFrom(new ByteArrayInputStream(new byte[] {1, 2, 3, 4}), "fingerprint");
+  }
+
+  private static byte[] write(CapabilitySnapshot snapshot) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    snapshot.writeTo(output);
+    return output.toByteArray();
+  }
+}
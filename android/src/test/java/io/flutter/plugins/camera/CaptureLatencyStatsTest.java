@@ -0,0 +1,62 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import org.junit.Test;
+
+public class CaptureLatencyStatsTest {
+  @Test
+  public void captureTimings_reportsOnlyMarkedPhasesSinceRequest() {
+    CaptureTimings timings = new CaptureTimings(1_000_000L);
+    timings.mark(CaptureTimings.STILL_CAPTURE_SUBMITTED, 3_000_000L);
+    timings.mark(CaptureTimings.FILE_WRITTEN, 41_000_000L);
+
+    Map<String, Object> map = timings.toMap();
+
+    assertEquals(0L, map.get("requestReceived"));
+    assertEquals(2_000L, map.get("stillCaptureSubmitted"));
+    assertEquals(40_000L, map.get("fileWritten"));
+    assertFalse(map.containsKey("afLockStart"));
+    assertEquals(-1, timings.getElapsedNanos(CaptureTimings.PRECAPTURE_DONE));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getStats_computesPercentilesOverWindow() {
+    CaptureLatencyStats stats = new CaptureLatencyStats(10);
+    // The first two pictures fall out of the window.
+    for (int i = -1; i <= 10; i++) {
+      CaptureTimings timings = new CaptureTimings(0L);
+      timings.mark(CaptureTimings.FILE_WRITTEN, Math.max(i, 1) * 1_000_000L);
+      stats.record(timings);
+    }
+
+    Map<String, Object> result = stats.getStats();
+    Map<String, Object> phases = (Map<String, Object>) result.get("phases");
+    Map<String, Object> fileWritten = (Map<String, Object>) phases.get("fileWritten");
+
+    assertEquals(12L, result.get("recordedCaptures"));
+    assertEquals(10, result.get("windowSize"));
+    assertEquals(10, fileWritten.get("count"));
+    assertEquals(5_000L, fileWritten.get("p50Micros"));
+    assertEquals(9_000L, fileWritten.get("p90Micros"));
+    assertEquals(10_000L, fileWritten.get("p99Micros"));
+    assertFalse(phases.containsKey("afLockDone"));
+    assertFalse(phases.containsKey("requestReceived"));
+  }
+
+  @Test
+  public void getStats_isEmptyWithoutPictures() {
+    Map<String, Object> result = new CaptureLatencyStats(4).getStats();
+
+    assertEquals(0L, result.get("recordedCaptures"));
+    assertTrue(((Map<?, ?>) result.get("phases")).isEmpty());
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.media.Image;
+import io.flutter.plugin.common.EventChannel;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class FrameProcessorRunnerTest {
+  private EventChannel.EventSink mockSink;
+  private Image mockImage;
+  private FrameProcessorRunner runner;
+
+  @Before
+  public void setUp() {
+    mockSink = mock(EventChannel.EventSink.class);
+    mockImage = mock(Image.class);
+    when(mockImage.getTimestamp()).thenReturn(42L);
+    runner = new FrameProcessorRunner();
+  }
+
+  @After
+  public void tearDown() {
+    FrameProcessorRegistry.unregister("test");
+  }
+
+  @Test
+  public void open_andClose_invokeLifecycleHooks() {
+    FrameProcessor mockProcessor = mock(FrameProcessor.class);
+    FrameProcessorRegistry.register("test", mockProcessor);
+
+    runner.open("0", 640, 480, 35);
+    runner.close();
+
+    verify(mockProcessor, times(1)).onCameraOpened("0", 640, 480, 35);
+    verify(mockProcessor, times(1)).onCameraClosed();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void start_throwsForUnknownProcessor() {
+    runner.start(Collections.singletonList("unknown"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void process_returnsDeliveryOfResultWithFrameTimestamp() {
+    FrameProcessorRegistry.register("test", image -> 0.5);
+    runner.start(Collections.singletonList("test"));
+    runner.setResultSink(mockSink);
+
+    Runnable delivery = runner.process(mockImage);
+    verify(mockSink, never()).success(any());
+    delivery.run();
+
+    ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+    verify(mockSink, times(1)).success(eventCaptor.capture());
+    Map<String, Object> event = (Map<String, Object>) eventCaptor.getValue();
+    assertEquals("test", event.get("processor"));
+    assertEquals(42L, event.get("timestamp"));
+    assertEquals(0.5, event.get("result"));
+  }
+
+  @Test
+  public void process_returnsNoDeliveryForNullResult() {
+    FrameProcessorRegistry.register("test", image -> null);
+    runner.start(Collections.singletonList("test"));
+    runner.setResultSink(mockSink);
+
+    assertNull(runner.process(mockImage));
+  }
+
+  @Test
+  public void process_doesNotDeliverToCancelledSink() {
+    FrameProcessorRegistry.register("test", image -> 0.5);
+    runner.start(Collections.singletonList("test"));
+    runner.setResultSink(mockSink);
+
+    Runnable delivery = runner.process(mockImage);
+    runner.setResultSink(null);
+    delivery.run();
+
+    verify(mockSink, never()).success(any());
+  }
+
+  @Test
+  public void process_doesNotRunProcessorsAfterStop() {
+    FrameProcessor mockProcessor = mock(FrameProcessor.class);
+    FrameProcessorRegistry.register("test", mockProcessor);
+    runner.start(Collections.singletonList("test"));
+    runner.setResultSink(mockSink);
+    assertTrue(runner.isActive());
+
+    runner.stop();
+    runner.process(mockImage);
+
+    assertFalse(runner.isActive());
+    verify(mockProcessor, never()).process(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void process_skipsProcessorAfterItRanOverBudget() {
+    FrameProcessor slowProcessor =
+        image -> {
+          try {
+            Thread.sleep(5);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return null;
+        };
+    FrameProcessorRegistry.register("test", slowProcessor, 1000);
+    runner.start(Collections.singletonList("test"));
+    runner.setResultSink(mockSink);
+
+    runner.process(mockImage);
+    runner.process(mockImage);
+
+    Map<String, Object> stats = (Map<String, Object>) runner.getStats().get("test");
+    assertEquals(1L, stats.get("processedFrames"));
+    assertEquals(1L, stats.get("overBudgetFrames"));
+    assertEquals(1L, stats.get("skippedFrames"));
+  }
+}
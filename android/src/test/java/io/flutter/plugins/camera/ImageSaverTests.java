@@ -4,8 +4,14 @@
 
 package io.flutter.plugins.camera;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
@@ -14,13 +20,16 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.media.Image;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.MockedStatic;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -32,9 +41,10 @@ public class ImageSaverTests {
   ImageSaver.Callback mockCallback;
   ImageSaver imageSaver;
   Image.Plane mockPlane;
-  ByteBuffer mockBuffer;
+  ByteBuffer buffer;
   MockedStatic<ImageSaver.FileOutputStreamFactory> mockFileOutputStreamFactory;
-  FileOutputStream mockFileOutputStream;
+  FileChannel mockFileChannel;
+  ByteArrayOutputStream writtenBytes;
 
   @Before
   public void setup() {
@@ -42,36 +52,41 @@ public class ImageSaverTests {
     mockFile = mock(File.class);
     when(mockFile.getAbsolutePath()).thenReturn("absolute/path");
     mockPlane = mock(Image.Plane.class);
-    mockBuffer = mock(ByteBuffer.class);
-    when(mockBuffer.remaining()).thenReturn(3);
-    when(mockBuffer.get(any()))
-        .thenAnswer(
-            new Answer<Object>() {
-              @Override
-              public Object answer(InvocationOnMock invocation) throws Throwable {
-                byte[] bytes = invocation.getArgument(0);
-                bytes[0] = 0x42;
-                bytes[1] = 0x00;
-                bytes[2] = 0x13;
-                return mockBuffer;
-              }
-            });
+    buffer = ByteBuffer.wrap(new byte[] {0x42, 0x00, 0x13});
 
     // Set up mocked image dependency
     mockImage = mock(Image.class);
-    when(mockPlane.getBuffer()).thenReturn(mockBuffer);
+    when(mockPlane.getBuffer()).thenReturn(buffer);
     when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {mockPlane});
 
-    // Set up mocked FileOutputStream
+    // Set up mocked FileChannel, which writes at most two bytes at a time
     mockFileOutputStreamFactory = mockStatic(ImageSaver.FileOutputStreamFactory.class);
-    mockFileOutputStream = mock(FileOutputStream.class);
+    mockFileChannel = mock(FileChannel.class);
+    writtenBytes = new ByteArrayOutputStream();
+    try {
+      when(mockFileChannel.write(any(ByteBuffer.class)))
+          .thenAnswer(
+              new Answer<Object>() {
+                @Override
+                public Object answer(InvocationOnMock invocation) throws Throwable {
+                  ByteBuffer source = invocation.getArgument(0);
+                  int length = Math.min(2, source.remaining());
+                  for (int i = 0; i < length; i++) {
+                    writtenBytes.write(source.get());
+                  }
+                  return length;
+                }
+              });
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
     mockFileOutputStreamFactory
-        .when(() -> ImageSaver.FileOutputStreamFactory.create(any()))
-        .thenReturn(mockFileOutputStream);
+        .when(() -> ImageSaver.FileOutputStreamFactory.createChannel(any()))
+        .thenReturn(mockFileChannel);
 
     // Set up testable ImageSaver instance
     mockCallback = mock(ImageSaver.Callback.class);
-    imageSaver = new ImageSaver(mockImage, mockFile, mockCallback);
+    imageSaver = new ImageSaver(mockImage, mockFile, mockCallback, false);
   }
 
   @After
@@ -83,14 +98,153 @@ public class ImageSaverTests {
   public void runWritesBytesToFileAndFinishesWithPath() throws IOException {
     imageSaver.run();
 
-    verify(mockFileOutputStream, times(1)).write(new byte[] {0x42, 0x00, 0x13});
+    assertArrayEquals(new byte[] {0x42, 0x00, 0x13}, writtenBytes.toByteArray());
+    verify(mockFileChannel, never()).force(anyBoolean());
     verify(mockCallback, times(1)).onComplete("absolute/path");
     verify(mockCallback, never()).onError(any(), any());
+    verify(mockImage, times(1)).close();
+  }
+
+  @Test
+  public void runForcesFileToDiskBeforeFinishingWhenSyncing() throws IOException {
+    imageSaver =
+        new ImageSaver(
+            JpegPicture.of(mockImage),
+            mockFile,
+            mockCallback,
+            new ImageSaver.Options().setSyncToDisk(true));
+
+    imageSaver.run();
+
+    InOrder inOrder = inOrder(mockFileChannel, mockCallback);
+    inOrder.verify(mockFileChannel, times(1)).force(false);
+    inOrder.verify(mockCallback, times(1)).onComplete("absolute/path");
+  }
+
+  @Test
+  public void runStartsThumbnailBeforeWritingAndDoesNotWaitForIt() throws IOException {
+    PictureThumbnailer mockThumbnailer = mock(PictureThumbnailer.class);
+    imageSaver =
+        new ImageSaver(
+            JpegPicture.of(mockImage),
+            mockFile,
+            mockCallback,
+            new ImageSaver.Options().setThumbnailer(mockThumbnailer));
+
+    imageSaver.run();
+
+    InOrder inOrder = inOrder(mockThumbnailer, mockFileChannel, mockCallback);
+    inOrder.verify(mockThumbnailer, times(1)).start(eq(buffer), any(Runnable.class));
+    inOrder.verify(mockFileChannel, times(2)).write(buffer);
+    inOrder.verify(mockCallback, times(1)).onComplete("absolute/path");
+    inOrder.verify(mockThumbnailer, times(1)).run();
+  }
+
+  @Test
+  public void runKeepsImageOpenUntilThumbnailReleasesIt() {
+    PictureThumbnailer mockThumbnailer = mock(PictureThumbnailer.class);
+    imageSaver =
+        new ImageSaver(
+            JpegPicture.of(mockImage),
+            mockFile,
+            mockCallback,
+            new ImageSaver.Options().setThumbnailer(mockThumbnailer));
+
+    imageSaver.run();
+
+    ArgumentCaptor<Runnable> onPictureReleased = ArgumentCaptor.forClass(Runnable.class);
+    verify(mockThumbnailer).start(eq(buffer), onPictureReleased.capture());
+    verify(mockCallback, times(1)).onComplete("absolute/path");
+    verify(mockImage, never()).close();
+
+    onPictureReleased.getValue().run();
+
+    verify(mockImage, times(1)).close();
+  }
+
+  @Test
+  public void runCropsSquareImagesWithJpegQuality() {
+    imageSaver =
+        new ImageSaver(
+            JpegPicture.of(mockImage),
+            mockFile,
+            mockCallback,
+            new ImageSaver.Options().setSquare(true).setJpegQuality(80));
+    try (MockedStatic<SquareCropper> mockSquareCropper = mockStatic(SquareCropper.class)) {
+      imageSaver.run();
+
+      mockSquareCropper.verify(() -> SquareCropper.crop(eq(buffer), eq(80), any()));
+    }
+    verify(mockCallback, times(1)).onComplete("absolute/path");
+  }
+
+  @Test
+  public void runScalesDownImagesLargerThanMaxDimension() {
+    when(mockImage.getWidth()).thenReturn(4032);
+    when(mockImage.getHeight()).thenReturn(3024);
+    imageSaver =
+        new ImageSaver(
+            JpegPicture.of(mockImage),
+            mockFile,
+            mockCallback,
+            new ImageSaver.Options().setJpegQuality(80).setMaxDimension(2048));
+    try (MockedStatic<PictureResizer> mockPictureResizer =
+        mockStatic(PictureResizer.class, CALLS_REAL_METHODS)) {
+      mockPictureResizer
+          .when(() -> PictureResizer.resize(eq(buffer), eq(false), eq(2048), eq(80), any()))
+          .thenAnswer(invocation -> null);
+
+      imageSaver.run();
+
+      mockPictureResizer.verify(
+          () -> PictureResizer.resize(eq(buffer), eq(false), eq(2048), eq(80), any()));
+    }
+    verify(mockCallback, times(1)).onComplete("absolute/path");
+  }
+
+  @Test
+  public void runCallsErrorWhenResizeThrowsRuntimeException() {
+    when(mockImage.getWidth()).thenReturn(4032);
+    when(mockImage.getHeight()).thenReturn(3024);
+    imageSaver =
+        new ImageSaver(
+            JpegPicture.of(mockImage),
+            mockFile,
+            mockCallback,
+            new ImageSaver.Options().setJpegQuality(80).setMaxDimension(2048));
+    try (MockedStatic<PictureResizer> mockPictureResizer =
+        mockStatic(PictureResizer.class, CALLS_REAL_METHODS)) {
+      mockPictureResizer
+          .when(() -> PictureResizer.resize(any(), anyBoolean(), anyInt(), anyInt(), any()))
+          .thenThrow(new IllegalArgumentException("bad region"));
+
+      imageSaver.run();
+    }
+    verify(mockCallback, times(1)).onError("IOError", "Failed saving image");
+    verify(mockCallback, never()).onComplete(any());
+    verify(mockImage, times(1)).close();
+  }
+
+  @Test
+  public void runWritesImagesThatFitMaxDimensionDirectly() {
+    when(mockImage.getWidth()).thenReturn(1920);
+    when(mockImage.getHeight()).thenReturn(1080);
+    imageSaver =
+        new ImageSaver(
+            JpegPicture.of(mockImage),
+            mockFile,
+            mockCallback,
+            new ImageSaver.Options().setJpegQuality(80).setMaxDimension(2048));
+
+    imageSaver.run();
+
+    assertArrayEquals(new byte[] {0x42, 0x00, 0x13}, writtenBytes.toByteArray());
+    verify(mockCallback, times(1)).onComplete("absolute/path");
   }
 
   @Test
   public void runCallsErrorOnWriteIoexception() throws IOException {
-    doThrow(new IOException()).when(mockFileOutputStream).write(any());
+    doThrow(new IOException()).when(mockFileChannel).write(any(ByteBuffer.class));
     imageSaver.run();
     verify(mockCallback, times(1)).onError("IOError", "Failed saving image");
     verify(mockCallback, never()).onComplete(any());
@@ -98,7 +252,7 @@ public class ImageSaverTests {
 
   @Test
   public void runCallsErrorOnCloseIoexception() throws IOException {
-    doThrow(new IOException("message")).when(mockFileOutputStream).close();
+    doThrow(new IOException("message")).when(mockFileChannel).close();
     imageSaver.run();
     verify(mockCallback, times(1)).onError("cameraAccess", "message");
   }
@@ -0,0 +1,108 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+public class JpegExifTest {
+  // Start of image, an APP0 segment with two bytes of data, start of scan and end of image.
+  private static final byte[] JPEG = {
+    (byte) 0xFF, (byte) 0xD8,
+    (byte) 0xFF, (byte) 0xE0, 0, 4, 1, 2,
+    (byte) 0xFF, (byte) 0xDA, 0, 2,
+    (byte) 0xFF, (byte) 0xD9
+  };
+
+  @Test
+  public void writeWithOrientation_addsExifSegmentThatCanBeRead() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    JpegExif.writeWithOrientation(JPEG, 6, output);
+
+    byte[] written = output.toByteArray();
+    assertEquals(JPEG.length + 36, written.length);
+    assertEquals(6, JpegExif.readOrientation(written, 0, written.length));
+  }
+
+  @Test
+  public void writeWithOrientation_writesPictureUnchangedForNormalOrientation() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    JpegExif.writeWithOrientation(JPEG, JpegExif.ORIENTATION_NORMAL, output);
+
+    assertArrayEquals(JPEG, output.toByteArray());
+  }
+
+  @Test(expected = IOException.class)
+  public void writeWithOrientation_throwsForNonJpeg() throws IOException {
+    JpegExif.writeWithOrientation(new byte[] {1, 2, 3}, 6, new ByteArrayOutputStream());
+  }
+
+  @Test
+  public void readOrientation_readsLittleEndianExifAfterOtherSegments() {
+    byte[] jpeg = {
+      0, (byte) 0xFF, (byte) 0xD8,
+      (byte) 0xFF, (byte) 0xE0, 0, 4, 1, 2,
+      (byte) 0xFF, (byte) 0xE1, 0, 42,
+      'E', 'x', 'i', 'f', 0, 0,
+      'I', 'I', 42, 0, 8, 0, 0, 0,
+      2, 0,
+      0x10, 0x01, 2, 0, 4, 0, 0, 0, 'a', 'b', 'c', 0,
+      0x12, 0x01, 3, 0, 1, 0, 0, 0, 8, 0, 0, 0,
+      (byte) 0xFF, (byte) 0xDA, 0, 2
+    };
+
+    assertEquals(8, JpegExif.readOrientation(jpeg, 1, jpeg.length - 1));
+  }
+
+  @Test
+  public void readOrientation_returnsUndefinedWithoutExif() {
+    assertEquals(JpegExif.ORIENTATION_UNDEFINED, JpegExif.readOrientation(JPEG, 0, JPEG.length));
+  }
+
+  @Test
+  public void readOrientation_returnsUndefinedForTruncatedSegment() {
+    byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE1, 0, 40, 'E', 'x'};
+
+    assertEquals(JpegExif.ORIENTATION_UNDEFINED, JpegExif.readOrientation(jpeg, 0, jpeg.length));
+  }
+
+  @Test
+  public void findThumbnail_findsThumbnailInSecondIfd() {
+    byte[] jpeg = {
+      (byte) 0xFF, (byte) 0xD8,
+      (byte) 0xFF, (byte) 0xE1, 0, 68,
+      'E', 'x', 'i', 'f', 0, 0,
+      'M', 'M', 0, 42, 0, 0, 0, 8,
+      0, 1,
+      0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, 6, 0, 0,
+      0, 0, 0, 26,
+      0, 2,
+      0x02, 0x01, 0, 4, 0, 0, 0, 1, 0, 0, 0, 56,
+      0x02, 0x02, 0, 4, 0, 0, 0, 1, 0, 0, 0, 4,
+      0, 0, 0, 0,
+      (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xD9,
+      (byte) 0xFF, (byte) 0xDA, 0, 2
+    };
+
+    assertArrayEquals(new int[] {68, 4}, JpegExif.findThumbnail(jpeg, 0, jpeg.length));
+    assertEquals(6, JpegExif.readOrientation(jpeg, 0, jpeg.length));
+  }
+
+  @Test
+  public void findThumbnail_returnsNullWithoutSecondIfd() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    JpegExif.writeWithOrientation(JPEG, 6, output);
+
+    byte[] jpeg = output.toByteArray();
+    assertNull(JpegExif.findThumbnail(jpeg, 0, jpeg.length));
+  }
+}
@@ -4,18 +4,25 @@
 
 package io.flutter.plugins.camera;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import android.app.Activity;
 import android.hardware.camera2.CameraAccessException;
 import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugins.camera.utils.TestUtils;
 import io.flutter.view.TextureRegistry;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -33,8 +40,7 @@ public class MethodCallHandlerImplTest {
             mock(BinaryMessenger.class),
             mock(CameraPermissions.class),
             mock(CameraPermissions.PermissionsRegistry.class),
-            mock(TextureRegistry.class),
-            null);
+            mock(TextureRegistry.class));
     mockResult = mock(MethodChannel.Result.class);
     mockCamera = mock(Camera.class);
     TestUtils.setPrivateField(handler, "camera", mockCamera);
@@ -66,4 +72,74 @@ public class MethodCallHandlerImplTest {
     verify(mockCamera, times(1)).resumePreview();
     verify(mockResult, times(1)).success(null);
   }
+
+  @Test
+  public void onMethodCall_getImageStreamStats_shouldSendStatsAsResult() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("deliveredFrames", 10L);
+    stats.put("droppedFrames", 2L);
+    when(mockCamera.getImageStreamStats()).thenReturn(stats);
+
+    handler.onMethodCall(new MethodCall("getImageStreamStats", null), mockResult);
+
+    verify(mockResult, times(1)).success(stats);
+  }
+
+  @Test
+  public void onMethodCall_startImageStream_shouldSendErrorResultOnInvalidOptions() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("maxFramesInFlight", 0);
+
+    handler.onMethodCall(new MethodCall("startImageStream", arguments), mockResult);
+
+    verify(mockResult, times(1))
+        .error("startImageStreamFailed", "maxFramesInFlight must be at least 1.", null);
+  }
+
+  @Test
+  public void onMethodCall_startFrameProcessors_shouldStartProcessorsAndSendSuccessResult()
+      throws CameraAccessException {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("processors", Collections.singletonList("sharpness"));
+
+    handler.onMethodCall(new MethodCall("startFrameProcessors", arguments), mockResult);
+
+    verify(mockCamera, times(1))
+        .startFrameProcessors(any(EventChannel.class), eq(Collections.singletonList("sharpness")));
+    verify(mockResult, times(1)).success(null);
+  }
+
+  @Test
+  public void onMethodCall_startFrameProcessors_shouldSendErrorResultForUnknownProcessor()
+      throws CameraAccessException {
+    doThrow(new IllegalArgumentException("No frame processor registered as unknown"))
+        .when(mockCamera)
+        .startFrameProcessors(any(EventChannel.class), any());
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("processors", Collections.singletonList("unknown"));
+
+    handler.onMethodCall(new MethodCall("startFrameProcessors", arguments), mockResult);
+
+    verify(mockResult, times(1))
+        .error("startFrameProcessorsFailed", "No frame processor registered as unknown", null);
+  }
+
+  @Test
+  public void stopListening_shouldClearHandlersOfEventChannels() {
+    BinaryMessenger mockMessenger = mock(BinaryMessenger.class);
+    MethodCallHandlerImpl handlerImpl =
+        new MethodCallHandlerImpl(
+            mock(Activity.class),
+            mockMessenger,
+            mock(CameraPermissions.class),
+            mock(CameraPermissions.PermissionsRegistry.class),
+            mock(TextureRegistry.class));
+
+    handlerImpl.stopListening();
+
+    verify(mockMessenger, times(1))
+        .setMessageHandler("plugins.flutter.io/camera/frameProcessorResults", null);
+    verify(mockMessenger, times(1))
+        .setMessageHandler("plugins.flutter.io/camera/pictureThumbnails", null);
+  }
 }
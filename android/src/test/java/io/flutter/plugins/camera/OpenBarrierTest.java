@@ -0,0 +1,100 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OpenBarrierTest {
+  private List<Runnable> posted;
+  private List<String> ran;
+  private OpenBarrier barrier;
+
+  @Before
+  public void setUp() {
+    posted = new ArrayList<>();
+    ran = new ArrayList<>();
+    barrier = new OpenBarrier(posted::add);
+  }
+
+  @Test
+  public void onDeviceCallback_holdsCallbacksUntilOutputsAreReady() {
+    barrier.onDeviceCallback(() -> ran.add("opened"));
+    barrier.onDeviceCallback(() -> ran.add("disconnected"));
+    assertTrue(posted.isEmpty());
+    assertFalse(barrier.isOutputsReady());
+
+    barrier.onOutputsReady();
+    runPosted();
+
+    assertTrue(barrier.isOutputsReady());
+    assertEquals(Arrays.asList("opened", "disconnected"), ran);
+  }
+
+  @Test
+  public void onDeviceCallback_postsCallbacksOnceOutputsAreReady() {
+    barrier.onOutputsReady();
+
+    barrier.onDeviceCallback(() -> ran.add("opened"));
+    runPosted();
+
+    assertEquals(Arrays.asList("opened"), ran);
+  }
+
+  @Test
+  public void onOutputsReady_postsHeldCallbacksOnlyOnce() {
+    barrier.onDeviceCallback(() -> ran.add("opened"));
+
+    barrier.onOutputsReady();
+    barrier.onOutputsReady();
+    runPosted();
+
+    assertEquals(Arrays.asList("opened"), ran);
+  }
+
+  @Test
+  public void onOutputsFailed_runsHeldCallbacksWithTheError() {
+    IllegalArgumentException error = new IllegalArgumentException("Unsupported size");
+    barrier.onDeviceCallback(
+        () -> ran.add(barrier.getOutputsError() == null ? "preview" : "close"));
+
+    barrier.onOutputsFailed(error);
+    barrier.onOutputsReady();
+    runPosted();
+
+    assertEquals(Arrays.asList("close"), ran);
+    assertEquals(error, barrier.getOutputsError());
+    assertFalse(barrier.isOutputsReady());
+  }
+
+  @Test
+  public void cameraOpenTimings_keepsFirstMarkOfEveryPhase() {
+    CameraOpenTimings timings = new CameraOpenTimings(1_000_000L);
+    assertTrue(timings.mark(CameraOpenTimings.SESSION_CONFIGURED, 5_000_000L));
+    assertFalse(timings.mark(CameraOpenTimings.SESSION_CONFIGURED, 9_000_000L));
+
+    Map<String, Object> map = timings.toMap();
+
+    assertEquals(0L, map.get("openRequested"));
+    assertEquals(4_000L, map.get("sessionConfigured"));
+    assertFalse(map.containsKey("firstFrame"));
+    assertEquals(-1, timings.getElapsedNanos(CameraOpenTimings.DEVICE_OPENED));
+  }
+
+  private void runPosted() {
+    for (Runnable runnable : posted) {
+      runnable.run();
+    }
+    posted.clear();
+  }
+}
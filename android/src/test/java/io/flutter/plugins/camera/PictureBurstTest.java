@@ -0,0 +1,114 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PictureBurstTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private PictureBurst.Callback mockCallback;
+  private PictureBurst burst;
+
+  @Before
+  public void setUp() {
+    mockCallback = mock(PictureBurst.Callback.class);
+    File[] files =
+        new File[] {new File("/tmp/0.jpg"), new File("/tmp/1.jpg"), new File("/tmp/2.jpg")};
+    burst = new PictureBurst(files, mockCallback);
+  }
+
+  @Test
+  public void onImageCaptured_matchesRequestBySensorTimestamp() {
+    burst.onCaptureStarted(0, 100L);
+    burst.onCaptureStarted(1, 200L);
+    burst.onCaptureStarted(2, 300L);
+
+    assertEquals(2, burst.onImageCaptured(300L));
+    assertEquals(0, burst.onImageCaptured(100L));
+    assertFalse(burst.isCaptureDone());
+    assertEquals(1, burst.onImageCaptured(200L));
+    assertTrue(burst.isCaptureDone());
+  }
+
+  @Test
+  public void onImageCaptured_fallsBackToRequestOrderWithoutStartedCapture() {
+    burst.onCaptureStarted(1, 200L);
+
+    assertEquals(1, burst.onImageCaptured(200L));
+    assertEquals(0, burst.onImageCaptured(150L));
+    assertEquals(2, burst.onImageCaptured(250L));
+    assertEquals(-1, burst.onImageCaptured(350L));
+  }
+
+  @Test
+  public void onSaved_completesWithPathsInRequestOrderWhenAllAreSaved() {
+    burst.onSaved(2);
+    burst.onSaved(0);
+    verify(mockCallback, never()).onComplete(any());
+
+    burst.onSaved(1);
+
+    verify(mockCallback, times(1))
+        .onComplete(Arrays.asList("/tmp/0.jpg", "/tmp/1.jpg", "/tmp/2.jpg"));
+  }
+
+  @Test
+  public void onCaptureFailed_failsBurstOnce() {
+    burst.onCaptureFailed(0, 1);
+    burst.onCaptureFailed(1, 1);
+    burst.onSaved(2);
+
+    verify(mockCallback, times(1)).onError(eq("burstCaptureFailed"), anyString());
+    verify(mockCallback, never()).onComplete(any());
+  }
+
+  @Test
+  public void onCaptureFailed_countsAsCaptured() {
+    assertEquals(0, burst.onImageCaptured(100L));
+    assertEquals(1, burst.onImageCaptured(200L));
+    burst.onCaptureFailed(2, 0);
+
+    assertTrue(burst.isCaptureDone());
+  }
+
+  @Test
+  public void onCaptureFailed_deletesFilesOfFailedBurst() throws IOException {
+    File[] files =
+        new File[] {
+          temporaryFolder.newFile("0.jpg"), temporaryFolder.newFile("1.jpg"),
+          temporaryFolder.newFile("2.jpg")
+        };
+    burst = new PictureBurst(files, mockCallback);
+
+    burst.onSaved(0);
+    burst.onCaptureFailed(1, 0);
+    assertFalse(files[0].exists());
+    assertFalse(files[1].exists());
+    assertTrue(files[2].exists());
+
+    burst.onSaved(2);
+
+    assertFalse(files[2].exists());
+    verify(mockCallback, never()).onComplete(any());
+  }
+}
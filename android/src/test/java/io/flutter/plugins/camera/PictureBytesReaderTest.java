@@ -0,0 +1,94 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.media.Image;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class PictureBytesReaderTest {
+  private Image mockImage;
+  private ByteBuffer buffer;
+  private PictureBytesReader.Callback mockCallback;
+
+  @Before
+  public void setUp() {
+    buffer = ByteBuffer.wrap(new byte[] {0x42, 0x00, 0x13});
+    Image.Plane mockPlane = mock(Image.Plane.class);
+    when(mockPlane.getBuffer()).thenReturn(buffer);
+    mockImage = mock(Image.class);
+    when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {mockPlane});
+    mockCallback = mock(PictureBytesReader.Callback.class);
+  }
+
+  @Test
+  public void run_returnsJpegBytesAndClosesImage() {
+    new PictureBytesReader(mockImage, mockCallback, false, 95).run();
+
+    verify(mockCallback, times(1)).onComplete(new byte[] {0x42, 0x00, 0x13});
+    verify(mockImage, times(1)).close();
+  }
+
+  @Test
+  public void run_returnsCroppedBytesForSquarePictures() {
+    try (MockedStatic<SquareCropper> mockSquareCropper = mockStatic(SquareCropper.class)) {
+      mockSquareCropper
+          .when(() -> SquareCropper.crop(eq(buffer), eq(80), any()))
+          .thenAnswer(
+              invocation -> {
+                OutputStream output = invocation.getArgument(2);
+                output.write(new byte[] {1, 2});
+                return null;
+              });
+
+      new PictureBytesReader(mockImage, mockCallback, true, 80).run();
+    }
+
+    verify(mockCallback, times(1)).onComplete(new byte[] {1, 2});
+  }
+
+  @Test
+  public void run_reportsErrorWhenCropFails() {
+    try (MockedStatic<SquareCropper> mockSquareCropper = mockStatic(SquareCropper.class)) {
+      mockSquareCropper
+          .when(() -> SquareCropper.crop(any(), eq(80), any()))
+          .thenThrow(new IOException("broken"));
+
+      new PictureBytesReader(mockImage, mockCallback, true, 80).run();
+    }
+
+    verify(mockCallback, times(1)).onError("IOError", "Failed reading image");
+    verify(mockCallback, never()).onComplete(any());
+    verify(mockImage, times(1)).close();
+  }
+
+  @Test
+  public void run_reportsErrorWhenCropThrowsRuntimeException() {
+    try (MockedStatic<SquareCropper> mockSquareCropper = mockStatic(SquareCropper.class)) {
+      mockSquareCropper
+          .when(() -> SquareCropper.crop(any(), eq(80), any()))
+          .thenThrow(new IllegalArgumentException("bad region"));
+
+      new PictureBytesReader(mockImage, mockCallback, true, 80).run();
+    }
+
+    verify(mockCallback, times(1)).onError("IOError", "Failed reading image");
+    verify(mockCallback, never()).onComplete(any());
+    verify(mockImage, times(1)).close();
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import io.flutter.plugin.common.MethodChannel;
+import java.io.File;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PictureQueueTest {
+  private PictureQueue queue;
+
+  @Before
+  public void setUp() {
+    queue = new PictureQueue(2);
+  }
+
+  @Test
+  public void offer_rejectsRequestsBeyondCapacity() {
+    assertTrue(queue.offer(createRequest()));
+    assertTrue(queue.offer(createRequest()));
+    assertFalse(queue.offer(createRequest()));
+    assertEquals(2, queue.getQueuedCount());
+  }
+
+  @Test
+  public void startNext_startsOneRequestAtATimeInOrder() {
+    PictureRequest first = createRequest();
+    PictureRequest second = createRequest();
+    queue.offer(first);
+    queue.offer(second);
+
+    assertSame(first, queue.startNext());
+    assertNull(queue.startNext());
+    assertSame(first, queue.getActive());
+
+    queue.awaitImageOfActive();
+    assertSame(first, queue.finishActive());
+    assertSame(second, queue.startNext());
+  }
+
+  @Test
+  public void pollCaptured_matchesImagesInSubmissionOrder() {
+    PictureRequest first = createRequest();
+    PictureRequest second = createRequest();
+    queue.offer(first);
+    queue.offer(second);
+
+    queue.startNext();
+    queue.awaitImageOfActive();
+    queue.finishActive();
+    queue.startNext();
+    queue.awaitImageOfActive();
+
+    assertFalse(queue.isIdle());
+    assertSame(first, queue.pollCaptured());
+    assertSame(second, queue.pollCaptured());
+    assertNull(queue.pollCaptured());
+  }
+
+  @Test
+  public void removeCaptured_dropsFailedRequest() {
+    PictureRequest request = createRequest();
+    queue.offer(request);
+    queue.startNext();
+    queue.awaitImageOfActive();
+
+    queue.finishActive();
+    assertTrue(queue.removeCaptured(request));
+
+    assertTrue(queue.isIdle());
+    assertNull(queue.pollCaptured());
+  }
+
+  @Test
+  public void clear_returnsEveryRequestOnce() {
+    PictureRequest captured = createRequest();
+    PictureRequest active = createRequest();
+    PictureRequest queued = createRequest();
+    queue.offer(captured);
+    queue.startNext();
+    queue.awaitImageOfActive();
+    queue.finishActive();
+    queue.offer(active);
+    queue.offer(queued);
+    queue.startNext();
+    queue.awaitImageOfActive();
+
+    assertEquals(Arrays.asList(captured, active, queued), queue.clear());
+    assertTrue(queue.isIdle());
+  }
+
+  private static PictureRequest createRequest() {
+    return new PictureRequest(
+        mock(MethodChannel.Result.class), new File("/tmp/picture.jpg"), null, 0, null, 0, false, 0);
+  }
+}
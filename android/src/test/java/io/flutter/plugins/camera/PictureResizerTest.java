@@ -0,0 +1,43 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PictureResizerTest {
+  @Test
+  public void needsResize_comparesLongestEdgeOfPicture() {
+    assertFalse(PictureResizer.needsResize(4032, 3024, false, 0));
+    assertFalse(PictureResizer.needsResize(2048, 1536, false, 2048));
+    assertTrue(PictureResizer.needsResize(4032, 3024, false, 2048));
+  }
+
+  @Test
+  public void needsResize_comparesShortestEdgeOfSquarePicture() {
+    assertFalse(PictureResizer.needsResize(4032, 2048, true, 2048));
+    assertTrue(PictureResizer.needsResize(4032, 3024, true, 2048));
+  }
+
+  @Test
+  public void computeScaledSize_keepsAspectRatio() {
+    assertArrayEquals(new int[] {2048, 1536}, PictureResizer.computeScaledSize(4032, 3024, 2048));
+    assertArrayEquals(new int[] {1152, 2048}, PictureResizer.computeScaledSize(2268, 4032, 2048));
+  }
+
+  @Test
+  public void computeScaledSize_keepsPicturesThatFit() {
+    assertArrayEquals(new int[] {1008, 756}, PictureResizer.computeScaledSize(1008, 756, 2048));
+  }
+
+  @Test
+  public void computeScaledSize_keepsSizeWithoutMaxDimension() {
+    // A maximum dimension of 0 only crops, see SquareCropper.
+    assertArrayEquals(new int[] {3024, 3024}, PictureResizer.computeScaledSize(3024, 3024, 0));
+  }
+}
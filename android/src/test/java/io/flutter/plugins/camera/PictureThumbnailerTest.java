@@ -0,0 +1,168 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.util.Size;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PictureThumbnailerTest {
+  // A JPEG with EXIF orientation 6 and an embedded thumbnail of four bytes.
+  private static final byte[] JPEG_WITH_THUMBNAIL = {
+    (byte) 0xFF, (byte) 0xD8,
+    (byte) 0xFF, (byte) 0xE1, 0, 68,
+    'E', 'x', 'i', 'f', 0, 0,
+    'M', 'M', 0, 42, 0, 0, 0, 8,
+    0, 1,
+    0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, 6, 0, 0,
+    0, 0, 0, 26,
+    0, 2,
+    0x02, 0x01, 0, 4, 0, 0, 0, 1, 0, 0, 0, 56,
+    0x02, 0x02, 0, 4, 0, 0, 0, 1, 0, 0, 0, 4,
+    0, 0, 0, 0,
+    (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xD9,
+    (byte) 0xFF, (byte) 0xDA, 0, 2,
+    (byte) 0xFF, (byte) 0xD9
+  };
+  private static final byte[] THUMBNAIL = {
+    (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xD9
+  };
+
+  private File file;
+  private PictureThumbnailer.Callback mockCallback;
+  private List<Runnable> submitted;
+  private int released;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("THUMB", ".jpg");
+    mockCallback = mock(PictureThumbnailer.Callback.class);
+    submitted = new ArrayList<>();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void start_copiesEmbeddedThumbnailWithOrientation() throws IOException {
+    PictureThumbnailer thumbnailer =
+        new PictureThumbnailer(file, 320, false, 95, submitted::add, mockCallback);
+    ByteBuffer picture = ByteBuffer.allocateDirect(JPEG_WITH_THUMBNAIL.length);
+    picture.put(JPEG_WITH_THUMBNAIL);
+    picture.flip();
+
+    thumbnailer.start(picture, () -> released++);
+    assertEquals(0, picture.position());
+    // Only the embedded thumbnail is read, so the picture is released right away.
+    assertEquals(1, released);
+    assertEquals(1, submitted.size());
+    submitted.get(0).run();
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    JpegExif.writeWithOrientation(THUMBNAIL, 6, expected);
+    assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file.toPath()));
+    verify(mockCallback, times(1)).onComplete(file.getAbsolutePath());
+    verify(mockCallback, never()).onError(anyString(), anyString());
+  }
+
+  @Test
+  public void run_writesThumbnailThatWasNotRunByExecutorOnlyOnce() {
+    PictureThumbnailer thumbnailer =
+        new PictureThumbnailer(file, 320, false, 95, command -> {}, mockCallback);
+
+    thumbnailer.start(ByteBuffer.wrap(JPEG_WITH_THUMBNAIL), () -> released++);
+    thumbnailer.run();
+    thumbnailer.run();
+
+    verify(mockCallback, times(1)).onComplete(file.getAbsolutePath());
+    assertEquals(1, released);
+  }
+
+  @Test
+  public void run_keepsPictureWithoutThumbnailUntilItWasDecoded() {
+    PictureThumbnailer thumbnailer =
+        new PictureThumbnailer(file, 320, false, 95, submitted::add, mockCallback);
+
+    thumbnailer.start(ByteBuffer.wrap(THUMBNAIL), () -> released++);
+    assertEquals(0, released);
+
+    // The picture cannot be decoded in unit tests, but it is released all the same.
+    submitted.get(0).run();
+
+    assertEquals(1, released);
+    verify(mockCallback, times(1)).onError(any(), any());
+    verify(mockCallback, never()).onComplete(any());
+  }
+
+  @Test
+  public void run_reportsErrorWhenNotStarted() {
+    PictureThumbnailer thumbnailer =
+        new PictureThumbnailer(file, 320, false, 95, submitted::add, mockCallback);
+
+    thumbnailer.run();
+
+    verify(mockCallback, times(1)).onError(any(), any());
+    verify(mockCallback, never()).onComplete(any());
+  }
+
+  @Test
+  public void computeSampleSize_keepsEdgeAtLeastMaxSize() {
+    assertEquals(1, PictureThumbnailer.computeSampleSize(320, 320));
+    assertEquals(1, PictureThumbnailer.computeSampleSize(639, 320));
+    assertEquals(2, PictureThumbnailer.computeSampleSize(640, 320));
+    assertEquals(8, PictureThumbnailer.computeSampleSize(4032, 320));
+  }
+
+  @Test
+  public void chooseEmbeddedSize_choosesLargestSizeWithPictureAspectRatio() {
+    Size small = createSize(160, 120);
+    Size large = createSize(320, 240);
+    Size wide = createSize(320, 180);
+    Size tooLarge = createSize(640, 480);
+    Size none = createSize(0, 0);
+
+    assertSame(
+        large,
+        PictureThumbnailer.chooseEmbeddedSize(
+            new Size[] {none, small, wide, large, tooLarge}, createSize(4032, 3024), 320));
+    assertSame(
+        wide,
+        PictureThumbnailer.chooseEmbeddedSize(
+            new Size[] {none, small, wide, large}, createSize(1920, 1080), 320));
+    assertNull(
+        PictureThumbnailer.chooseEmbeddedSize(
+            new Size[] {none, small, large}, createSize(1920, 1080), 320));
+    assertNull(PictureThumbnailer.chooseEmbeddedSize(null, createSize(1920, 1080), 320));
+  }
+
+  private static Size createSize(int width, int height) {
+    Size size = mock(Size.class);
+    when(size.getWidth()).thenReturn(width);
+    when(size.getHeight()).thenReturn(height);
+    return size;
+  }
+}
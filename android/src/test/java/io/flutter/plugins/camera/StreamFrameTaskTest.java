@@ -0,0 +1,127 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugins.camera.imagestream.ImageStreamBufferPool;
+import io.flutter.plugins.camera.imagestream.ImageStreamOptions;
+import io.flutter.plugins.camera.types.CaptureResultRing;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamFrameTaskTest {
+  private Image mockImage;
+  private EventChannel.EventSink mockSink;
+  private ImageStreamBufferPool pool;
+  private AtomicLong unmatchedFrames;
+  private StreamFrameTask task;
+
+  @Before
+  public void setUp() {
+    mockImage = mock(Image.class);
+    when(mockImage.getTimestamp()).thenReturn(42L);
+    when(mockImage.getWidth()).thenReturn(4);
+    when(mockImage.getHeight()).thenReturn(2);
+    when(mockImage.getFormat()).thenReturn(ImageFormat.YUV_420_888);
+    when(mockImage.getPlanes()).thenReturn(new Image.Plane[0]);
+    mockSink = mock(EventChannel.EventSink.class);
+    pool = new ImageStreamBufferPool(1);
+    unmatchedFrames = new AtomicLong();
+    task = new StreamFrameTask(new FrameProcessorRunner(), new CaptureResultRing(4), unmatchedFrames);
+  }
+
+  private StreamFrameTask prepareTask(Image image, ImageStreamBufferPool.Frame frame) {
+    return task.prepare(
+        image, false, frame, mockSink, ImageStreamOptions.createDefault(), false, null, null, null);
+  }
+
+  @Test
+  public void process_deliversFrameAndClosesImage() {
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+
+    Runnable delivery = prepareTask(mockImage, frame).process();
+
+    assertNotNull(delivery);
+    verify(mockImage, times(1)).close();
+    assertEquals(1, pool.getInFlightCount());
+    assertEquals(1, unmatchedFrames.get());
+
+    delivery.run();
+
+    verify(mockSink, times(1)).success(frame.getPayload());
+    assertEquals(0, pool.getInFlightCount());
+  }
+
+  @Test
+  public void process_releasesFrameWhenWriterThrows() {
+    Image.Plane mockPlane = mock(Image.Plane.class);
+    when(mockPlane.getBuffer()).thenThrow(new IllegalStateException("Broken plane"));
+    when(mockImage.getPlanes()).thenReturn(new Image.Plane[] {mockPlane});
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+
+    try {
+      prepareTask(mockImage, frame).process();
+      fail("The exception of the writer should be passed on to the executor.");
+    } catch (IllegalStateException e) {
+      // Expected, the executor logs it.
+    }
+
+    verify(mockImage, times(1)).close();
+    assertEquals(0, pool.getInFlightCount());
+    assertNotNull(pool.acquire());
+  }
+
+  @Test
+  public void prepare_reusesTaskForNextImage() {
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+    prepareTask(mockImage, frame).process().run();
+    Image nextImage = mock(Image.class);
+    when(nextImage.getTimestamp()).thenReturn(43L);
+    when(nextImage.getWidth()).thenReturn(4);
+    when(nextImage.getHeight()).thenReturn(2);
+    when(nextImage.getFormat()).thenReturn(ImageFormat.YUV_420_888);
+    when(nextImage.getPlanes()).thenReturn(new Image.Plane[0]);
+    frame = pool.acquire();
+
+    Runnable delivery = prepareTask(nextImage, frame).process();
+
+    assertNotNull(delivery);
+    verify(mockImage, times(1)).close();
+    verify(nextImage, times(1)).close();
+    // A task that already ran has nothing left to discard.
+    task.discard();
+    verify(nextImage, times(1)).close();
+    assertEquals(1, pool.getInFlightCount());
+  }
+
+  @Test
+  public void discard_closesImageAndReleasesFrame() {
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+
+    prepareTask(mockImage, frame).discard();
+
+    verify(mockImage, times(1)).close();
+    assertEquals(0, pool.getInFlightCount());
+  }
+
+  @Test
+  public void process_withoutFrameOnlyClosesImage() {
+    assertNull(prepareTask(mockImage, null).process());
+
+    verify(mockImage, times(1)).close();
+  }
+}
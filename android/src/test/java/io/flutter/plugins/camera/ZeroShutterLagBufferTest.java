@@ -0,0 +1,83 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.media.Image;
+import org.junit.Test;
+
+public class ZeroShutterLagBufferTest {
+  @Test
+  public void add_closesOldestFrameWhenFull() {
+    ZeroShutterLagBuffer buffer = new ZeroShutterLagBuffer(2);
+    Image first = mockImage(100L);
+    Image second = mockImage(200L);
+    Image third = mockImage(300L);
+
+    buffer.add(first);
+    buffer.add(second);
+    buffer.add(third);
+
+    assertEquals(2, buffer.size());
+    verify(first, times(1)).close();
+    verify(second, never()).close();
+  }
+
+  @Test
+  public void take_returnsAcceptedFrameClosestToTarget() {
+    ZeroShutterLagBuffer buffer = new ZeroShutterLagBuffer(3);
+    Image first = mockImage(100L);
+    Image second = mockImage(200L);
+    Image third = mockImage(300L);
+    buffer.add(first);
+    buffer.add(second);
+    buffer.add(third);
+
+    // The newest frame has not converged yet.
+    Image taken = buffer.take(310L, timestamp -> timestamp != 300L);
+
+    assertSame(second, taken);
+    assertEquals(2, buffer.size());
+    verify(second, never()).close();
+  }
+
+  @Test
+  public void take_returnsNullWhenNoFrameIsAccepted() {
+    ZeroShutterLagBuffer buffer = new ZeroShutterLagBuffer(3);
+    buffer.add(mockImage(100L));
+
+    assertNull(buffer.take(100L, timestamp -> false));
+    assertEquals(1, buffer.size());
+  }
+
+  @Test
+  public void clear_closesAllFrames() {
+    ZeroShutterLagBuffer buffer = new ZeroShutterLagBuffer(3);
+    Image first = mockImage(100L);
+    Image second = mockImage(200L);
+    buffer.add(first);
+    buffer.add(second);
+
+    buffer.clear();
+
+    assertEquals(0, buffer.size());
+    verify(first, times(1)).close();
+    verify(second, times(1)).close();
+  }
+
+  private static Image mockImage(long timestamp) {
+    Image image = mock(Image.class);
+    when(image.getTimestamp()).thenReturn(timestamp);
+    return image;
+  }
+}
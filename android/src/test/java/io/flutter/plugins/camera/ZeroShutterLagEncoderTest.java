@@ -0,0 +1,89 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.media.Image;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class ZeroShutterLagEncoderTest {
+  private static Image.Plane mockPlane(byte[] bytes, int rowStride, int pixelStride) {
+    final Image.Plane plane = mock(Image.Plane.class);
+    when(plane.getBuffer()).thenReturn(ByteBuffer.wrap(bytes));
+    when(plane.getRowStride()).thenReturn(rowStride);
+    when(plane.getPixelStride()).thenReturn(pixelStride);
+    return plane;
+  }
+
+  @Test
+  public void copyToNv21_removesRowPaddingAndInterleavesChroma() {
+    // A 4x2 frame with two bytes of row padding and semi-planar chroma.
+    final Image image = mock(Image.class);
+    when(image.getWidth()).thenReturn(4);
+    when(image.getHeight()).thenReturn(2);
+    when(image.getPlanes())
+        .thenReturn(
+            new Image.Plane[] {
+              mockPlane(new byte[] {1, 2, 3, 4, 0, 0, 5, 6, 7, 8}, 6, 1),
+              mockPlane(new byte[] {20, 0, 21}, 6, 2),
+              mockPlane(new byte[] {30, 0, 31}, 6, 2)
+            });
+
+    final byte[] nv21 = ZeroShutterLagEncoder.copyToNv21(image);
+
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 30, 20, 31, 21}, nv21);
+  }
+
+  @Test
+  public void copyToNv21_readsPlanarChroma() {
+    final Image image = mock(Image.class);
+    when(image.getWidth()).thenReturn(4);
+    when(image.getHeight()).thenReturn(2);
+    when(image.getPlanes())
+        .thenReturn(
+            new Image.Plane[] {
+              mockPlane(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, 4, 1),
+              mockPlane(new byte[] {20, 21}, 2, 1),
+              mockPlane(new byte[] {30, 31}, 2, 1)
+            });
+
+    final byte[] nv21 = ZeroShutterLagEncoder.copyToNv21(image);
+
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 30, 20, 31, 21}, nv21);
+  }
+
+  @Test
+  public void copyToNv21_readsEveryChromaRow() {
+    // A 2x4 frame whose semi-planar chroma rows are padded to four bytes.
+    final Image image = mock(Image.class);
+    when(image.getWidth()).thenReturn(2);
+    when(image.getHeight()).thenReturn(4);
+    when(image.getPlanes())
+        .thenReturn(
+            new Image.Plane[] {
+              mockPlane(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, 2, 1),
+              mockPlane(new byte[] {20, 0, 0, 0, 21}, 4, 2),
+              mockPlane(new byte[] {30, 0, 0, 0, 31}, 4, 2)
+            });
+
+    final byte[] nv21 = ZeroShutterLagEncoder.copyToNv21(image);
+
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 30, 20, 31, 21}, nv21);
+  }
+
+  @Test
+  public void toExifOrientation_mapsClockwiseRotation() {
+    assertEquals(JpegExif.ORIENTATION_NORMAL, ZeroShutterLagEncoder.toExifOrientation(0));
+    assertEquals(6, ZeroShutterLagEncoder.toExifOrientation(90));
+    assertEquals(3, ZeroShutterLagEncoder.toExifOrientation(180));
+    assertEquals(8, ZeroShutterLagEncoder.toExifOrientation(270));
+    assertEquals(8, ZeroShutterLagEncoder.toExifOrientation(-90));
+  }
+}
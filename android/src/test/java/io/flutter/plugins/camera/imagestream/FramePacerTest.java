@@ -0,0 +1,77 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FramePacerTest {
+  private static final long MILLIS = 1_000_000L;
+
+  /** Feeds frames of the given frame rate with a small timestamp jitter and counts kept frames. */
+  private static int countAccepted(FramePacer pacer, double cameraFps, int frameCount) {
+    final double intervalNanos = 1_000_000_000.0 / cameraFps;
+    int accepted = 0;
+    for (int i = 0; i < frameCount; i++) {
+      final long jitter = (i % 3 - 1) * MILLIS;
+      if (pacer.accept((long) (i * intervalNanos) + jitter)) {
+        accepted++;
+      }
+    }
+    return accepted;
+  }
+
+  @Test
+  public void accept_keepsFirstFrame() {
+    FramePacer pacer = new FramePacer(10);
+
+    assertTrue(pacer.accept(123 * MILLIS));
+  }
+
+  @Test
+  public void accept_keepsEveryThirdFrameOf30FpsAt10Fps() {
+    FramePacer pacer = new FramePacer(10);
+    final long interval = 33_333_333L;
+
+    for (int i = 0; i < 30; i++) {
+      assertEquals("frame " + i, i % 3 == 0, pacer.accept(i * interval));
+    }
+    assertEquals(20, pacer.getSkippedCount());
+  }
+
+  @Test
+  public void accept_staysWithinBudgetWithJitter() {
+    // 300 frames at 30 fps span 10 seconds, the last kept frame may fall within the tolerance.
+    assertEquals(50, countAccepted(new FramePacer(5), 30, 300), 1);
+    assertEquals(100, countAccepted(new FramePacer(10), 30, 300), 1);
+    assertEquals(200, countAccepted(new FramePacer(20), 30, 300), 1);
+  }
+
+  @Test
+  public void accept_keepsAllFramesBelowBudget() {
+    FramePacer pacer = new FramePacer(60);
+
+    assertEquals(300, countAccepted(pacer, 30, 300));
+    assertEquals(0, pacer.getSkippedCount());
+  }
+
+  @Test
+  public void accept_restartsPacingAfterStall() {
+    FramePacer pacer = new FramePacer(10);
+
+    assertTrue(pacer.accept(0));
+    assertTrue(pacer.accept(1000 * MILLIS));
+    assertFalse(pacer.accept(1050 * MILLIS));
+    assertTrue(pacer.accept(1100 * MILLIS));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_throwsForZeroFps() {
+    new FramePacer(0);
+  }
+}
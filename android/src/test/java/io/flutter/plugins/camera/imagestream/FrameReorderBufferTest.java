@@ -0,0 +1,99 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FrameReorderBufferTest {
+  private List<Runnable> delivered;
+  private FrameReorderBuffer buffer;
+
+  @Before
+  public void setUp() {
+    delivered = new ArrayList<>();
+    buffer = new FrameReorderBuffer(3, delivered::add);
+  }
+
+  @Test
+  public void complete_holdsBackResultsUntilEarlierFramesComplete() {
+    Runnable first = () -> {};
+    Runnable second = () -> {};
+    Runnable third = () -> {};
+    buffer.reserve();
+    buffer.reserve();
+    buffer.reserve();
+
+    buffer.complete(2, third);
+    buffer.complete(1, second);
+    assertEquals(0, delivered.size());
+
+    buffer.complete(0, first);
+    assertEquals(Arrays.asList(first, second, third), delivered);
+    assertEquals(0, buffer.getPendingCount());
+  }
+
+  @Test
+  public void complete_skipsFramesWithoutResult() {
+    Runnable second = () -> {};
+    buffer.reserve();
+    buffer.reserve();
+
+    buffer.complete(1, second);
+    buffer.complete(0, null);
+
+    assertEquals(Arrays.asList(second), delivered);
+  }
+
+  @Test
+  public void runWhenEmpty_runsListenerAfterLastPendingFrame() {
+    Runnable result = () -> {};
+    Runnable listener = () -> {};
+    buffer.reserve();
+
+    buffer.runWhenEmpty(listener);
+    assertEquals(0, delivered.size());
+
+    buffer.complete(0, result);
+    assertEquals(Arrays.asList(result, listener), delivered);
+
+    buffer.runWhenEmpty(listener);
+    assertEquals(Arrays.asList(result, listener, listener), delivered);
+  }
+
+  @Test
+  public void reserve_failsWhenCapacityIsWaiting() {
+    assertEquals(0, buffer.reserve());
+    assertEquals(1, buffer.reserve());
+    assertEquals(2, buffer.reserve());
+    assertEquals(-1, buffer.reserve());
+
+    // The first frame still holds back the others.
+    buffer.complete(2, null);
+    assertEquals(-1, buffer.reserve());
+
+    buffer.complete(0, null);
+    assertEquals(3, buffer.reserve());
+  }
+
+  @Test
+  public void complete_reusesSlotsAfterWrapping() {
+    for (int i = 0; i < 10; i++) {
+      Runnable result = () -> {};
+      buffer.complete(buffer.reserve(), result);
+      assertEquals(result, delivered.get(i));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void complete_throwsForUnreservedSequence() {
+    buffer.complete(0, null);
+  }
+}
@@ -0,0 +1,196 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.flutter.plugin.common.EventChannel;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ImageStreamBufferPoolTest {
+  private static final int WIDTH = 64;
+  private static final int HEIGHT = 48;
+
+  private static void fillYuvFrame(ImageStreamBufferPool.Frame frame, byte value) {
+    frame.reset();
+    frame.addPlane(filledBuffer(WIDTH * HEIGHT, value), WIDTH, 1);
+    frame.addPlane(filledBuffer(WIDTH * HEIGHT / 2 - 1, value), WIDTH, 2);
+    frame.addPlane(filledBuffer(WIDTH * HEIGHT / 2 - 1, value), WIDTH, 2);
+    frame.setImageInfo(WIDTH, HEIGHT, 35);
+    frame.setCaptureProperties(1.8f, 9991324L, 100);
+  }
+
+  private static ByteBuffer filledBuffer(int size, byte value) {
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (int i = 0; i < size; i++) {
+      buffer.put(i, value);
+    }
+    return buffer;
+  }
+
+  @Test
+  public void acquire_returnsNullWhenAllFramesAreInFlight() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(2);
+
+    assertNotNull(pool.acquire());
+    assertNotNull(pool.acquire());
+    assertNull(pool.acquire());
+    assertEquals(2, pool.getInFlightCount());
+  }
+
+  @Test
+  public void release_makesFrameAvailableAgain() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(1);
+
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+    pool.release(frame);
+
+    assertSame(frame, pool.acquire());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void release_throwsForFrameOfOtherPool() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(1);
+    ImageStreamBufferPool otherPool = new ImageStreamBufferPool(1);
+
+    pool.release(otherPool.acquire());
+  }
+
+  @Test
+  public void addPlane_copiesPlaneDataAndStrides() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(1);
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+
+    frame.reset();
+    frame.addPlane(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), 4, 1);
+    frame.setImageInfo(4, 1, 35);
+
+    Map<String, Object> imageMap = frame.getImageMap();
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> planes = (List<Map<String, Object>>) imageMap.get("planes");
+    assertEquals(1, planes.size());
+    assertArrayEquals(new byte[] {1, 2, 3, 4}, (byte[]) planes.get(0).get("bytes"));
+    assertEquals(4, planes.get(0).get("bytesPerRow"));
+    assertEquals(1, planes.get(0).get("bytesPerPixel"));
+    assertEquals(4, imageMap.get("width"));
+    assertEquals(1, imageMap.get("height"));
+    assertEquals(35, imageMap.get("format"));
+  }
+
+  @Test
+  public void run_deliversImageMapAndReleasesFrame() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(1);
+    EventChannel.EventSink mockSink = mock(EventChannel.EventSink.class);
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+    fillYuvFrame(frame, (byte) 7);
+
+    frame.deliverTo(mockSink).run();
+
+    verify(mockSink, times(1)).success(frame.getImageMap());
+    assertEquals(0, pool.getInFlightCount());
+  }
+
+  @Test
+  public void run_countsOnlyFramesThatWereDelivered() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(2);
+    int[] delivered = new int[1];
+    int[] released = new int[1];
+    pool.setOnDeliveredListener(() -> delivered[0]++);
+    pool.setOnReleaseListener(() -> released[0]++);
+    EventChannel.EventSink mockSink = mock(EventChannel.EventSink.class);
+
+    pool.acquire().deliverTo(mockSink).run();
+    pool.acquire().release();
+
+    assertEquals(1, delivered[0]);
+    assertEquals(2, released[0]);
+  }
+
+  @Test
+  public void steadyStateStream_doesNotAllocateAfterWarmUp() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(3);
+    EventChannel.EventSink mockSink = mock(EventChannel.EventSink.class);
+
+    // Warm up every slot by keeping all frames in flight at the same time.
+    ImageStreamBufferPool.Frame[] inFlight = new ImageStreamBufferPool.Frame[3];
+    for (int i = 0; i < inFlight.length; i++) {
+      inFlight[i] = pool.acquire();
+      fillYuvFrame(inFlight[i], (byte) i);
+    }
+    for (ImageStreamBufferPool.Frame frame : inFlight) {
+      frame.deliverTo(mockSink).run();
+    }
+    final int warmUpAllocations = pool.getAllocationCount();
+    assertEquals(9, warmUpAllocations);
+
+    for (int i = 0; i < 300; i++) {
+      ImageStreamBufferPool.Frame frame = pool.acquire();
+      fillYuvFrame(frame, (byte) i);
+      frame.deliverTo(mockSink).run();
+    }
+
+    assertEquals(warmUpAllocations, pool.getAllocationCount());
+  }
+
+  @Test
+  public void steadyStateStream_reusesPlaneArrays() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(1);
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+    fillYuvFrame(frame, (byte) 1);
+    byte[] firstBytes = frame.getPlaneBuffer(0, WIDTH * HEIGHT);
+    pool.release(frame);
+
+    frame = pool.acquire();
+    fillYuvFrame(frame, (byte) 2);
+
+    assertSame(firstBytes, frame.getPlaneBuffer(0, WIDTH * HEIGHT));
+    assertEquals(2, firstBytes[0]);
+  }
+
+  @Test
+  public void preparePacket_deliversPacketAndReusesItAfterWarmUp() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(1);
+    EventChannel.EventSink mockSink = mock(EventChannel.EventSink.class);
+
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+    frame.reset();
+    ByteBuffer packet = frame.preparePacket(ImageStreamPacket.HEADER_SIZE + 4);
+    Object payload = frame.getPayload();
+    frame.deliverTo(mockSink).run();
+
+    assertEquals(ByteOrder.LITTLE_ENDIAN, packet.order());
+    verify(mockSink, times(1)).success(payload);
+    assertEquals(1, pool.getAllocationCount());
+
+    frame = pool.acquire();
+    frame.reset();
+    frame.preparePacket(ImageStreamPacket.HEADER_SIZE + 4);
+
+    assertSame(payload, frame.getPayload());
+    assertEquals(1, pool.getAllocationCount());
+  }
+
+  @Test
+  public void reset_switchesPayloadBackToImageMap() {
+    ImageStreamBufferPool pool = new ImageStreamBufferPool(1);
+    ImageStreamBufferPool.Frame frame = pool.acquire();
+
+    frame.preparePacket(ImageStreamPacket.HEADER_SIZE);
+    frame.reset();
+
+    assertSame(frame.getImageMap(), frame.getPayload());
+  }
+}
@@ -0,0 +1,103 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class ImageStreamOptionsTest {
+  @Test
+  public void fromMap_returnsDefaultsForNullArguments() {
+    ImageStreamOptions options = ImageStreamOptions.fromMap(null);
+
+    assertEquals(ImageStreamOptions.DEFAULT_MAX_FRAMES_IN_FLIGHT, options.getMaxFramesInFlight());
+    assertFalse(options.isPacked());
+  }
+
+  @Test
+  public void fromMap_readsMaxFramesInFlight() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("maxFramesInFlight", 1);
+
+    ImageStreamOptions options = ImageStreamOptions.fromMap(arguments);
+
+    assertEquals(1, options.getMaxFramesInFlight());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromMap_throwsForInvalidMaxFramesInFlight() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("maxFramesInFlight", 0);
+
+    ImageStreamOptions.fromMap(arguments);
+  }
+
+  @Test
+  public void fromMap_readsPacked() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("packed", true);
+
+    ImageStreamOptions options = ImageStreamOptions.fromMap(arguments);
+
+    assertTrue(options.isPacked());
+  }
+
+  @Test
+  public void fromMap_readsTargetSizeAndCrop() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("targetWidth", 320);
+    arguments.put("targetHeight", 240);
+    arguments.put("cropLeft", 0.25);
+    arguments.put("cropTop", 0.25);
+    arguments.put("cropRight", 0.75);
+    arguments.put("cropBottom", 0.75);
+
+    ImageStreamOptions options = ImageStreamOptions.fromMap(arguments);
+
+    assertTrue(options.isResampling());
+    assertEquals(320, options.getTargetWidth());
+    assertEquals(240, options.getTargetHeight());
+    assertEquals(0.25f, options.getCropLeft(), 0f);
+    assertEquals(0.25f, options.getCropTop(), 0f);
+    assertEquals(0.75f, options.getCropRight(), 0f);
+    assertEquals(0.75f, options.getCropBottom(), 0f);
+  }
+
+  @Test
+  public void fromMap_isNotResamplingByDefault() {
+    assertFalse(ImageStreamOptions.fromMap(new HashMap<>()).isResampling());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromMap_throwsForEmptyCrop() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("cropLeft", 0.5);
+    arguments.put("cropRight", 0.5);
+
+    ImageStreamOptions.fromMap(arguments);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fromMap_throwsForNegativeTargetSize() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("targetWidth", -1);
+
+    ImageStreamOptions.fromMap(arguments);
+  }
+
+  @Test
+  public void fromMap_readsMaxStreamFps() {
+    Map<String, Object> arguments = new HashMap<>();
+    arguments.put("maxStreamFps", 7.5);
+
+    assertEquals(7.5, ImageStreamOptions.fromMap(arguments).getMaxStreamFps(), 0);
+    assertEquals(0, ImageStreamOptions.createDefault().getMaxStreamFps(), 0);
+  }
+}
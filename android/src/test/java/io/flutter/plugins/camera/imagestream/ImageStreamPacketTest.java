@@ -0,0 +1,74 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+
+public class ImageStreamPacketTest {
+  private static ByteBuffer newPacket(int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  @Test
+  public void writeHeader_writesFixedLayout() {
+    ByteBuffer packet = newPacket(ImageStreamPacket.HEADER_SIZE);
+
+    ImageStreamPacket.writeHeader(packet, 640, 480, 35, 3, 1.8f, 9991324L, 92);
+
+    assertEquals(ImageStreamPacket.VERSION, packet.getInt(0));
+    assertEquals(640, packet.getInt(4));
+    assertEquals(480, packet.getInt(8));
+    assertEquals(35, packet.getInt(12));
+    assertEquals(3, packet.getInt(16));
+    assertEquals(1.8f, packet.getDouble(24), 0.0001);
+    assertEquals(9991324L, packet.getLong(32));
+    assertEquals(92.0, packet.getDouble(40), 0.0);
+    assertEquals(ImageStreamPacket.HEADER_SIZE, packet.position());
+  }
+
+  @Test
+  public void writeHeader_marksUnknownCapturePropertiesAsNaN() {
+    ByteBuffer packet = newPacket(ImageStreamPacket.HEADER_SIZE);
+
+    ImageStreamPacket.writeHeader(packet, 4, 1, 35, 1, null, null, null);
+
+    assertTrue(Double.isNaN(packet.getDouble(24)));
+    assertEquals(-1L, packet.getLong(32));
+    assertTrue(Double.isNaN(packet.getDouble(40)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void writeHeader_throwsForTooManyPlanes() {
+    ImageStreamPacket.writeHeader(
+        newPacket(ImageStreamPacket.HEADER_SIZE), 4, 1, 35, 4, null, null, null);
+  }
+
+  @Test
+  public void writePlane_appendsDataAndDescriptor() {
+    ByteBuffer packet = newPacket(ImageStreamPacket.HEADER_SIZE + 6);
+    ImageStreamPacket.writeHeader(packet, 4, 1, 35, 2, null, null, null);
+
+    ImageStreamPacket.writePlane(packet, 0, 4, 1, ByteBuffer.wrap(new byte[] {1, 2, 3, 4}));
+    ImageStreamPacket.writePlane(packet, 1, 2, 2, ByteBuffer.wrap(new byte[] {5, 6}));
+
+    assertEquals(4, packet.getInt(48));
+    assertEquals(1, packet.getInt(52));
+    assertEquals(ImageStreamPacket.HEADER_SIZE, packet.getInt(56));
+    assertEquals(4, packet.getInt(60));
+    assertEquals(2, packet.getInt(64));
+    assertEquals(2, packet.getInt(68));
+    assertEquals(ImageStreamPacket.HEADER_SIZE + 4, packet.getInt(72));
+    assertEquals(2, packet.getInt(76));
+    assertEquals(0, packet.getInt(92));
+    assertEquals(1, packet.get(ImageStreamPacket.HEADER_SIZE));
+    assertEquals(6, packet.get(ImageStreamPacket.HEADER_SIZE + 5));
+    assertEquals(0, packet.remaining());
+  }
+}
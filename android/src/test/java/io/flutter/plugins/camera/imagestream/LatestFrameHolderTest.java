@@ -0,0 +1,66 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class LatestFrameHolderTest {
+  @Test
+  public void offer_returnsNullWhenNothingIsPending() {
+    LatestFrameHolder<String> holder = new LatestFrameHolder<>();
+
+    assertNull(holder.offer("frame1"));
+    assertEquals(0, holder.getDroppedCount());
+  }
+
+  @Test
+  public void offer_dropsOlderPendingFrame() {
+    LatestFrameHolder<String> holder = new LatestFrameHolder<>();
+
+    holder.offer("frame1");
+    String dropped = holder.offer("frame2");
+
+    assertEquals("frame1", dropped);
+    assertEquals(1, holder.getDroppedCount());
+    assertEquals("frame2", holder.poll());
+  }
+
+  @Test
+  public void poll_onlyReturnsNewestFrameOnce() {
+    LatestFrameHolder<String> holder = new LatestFrameHolder<>();
+
+    holder.offer("frame1");
+    holder.offer("frame2");
+    holder.offer("frame3");
+
+    assertEquals("frame3", holder.poll());
+    assertNull(holder.poll());
+    assertEquals(2, holder.getDroppedCount());
+  }
+
+  @Test
+  public void clear_dropsPendingFrame() {
+    LatestFrameHolder<String> holder = new LatestFrameHolder<>();
+
+    holder.offer("frame1");
+
+    assertEquals("frame1", holder.clear());
+    assertNull(holder.clear());
+    assertEquals(1, holder.getDroppedCount());
+  }
+
+  @Test
+  public void markDelivered_incrementsDeliveredCount() {
+    LatestFrameHolder<String> holder = new LatestFrameHolder<>();
+
+    holder.markDelivered();
+    holder.markDelivered();
+
+    assertEquals(2, holder.getDeliveredCount());
+  }
+}
@@ -0,0 +1,139 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OrderedFrameExecutorTest {
+  private List<Integer> delivered;
+  private OrderedFrameExecutor executor;
+
+  @Before
+  public void setUp() {
+    delivered = new ArrayList<>();
+    executor =
+        new OrderedFrameExecutor(
+            2,
+            delivery -> {
+              synchronized (delivered) {
+                delivery.run();
+              }
+            });
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown(1000);
+  }
+
+  @Test
+  public void execute_deliversResultsInCaptureOrder() throws InterruptedException {
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    CountDownLatch secondDone = new CountDownLatch(1);
+
+    executor.execute(
+        executor.reserve(),
+        () -> {
+          await(releaseFirst);
+          return () -> delivered.add(0);
+        });
+    executor.execute(
+        executor.reserve(),
+        () -> {
+          secondDone.countDown();
+          return () -> delivered.add(1);
+        });
+
+    // The second frame finishes first, but is held back until the first one is done.
+    assertTrue(secondDone.await(1, TimeUnit.SECONDS));
+    synchronized (delivered) {
+      assertEquals(0, delivered.size());
+    }
+    releaseFirst.countDown();
+    executor.shutdown(1000);
+
+    assertEquals(Arrays.asList(0, 1), delivered);
+  }
+
+  @Test
+  public void reserve_rejectsFramesWhileAllWorkersAreBusy() {
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(executor.reserve(), () -> await(release));
+    executor.execute(executor.reserve(), () -> await(release));
+
+    assertEquals(-1, executor.reserve());
+    assertEquals(1, executor.getRejectedCount());
+    assertEquals(2, executor.getInFlightCount());
+    release.countDown();
+  }
+
+  @Test
+  public void cancel_doesNotHoldBackLaterFrames() {
+    long cancelled = executor.reserve();
+    executor.execute(executor.reserve(), () -> () -> delivered.add(1));
+
+    executor.cancel(cancelled);
+    executor.shutdown(1000);
+
+    assertEquals(Arrays.asList(1), delivered);
+  }
+
+  @Test
+  public void awaitIdle_waitsForFramesInFlightAndKeepsAcceptingFrames() {
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(executor.reserve(), () -> await(release));
+
+    assertFalse(executor.awaitIdle(10));
+    release.countDown();
+    assertTrue(executor.awaitIdle(1000));
+    assertEquals(0, executor.getInFlightCount());
+
+    executor.execute(executor.reserve(), () -> () -> delivered.add(1));
+    executor.shutdown(1000);
+    assertEquals(Arrays.asList(1), delivered);
+  }
+
+  @Test
+  public void getSlot_givesFramesInFlightDistinctSlots() {
+    long first = executor.reserve();
+    long second = executor.reserve();
+    assertEquals(0, executor.getSlot(first));
+    assertEquals(1, executor.getSlot(second));
+
+    executor.cancel(first);
+    long third = executor.reserve();
+
+    assertEquals(0, executor.getSlot(third));
+  }
+
+  @Test
+  public void execute_failsAfterShutdown() {
+    long sequence = executor.reserve();
+    executor.shutdown(1000);
+
+    assertFalse(executor.execute(sequence, () -> null));
+    assertEquals(-1, executor.reserve());
+  }
+
+  private static Runnable await(CountDownLatch latch) {
+    try {
+      latch.await(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+}
@@ -0,0 +1,45 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class PlaneCopierTest {
+  @Test
+  public void copy_copiesRemainingBytesAtOffset() {
+    byte[] destination = new byte[5];
+
+    int length = PlaneCopier.copy(ByteBuffer.wrap(new byte[] {1, 2, 3}), destination, 2);
+
+    assertEquals(3, length);
+    assertArrayEquals(new byte[] {0, 0, 1, 2, 3}, destination);
+  }
+
+  @Test
+  public void copyWithoutRowPadding_leavesOutPadding() {
+    // The last row of a plane buffer has no padding.
+    ByteBuffer source = ByteBuffer.wrap(new byte[] {1, 2, 3, 9, 9, 4, 5, 6, 9, 9, 7, 8, 9});
+    byte[] destination = new byte[9];
+
+    int length = PlaneCopier.copyWithoutRowPadding(source, 5, 3, 3, destination, 0);
+
+    assertEquals(9, length);
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9}, destination);
+  }
+
+  @Test
+  public void copyWithoutRowPadding_copiesUnpaddedPlaneAtOnce() {
+    byte[] destination = new byte[4];
+
+    PlaneCopier.copyWithoutRowPadding(
+        ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), 2, 2, 2, destination, 0);
+
+    assertArrayEquals(new byte[] {1, 2, 3, 4}, destination);
+  }
+}
@@ -0,0 +1,135 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.ImageFormat;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class StreamFrameWriterTest {
+  private static final int WIDTH = 4;
+  private static final int HEIGHT = 2;
+  private static final int ROW_STRIDE = 6;
+
+  // A 4x2 luma plane with two bytes of row padding.
+  private static ByteBuffer lumaPlane() {
+    return ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 0, 0, 5, 6, 7, 8});
+  }
+
+  private static ByteBuffer chromaPlane(byte value) {
+    return ByteBuffer.wrap(new byte[] {value, 0, value});
+  }
+
+  private static void setYuvImage(StreamFrameWriter writer) {
+    writer.setImage(WIDTH, HEIGHT, ImageFormat.YUV_420_888, 3);
+    writer.setPlane(0, lumaPlane(), ROW_STRIDE, 1);
+    writer.setPlane(1, chromaPlane((byte) 9), ROW_STRIDE, 2);
+    writer.setPlane(2, chromaPlane((byte) 10), ROW_STRIDE, 2);
+  }
+
+  private static ImageStreamOptions options(String... enabledFlags) {
+    Map<String, Object> arguments = new HashMap<>();
+    for (String flag : enabledFlags) {
+      arguments.put(flag, true);
+    }
+    return ImageStreamOptions.fromMap(arguments);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> getPlanes(ImageStreamBufferPool.Frame frame) {
+    return (List<Map<String, Object>>) frame.getImageMap().get("planes");
+  }
+
+  @Test
+  public void writePlanes_copiesAllPlanesByDefault() {
+    StreamFrameWriter writer = new StreamFrameWriter(options(), false);
+    ImageStreamBufferPool.Frame frame = new ImageStreamBufferPool(1).acquire();
+    frame.reset();
+
+    setYuvImage(writer);
+    writer.writePlanes(frame, null, null, null);
+
+    List<Map<String, Object>> planes = getPlanes(frame);
+    assertEquals(3, planes.size());
+    assertArrayEquals(
+        new byte[] {1, 2, 3, 4, 0, 0, 5, 6, 7, 8}, (byte[]) planes.get(0).get("bytes"));
+    assertEquals(ROW_STRIDE, planes.get(0).get("bytesPerRow"));
+    assertEquals(ImageFormat.YUV_420_888, frame.getImageMap().get("format"));
+  }
+
+  @Test
+  public void writePlanes_copiesOnlyLumaPlaneWhenLumaOnly() {
+    StreamFrameWriter writer = new StreamFrameWriter(options("lumaOnly"), false);
+    ImageStreamBufferPool.Frame frame = new ImageStreamBufferPool(1).acquire();
+    frame.reset();
+
+    setYuvImage(writer);
+    writer.writePlanes(frame, null, null, null);
+
+    List<Map<String, Object>> planes = getPlanes(frame);
+    assertEquals(1, planes.size());
+    assertArrayEquals(
+        new byte[] {1, 2, 3, 4, 0, 0, 5, 6, 7, 8}, (byte[]) planes.get(0).get("bytes"));
+    assertEquals(ROW_STRIDE, planes.get(0).get("bytesPerRow"));
+    assertEquals(ImageFormat.Y8, frame.getImageMap().get("format"));
+  }
+
+  @Test
+  public void writePlanes_removesRowPaddingOfLumaPlane() {
+    StreamFrameWriter writer = new StreamFrameWriter(options("removeRowPadding"), true);
+    ImageStreamBufferPool.Frame frame = new ImageStreamBufferPool(1).acquire();
+    frame.reset();
+
+    setYuvImage(writer);
+    writer.writePlanes(frame, null, null, null);
+
+    List<Map<String, Object>> planes = getPlanes(frame);
+    assertEquals(1, planes.size());
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, (byte[]) planes.get(0).get("bytes"));
+    assertEquals(WIDTH, planes.get(0).get("bytesPerRow"));
+  }
+
+  @Test
+  public void writePlanes_ignoresLumaOnlyForOtherFormats() {
+    StreamFrameWriter writer = new StreamFrameWriter(options("lumaOnly"), false);
+    ImageStreamBufferPool.Frame frame = new ImageStreamBufferPool(1).acquire();
+    frame.reset();
+
+    writer.setImage(WIDTH, HEIGHT, ImageFormat.JPEG, 1);
+    writer.setPlane(0, ByteBuffer.wrap(new byte[] {1, 2, 3}), 0, 0);
+    writer.writePlanes(frame, null, null, null);
+
+    assertEquals(1, getPlanes(frame).size());
+    assertEquals(ImageFormat.JPEG, frame.getImageMap().get("format"));
+  }
+
+  @Test
+  public void writePacket_writesLumaPlaneWithoutRowPadding() {
+    StreamFrameWriter writer =
+        new StreamFrameWriter(options("packed", "lumaOnly", "removeRowPadding"), false);
+    ImageStreamBufferPool.Frame frame = new ImageStreamBufferPool(1).acquire();
+    frame.reset();
+
+    setYuvImage(writer);
+    writer.writePacket(frame, null, null, null);
+
+    ByteBuffer packet = ByteBuffer.wrap((byte[]) frame.getPayload()).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(ImageStreamPacket.HEADER_SIZE + WIDTH * HEIGHT, packet.capacity());
+    assertEquals(ImageFormat.Y8, packet.getInt(12));
+    assertEquals(1, packet.getInt(16));
+    assertEquals(WIDTH, packet.getInt(ImageStreamPacket.PLANE_DESCRIPTORS_OFFSET));
+    byte[] luma = new byte[WIDTH * HEIGHT];
+    packet.position(ImageStreamPacket.HEADER_SIZE);
+    packet.get(luma);
+    assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, luma);
+  }
+}
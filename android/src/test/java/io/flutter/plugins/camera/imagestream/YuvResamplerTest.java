@@ -0,0 +1,144 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.imagestream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class YuvResamplerTest {
+  private static final int WIDTH = 16;
+  private static final int HEIGHT = 8;
+  // Row stride with padding, as produced by most camera HALs.
+  private static final int ROW_STRIDE = 20;
+
+  /** A pixel value function of a synthetic reference image. */
+  private interface PixelValue {
+    int at(int x, int y);
+  }
+
+  private static final PixelValue LUMA = (x, y) -> y * 16 + x;
+  private static final PixelValue U = (x, y) -> 128 + y * 8 + x;
+  private static final PixelValue V = (x, y) -> 200 + y * 8 + x;
+
+  /**
+   * Creates a plane like {@link android.media.Image.Plane#getBuffer()} does: with row and pixel
+   * stride, but without padding after the last pixel of the last row.
+   */
+  private static ByteBuffer createPlane(
+      int width, int height, int rowStride, int pixelStride, PixelValue value) {
+    final byte[] bytes = new byte[rowStride * (height - 1) + (width - 1) * pixelStride + 1];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        bytes[y * rowStride + x * pixelStride] = (byte) value.at(x, y);
+      }
+    }
+    return ByteBuffer.wrap(bytes);
+  }
+
+  private static byte[] resample(YuvResampler resampler, int planeIndex, int pixelStride) {
+    final PixelValue value = planeIndex == 0 ? LUMA : planeIndex == 1 ? U : V;
+    final int subsampling = planeIndex == 0 ? 1 : 2;
+    final ByteBuffer plane =
+        createPlane(
+            WIDTH / subsampling, HEIGHT / subsampling, ROW_STRIDE, pixelStride, value);
+    resampler.setSourceSize(WIDTH, HEIGHT);
+    final byte[] output = new byte[resampler.getPlaneSize(planeIndex)];
+    assertEquals(
+        output.length,
+        resampler.resamplePlane(planeIndex, plane, ROW_STRIDE, pixelStride, output, 0));
+    return output;
+  }
+
+  private static byte[] bytes(int... values) {
+    final byte[] bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = (byte) values[i];
+    }
+    return bytes;
+  }
+
+  @Test
+  public void resamplePlane_withoutCropOrScaleRemovesStrides() {
+    YuvResampler resampler = new YuvResampler(0f, 0f, 1f, 1f, 0, 0);
+
+    byte[] luma = resample(resampler, 0, 1);
+    byte[] u = resample(resampler, 1, 2);
+
+    assertEquals(WIDTH, resampler.getOutputWidth());
+    assertEquals(HEIGHT, resampler.getOutputHeight());
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        assertEquals((byte) LUMA.at(x, y), luma[y * WIDTH + x]);
+      }
+    }
+    for (int y = 0; y < HEIGHT / 2; y++) {
+      for (int x = 0; x < WIDTH / 2; x++) {
+        assertEquals((byte) U.at(x, y), u[y * WIDTH / 2 + x]);
+      }
+    }
+  }
+
+  @Test
+  public void resamplePlane_downscalesByFour() {
+    YuvResampler resampler = new YuvResampler(0f, 0f, 1f, 1f, 4, 2);
+
+    assertArrayEquals(bytes(34, 38, 42, 46, 98, 102, 106, 110), resample(resampler, 0, 1));
+    assertArrayEquals(bytes(146, 150), resample(resampler, 1, 2));
+    assertArrayEquals(bytes(218, 222), resample(resampler, 2, 2));
+  }
+
+  @Test
+  public void resamplePlane_cropsCenterAndDownscales() {
+    YuvResampler resampler = new YuvResampler(0.25f, 0.25f, 0.75f, 0.75f, 4, 2);
+
+    assertArrayEquals(bytes(53, 55, 57, 59, 85, 87, 89, 91), resample(resampler, 0, 1));
+    assertArrayEquals(bytes(147, 149), resample(resampler, 1, 2));
+    assertArrayEquals(bytes(219, 221), resample(resampler, 2, 2));
+  }
+
+  @Test
+  public void resamplePlane_cropsWithoutScaling() {
+    YuvResampler resampler = new YuvResampler(0.5f, 0.5f, 1f, 1f, 0, 0);
+
+    byte[] luma = resample(resampler, 0, 1);
+
+    assertEquals(8, resampler.getOutputWidth());
+    assertEquals(4, resampler.getOutputHeight());
+    assertArrayEquals(
+        bytes(
+            72, 73, 74, 75, 76, 77, 78, 79, //
+            88, 89, 90, 91, 92, 93, 94, 95, //
+            104, 105, 106, 107, 108, 109, 110, 111, //
+            120, 121, 122, 123, 124, 125, 126, 127),
+        luma);
+    assertArrayEquals(bytes(148, 149, 150, 151, 156, 157, 158, 159), resample(resampler, 1, 1));
+  }
+
+  @Test
+  public void resamplePlane_writesAtOffset() {
+    YuvResampler resampler = new YuvResampler(0f, 0f, 1f, 1f, 4, 2);
+    resampler.setSourceSize(WIDTH, HEIGHT);
+    byte[] output = new byte[10];
+
+    resampler.resamplePlane(1, createPlane(8, 4, ROW_STRIDE, 2, U), ROW_STRIDE, 2, output, 8);
+
+    assertArrayEquals(bytes(0, 0, 0, 0, 0, 0, 0, 0, 146, 150), output);
+  }
+
+  @Test
+  public void setSourceSize_alignsOutputToEvenSizes() {
+    YuvResampler resampler = new YuvResampler(0f, 0f, 1f, 1f, 5, 3);
+
+    resampler.setSourceSize(WIDTH, HEIGHT);
+
+    assertEquals(4, resampler.getOutputWidth());
+    assertEquals(2, resampler.getOutputHeight());
+    assertEquals(2, resampler.getPlaneWidth(1));
+    assertEquals(1, resampler.getPlaneHeight(1));
+  }
+}
@@ -9,6 +9,7 @@ import static org.mockito.Mockito.*;
 
 import android.media.CamcorderProfile;
 import android.media.MediaRecorder;
+import android.view.Surface;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import org.junit.Test;
@@ -89,6 +90,27 @@ public class MediaRecorderBuilderTest {
     inOrder.verify(recorder).prepare();
   }
 
+  @Test
+  public void build_shouldSetInputSurfaceBeforePrepare() throws IOException {
+    CamcorderProfile recorderProfile = getEmptyCamcorderProfile();
+    MediaRecorderBuilder.MediaRecorderFactory mockFactory =
+        mock(MediaRecorderBuilder.MediaRecorderFactory.class);
+    MediaRecorder mockMediaRecorder = mock(MediaRecorder.class);
+    Surface mockSurface = mock(Surface.class);
+    MediaRecorderBuilder builder =
+        new MediaRecorderBuilder(recorderProfile, "mock_video_file_path", mockFactory)
+            .setInputSurface(mockSurface);
+
+    when(mockFactory.makeMediaRecorder()).thenReturn(mockMediaRecorder);
+
+    MediaRecorder recorder = builder.build();
+
+    InOrder inOrder = inOrder(recorder);
+    inOrder.verify(recorder).setVideoSource(MediaRecorder.VideoSource.SURFACE);
+    inOrder.verify(recorder).setInputSurface(mockSurface);
+    inOrder.verify(recorder).prepare();
+  }
+
   private CamcorderProfile getEmptyCamcorderProfile() {
     try {
       Constructor<CamcorderProfile> constructor =
@@ -0,0 +1,155 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.camera.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CaptureResultRingTest {
+  @Test
+  public void find_returnsRecordOfMatchingTimestamp() {
+    CaptureResultRing ring = new CaptureResultRing(4);
+    ring.record(100L, 1.8f, 10_000L, 100, null, null, null);
+    ring.record(200L, 2.0f, 20_000L, 200, null, null, null);
+    CaptureResultRing.Record record = new CaptureResultRing.Record();
+
+    assertTrue(ring.find(100L, record));
+
+    assertEquals(100L, record.getSensorTimestamp());
+    assertEquals(1.8f, record.getLensAperture(), 0);
+    assertEquals(Long.valueOf(10_000L), record.getSensorExposureTime());
+    assertEquals(Integer.valueOf(100), record.getSensorSensitivity());
+  }
+
+  @Test
+  public void find_reusesBoxedValuesThatDidNotChange() {
+    CaptureResultRing ring = new CaptureResultRing(4);
+    ring.record(100L, 1.8f, 10_000L, 400, null, null, null);
+    ring.record(200L, 1.8f, 10_000L, 400, null, null, null);
+    ring.record(300L, 1.8f, 20_000L, 400, null, null, null);
+    CaptureResultRing.Record record = new CaptureResultRing.Record();
+
+    assertTrue(ring.find(100L, record));
+    final Float aperture = record.getLensAperture();
+    final Long exposureTime = record.getSensorExposureTime();
+    final Integer sensitivity = record.getSensorSensitivity();
+    assertTrue(ring.find(200L, record));
+
+    assertSame(aperture, record.getLensAperture());
+    assertSame(exposureTime, record.getSensorExposureTime());
+    assertSame(sensitivity, record.getSensorSensitivity());
+
+    assertTrue(ring.find(300L, record));
+
+    assertNotSame(exposureTime, record.getSensorExposureTime());
+    assertEquals(Long.valueOf(20_000L), record.getSensorExposureTime());
+  }
+
+  @Test
+  public void find_returnsAeAndAfStatesAndAfMode() {
+    CaptureResultRing ring = new CaptureResultRing(4);
+    ring.record(100L, null, null, null, 2, 4, 4);
+    CaptureResultRing.Record record = new CaptureResultRing.Record();
+
+    assertTrue(ring.find(100L, record));
+
+    assertEquals(Integer.valueOf(2), record.getAeState());
+    assertEquals(Integer.valueOf(4), record.getAfMode());
+    assertEquals(Integer.valueOf(4), record.getAfState());
+  }
+
+  @Test
+  public void getLatestTimestamp_returnsNewestRecordedTimestamp() {
+    CaptureResultRing ring = new CaptureResultRing(4);
+    assertEquals(Long.MIN_VALUE, ring.getLatestTimestamp());
+
+    ring.record(200L, null, null, null, null, null, null);
+    ring.record(100L, null, null, null, null, null, null);
+
+    assertEquals(200L, ring.getLatestTimestamp());
+  }
+
+  @Test
+  public void find_returnsFalseForUnknownTimestamp() {
+    CaptureResultRing ring = new CaptureResultRing(4);
+    ring.record(100L, 1.8f, 10_000L, 100, null, null, null);
+
+    assertFalse(ring.find(300L, new CaptureResultRing.Record()));
+  }
+
+  @Test
+  public void record_overwritesOldestRecordWhenFull() {
+    CaptureResultRing ring = new CaptureResultRing(2);
+    ring.record(100L, 1.8f, 10_000L, 100, null, null, null);
+    ring.record(200L, 1.8f, 20_000L, 200, null, null, null);
+    ring.record(300L, 1.8f, 30_000L, 300, null, null, null);
+    CaptureResultRing.Record record = new CaptureResultRing.Record();
+
+    assertFalse(ring.find(100L, record));
+    assertTrue(ring.find(200L, record));
+    assertTrue(ring.find(300L, record));
+    assertEquals(Long.valueOf(30_000L), record.getSensorExposureTime());
+  }
+
+  @Test
+  public void record_mergesResultsWithSameTimestamp() {
+    CaptureResultRing ring = new CaptureResultRing(4);
+    ring.record(100L, null, 10_000L, null, null, null, null);
+    ring.record(200L, null, null, null, null, null, null);
+    ring.record(100L, 1.8f, null, 100, null, null, null);
+    CaptureResultRing.Record record = new CaptureResultRing.Record();
+
+    assertTrue(ring.find(100L, record));
+
+    assertEquals(1.8f, record.getLensAperture(), 0);
+    assertEquals(Long.valueOf(10_000L), record.getSensorExposureTime());
+    assertEquals(Integer.valueOf(100), record.getSensorSensitivity());
+  }
+
+  @Test
+  public void find_returnsNullForMissingProperties() {
+    CaptureResultRing ring = new CaptureResultRing(4);
+    ring.record(100L, null, null, null, null, null, null);
+    CaptureResultRing.Record record = new CaptureResultRing.Record();
+
+    assertTrue(ring.find(100L, record));
+
+    assertNull(record.getLensAperture());
+    assertNull(record.getSensorExposureTime());
+    assertNull(record.getSensorSensitivity());
+  }
+
+  @Test
+  public void find_readsConsistentRecordsWhileWriting() throws InterruptedException {
+    CaptureResultRing ring = new CaptureResultRing(4);
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int i = 0; i < 100_000; i++) {
+                // Every property of a record is derived from its timestamp.
+                ring.record(i % 8, (float) (i % 8), (long) (i % 8), i % 8, null, null, null);
+              }
+            });
+    writer.start();
+
+    CaptureResultRing.Record record = new CaptureResultRing.Record();
+    while (writer.isAlive()) {
+      for (long timestamp = 0; timestamp < 8; timestamp++) {
+        if (ring.find(timestamp, record)) {
+          assertEquals(timestamp, record.getSensorTimestamp());
+          assertEquals(Long.valueOf(timestamp), record.getSensorExposureTime());
+          assertEquals(Integer.valueOf((int) timestamp), record.getSensorSensitivity());
+        }
+      }
+    }
+    writer.join();
+  }
+}
@@ -5,6 +5,12 @@
 export 'src/camera_controller.dart';
 export 'src/camera_image.dart';
 export 'src/camera_preview.dart';
+export 'src/camera_thread_stats.dart';
+export 'src/capture_stats.dart';
+export 'src/frame_processor_result.dart';
+export 'src/image_stream_options.dart';
+export 'src/picture_with_thumbnail.dart';
+export 'src/timed_picture.dart';
 
 export 'package:camera_platform_interface/camera_platform_interface.dart'
     show
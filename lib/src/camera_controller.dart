@@ -241,6 +241,8 @@ class CameraController extends ValueNotifier<CameraValue> {
 
   /// Whether to include audio when recording a video.
   final bool enableAudio;
+
+  /// Whether pictures are cropped to a centered square.
   final bool isSquare;
 
   /// The [ImageFormatGroup] describes the output of the raw image format.
@@ -254,7 +256,10 @@ class CameraController extends ValueNotifier<CameraValue> {
   int _cameraId = kUninitializedCameraId;
 
   bool _isDisposed = false;
+  int _queuedPictures = 0;
+  int _nextThumbnailRequestId = 0;
   StreamSubscription<dynamic>? _imageStreamSubscription;
+  StreamSubscription<dynamic>? _frameProcessorSubscription;
   FutureOr<bool>? _initCalled;
   StreamSubscription? _deviceOrientationSubscription;
 
@@ -396,6 +401,357 @@ class CameraController extends ValueNotifier<CameraValue> {
     }
   }
 
+  /// Captures an image and returns its JPEG bytes, without writing a file.
+  ///
+  /// This saves writing and reading back a file when the picture is uploaded
+  /// or processed in memory right away.
+  ///
+  /// When [maxOutputDimension] is given, a picture whose longest edge is
+  /// larger is scaled down to it natively, see [takePictureToPath].
+  ///
+  /// This is only supported on Android.
+  Future<Uint8List> takePictureBytes({int? maxOutputDimension}) async {
+    _throwIfNotInitialized("takePictureBytes");
+    final Map<String, dynamic> arguments = <String, dynamic>{
+      'returnBytes': true
+    };
+    _addMaxOutputDimension(arguments, maxOutputDimension);
+    final Uint8List? bytes =
+        await _takePictureWithArguments("takePictureBytes", arguments);
+    return bytes!;
+  }
+
+  /// Captures an image and writes it to [path].
+  ///
+  /// The directory of [path] must exist. An existing file is replaced.
+  ///
+  /// When [maxOutputDimension] is given, a picture whose longest edge is
+  /// larger is scaled down natively before it is written, keeping its aspect
+  /// ratio. This saves transferring and scaling the full resolution picture
+  /// in Dart when only a smaller picture is kept.
+  ///
+  /// This is only supported on Android.
+  Future<XFile> takePictureToPath(String path,
+      {int? maxOutputDimension}) async {
+    _throwIfNotInitialized("takePictureToPath");
+    final Map<String, dynamic> arguments = <String, dynamic>{'path': path};
+    _addMaxOutputDimension(arguments, maxOutputDimension);
+    final String? savedPath =
+        await _takePictureWithArguments("takePictureToPath", arguments);
+    return XFile(savedPath!);
+  }
+
+  /// Captures an image together with a thumbnail whose longest edge is at
+  /// most [maxThumbnailSize] pixels.
+  ///
+  /// The thumbnail is written while the full resolution picture is being
+  /// written, so it can usually be shown before the picture is saved. The
+  /// picture does not wait for it though, and failing to write the thumbnail
+  /// does not fail the picture.
+  ///
+  /// The picture is queued like [takeQueuedPicture], so this can be called
+  /// again before the previous picture has returned.
+  ///
+  /// Throws a [CameraException] if another kind of capture has not returned
+  /// yet.
+  ///
+  /// This is only supported on Android.
+  PictureWithThumbnail takePictureWithThumbnail({int maxThumbnailSize = 320}) {
+    _throwIfNotInitialized("takePictureWithThumbnail");
+    if (maxThumbnailSize < 1) {
+      throw ArgumentError.value(maxThumbnailSize, 'maxThumbnailSize',
+          'The thumbnail size must be at least 1.');
+    }
+    _throwIfTakingUnqueuedPicture("takePictureWithThumbnail");
+
+    // The thumbnails of all pictures arrive on one channel, tagged with the id
+    // of their request.
+    final int requestId = _nextThumbnailRequestId++;
+    final Completer<XFile> thumbnail = Completer<XFile>();
+    // The thumbnail is optional, so it is fine to ignore its errors.
+    unawaited(thumbnail.future.then((_) {}, onError: (Object _) {}));
+    const EventChannel thumbnailChannel =
+        EventChannel('plugins.flutter.io/camera/pictureThumbnails');
+    // Listening before the picture is requested makes sure no thumbnail is
+    // missed.
+    late final StreamSubscription<dynamic> subscription;
+    subscription =
+        thumbnailChannel.receiveBroadcastStream().listen((dynamic event) {
+      final Map<dynamic, dynamic> thumbnailEvent =
+          event as Map<dynamic, dynamic>;
+      if (thumbnailEvent['requestId'] != requestId) {
+        return;
+      }
+      if (!thumbnail.isCompleted) {
+        thumbnail.complete(XFile(thumbnailEvent['path'] as String));
+      }
+      subscription.cancel();
+    }, onError: (Object error) {
+      if (error is! PlatformException ||
+          (error.details as Map<dynamic, dynamic>?)?['requestId'] !=
+              requestId) {
+        return;
+      }
+      if (!thumbnail.isCompleted) {
+        thumbnail.completeError(CameraException(error.code, error.message));
+      }
+      subscription.cancel();
+    });
+
+    final Future<XFile> picture = _takeQueuedPicture<String>(<String, dynamic>{
+      'thumbnailSize': maxThumbnailSize,
+      'thumbnailRequestId': requestId,
+    }).then((String? path) => XFile(path!));
+    unawaited(picture.then((_) {}, onError: (Object error) {
+      // No thumbnail is written for a picture that failed.
+      if (!thumbnail.isCompleted) {
+        thumbnail.completeError(error);
+      }
+      subscription.cancel();
+    }));
+    return PictureWithThumbnail(thumbnail: thumbnail.future, picture: picture);
+  }
+
+  /// Captures an image and returns the file where it was saved, together with
+  /// the time it took to reach every phase of the capture.
+  ///
+  /// The timings of all pictures are also summarized in
+  /// [CaptureStats.latency], see [getCaptureStats].
+  ///
+  /// This is only supported on Android.
+  Future<TimedPicture> takePictureWithTimings() async {
+    _throwIfNotInitialized("takePictureWithTimings");
+    final Map<dynamic, dynamic>? data =
+        await _takePictureWithArguments<Map<dynamic, dynamic>>(
+            "takePictureWithTimings",
+            <String, dynamic>{'includeTimings': true});
+    return TimedPicture.fromPlatformData(data!);
+  }
+
+  /// Captures an image without waiting for earlier pictures of this method to
+  /// return, and returns the file where it was saved.
+  ///
+  /// Pictures are queued natively. The next picture is taken as soon as the
+  /// camera has read out the previous one, while the previous one is still
+  /// being saved. [CameraValue.isTakingPicture] stays true until all queued
+  /// pictures have returned. When [path] is given the picture is written there,
+  /// and [maxOutputDimension] scales it down, see [takePictureToPath].
+  ///
+  /// Throws a [CameraException] when too many pictures are queued already, or
+  /// when another kind of capture has not returned yet.
+  ///
+  /// This is only supported on Android.
+  Future<XFile> takeQueuedPicture(
+      {String? path, int? maxOutputDimension}) async {
+    _throwIfNotInitialized("takeQueuedPicture");
+    _throwIfTakingUnqueuedPicture("takeQueuedPicture");
+    final Map<String, dynamic> arguments = <String, dynamic>{};
+    if (path != null) {
+      arguments['path'] = path;
+    }
+    _addMaxOutputDimension(arguments, maxOutputDimension);
+    final String? savedPath = await _takeQueuedPicture<String>(arguments);
+    return XFile(savedPath!);
+  }
+
+  void _throwIfTakingUnqueuedPicture(String functionName) {
+    if (value.isTakingPicture && _queuedPictures == 0) {
+      throw CameraException(
+        'Previous capture has not returned yet.',
+        '$functionName was called before the previous capture returned.',
+      );
+    }
+  }
+
+  Future<T?> _takeQueuedPicture<T>(Map<String, dynamic> arguments) async {
+    _queuedPictures++;
+    value = value.copyWith(isTakingPicture: true);
+    try {
+      return await _channel.invokeMethod<T>('takePicture', arguments);
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    } finally {
+      _queuedPictures--;
+      if (_queuedPictures == 0) {
+        value = value.copyWith(isTakingPicture: false);
+      }
+    }
+  }
+
+  void _addMaxOutputDimension(
+      Map<String, dynamic> arguments, int? maxOutputDimension) {
+    if (maxOutputDimension == null) {
+      return;
+    }
+    if (maxOutputDimension < 1) {
+      throw ArgumentError.value(maxOutputDimension, 'maxOutputDimension',
+          'The maximum output dimension must be at least 1.');
+    }
+    arguments['maxOutputDimension'] = maxOutputDimension;
+  }
+
+  Future<T?> _takePictureWithArguments<T>(
+      String functionName, Map<String, dynamic> arguments) async {
+    if (value.isTakingPicture) {
+      throw CameraException(
+        'Previous capture has not returned yet.',
+        '$functionName was called before the previous capture returned.',
+      );
+    }
+    try {
+      value = value.copyWith(isTakingPicture: true);
+      final T? result = await _channel.invokeMethod<T>('takePicture', arguments);
+      value = value.copyWith(isTakingPicture: false);
+      return result;
+    } on PlatformException catch (e) {
+      value = value.copyWith(isTakingPicture: false);
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Captures a burst of [count] pictures and returns them in capture order.
+  ///
+  /// Exposure and focus are not adjusted between the pictures, so the burst
+  /// captures them as fast as the camera allows. When [interval] is not zero,
+  /// a picture is requested every [interval] instead. The preview keeps
+  /// running during the burst.
+  ///
+  /// This is only supported on Android, for up to 10 pictures.
+  Future<List<XFile>> takePictureBurst(int count,
+      {Duration interval = Duration.zero}) async {
+    _throwIfNotInitialized("takePictureBurst");
+    if (value.isTakingPicture) {
+      throw CameraException(
+        'Previous capture has not returned yet.',
+        'takePictureBurst was called before the previous capture returned.',
+      );
+    }
+    try {
+      value = value.copyWith(isTakingPicture: true);
+      final List<String>? paths = await _channel.invokeListMethod<String>(
+        'takePictureBurst',
+        <String, dynamic>{
+          'count': count,
+          'intervalMs': interval.inMilliseconds,
+        },
+      );
+      value = value.copyWith(isTakingPicture: false);
+      return paths!.map((String path) => XFile(path)).toList();
+    } on PlatformException catch (e) {
+      value = value.copyWith(isTakingPicture: false);
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Sets the JPEG quality of pictures, from 1 to 100.
+  ///
+  /// Square pictures, see [isSquare], are cropped from the captured picture
+  /// and encoded again with the same quality.
+  ///
+  /// This is only supported on Android.
+  Future<void> setJpegQuality(int quality) async {
+    _throwIfNotInitialized("setJpegQuality");
+    if (quality < 1 || quality > 100) {
+      throw ArgumentError.value(
+          quality, 'quality', 'The JPEG quality must be between 1 and 100');
+    }
+    try {
+      await _channel.invokeMethod<void>(
+          'setJpegQuality', <String, dynamic>{'quality': quality});
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Sets whether pictures are written through to the storage device before
+  /// [takePicture] and [takePictureBurst] return.
+  ///
+  /// When enabled, pictures survive a crash or power loss right after they
+  /// were taken, at the cost of a longer time until the picture is returned.
+  /// Disabled by default.
+  ///
+  /// This is only supported on Android.
+  Future<void> setSyncPicturesToDisk(bool enabled) async {
+    _throwIfNotInitialized("setSyncPicturesToDisk");
+    try {
+      await _channel.invokeMethod<void>(
+          'setSyncPicturesToDisk', <String, dynamic>{'enabled': enabled});
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Enables or disables zero shutter lag pictures.
+  ///
+  /// While enabled, the preview keeps the most recent full resolution frames
+  /// and [takePicture] saves the one closest to the call whose exposure and
+  /// focus had converged, instead of running a new capture sequence. This
+  /// shortens the time between the call and the picture considerably, at the
+  /// cost of capturing full resolution frames during the preview.
+  ///
+  /// Pictures are taken the regular way while recording, while streaming
+  /// images and when the flash could fire.
+  ///
+  /// This is only supported on Android.
+  Future<void> setZeroShutterLagEnabled(bool enabled) async {
+    _throwIfNotInitialized("setZeroShutterLagEnabled");
+    try {
+      await _channel.invokeMethod<void>(
+          'setZeroShutterLag', <String, dynamic>{'enabled': enabled});
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Gets the number of threads the camera owns.
+  ///
+  /// This is only supported on Android.
+  Future<CameraThreadStats> getThreadStats() async {
+    _throwIfNotInitialized("getThreadStats");
+    try {
+      final Map<dynamic, dynamic>? stats =
+          await _channel.invokeMapMethod<dynamic, dynamic>('getThreadStats');
+      return CameraThreadStats.fromPlatformData(stats!);
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Enables or disables the persistent capture session.
+  ///
+  /// While enabled, the preview, the image stream and video recording share a
+  /// single capture session that is configured with all of their outputs.
+  /// Starting or stopping the image stream or a recording then only changes
+  /// which outputs receive frames, without the preview going black while a
+  /// new session is configured. When the camera cannot configure all outputs
+  /// at once, a session per mode is used instead, see
+  /// [CaptureStats.session].
+  ///
+  /// This is only supported on Android.
+  Future<void> setPersistentSessionEnabled(bool enabled) async {
+    _throwIfNotInitialized("setPersistentSessionEnabled");
+    try {
+      await _channel.invokeMethod<void>(
+          'setPersistentSession', <String, dynamic>{'enabled': enabled});
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Gets the counters of the ways pictures have been taken by [takePicture].
+  ///
+  /// This is only supported on Android.
+  Future<CaptureStats> getCaptureStats() async {
+    _throwIfNotInitialized("getCaptureStats");
+    try {
+      final Map<dynamic, dynamic>? stats =
+          await _channel.invokeMapMethod<dynamic, dynamic>('getCaptureStats');
+      return CaptureStats.fromPlatformData(stats!);
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
   /// Start streaming images from platform camera.
   ///
   /// Settings for capturing images on iOS and Android is set to always use the
@@ -412,8 +768,12 @@ class CameraController extends ValueNotifier<CameraValue> {
   /// The `startImageStream` method is only available on Android and iOS (other
   /// platforms won't be supported in current setup).
   ///
+  /// The optional [options] control how frames are delivered on Android, see
+  /// [ImageStreamOptions].
+  ///
   // TODO(bmparr): Add settings for resolution and fps.
-  Future<void> startImageStream(onLatestImageAvailable onAvailable) async {
+  Future<void> startImageStream(onLatestImageAvailable onAvailable,
+      {ImageStreamOptions? options}) async {
     assert(defaultTargetPlatform == TargetPlatform.android ||
         defaultTargetPlatform == TargetPlatform.iOS);
     _throwIfNotInitialized("startImageStream");
@@ -431,7 +791,9 @@ class CameraController extends ValueNotifier<CameraValue> {
     }
 
     try {
-      await _channel.invokeMethod<void>('startImageStream');
+      final Map<String, dynamic>? arguments = options?.toMap();
+      await _channel.invokeMethod<void>('startImageStream',
+          arguments == null || arguments.isEmpty ? null : arguments);
       value = value.copyWith(isStreamingImages: true);
     } on PlatformException catch (e) {
       throw CameraException(e.code, e.message);
@@ -481,6 +843,78 @@ class CameraController extends ValueNotifier<CameraValue> {
     _imageStreamSubscription = null;
   }
 
+  /// Gets the delivery counters of the running image stream.
+  ///
+  /// This is only supported on Android.
+  Future<ImageStreamStats> getImageStreamStats() async {
+    _throwIfNotInitialized("getImageStreamStats");
+    try {
+      final Map<dynamic, dynamic>? stats =
+          await _channel.invokeMapMethod<dynamic, dynamic>('getImageStreamStats');
+      return ImageStreamStats.fromPlatformData(stats!);
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Starts running native frame processors on every camera frame.
+  ///
+  /// The processors are looked up by the names they were registered with on
+  /// the platform side, and run on the camera thread before any frame data
+  /// is copied. Only their results are sent to Dart, through [onResult].
+  /// Frame processors can run together with an image stream.
+  ///
+  /// Throws a [CameraException] if one of the processors is not registered.
+  ///
+  /// This is only supported on Android.
+  Future<void> startFrameProcessors(List<String> processors,
+      void Function(FrameProcessorResult result) onResult) async {
+    _throwIfNotInitialized("startFrameProcessors");
+    await _frameProcessorSubscription?.cancel();
+    try {
+      await _channel.invokeMethod<void>(
+          'startFrameProcessors', <String, dynamic>{'processors': processors});
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+    const EventChannel resultChannel =
+        EventChannel('plugins.flutter.io/camera/frameProcessorResults');
+    _frameProcessorSubscription =
+        resultChannel.receiveBroadcastStream().listen((dynamic data) {
+      onResult(FrameProcessorResult.fromPlatformData(data));
+    });
+  }
+
+  /// Stops running the native frame processors.
+  ///
+  /// This is only supported on Android.
+  Future<void> stopFrameProcessors() async {
+    _throwIfNotInitialized("stopFrameProcessors");
+    await _frameProcessorSubscription?.cancel();
+    _frameProcessorSubscription = null;
+    try {
+      await _channel.invokeMethod<void>('stopFrameProcessors');
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Gets the counters of the running native frame processors, by name.
+  ///
+  /// This is only supported on Android.
+  Future<Map<String, FrameProcessorStats>> getFrameProcessorStats() async {
+    _throwIfNotInitialized("getFrameProcessorStats");
+    try {
+      final Map<dynamic, dynamic>? stats = await _channel
+          .invokeMapMethod<dynamic, dynamic>('getFrameProcessorStats');
+      return stats!.map((dynamic name, dynamic data) =>
+          MapEntry<String, FrameProcessorStats>(
+              name, FrameProcessorStats.fromPlatformData(data)));
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
   /// Start a video recording.
   ///
   /// The video is returned as a [XFile] after calling [stopVideoRecording].
@@ -805,6 +1239,7 @@ class CameraController extends ValueNotifier<CameraValue> {
       return;
     }
     unawaited(_deviceOrientationSubscription?.cancel());
+    unawaited(_frameProcessorSubscription?.cancel());
     _isDisposed = true;
     super.dispose();
     if (_initCalled != null) {
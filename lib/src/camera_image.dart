@@ -8,6 +8,8 @@ import 'package:flutter/foundation.dart';
 import 'package:flutter/material.dart';
 import 'package:camera_platform_interface/camera_platform_interface.dart';
 
+import 'image_stream_options.dart';
+
 /// A single color plane of image data.
 ///
 /// The number and meaning of the planes in an image are determined by the
@@ -20,6 +22,10 @@ class Plane {
         height = data['height'],
         width = data['width'];
 
+  Plane._fromPacket(this.bytes, this.bytesPerPixel, this.bytesPerRow)
+      : height = null,
+        width = null;
+
   /// Bytes representing this plane.
   final Uint8List bytes;
 
@@ -65,6 +71,10 @@ ImageFormatGroup _asImageFormatGroup(dynamic rawFormat) {
       // android.graphics.ImageFormat.YUV_420_888
       case 35:
         return ImageFormatGroup.yuv420;
+      // android.graphics.ImageFormat.Y8, the luma plane of a YUV_420_888 image
+      // that is sent by luma-only image streams.
+      case 538982489:
+        return ImageFormatGroup.yuv420;
       // android.graphics.ImageFormat.JPEG
       case 256:
         return ImageFormatGroup.jpeg;
@@ -96,7 +106,18 @@ ImageFormatGroup _asImageFormatGroup(dynamic rawFormat) {
 /// images as single planar images.
 class CameraImage {
   /// CameraImage Constructor
-  CameraImage.fromPlatformData(Map<dynamic, dynamic> data)
+  ///
+  /// The [data] is either a map of image properties and planes, or a single
+  /// binary packet when the image stream was started with
+  /// [ImageStreamOptions.packed] on Android.
+  factory CameraImage.fromPlatformData(dynamic data) {
+    if (data is Uint8List) {
+      return CameraImage._fromPacket(data);
+    }
+    return CameraImage._fromMap(data);
+  }
+
+  CameraImage._fromMap(Map<dynamic, dynamic> data)
       : format = ImageFormat._fromPlatformData(data['format']),
         height = data['height'],
         width = data['width'],
@@ -106,6 +127,58 @@ class CameraImage {
         planes = List<Plane>.unmodifiable(data['planes']
             .map((dynamic planeData) => Plane._fromPlatformData(planeData)));
 
+  CameraImage._({
+    required this.format,
+    required this.height,
+    required this.width,
+    required this.planes,
+    this.lensAperture,
+    this.sensorExposureTime,
+    this.sensorSensitivity,
+  });
+
+  /// Parses a packet written by `ImageStreamPacket` on Android.
+  ///
+  /// The planes are views over the packet, so no pixel data is copied.
+  factory CameraImage._fromPacket(Uint8List packet) {
+    final ByteData header = ByteData.view(
+        packet.buffer, packet.offsetInBytes, _kPacketHeaderSize);
+    final int version = header.getInt32(0, Endian.little);
+    if (version != _kPacketVersion) {
+      throw ArgumentError('Unsupported image packet version: $version');
+    }
+
+    final int planeCount = header.getInt32(16, Endian.little);
+    final List<Plane> planes = <Plane>[];
+    for (int i = 0; i < planeCount; i++) {
+      final int descriptor = _kPacketPlaneDescriptorsOffset + i * 16;
+      final int offset = header.getInt32(descriptor + 8, Endian.little);
+      final int length = header.getInt32(descriptor + 12, Endian.little);
+      planes.add(Plane._fromPacket(
+        Uint8List.view(packet.buffer, packet.offsetInBytes + offset, length),
+        header.getInt32(descriptor + 4, Endian.little),
+        header.getInt32(descriptor, Endian.little),
+      ));
+    }
+
+    final double lensAperture = header.getFloat64(24, Endian.little);
+    final int sensorExposureTime = header.getInt64(32, Endian.little);
+    final double sensorSensitivity = header.getFloat64(40, Endian.little);
+    return CameraImage._(
+      format: ImageFormat._fromPlatformData(header.getInt32(12, Endian.little)),
+      width: header.getInt32(4, Endian.little),
+      height: header.getInt32(8, Endian.little),
+      planes: List<Plane>.unmodifiable(planes),
+      lensAperture: lensAperture.isNaN ? null : lensAperture,
+      sensorExposureTime: sensorExposureTime < 0 ? null : sensorExposureTime,
+      sensorSensitivity: sensorSensitivity.isNaN ? null : sensorSensitivity,
+    );
+  }
+
+  static const int _kPacketVersion = 1;
+  static const int _kPacketHeaderSize = 96;
+  static const int _kPacketPlaneDescriptorsOffset = 48;
+
   /// Format of the image provided.
   ///
   /// Determines the number of planes needed to represent the image, and
@@ -0,0 +1,37 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+/// The threads a camera owns.
+///
+/// The threads are created with the camera and shared by all of its capture
+/// sessions, until the camera is disposed.
+class CameraThreadStats {
+  /// Creates a new set of thread counts.
+  const CameraThreadStats({
+    required this.controlThreads,
+    required this.analysisThreads,
+    required this.ioThreads,
+    required this.shutDown,
+  });
+
+  /// Creates the thread counts from the data sent by the platform.
+  CameraThreadStats.fromPlatformData(Map<dynamic, dynamic> data)
+      : controlThreads = data['controlThreads'],
+        analysisThreads = data['analysisThreads'],
+        ioThreads = data['ioThreads'],
+        shutDown = data['shutDown'];
+
+  /// The number of threads that run the callbacks of the camera.
+  final int controlThreads;
+
+  /// The number of threads that process the frames of the image stream and
+  /// frame processors.
+  final int analysisThreads;
+
+  /// The number of threads that save pictures.
+  final int ioThreads;
+
+  /// Whether the threads have been stopped because the camera was disposed.
+  final bool shutDown;
+}
@@ -0,0 +1,235 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+/// Counters of the ways still pictures have been taken.
+class CaptureStats {
+  /// Creates a new set of capture counters.
+  const CaptureStats({
+    required this.zeroShutterLagCaptures,
+    required this.fastPathCaptures,
+    required this.precaptureCaptures,
+    this.io,
+    this.latency,
+    this.session,
+    this.open,
+  });
+
+  /// Creates the counters from the data sent by the platform.
+  CaptureStats.fromPlatformData(Map<dynamic, dynamic> data)
+      : zeroShutterLagCaptures = data['zeroShutterLagCaptures'],
+        fastPathCaptures = data['fastPathCaptures'],
+        precaptureCaptures = data['precaptureCaptures'],
+        io = data['io'] == null
+            ? null
+            : CaptureIoStats.fromPlatformData(data['io']),
+        latency = data['latency'] == null
+            ? null
+            : CaptureLatencyStats.fromPlatformData(data['latency']),
+        session = data['session'] == null
+            ? null
+            : CaptureSessionStats.fromPlatformData(data['session']),
+        open = data['open'] == null
+            ? null
+            : CameraOpenTimings.fromPlatformData(data['open']);
+
+  /// The number of pictures taken from the frames buffered for zero shutter
+  /// lag pictures.
+  final int zeroShutterLagCaptures;
+
+  /// The number of pictures captured right away, because exposure and focus
+  /// had already converged and the flash could not fire.
+  final int fastPathCaptures;
+
+  /// The number of pictures captured after running the focus and precapture
+  /// sequences.
+  final int precaptureCaptures;
+
+  /// The counters of the writes that save pictures, or null when the camera
+  /// is not open.
+  final CaptureIoStats? io;
+
+  /// The percentiles of the phase timings of the most recent pictures.
+  final CaptureLatencyStats? latency;
+
+  /// The counters of the capture sessions of the camera.
+  final CaptureSessionStats? session;
+
+  /// The timings of the latest open of the camera.
+  final CameraOpenTimings? open;
+}
+
+/// Counters of the writes that save pictures.
+///
+/// Pictures are saved by a fixed number of threads with a bounded queue.
+/// When the queue is full, taking a picture fails with a `saveQueueFull`
+/// `CameraException` instead of queueing more writes.
+class CaptureIoStats {
+  /// Creates a new set of write counters.
+  const CaptureIoStats({
+    required this.queueDepth,
+    required this.maxQueueDepth,
+    required this.queueCapacity,
+    required this.submittedWrites,
+    required this.completedWrites,
+    required this.rejectedWrites,
+    required this.averageQueueWaitMicros,
+    required this.averageWriteMicros,
+    required this.maxWriteMicros,
+  });
+
+  /// Creates the counters from the data sent by the platform.
+  CaptureIoStats.fromPlatformData(Map<dynamic, dynamic> data)
+      : queueDepth = data['queueDepth'],
+        maxQueueDepth = data['maxQueueDepth'],
+        queueCapacity = data['queueCapacity'],
+        submittedWrites = data['submittedWrites'],
+        completedWrites = data['completedWrites'],
+        rejectedWrites = data['rejectedWrites'],
+        averageQueueWaitMicros = data['averageQueueWaitMicros'],
+        averageWriteMicros = data['averageWriteMicros'],
+        maxWriteMicros = data['maxWriteMicros'];
+
+  /// The number of writes currently waiting for a thread.
+  final int queueDepth;
+
+  /// The largest number of writes that have been waiting at the same time.
+  final int maxQueueDepth;
+
+  /// The number of writes that can wait before further writes are rejected.
+  final int queueCapacity;
+
+  /// The number of writes that have been queued.
+  final int submittedWrites;
+
+  /// The number of writes that have finished.
+  final int completedWrites;
+
+  /// The number of writes that were rejected because the queue was full.
+  final int rejectedWrites;
+
+  /// The average time writes waited for a thread, in microseconds.
+  final int averageQueueWaitMicros;
+
+  /// The average time writes took, in microseconds.
+  final int averageWriteMicros;
+
+  /// The longest time a write took, in microseconds.
+  final int maxWriteMicros;
+}
+
+/// Rolling percentiles of the phase timings of the most recent pictures.
+///
+/// Every time is measured from the moment the picture was requested to the
+/// moment it reached a phase. The phase names are the keys of
+/// [TimedPicture.timings].
+class CaptureLatencyStats {
+  /// Creates a new set of latency percentiles.
+  const CaptureLatencyStats({
+    required this.recordedCaptures,
+    required this.windowSize,
+    required this.phases,
+  });
+
+  /// Creates the percentiles from the data sent by the platform.
+  CaptureLatencyStats.fromPlatformData(Map<dynamic, dynamic> data)
+      : recordedCaptures = data['recordedCaptures'],
+        windowSize = data['windowSize'],
+        phases = (data['phases'] as Map<dynamic, dynamic>).map(
+            (dynamic phase, dynamic percentiles) =>
+                MapEntry<String, PhaseLatency>(
+                    phase, PhaseLatency.fromPlatformData(percentiles)));
+
+  /// The number of pictures that have been saved since the camera was created.
+  final int recordedCaptures;
+
+  /// The number of most recent pictures the percentiles are computed over.
+  final int windowSize;
+
+  /// The percentiles per phase, only for phases that pictures reached.
+  final Map<String, PhaseLatency> phases;
+}
+
+/// The percentiles of the time from the request of a picture to one phase.
+class PhaseLatency {
+  /// Creates a new set of percentiles.
+  const PhaseLatency({
+    required this.count,
+    required this.p50,
+    required this.p90,
+    required this.p99,
+  });
+
+  /// Creates the percentiles from the data sent by the platform.
+  PhaseLatency.fromPlatformData(Map<dynamic, dynamic> data)
+      : count = data['count'],
+        p50 = Duration(microseconds: data['p50Micros']),
+        p90 = Duration(microseconds: data['p90Micros']),
+        p99 = Duration(microseconds: data['p99Micros']);
+
+  /// The number of pictures in the window that reached the phase.
+  final int count;
+
+  /// The median time.
+  final Duration p50;
+
+  /// The 90th percentile of the time.
+  final Duration p90;
+
+  /// The 99th percentile of the time.
+  final Duration p99;
+}
+
+/// Counters of the capture sessions of the camera.
+///
+/// Configuring a session interrupts the preview, while switching the
+/// repeating request of the persistent session does not.
+class CaptureSessionStats {
+  /// Creates a new set of session counters.
+  const CaptureSessionStats({
+    required this.persistent,
+    required this.configurations,
+    required this.repeatingRequestSwitches,
+  });
+
+  /// Creates the counters from the data sent by the platform.
+  CaptureSessionStats.fromPlatformData(Map<dynamic, dynamic> data)
+      : persistent = data['persistent'],
+        configurations = data['configurations'],
+        repeatingRequestSwitches = data['repeatingRequestSwitches'];
+
+  /// Whether the persistent session is in use, see
+  /// `CameraController.setPersistentSessionEnabled`.
+  final bool persistent;
+
+  /// The number of sessions that have been configured.
+  final int configurations;
+
+  /// The number of mode switches that only replaced the repeating request of
+  /// the persistent session.
+  final int repeatingRequestSwitches;
+}
+
+/// The timings of the latest open of the camera.
+///
+/// The camera device is opened while the image readers and surfaces are
+/// prepared, the preview starts once both are ready. Every time is measured
+/// from the moment the camera was asked to open.
+class CameraOpenTimings {
+  /// Creates a new set of open timings.
+  const CameraOpenTimings({required this.phases});
+
+  /// Creates the timings from the data sent by the platform.
+  CameraOpenTimings.fromPlatformData(Map<dynamic, dynamic> data)
+      : phases = data.map((dynamic phase, dynamic micros) =>
+            MapEntry<String, Duration>(phase, Duration(microseconds: micros)));
+
+  /// The time to every phase that has been reached, by phase name:
+  /// `openRequested`, `deviceOpened`, `outputsPrepared`, `sessionConfigured`
+  /// and `firstFrame`.
+  final Map<String, Duration> phases;
+
+  /// The time from the request to the first frame of the preview, or null
+  /// when no frame has arrived yet.
+  Duration? get timeToFirstFrame => phases['firstFrame'];
+}
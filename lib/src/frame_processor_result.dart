@@ -0,0 +1,52 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+/// The result of a native frame processor for a single camera frame.
+///
+/// Frame processors are implemented and registered on the platform side, see
+/// `FrameProcessorRegistry` on Android, and only their results are sent to
+/// Dart.
+class FrameProcessorResult {
+  /// Creates the result from the data sent by the platform.
+  FrameProcessorResult.fromPlatformData(Map<dynamic, dynamic> data)
+      : processor = data['processor'],
+        timestamp = data['timestamp'],
+        processingTimeMicros = data['processingTimeMicros'],
+        result = data['result'];
+
+  /// The name the frame processor is registered with.
+  final String processor;
+
+  /// The sensor timestamp of the processed frame, in nanoseconds.
+  final int timestamp;
+
+  /// The time the processor spent on the frame, in microseconds.
+  final int processingTimeMicros;
+
+  /// The value returned by the processor.
+  final dynamic result;
+}
+
+/// The counters of a running native frame processor.
+class FrameProcessorStats {
+  /// Creates the counters from the data sent by the platform.
+  FrameProcessorStats.fromPlatformData(Map<dynamic, dynamic> data)
+      : processedFrames = data['processedFrames'],
+        skippedFrames = data['skippedFrames'],
+        overBudgetFrames = data['overBudgetFrames'],
+        averageProcessingTimeMicros = data['averageProcessingTimeMicros'];
+
+  /// The number of frames the processor has processed.
+  final int processedFrames;
+
+  /// The number of frames the processor was skipped for because it ran over
+  /// its time budget before.
+  final int skippedFrames;
+
+  /// The number of frames for which the processor ran over its time budget.
+  final int overBudgetFrames;
+
+  /// The average time the processor spent on a frame, in microseconds.
+  final int averageProcessingTimeMicros;
+}
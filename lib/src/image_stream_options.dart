@@ -0,0 +1,129 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+import 'dart:ui';
+
+/// Options that control how frames of the image stream are delivered.
+///
+/// These options are currently only supported on Android and are ignored on
+/// iOS.
+class ImageStreamOptions {
+  /// Creates a new set of image stream options.
+  const ImageStreamOptions({
+    this.maxFramesInFlight,
+    this.packed = false,
+    this.targetSize,
+    this.cropRect,
+    this.maxStreamFps,
+    this.lumaOnly = false,
+    this.removeRowPadding = false,
+  })  : assert(maxFramesInFlight == null || maxFramesInFlight > 0),
+        assert(maxStreamFps == null || maxStreamFps > 0);
+
+  /// The maximum number of frames that can be on their way to Dart at once.
+  ///
+  /// When this many frames have not been received yet, only the newest
+  /// pending frame is kept and older frames are dropped before they are
+  /// copied. Defaults to 3 on Android.
+  final int? maxFramesInFlight;
+
+  /// Whether frames are sent as a single binary packet instead of a map.
+  ///
+  /// The packet holds the image properties and all plane data in one buffer,
+  /// which avoids the per-frame cost of encoding nested maps. The planes of
+  /// the resulting [CameraImage] are views over that buffer.
+  final bool packed;
+
+  /// The size YUV frames are scaled down to before they are sent.
+  ///
+  /// Frames are resampled on the platform side, so only the scaled planes
+  /// are copied to Dart. The size is rounded down to even values. When
+  /// `null`, frames keep the size of the [cropRect].
+  final Size? targetSize;
+
+  /// The region of YUV frames that is sent, normalized to the frame size.
+  ///
+  /// For example `Rect.fromLTRB(0.25, 0.25, 0.75, 0.75)` sends the center
+  /// quarter of every frame. When `null`, the whole frame is sent.
+  final Rect? cropRect;
+
+  /// The maximum number of frames per second that are sent to Dart.
+  ///
+  /// Frames above this rate are dropped by the platform before any of their
+  /// data is copied. Frames are paced by their sensor timestamps, so the
+  /// frames that are sent are evenly spaced. When `null`, every frame is sent.
+  final double? maxStreamFps;
+
+  /// Whether only the luma (Y) plane of YUV frames is sent.
+  ///
+  /// The chroma planes are not copied at all, which suits grayscale
+  /// analyzers. Frames have a single plane and report the Android
+  /// `ImageFormat.Y8` format, which maps to [ImageFormatGroup.yuv420].
+  final bool lumaOnly;
+
+  /// Whether the padding at the end of every row of the luma plane is left
+  /// out when [lumaOnly] is set, so that `bytesPerRow` equals the width.
+  final bool removeRowPadding;
+
+  /// Serializes the options that have been set for the platform channel.
+  Map<String, dynamic> toMap() {
+    return <String, dynamic>{
+      if (maxFramesInFlight != null) 'maxFramesInFlight': maxFramesInFlight,
+      if (packed) 'packed': true,
+      if (targetSize != null) 'targetWidth': targetSize!.width.toInt(),
+      if (targetSize != null) 'targetHeight': targetSize!.height.toInt(),
+      if (cropRect != null) 'cropLeft': cropRect!.left,
+      if (cropRect != null) 'cropTop': cropRect!.top,
+      if (cropRect != null) 'cropRight': cropRect!.right,
+      if (cropRect != null) 'cropBottom': cropRect!.bottom,
+      if (maxStreamFps != null) 'maxStreamFps': maxStreamFps,
+      if (lumaOnly) 'lumaOnly': true,
+      if (removeRowPadding) 'removeRowPadding': true,
+    };
+  }
+}
+
+/// Delivery counters of the image stream.
+class ImageStreamStats {
+  /// Creates a new set of image stream counters.
+  const ImageStreamStats({
+    required this.deliveredFrames,
+    required this.droppedFrames,
+    this.skippedFrames = 0,
+    required this.framesInFlight,
+    this.busyDroppedFrames = 0,
+    this.unmatchedFrames = 0,
+  });
+
+  /// Creates the counters from the data sent by the platform.
+  ImageStreamStats.fromPlatformData(Map<dynamic, dynamic> data)
+      : deliveredFrames = data['deliveredFrames'],
+        droppedFrames = data['droppedFrames'],
+        skippedFrames = data['skippedFrames'] ?? 0,
+        framesInFlight = data['framesInFlight'],
+        busyDroppedFrames = data['busyDroppedFrames'] ?? 0,
+        unmatchedFrames = data['unmatchedFrames'] ?? 0;
+
+  /// The number of frames that have been delivered to Dart.
+  final int deliveredFrames;
+
+  /// The number of frames that have been dropped before being copied.
+  final int droppedFrames;
+
+  /// The number of frames that have been skipped to stay within
+  /// [ImageStreamOptions.maxStreamFps].
+  final int skippedFrames;
+
+  /// The number of frames that are currently on their way to Dart.
+  final int framesInFlight;
+
+  /// The number of frames that have been dropped because all frame analysis
+  /// threads were still busy with earlier frames.
+  final int busyDroppedFrames;
+
+  /// The number of frames that were sent with the last known capture
+  /// properties, because the capture result of the frame itself was not
+  /// available.
+  final int unmatchedFrames;
+}
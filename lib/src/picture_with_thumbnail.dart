@@ -0,0 +1,26 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+import 'package:camera_platform_interface/camera_platform_interface.dart';
+
+/// A picture that is being taken together with a small thumbnail of it.
+///
+/// The [thumbnail] is written while the full resolution picture is being
+/// written, so it usually completes first and can be shown in the meantime.
+/// The [picture] does not wait for it, so it may also complete later.
+class PictureWithThumbnail {
+  /// Creates a picture with a thumbnail from their futures.
+  const PictureWithThumbnail({required this.thumbnail, required this.picture});
+
+  /// The thumbnail of the picture.
+  ///
+  /// Completes with a [CameraException] when the thumbnail could not be
+  /// written or the picture could not be taken.
+  final Future<XFile> thumbnail;
+
+  /// The full resolution picture.
+  ///
+  /// Completes with a [CameraException] when the picture could not be taken.
+  final Future<XFile> picture;
+}
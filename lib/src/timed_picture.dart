@@ -0,0 +1,31 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+import 'package:camera_platform_interface/camera_platform_interface.dart';
+
+/// A picture together with the time it took to reach every phase of the
+/// capture.
+class TimedPicture {
+  /// Creates a picture with its timings.
+  const TimedPicture({required this.file, required this.timings});
+
+  /// Creates the picture from the data sent by the platform.
+  TimedPicture.fromPlatformData(Map<dynamic, dynamic> data)
+      : file = XFile(data['path']),
+        timings = (data['timings'] as Map<dynamic, dynamic>).map(
+            (dynamic phase, dynamic micros) => MapEntry<String, Duration>(
+                phase, Duration(microseconds: micros)));
+
+  /// The picture.
+  final XFile file;
+
+  /// The time from the request to every phase the picture reached.
+  ///
+  /// The phases are `requestReceived`, `afLockStart`, `afLockDone`,
+  /// `precaptureStart`, `precaptureDone`, `stillCaptureSubmitted`,
+  /// `captureCompleted`, `imageAvailable` and `fileWritten`, in this order.
+  /// Phases that were skipped are missing, for example the focus and
+  /// precapture phases when exposure and focus had already converged.
+  final Map<String, Duration> timings;
+}
@@ -0,0 +1,115 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+import 'package:camera/camera.dart';
+import 'package:camera_platform_interface/camera_platform_interface.dart';
+import 'package:flutter/services.dart';
+import 'package:flutter_test/flutter_test.dart';
+
+import 'camera_test.dart';
+import 'utils/method_channel_mock.dart';
+
+void main() {
+  TestWidgetsFlutterBinding.ensureInitialized();
+
+  setUp(() {
+    CameraPlatform.instance = MockCameraPlatform();
+  });
+
+  test('startFrameProcessors() sends processor names and listens for results',
+      () async {
+    MethodChannelMock cameraChannelMock = MethodChannelMock(
+        channelName: 'plugins.flutter.io/camera',
+        methods: {'startFrameProcessors': null});
+    MethodChannelMock resultChannelMock = MethodChannelMock(
+        channelName: 'plugins.flutter.io/camera/frameProcessorResults',
+        methods: {'listen': null});
+
+    CameraController cameraController = CameraController(
+        CameraDescription(
+            name: 'cam',
+            lensDirection: CameraLensDirection.back,
+            sensorOrientation: 90),
+        ResolutionPreset.max);
+    await cameraController.initialize();
+
+    await cameraController
+        .startFrameProcessors(<String>['barcode'], (result) => null);
+
+    expect(cameraChannelMock.log, <Matcher>[
+      isMethodCall('startFrameProcessors', arguments: <String, dynamic>{
+        'processors': <String>['barcode'],
+      })
+    ]);
+    expect(resultChannelMock.log,
+        <Matcher>[isMethodCall('listen', arguments: null)]);
+  });
+
+  test('startFrameProcessors() throws $CameraException for unknown processors',
+      () async {
+    MethodChannelMock(channelName: 'plugins.flutter.io/camera', methods: {
+      'startFrameProcessors': PlatformException(
+          code: 'startFrameProcessorsFailed',
+          message: 'No frame processor registered as barcode')
+    });
+
+    CameraController cameraController = CameraController(
+        CameraDescription(
+            name: 'cam',
+            lensDirection: CameraLensDirection.back,
+            sensorOrientation: 90),
+        ResolutionPreset.max);
+    await cameraController.initialize();
+
+    expect(
+        () => cameraController
+            .startFrameProcessors(<String>['barcode'], (result) => null),
+        throwsA(isA<CameraException>().having(
+            (error) => error.code, 'code', 'startFrameProcessorsFailed')));
+  });
+
+  test('$FrameProcessorResult parses platform data', () {
+    FrameProcessorResult result =
+        FrameProcessorResult.fromPlatformData(<dynamic, dynamic>{
+      'processor': 'barcode',
+      'timestamp': 123456789,
+      'processingTimeMicros': 850,
+      'result': 'ABC-123',
+    });
+
+    expect(result.processor, 'barcode');
+    expect(result.timestamp, 123456789);
+    expect(result.processingTimeMicros, 850);
+    expect(result.result, 'ABC-123');
+  });
+
+  test('getFrameProcessorStats() returns stats by processor name', () async {
+    MethodChannelMock(channelName: 'plugins.flutter.io/camera', methods: {
+      'getFrameProcessorStats': {
+        'barcode': {
+          'processedFrames': 30,
+          'skippedFrames': 4,
+          'overBudgetFrames': 2,
+          'averageProcessingTimeMicros': 7000,
+        }
+      }
+    });
+
+    CameraController cameraController = CameraController(
+        CameraDescription(
+            name: 'cam',
+            lensDirection: CameraLensDirection.back,
+            sensorOrientation: 90),
+        ResolutionPreset.max);
+    await cameraController.initialize();
+
+    Map<String, FrameProcessorStats> stats =
+        await cameraController.getFrameProcessorStats();
+
+    expect(stats['barcode']!.processedFrames, 30);
+    expect(stats['barcode']!.skippedFrames, 4);
+    expect(stats['barcode']!.overBudgetFrames, 2);
+    expect(stats['barcode']!.averageProcessingTimeMicros, 7000);
+  });
+}
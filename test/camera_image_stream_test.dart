@@ -2,6 +2,8 @@
 // Use of this source code is governed by a BSD-style license that can be
 // found in the LICENSE file.
 
+import 'dart:ui';
+
 import 'package:camera/camera.dart';
 import 'package:camera_platform_interface/camera_platform_interface.dart';
 import 'package:flutter_test/flutter_test.dart';
@@ -110,6 +112,79 @@ void main() {
         <Matcher>[isMethodCall('listen', arguments: null)]);
   });
 
+  test('startImageStream() sends $ImageStreamOptions', () async {
+    MethodChannelMock cameraChannelMock = MethodChannelMock(
+        channelName: 'plugins.flutter.io/camera',
+        methods: {'startImageStream': {}});
+    MethodChannelMock(
+        channelName: 'plugins.flutter.io/camera/imageStream',
+        methods: {'listen': {}});
+
+    CameraController cameraController = CameraController(
+        CameraDescription(
+            name: 'cam',
+            lensDirection: CameraLensDirection.back,
+            sensorOrientation: 90),
+        ResolutionPreset.max);
+    await cameraController.initialize();
+
+    await cameraController.startImageStream((image) => null,
+        options: ImageStreamOptions(maxFramesInFlight: 1, maxStreamFps: 10));
+
+    expect(cameraChannelMock.log, <Matcher>[
+      isMethodCall('startImageStream', arguments: <String, dynamic>{
+        'maxFramesInFlight': 1,
+        'maxStreamFps': 10.0,
+      })
+    ]);
+  });
+
+  test('$ImageStreamOptions serializes target size and crop rectangle', () {
+    const ImageStreamOptions options = ImageStreamOptions(
+      targetSize: Size(320, 240),
+      cropRect: Rect.fromLTRB(0.25, 0.2, 0.75, 0.8),
+    );
+
+    expect(options.toMap(), <String, dynamic>{
+      'targetWidth': 320,
+      'targetHeight': 240,
+      'cropLeft': 0.25,
+      'cropTop': 0.2,
+      'cropRight': 0.75,
+      'cropBottom': 0.8,
+    });
+  });
+
+  test('getImageStreamStats() returns $ImageStreamStats', () async {
+    MethodChannelMock(channelName: 'plugins.flutter.io/camera', methods: {
+      'getImageStreamStats': {
+        'deliveredFrames': 10,
+        'droppedFrames': 2,
+        'skippedFrames': 20,
+        'framesInFlight': 1,
+        'busyDroppedFrames': 3,
+        'unmatchedFrames': 4,
+      }
+    });
+
+    CameraController cameraController = CameraController(
+        CameraDescription(
+            name: 'cam',
+            lensDirection: CameraLensDirection.back,
+            sensorOrientation: 90),
+        ResolutionPreset.max);
+    await cameraController.initialize();
+
+    ImageStreamStats stats = await cameraController.getImageStreamStats();
+
+    expect(stats.deliveredFrames, 10);
+    expect(stats.droppedFrames, 2);
+    expect(stats.skippedFrames, 20);
+    expect(stats.framesInFlight, 1);
+    expect(stats.busyDroppedFrames, 3);
+    expect(stats.unmatchedFrames, 4);
+  });
+
   test('stopImageStream() throws $CameraException when uninitialized', () {
     CameraController cameraController = CameraController(
         CameraDescription(
@@ -105,6 +105,28 @@ void main() {
       });
       expect(cameraImage.format.group, ImageFormatGroup.bgra8888);
     });
+    test('$CameraImage has ImageFormatGroup.yuv420 for a luma-only frame',
+        () {
+      debugDefaultTargetPlatformOverride = TargetPlatform.android;
+      CameraImage cameraImage = CameraImage.fromPlatformData(<dynamic, dynamic>{
+        'format': 538982489,
+        'height': 1,
+        'width': 4,
+        'lensAperture': 1.8,
+        'sensorExposureTime': 9991324,
+        'sensorSensitivity': 92.0,
+        'planes': [
+          {
+            'bytes': Uint8List.fromList([1, 2, 3, 4]),
+            'bytesPerPixel': 1,
+            'bytesPerRow': 4,
+          }
+        ]
+      });
+      expect(cameraImage.format.group, ImageFormatGroup.yuv420);
+      expect(cameraImage.planes.length, 1);
+    });
+
     test('$CameraImage has ImageFormatGroup.unknown', () {
       CameraImage cameraImage = CameraImage.fromPlatformData(<dynamic, dynamic>{
         'format': null,
@@ -125,5 +147,55 @@ void main() {
       });
       expect(cameraImage.format.group, ImageFormatGroup.unknown);
     });
+
+    test('$CameraImage can be created from a packet', () {
+      debugDefaultTargetPlatformOverride = TargetPlatform.android;
+      final ByteData packet = ByteData(96 + 6);
+      packet.setInt32(0, 1, Endian.little);
+      packet.setInt32(4, 4, Endian.little);
+      packet.setInt32(8, 1, Endian.little);
+      packet.setInt32(12, 35, Endian.little);
+      packet.setInt32(16, 2, Endian.little);
+      packet.setFloat64(24, 1.8, Endian.little);
+      packet.setInt64(32, 9991324, Endian.little);
+      packet.setFloat64(40, double.nan, Endian.little);
+      // First plane: 4 bytes at offset 96.
+      packet.setInt32(48, 4, Endian.little);
+      packet.setInt32(52, 1, Endian.little);
+      packet.setInt32(56, 96, Endian.little);
+      packet.setInt32(60, 4, Endian.little);
+      // Second plane: 2 bytes at offset 100.
+      packet.setInt32(64, 4, Endian.little);
+      packet.setInt32(68, 2, Endian.little);
+      packet.setInt32(72, 100, Endian.little);
+      packet.setInt32(76, 2, Endian.little);
+      for (int i = 0; i < 6; i++) {
+        packet.setUint8(96 + i, i + 1);
+      }
+
+      CameraImage cameraImage =
+          CameraImage.fromPlatformData(packet.buffer.asUint8List());
+
+      expect(cameraImage.height, 1);
+      expect(cameraImage.width, 4);
+      expect(cameraImage.format.group, ImageFormatGroup.yuv420);
+      expect(cameraImage.lensAperture, 1.8);
+      expect(cameraImage.sensorExposureTime, 9991324);
+      expect(cameraImage.sensorSensitivity, isNull);
+      expect(cameraImage.planes.length, 2);
+      expect(cameraImage.planes[0].bytes, <int>[1, 2, 3, 4]);
+      expect(cameraImage.planes[0].bytesPerRow, 4);
+      expect(cameraImage.planes[0].bytesPerPixel, 1);
+      expect(cameraImage.planes[1].bytes, <int>[5, 6]);
+      expect(cameraImage.planes[1].bytesPerPixel, 2);
+    });
+
+    test('$CameraImage throws for an unsupported packet version', () {
+      final ByteData packet = ByteData(96);
+      packet.setInt32(0, 99, Endian.little);
+
+      expect(() => CameraImage.fromPlatformData(packet.buffer.asUint8List()),
+          throwsArgumentError);
+    });
   });
 }
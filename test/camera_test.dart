@@ -15,6 +15,8 @@ import 'package:flutter_test/flutter_test.dart';
 import 'package:mockito/mockito.dart';
 import 'package:plugin_platform_interface/plugin_platform_interface.dart';
 
+import 'utils/method_channel_mock.dart';
+
 get mockAvailableCameras => [
       CameraDescription(
           name: 'camBack',
@@ -285,6 +287,389 @@ void main() {
       mockPlatformException = false;
     });
 
+    test('setJpegQuality() sends quality', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {'setJpegQuality': null});
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      await cameraController.setJpegQuality(80);
+
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('setJpegQuality',
+            arguments: <String, dynamic>{'quality': 80})
+      ]);
+      expect(() => cameraController.setJpegQuality(101), throwsArgumentError);
+    });
+
+    test('setSyncPicturesToDisk() sends enabled flag', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {'setSyncPicturesToDisk': null});
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      await cameraController.setSyncPicturesToDisk(true);
+
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('setSyncPicturesToDisk',
+            arguments: <String, dynamic>{'enabled': true})
+      ]);
+    });
+
+    test('setZeroShutterLagEnabled() sends enabled flag', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {'setZeroShutterLag': null});
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      await cameraController.setZeroShutterLagEnabled(true);
+
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('setZeroShutterLag',
+            arguments: <String, dynamic>{'enabled': true})
+      ]);
+    });
+
+    test('setPersistentSessionEnabled() sends enabled flag', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {'setPersistentSession': null});
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      await cameraController.setPersistentSessionEnabled(true);
+
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('setPersistentSession',
+            arguments: <String, dynamic>{'enabled': true})
+      ]);
+    });
+
+    test('takePictureBytes() returns bytes', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {
+            'takePicture': Uint8List.fromList(<int>[0xFF, 0xD8])
+          });
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      Uint8List bytes = await cameraController.takePictureBytes();
+
+      expect(bytes, <int>[0xFF, 0xD8]);
+      expect(cameraController.value.isTakingPicture, isFalse);
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('takePicture',
+            arguments: <String, dynamic>{'returnBytes': true})
+      ]);
+    });
+
+    test('takePictureToPath() returns file at path', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {'takePicture': '/data/picture.jpg'});
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      XFile file = await cameraController.takePictureToPath('/data/picture.jpg');
+
+      expect(file.path, '/data/picture.jpg');
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('takePicture',
+            arguments: <String, dynamic>{'path': '/data/picture.jpg'})
+      ]);
+    });
+
+    test('takePictureToPath() sends maxOutputDimension', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {'takePicture': '/data/picture.jpg'});
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      await cameraController.takePictureToPath('/data/picture.jpg',
+          maxOutputDimension: 2048);
+
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('takePicture', arguments: <String, dynamic>{
+          'path': '/data/picture.jpg',
+          'maxOutputDimension': 2048
+        })
+      ]);
+      expect(
+          () => cameraController.takePictureToPath('/data/picture.jpg',
+              maxOutputDimension: 0),
+          throwsArgumentError);
+    });
+
+    test('takePictureToPath() throws $CameraException on $PlatformException',
+        () async {
+      MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {
+            'takePicture': PlatformException(
+                code: 'cannotCreateFile', message: 'No such directory')
+          });
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      await expectLater(
+          cameraController.takePictureToPath('/missing/picture.jpg'),
+          throwsA(isA<CameraException>().having(
+              (error) => error.code, 'code', 'cannotCreateFile')));
+      expect(cameraController.value.isTakingPicture, isFalse);
+    });
+
+    test('takePictureWithTimings() returns file and timings', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {
+            'takePicture': {
+              'path': '/tmp/picture.jpg',
+              'timings': {'requestReceived': 0, 'fileWritten': 41000},
+            }
+          });
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      TimedPicture picture = await cameraController.takePictureWithTimings();
+
+      expect(picture.file.path, '/tmp/picture.jpg');
+      expect(picture.timings['requestReceived'], Duration.zero);
+      expect(picture.timings['fileWritten'], Duration(milliseconds: 41));
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('takePicture',
+            arguments: <String, dynamic>{'includeTimings': true})
+      ]);
+    });
+
+    test('takeQueuedPicture() allows overlapping pictures', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {'takePicture': '/data/picture.jpg'});
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      Future<XFile> first = cameraController.takeQueuedPicture();
+      Future<XFile> second =
+          cameraController.takeQueuedPicture(path: '/data/picture.jpg');
+      expect(cameraController.value.isTakingPicture, isTrue);
+      await first;
+      await second;
+
+      expect(cameraController.value.isTakingPicture, isFalse);
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('takePicture', arguments: <String, dynamic>{}),
+        isMethodCall('takePicture',
+            arguments: <String, dynamic>{'path': '/data/picture.jpg'})
+      ]);
+    });
+
+    test('takePictureBurst() returns files in order', () async {
+      MethodChannelMock cameraChannelMock = MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {
+            'takePictureBurst': <String>['/tmp/a.jpg', '/tmp/b.jpg']
+          });
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      List<XFile> files = await cameraController.takePictureBurst(2,
+          interval: Duration(milliseconds: 100));
+
+      expect(files.map((XFile file) => file.path),
+          <String>['/tmp/a.jpg', '/tmp/b.jpg']);
+      expect(cameraController.value.isTakingPicture, isFalse);
+      expect(cameraChannelMock.log, <Matcher>[
+        isMethodCall('takePictureBurst',
+            arguments: <String, dynamic>{'count': 2, 'intervalMs': 100})
+      ]);
+    });
+
+    test('takePictureBurst() throws $CameraException on $PlatformException',
+        () async {
+      MethodChannelMock(
+          channelName: 'plugins.flutter.io/camera',
+          methods: {
+            'takePictureBurst': PlatformException(
+                code: 'invalidBurst', message: 'Too many pictures')
+          });
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      expect(
+          cameraController.takePictureBurst(20),
+          throwsA(isA<CameraException>().having(
+              (error) => error.code, 'code', 'invalidBurst')));
+    });
+
+    test('getThreadStats() returns $CameraThreadStats', () async {
+      MethodChannelMock(channelName: 'plugins.flutter.io/camera', methods: {
+        'getThreadStats': {
+          'controlThreads': 1,
+          'analysisThreads': 8,
+          'ioThreads': 4,
+          'shutDown': false,
+        }
+      });
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      CameraThreadStats stats = await cameraController.getThreadStats();
+
+      expect(stats.controlThreads, 1);
+      expect(stats.analysisThreads, 8);
+      expect(stats.ioThreads, 4);
+      expect(stats.shutDown, isFalse);
+    });
+
+    test('getCaptureStats() returns $CaptureStats', () async {
+      MethodChannelMock(channelName: 'plugins.flutter.io/camera', methods: {
+        'getCaptureStats': {
+          'zeroShutterLagCaptures': 1,
+          'fastPathCaptures': 2,
+          'precaptureCaptures': 3,
+          'io': {
+            'queueDepth': 1,
+            'maxQueueDepth': 4,
+            'queueCapacity': 10,
+            'submittedWrites': 6,
+            'completedWrites': 5,
+            'rejectedWrites': 2,
+            'averageQueueWaitMicros': 100,
+            'averageWriteMicros': 20000,
+            'maxWriteMicros': 50000,
+          },
+          'latency': {
+            'recordedCaptures': 12,
+            'windowSize': 10,
+            'phases': {
+              'fileWritten': {
+                'count': 10,
+                'p50Micros': 5000,
+                'p90Micros': 9000,
+                'p99Micros': 10000,
+              },
+            },
+          },
+          'session': {
+            'persistent': true,
+            'configurations': 2,
+            'repeatingRequestSwitches': 5,
+          },
+          'open': {
+            'openRequested': 0,
+            'deviceOpened': 120000,
+            'outputsPrepared': 40000,
+            'firstFrame': 310000,
+          },
+        }
+      });
+      CameraController cameraController = CameraController(
+          CameraDescription(
+              name: 'cam',
+              lensDirection: CameraLensDirection.back,
+              sensorOrientation: 90),
+          ResolutionPreset.max);
+      await cameraController.initialize();
+
+      CaptureStats stats = await cameraController.getCaptureStats();
+
+      expect(stats.zeroShutterLagCaptures, 1);
+      expect(stats.fastPathCaptures, 2);
+      expect(stats.precaptureCaptures, 3);
+      expect(stats.io!.queueDepth, 1);
+      expect(stats.io!.maxQueueDepth, 4);
+      expect(stats.io!.queueCapacity, 10);
+      expect(stats.io!.submittedWrites, 6);
+      expect(stats.io!.completedWrites, 5);
+      expect(stats.io!.rejectedWrites, 2);
+      expect(stats.io!.averageQueueWaitMicros, 100);
+      expect(stats.io!.averageWriteMicros, 20000);
+      expect(stats.io!.maxWriteMicros, 50000);
+      expect(stats.latency!.recordedCaptures, 12);
+      expect(stats.latency!.windowSize, 10);
+      expect(stats.latency!.phases['fileWritten']!.count, 10);
+      expect(stats.latency!.phases['fileWritten']!.p50,
+          Duration(milliseconds: 5));
+      expect(stats.latency!.phases['fileWritten']!.p99,
+          Duration(milliseconds: 10));
+      expect(stats.session!.persistent, isTrue);
+      expect(stats.session!.configurations, 2);
+      expect(stats.session!.repeatingRequestSwitches, 5);
+      expect(stats.open!.phases['deviceOpened'], Duration(milliseconds: 120));
+      expect(stats.open!.phases.containsKey('sessionConfigured'), isFalse);
+      expect(stats.open!.timeToFirstFrame, Duration(milliseconds: 310));
+    });
+
     test('startVideoRecording() throws $CameraException when uninitialized',
         () async {
       CameraController cameraController = CameraController(